@@ -19,6 +19,7 @@ CREATE TABLE Shows (
     hallType NVARCHAR(50), -- 'Standard Hall' or 'Premium Hall'
     totalSeats INT NOT NULL DEFAULT 100,
     availableSeats INT NOT NULL DEFAULT 100,
+    journalSeq BIGINT NOT NULL DEFAULT 0, -- Last seat journal entry applied (SEAT_INVENTORY=memory)
     createdAt DATETIME2 DEFAULT GETDATE(),
     FOREIGN KEY (movieId) REFERENCES Movies(movieId) ON DELETE CASCADE,
     UNIQUE (movieId, location, showTime) -- Ensure each movie+location+time is unique
@@ -35,12 +36,36 @@ CREATE TABLE Bookings (
     popcornQuantity INT DEFAULT 0,
     totalPrice DECIMAL(10,2) NOT NULL,
     bookingDate DATETIME2 DEFAULT GETDATE(),
+    idempotencyKey NVARCHAR(64) NULL, -- Idempotency-Key header of the request that created it
+    requestFingerprint CHAR(64) NULL, -- SHA-256 of that request's parameters, to tell a retry from a reused key
+    FOREIGN KEY (showId) REFERENCES Shows(showId) ON DELETE CASCADE
+);
+
+-- Seats taken by each booking (seat 0 = A1, 1 = A2, ... ten per row)
+-- The primary key is what stops two servers selling the same seat
+CREATE TABLE BookingSeats (
+    bookingId INT NOT NULL,
+    showId INT NOT NULL,
+    seatNo INT NOT NULL,
+    PRIMARY KEY (showId, seatNo),
+    FOREIGN KEY (bookingId) REFERENCES Bookings(bookingId) ON DELETE CASCADE
+);
+
+-- Seat holds in progress; their seats are already taken from Shows.availableSeats.
+-- Kept here so a restart can give back expired holds and keep the others
+CREATE TABLE SeatHolds (
+    token VARCHAR(32) PRIMARY KEY,
+    showId INT NOT NULL,
+    quantity INT NOT NULL,
+    expiresAt BIGINT NOT NULL, -- Epoch milliseconds
     FOREIGN KEY (showId) REFERENCES Shows(showId) ON DELETE CASCADE
 );
 
 -- Indexes for better performance
 CREATE INDEX idx_shows_movie_location_time ON Shows(movieId, location, showTime);
 CREATE INDEX idx_bookings_show ON Bookings(showId);
-CREATE INDEX idx_bookings_user ON Bookings(userEmail);
-
-
+-- Keyset pagination of a user's history seeks on (bookingDate, bookingId), newest first
+CREATE INDEX idx_bookings_user_date ON Bookings(userEmail, bookingDate DESC, bookingId DESC);
+CREATE INDEX idx_booking_seats_booking ON BookingSeats(bookingId);
+-- A retried POST /booking finds its earlier booking instead of booking again
+CREATE UNIQUE INDEX ux_bookings_idempotency ON Bookings(userEmail, idempotencyKey) WHERE idempotencyKey IS NOT NULL;
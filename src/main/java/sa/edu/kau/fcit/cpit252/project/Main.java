@@ -4,13 +4,25 @@ import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.servlet.ServletContextHandler;
 import org.eclipse.jetty.servlet.ServletHolder;
 
+import sa.edu.kau.fcit.cpit252.project.controller.AdminStatsServlet;
+import sa.edu.kau.fcit.cpit252.project.controller.AvailabilityStreamServlet;
+import sa.edu.kau.fcit.cpit252.project.controller.BookingHistoryServlet;
 import sa.edu.kau.fcit.cpit252.project.controller.BookingServlet;
+import sa.edu.kau.fcit.cpit252.project.controller.BulkAvailabilityServlet;
 import sa.edu.kau.fcit.cpit252.project.controller.LoginServlet;
 import sa.edu.kau.fcit.cpit252.project.controller.MovieApiServlet;
 import sa.edu.kau.fcit.cpit252.project.controller.PriceCalculationServlet;
+import sa.edu.kau.fcit.cpit252.project.controller.ReadinessServlet;
 import sa.edu.kau.fcit.cpit252.project.controller.SeatAvailabilityServlet;
+import sa.edu.kau.fcit.cpit252.project.controller.SeatHoldServlet;
 import sa.edu.kau.fcit.cpit252.project.controller.SignupServlet;
 import sa.edu.kau.fcit.cpit252.project.controller.UserInfoServlet;
+import sa.edu.kau.fcit.cpit252.project.controller.WaitingRoomServlet;
+import sa.edu.kau.fcit.cpit252.project.service.SeatHolds;
+import sa.edu.kau.fcit.cpit252.project.service.WarmupService;
+import sa.edu.kau.fcit.cpit252.project.store.InMemoryMovieStore;
+import sa.edu.kau.fcit.cpit252.project.store.SeatInventory;
+import sa.edu.kau.fcit.cpit252.project.store.StoreFactory;
 
 /**
  * Main class to start the embedded Jetty server.
@@ -23,6 +35,26 @@ public class Main {
         int port = System.getenv("PORT") != null 
             ? Integer.parseInt(System.getenv("PORT")) 
             : 8080;
+        
+        // Storage backend: STORE_MODE=memory runs without the database (no JDBC I/O)
+        if ("memory".equalsIgnoreCase(System.getenv("STORE_MODE"))) {
+            StoreFactory.setMode(StoreFactory.Mode.IN_MEMORY);
+            seedMovies(System.getenv("MEMORY_SEED_MOVIES"));
+        }
+        
+        // Replay the seat journal before taking traffic: a failed recovery stops startup here
+        // instead of failing the first booking
+        if (StoreFactory.getMode() == StoreFactory.Mode.JDBC && SeatInventory.isEnabled()) {
+            try {
+                SeatInventory.getInstance();
+            } catch (IllegalStateException e) {
+                System.err.println("❌ " + e.getMessage() + ": " + e.getCause());
+                System.exit(1);
+            }
+        }
+        // Give back the seats of holds that expired while the server was down
+        SeatHolds.getInstance();
+        
         Server server = new Server(port);
         
         // Create servlet context
@@ -31,13 +63,36 @@ public class Main {
         server.setHandler(context);
         
         // Register all servlets
-        context.addServlet(new ServletHolder(new BookingServlet()), "/booking");
+        // Database-backed endpoints complete asynchronously on the DatabaseExecutor
+        ServletHolder bookingHolder = new ServletHolder(new BookingServlet());
+        bookingHolder.setAsyncSupported(true);
+        context.addServlet(bookingHolder, "/booking");
+        ServletHolder historyHolder = new ServletHolder(new BookingHistoryServlet());
+        historyHolder.setAsyncSupported(true);
+        context.addServlet(historyHolder, "/bookings");
         context.addServlet(new ServletHolder(new PriceCalculationServlet()), "/calculateprice");
-        context.addServlet(new ServletHolder(new SeatAvailabilityServlet()), "/seatavailability");
-        context.addServlet(new ServletHolder(new MovieApiServlet()), "/movieapi");
+        ServletHolder seatHolder = new ServletHolder(new SeatAvailabilityServlet());
+        seatHolder.setAsyncSupported(true);
+        context.addServlet(seatHolder, "/seatavailability");
+        ServletHolder bulkHolder = new ServletHolder(new BulkAvailabilityServlet());
+        bulkHolder.setAsyncSupported(true);
+        context.addServlet(bulkHolder, "/seatavailability/bulk");
+        ServletHolder streamHolder = new ServletHolder(new AvailabilityStreamServlet());
+        streamHolder.setAsyncSupported(true);
+        context.addServlet(streamHolder, "/seatavailability/stream");
+        ServletHolder holdHolder = new ServletHolder(new SeatHoldServlet());
+        holdHolder.setAsyncSupported(true);
+        context.addServlet(holdHolder, "/hold");
+        context.addServlet(new ServletHolder(new WaitingRoomServlet()), "/queue");
+        // Waits on OMDB without holding a server thread
+        ServletHolder movieApiHolder = new ServletHolder(new MovieApiServlet());
+        movieApiHolder.setAsyncSupported(true);
+        context.addServlet(movieApiHolder, "/movieapi");
         context.addServlet(new ServletHolder(new LoginServlet()), "/login");
         context.addServlet(new ServletHolder(new SignupServlet()), "/signup");
         context.addServlet(new ServletHolder(new UserInfoServlet()), "/userinfo");
+        context.addServlet(new ServletHolder(new AdminStatsServlet()), "/admin/stats");
+        context.addServlet(new ServletHolder(new ReadinessServlet()), "/ready");
         
         // Start server
         System.out.println("╔══════════════════════════════════════════════════════════╗");
@@ -48,17 +103,34 @@ public class Main {
         
         server.start();
         
+        // Warm up behind the readiness probe: /ready answers 503 until the required steps pass.
+        // WARMUP=false skips it (e.g. local development)
+        if (!"false".equalsIgnoreCase(System.getenv("WARMUP"))) {
+            Thread warmup = new Thread(() -> new WarmupService().warmUpUntilReady(), "warmup");
+            warmup.setDaemon(true);
+            warmup.start();
+        } else {
+            WarmupService.markReady();
+        }
+        
         System.out.println();
         System.out.println("✅ Server started successfully!");
+        System.out.println("💾 Storage backend: " + StoreFactory.getMode());
         System.out.println();
         System.out.println("📍 API Endpoints:");
         System.out.println("   • POST /booking          - Create a booking");
         System.out.println("   • GET  /calculateprice   - Calculate ticket prices");
         System.out.println("   • GET  /seatavailability - Check available seats");
+        System.out.println("   • GET  /seatavailability/bulk   - Availability of all shows of a movie");
+        System.out.println("   • GET  /seatavailability/stream - Live seat availability (SSE)");
+        System.out.println("   • POST /hold             - Hold seats during checkout");
+        System.out.println("   • POST /queue            - Join the waiting room of an on-sale");
         System.out.println("   • GET  /movieapi         - Search movies from OMDB");
         System.out.println("   • POST /login            - User login");
         System.out.println("   • POST /signup           - User registration");
         System.out.println("   • GET  /userinfo         - Get user info");
+        System.out.println("   • GET  /bookings         - Booking history (paged or streamed)");
+        System.out.println("   • GET  /ready            - Readiness probe");
         System.out.println();
         System.out.println("🌐 Open your HTML files in a browser to use the application.");
         System.out.println("   Example: file:///C:/Users/yazan/OneDrive/Documents/course-project-ticketing/index.html");
@@ -74,5 +146,21 @@ public class Main {
         
         server.join();
     }
+    
+    /**
+     * Adds comma-separated movie names to the in-memory movie store so
+     * bookings can be made without a database.
+     */
+    private static void seedMovies(String movieNames) {
+        if (movieNames == null) {
+            return;
+        }
+        InMemoryMovieStore movies = InMemoryMovieStore.getInstance();
+        for (String name : movieNames.split(",")) {
+            if (!name.trim().isEmpty()) {
+                movies.create(name.trim(), null, null);
+            }
+        }
+    }
 }
 
@@ -0,0 +1,237 @@
+package sa.edu.kau.fcit.cpit252.project.controller;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import sa.edu.kau.fcit.cpit252.project.service.OmdbCache;
+import sa.edu.kau.fcit.cpit252.project.service.OmdbCircuitBreaker;
+import sa.edu.kau.fcit.cpit252.project.service.OmdbDiskStore;
+import sa.edu.kau.fcit.cpit252.project.service.OmdbSingleFlight;
+import sa.edu.kau.fcit.cpit252.project.service.SeatHolds;
+import sa.edu.kau.fcit.cpit252.project.service.WaitingRoom;
+import sa.edu.kau.fcit.cpit252.project.store.BookingWriter;
+import sa.edu.kau.fcit.cpit252.project.store.DatabaseConnection;
+import sa.edu.kau.fcit.cpit252.project.store.DatabaseExecutor;
+import sa.edu.kau.fcit.cpit252.project.store.JdbcShowStore;
+import sa.edu.kau.fcit.cpit252.project.store.QueryMetrics;
+import sa.edu.kau.fcit.cpit252.project.store.SeatCountLoader;
+import sa.edu.kau.fcit.cpit252.project.store.SeatInventory;
+import sa.edu.kau.fcit.cpit252.project.store.ShowKeyCache;
+import sa.edu.kau.fcit.cpit252.project.store.StoreFactory;
+
+/**
+ * Admin endpoint exposing database metrics as JSON: connection pools,
+ * the database executor and per-statement query metrics.
+ *
+ * Only enabled when ADMIN_TOKEN is set; callers must send it in the
+ * X-Admin-Token header.
+ */
+@WebServlet("/admin/stats")
+public class AdminStatsServlet extends HttpServlet {
+
+    private static final String ADMIN_TOKEN = System.getenv("ADMIN_TOKEN");
+
+    private Gson gson;
+
+    @Override
+    public void init() throws ServletException {
+        this.gson = new GsonBuilder().setPrettyPrinting().create();
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp)
+            throws ServletException, IOException {
+        
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
+        
+        if (ADMIN_TOKEN == null || ADMIN_TOKEN.isEmpty()) {
+            resp.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        
+        String token = req.getHeader("X-Admin-Token");
+        if (token == null || !MessageDigest.isEqual(
+                token.getBytes(StandardCharsets.UTF_8), ADMIN_TOKEN.getBytes(StandardCharsets.UTF_8))) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("error", "Invalid admin token");
+            resp.setStatus(HttpServletResponse.SC_FORBIDDEN);
+            resp.getWriter().print(gson.toJson(response));
+            return;
+        }
+        
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("storeMode", StoreFactory.getMode().name());
+        
+        if (StoreFactory.getMode() == StoreFactory.Mode.JDBC) {
+            DatabaseConnection db = DatabaseConnection.getInstance();
+            response.put("primaryPool", db.getPoolStats());
+            if (db.hasReadReplica()) {
+                response.put("readPool", db.getReadPoolStats());
+            }
+            if (SeatInventory.isEnabled()) {
+                SeatInventory inventory = SeatInventory.getInstance();
+                Map<String, Object> inventoryStats = new LinkedHashMap<>();
+                inventoryStats.put("trackedShows", inventory.getTrackedShows());
+                inventoryStats.put("unflushed", inventory.getUnflushedCount());
+                inventoryStats.put("flushes", inventory.getFlushCount());
+                inventoryStats.put("flushedEntries", inventory.getFlushedEntries());
+                inventoryStats.put("largestBatch", inventory.getLargestBatch());
+                inventoryStats.put("flushFailures", inventory.getFlushFailures());
+                response.put("seatInventory", inventoryStats);
+            }
+            ShowKeyCache showKeys = ((JdbcShowStore) StoreFactory.showStore()).getShowKeyCache();
+            Map<String, Object> showKeyStats = new LinkedHashMap<>();
+            showKeyStats.put("entries", showKeys.size());
+            showKeyStats.put("missingEntries", showKeys.getMissingCount());
+            showKeyStats.put("hits", showKeys.getHitCount());
+            showKeyStats.put("misses", showKeys.getMissCount());
+            showKeyStats.put("negativeHits", showKeys.getNegativeHitCount());
+            showKeyStats.put("joinedCreations", showKeys.getJoinedCount());
+            showKeyStats.put("evictions", showKeys.getEvictionCount());
+            response.put("showKeyCache", showKeyStats);
+            SeatCountLoader seatCounts = StoreFactory.seatCountLoader();
+            if (seatCounts != null) {
+                Map<String, Object> batchingStats = new LinkedHashMap<>();
+                batchingStats.put("windowMs", seatCounts.getWindowMs());
+                batchingStats.put("maxBatch", seatCounts.getMaxBatch());
+                batchingStats.put("requests", seatCounts.getRequestCount());
+                batchingStats.put("merged", seatCounts.getMergedCount());
+                batchingStats.put("batches", seatCounts.getBatchCount());
+                batchingStats.put("fullBatches", seatCounts.getFullBatchCount());
+                batchingStats.put("meanBatchSize", seatCounts.getMeanBatchSize());
+                batchingStats.put("largestBatch", seatCounts.getLargestBatch());
+                response.put("seatLookupBatching", batchingStats);
+            }
+            BookingWriter writer = StoreFactory.bookingWriter();
+            if (writer != null) {
+                Map<String, Object> writerStats = new LinkedHashMap<>();
+                writerStats.put("maxRows", writer.getMaxRows());
+                writerStats.put("maxWaitMs", writer.getMaxWaitMs());
+                writerStats.put("queued", writer.getQueuedCount());
+                writerStats.put("batches", writer.getBatchCount());
+                writerStats.put("rows", writer.getRowCount());
+                writerStats.put("meanBatchSize", writer.getMeanBatchSize());
+                writerStats.put("largestBatch", writer.getLargestBatch());
+                writerStats.put("fullFlushes", writer.getFullFlushCount());
+                writerStats.put("timedFlushes", writer.getTimedFlushCount());
+                writerStats.put("notEnoughSeats", writer.getNotEnoughSeatsCount());
+                writerStats.put("fallbacks", writer.getFallbackCount());
+                writerStats.put("batchSizeHistogram", writer.getBatchSizeHistogram());
+                response.put("bookingWriter", writerStats);
+            }
+        }
+        
+        DatabaseExecutor executor = DatabaseExecutor.getInstance();
+        Map<String, Object> executorStats = new LinkedHashMap<>();
+        executorStats.put("active", executor.getActiveCount());
+        executorStats.put("queued", executor.getQueuedCount());
+        executorStats.put("rejected", executor.getRejectedCount());
+        response.put("executor", executorStats);
+        
+        OmdbCache omdbCache = OmdbCache.getInstance();
+        Map<String, Object> omdbStats = new LinkedHashMap<>();
+        omdbStats.put("entries", omdbCache.size());
+        omdbStats.put("weightBytes", omdbCache.getWeight());
+        omdbStats.put("maxWeightBytes", omdbCache.getMaxWeight());
+        omdbStats.put("hits", omdbCache.getHitCount());
+        omdbStats.put("misses", omdbCache.getMissCount());
+        omdbStats.put("hitRate", omdbCache.getHitRate());
+        omdbStats.put("expirations", omdbCache.getExpirationCount());
+        omdbStats.put("evictions", omdbCache.getEvictionCount());
+        omdbStats.put("rejections", omdbCache.getRejectionCount());
+        omdbStats.put("staleHits", omdbCache.getStaleHitCount());
+        response.put("omdbCache", omdbStats);
+        
+        OmdbSingleFlight omdbCalls = OmdbSingleFlight.getInstance();
+        Map<String, Object> singleFlightStats = new LinkedHashMap<>();
+        singleFlightStats.put("timeoutMs", omdbCalls.getTimeoutMs());
+        singleFlightStats.put("inFlight", omdbCalls.getInFlightCount());
+        singleFlightStats.put("calls", omdbCalls.getCallCount());
+        singleFlightStats.put("joined", omdbCalls.getJoinedCount());
+        singleFlightStats.put("timeouts", omdbCalls.getTimeoutCount());
+        response.put("omdbSingleFlight", singleFlightStats);
+        
+        OmdbDiskStore omdbStore = OmdbDiskStore.getInstance();
+        if (omdbStore != null) {
+            Map<String, Object> storeStats = new LinkedHashMap<>();
+            storeStats.put("entries", omdbStore.size());
+            storeStats.put("dataBytes", omdbStore.getDataBytes());
+            storeStats.put("liveBytes", omdbStore.getLiveBytes());
+            storeStats.put("generation", omdbStore.getGeneration());
+            storeStats.put("hits", omdbStore.getHitCount());
+            storeStats.put("misses", omdbStore.getMissCount());
+            storeStats.put("expiredReads", omdbStore.getExpiredReadCount());
+            storeStats.put("compactions", omdbStore.getCompactionCount());
+            response.put("omdbStore", storeStats);
+        }
+        
+        OmdbCircuitBreaker omdbBreaker = OmdbCircuitBreaker.getInstance();
+        Map<String, Object> breakerStats = new LinkedHashMap<>();
+        breakerStats.put("state", omdbBreaker.getState().name());
+        breakerStats.put("failurePercent", omdbBreaker.getFailurePercent());
+        breakerStats.put("slowPercent", omdbBreaker.getSlowPercent());
+        breakerStats.put("opened", omdbBreaker.getOpenedCount());
+        breakerStats.put("rejected", omdbBreaker.getRejectedCount());
+        response.put("omdbCircuitBreaker", breakerStats);
+        
+        SeatHolds seatHolds = SeatHolds.getInstance();
+        Map<String, Object> holdStats = new LinkedHashMap<>();
+        holdStats.put("active", seatHolds.getActiveCount());
+        holdStats.put("created", seatHolds.getCreatedCount());
+        holdStats.put("confirmed", seatHolds.getConfirmedCount());
+        holdStats.put("released", seatHolds.getReleasedCount());
+        holdStats.put("expired", seatHolds.getExpiredCount());
+        holdStats.put("pendingReleases", seatHolds.getPendingReleaseCount());
+        holdStats.put("recovered", seatHolds.getRecoveredCount());
+        response.put("seatHolds", holdStats);
+
+        AvailabilityHub hub = AvailabilityHub.getInstance();
+        Map<String, Object> streamStats = new LinkedHashMap<>();
+        streamStats.put("maxUpdatesPerSecond", hub.getMaxUpdatesPerSecond());
+        streamStats.put("subscribers", hub.getSubscriberCount());
+        streamStats.put("streamedShows", hub.getStreamedShowCount());
+        streamStats.put("countReads", hub.getReadCount());
+        streamStats.put("events", hub.getEventCount());
+        streamStats.put("deliveries", hub.getDeliveryCount());
+        streamStats.put("skippedBySlowClients", hub.getSkippedCount());
+        response.put("availabilityStream", streamStats);
+
+        IdempotencyCache idempotency = IdempotencyCache.getInstance();
+        Map<String, Object> idempotencyStats = new LinkedHashMap<>();
+        idempotencyStats.put("entries", idempotency.size());
+        idempotencyStats.put("replays", idempotency.getHitCount());
+        idempotencyStats.put("firstRequests", idempotency.getMissCount());
+        response.put("idempotency", idempotencyStats);
+
+        WaitingRoom waitingRoom = WaitingRoom.getInstance();
+        Map<String, Object> waitingRoomStats = new LinkedHashMap<>();
+        waitingRoomStats.put("admitPerSecond", waitingRoom.getAdmitPerSecond());
+        waitingRoomStats.put("rooms", waitingRoom.getRoomStats());
+        waitingRoomStats.put("admissionsIssued", waitingRoom.getAdmissionsIssuedCount());
+        waitingRoomStats.put("rejectedTokens", waitingRoom.getRejectedCount());
+        response.put("waitingRoom", waitingRoomStats);
+        
+        QueryMetrics queryMetrics = QueryMetrics.getInstance();
+        Map<String, Object> queries = new LinkedHashMap<>();
+        queries.put("slowQueryThresholdMs", queryMetrics.getSlowQueryThresholdMs());
+        queries.put("slowQueries", queryMetrics.getSlowQueryCount());
+        queries.put("statements", queryMetrics.snapshot());
+        response.put("queries", queries);
+        
+        resp.getWriter().print(gson.toJson(response));
+    }
+}
@@ -0,0 +1,122 @@
+package sa.edu.kau.fcit.cpit252.project.controller;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.google.gson.Gson;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import sa.edu.kau.fcit.cpit252.project.store.DatabaseExecutor;
+
+/**
+ * JSON response for a request handled asynchronously.
+ *
+ * The servlet starts async processing, hands the work to a CompletableFuture
+ * and returns, freeing the request thread. The response is written and the
+ * async context completed exactly once: by the future's callback or by the
+ * timeout, whichever comes first.
+ */
+final class AsyncJsonResponse {
+
+    static final long TIMEOUT_MS = 30_000;
+    static final int RETRY_AFTER_SECONDS = 1;
+
+    private final AsyncContext async;
+    private final HttpServletResponse resp;
+    private final Gson gson;
+    private final AtomicBoolean done = new AtomicBoolean();
+
+    private AsyncJsonResponse(AsyncContext async, HttpServletResponse resp, Gson gson) {
+        this.async = async;
+        this.resp = resp;
+        this.gson = gson;
+    }
+
+    static AsyncJsonResponse start(HttpServletRequest req, HttpServletResponse resp, Gson gson) {
+        AsyncContext async = req.startAsync();
+        async.setTimeout(TIMEOUT_MS);
+        AsyncJsonResponse response = new AsyncJsonResponse(async, resp, gson);
+        async.addListener(new AsyncListener() {
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                Map<String, Object> body = new HashMap<>();
+                body.put("success", false);
+                body.put("error", "Request timed out");
+                response.send(HttpServletResponse.SC_SERVICE_UNAVAILABLE, body);
+            }
+
+            @Override
+            public void onComplete(AsyncEvent event) {
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+        return response;
+    }
+
+    /**
+     * Sets a response header; call before {@link #send}.
+     */
+    void setHeader(String name, String value) {
+        resp.setHeader(name, value);
+    }
+
+    /**
+     * Writes the body with the given status and completes the request.
+     * Ignored if the response was already sent (e.g. after a timeout).
+     */
+    void send(int status, Map<String, Object> body) {
+        if (!done.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            resp.setStatus(status);
+            resp.getWriter().print(gson.toJson(body));
+        } catch (IOException e) {
+            // Client went away; nothing left to report
+        } finally {
+            async.complete();
+        }
+    }
+
+    /**
+     * Maps a failed future to a response: 503 with Retry-After when the
+     * database bulkhead rejected the work, 400 for input rejected by
+     * validation that could only run in the background (an
+     * IllegalArgumentException), 500 otherwise. An IllegalStateException is
+     * a server fault, such as a store that failed to start.
+     */
+    void sendFailure(Throwable error) {
+        Throwable cause = DatabaseExecutor.unwrap(error);
+        Map<String, Object> body = new HashMap<>();
+        body.put("success", false);
+        if (cause instanceof RejectedExecutionException) {
+            resp.setHeader("Retry-After", String.valueOf(RETRY_AFTER_SECONDS));
+            body.put("error", "Server is busy, please retry shortly");
+            send(HttpServletResponse.SC_SERVICE_UNAVAILABLE, body);
+        } else if (cause instanceof IllegalArgumentException) {
+            body.put("error", cause.getMessage());
+            send(HttpServletResponse.SC_BAD_REQUEST, body);
+        } else if (cause instanceof SQLException) {
+            body.put("error", "Database error: " + cause.getMessage());
+            send(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, body);
+        } else {
+            body.put("error", "Internal error: " + cause.getMessage());
+            send(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, body);
+        }
+    }
+}
@@ -0,0 +1,425 @@
+package sa.edu.kau.fcit.cpit252.project.controller;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.google.gson.Gson;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import sa.edu.kau.fcit.cpit252.project.model.Show;
+import sa.edu.kau.fcit.cpit252.project.service.ShowService;
+import sa.edu.kau.fcit.cpit252.project.store.SeatChanges;
+
+/**
+ * Fans seat availability changes out to Server-Sent Events subscribers.
+ *
+ * Stores report changed showIds through {@link SeatChanges}; that only
+ * marks the show dirty. One ticker thread runs SSE_MAX_UPDATES_PER_SECOND
+ * times a second and reads the counts of all dirty shows that have
+ * subscribers in one query on the database bulkhead; when the query
+ * completes, an event is pushed for each show whose count changed. Only one
+ * query is in flight at a time: a tick that finds the last one still
+ * running leaves the dirty shows for the next tick. However many bookings
+ * hit a show, its subscribers get at most that many events per second, and
+ * each event is serialized once for all of them.
+ *
+ * Writes use non-blocking servlet output: the ticker hands every
+ * subscriber its event and moves on, and Jetty calls back when a slow
+ * connection can take more. A subscriber keeps only the newest pending
+ * event, so a client that falls behind skips to the current count instead
+ * of buffering a backlog.
+ */
+final class AvailabilityHub {
+
+    private static final int MAX_UPDATES_PER_SECOND = System.getenv("SSE_MAX_UPDATES_PER_SECOND") != null
+        ? Integer.parseInt(System.getenv("SSE_MAX_UPDATES_PER_SECOND"))
+        : 4;
+
+    static final int MAX_SUBSCRIBERS = System.getenv("SSE_MAX_SUBSCRIBERS") != null
+        ? Integer.parseInt(System.getenv("SSE_MAX_SUBSCRIBERS"))
+        : 10_000;
+
+    // Re-reads every watched show now and then, to pick up bookings made by other instances
+    private static final long RESYNC_MS = 10_000;
+    // Below common proxy and connector idle timeouts
+    private static final long HEARTBEAT_MS = 15_000;
+
+    static final int RECONNECT_MS = 3_000;
+
+    private static final byte[] HEARTBEAT = ": keep-alive\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private static final AvailabilityHub INSTANCE = new AvailabilityHub(new ShowService(), MAX_UPDATES_PER_SECOND);
+
+    private static final class Feed {
+        final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+        // Last count pushed; by one count query at a time, except for the first subscriber
+        volatile int lastSeats = -1;
+    }
+
+    private final ShowService showService;
+    private final int maxUpdatesPerSecond;
+    private final SeatChanges.Listener listener;
+    private final Gson gson = new Gson();
+    private final Map<Integer, Feed> feeds = new ConcurrentHashMap<>();
+    private final Set<Integer> dirty = ConcurrentHashMap.newKeySet();
+    // Shows changed last tick, read once more in case a commit landed after the first read
+    private Set<Integer> settling = new HashSet<>();
+    // Set while a count query runs; its completion owns Feed.lastSeats until then
+    private final AtomicBoolean reading = new AtomicBoolean();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ScheduledExecutorService ticker;
+    private long nextResync;
+    private long nextHeartbeat;
+
+    private final AtomicLong events = new AtomicLong();
+    private final AtomicLong deliveries = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong reads = new AtomicLong();
+
+    AvailabilityHub(ShowService showService, int maxUpdatesPerSecond) {
+        this.showService = showService;
+        this.maxUpdatesPerSecond = maxUpdatesPerSecond;
+        this.listener = showId -> {
+            if (feeds.containsKey(showId)) {
+                dirty.add(showId);
+            }
+        };
+        SeatChanges.addListener(listener);
+        long tickMs = Math.max(1, 1000 / maxUpdatesPerSecond);
+        this.ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "availability-stream");
+            t.setDaemon(true);
+            return t;
+        });
+        long now = System.currentTimeMillis();
+        nextResync = now + RESYNC_MS;
+        nextHeartbeat = now + HEARTBEAT_MS;
+        ticker.scheduleWithFixedDelay(this::tick, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    static AvailabilityHub getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Stops the ticker and stops listening for seat changes. Open streams
+     * are left to their containers.
+     */
+    void close() {
+        SeatChanges.removeListener(listener);
+        ticker.shutdownNow();
+    }
+
+    /**
+     * Reserves a subscriber slot.
+     *
+     * @return false if the server already streams to SSE_MAX_SUBSCRIBERS clients
+     */
+    boolean tryAcquire() {
+        while (true) {
+            int current = subscriberCount.get();
+            if (current >= MAX_SUBSCRIBERS) {
+                return false;
+            }
+            if (subscriberCount.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Gives back a slot from {@link #tryAcquire} that was not used.
+     */
+    void releaseSlot() {
+        subscriberCount.decrementAndGet();
+    }
+
+    /**
+     * Starts streaming a show to an async request whose response headers
+     * are already set, beginning with the current count. Takes over the
+     * slot from {@link #tryAcquire} unless it throws.
+     */
+    void subscribe(AsyncContext async, int showId, int availableSeats) throws IOException {
+        Subscriber subscriber = new Subscriber(showId, async, async.getResponse().getOutputStream());
+        Feed feed = feeds.compute(showId, (id, existing) -> {
+            Feed f = existing != null ? existing : new Feed();
+            f.subscribers.add(subscriber);
+            return f;
+        });
+        if (feed.lastSeats < 0) {
+            feed.lastSeats = availableSeats;
+        }
+        async.addListener(subscriber);
+        subscriber.next.set(concat(
+            ("retry: " + RECONNECT_MS + "\n").getBytes(StandardCharsets.UTF_8),
+            event(showId, availableSeats, 0)));
+        try {
+            // Jetty calls onWritePossible right away, which sends the snapshot
+            subscriber.out.setWriteListener(subscriber);
+        } catch (IllegalStateException e) {
+            subscriber.close();
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        subscriberCount.decrementAndGet();
+        feeds.computeIfPresent(subscriber.showId, (id, feed) -> {
+            feed.subscribers.remove(subscriber);
+            return feed.subscribers.isEmpty() ? null : feed;
+        });
+    }
+
+    // ==================== Ticker ====================
+
+    private void tick() {
+        try {
+            long now = System.currentTimeMillis();
+            if (now >= nextResync) {
+                dirty.addAll(feeds.keySet());
+                nextResync = now + RESYNC_MS;
+            }
+
+            if (reading.compareAndSet(false, true)) {
+                Set<Integer> check = settling;
+                settling = new HashSet<>();
+                for (Iterator<Integer> it = dirty.iterator(); it.hasNext(); ) {
+                    Integer showId = it.next();
+                    it.remove();
+                    check.add(showId);
+                    settling.add(showId);
+                }
+                refresh(check);
+            }
+
+            if (now >= nextHeartbeat) {
+                for (Feed feed : feeds.values()) {
+                    for (Subscriber subscriber : feed.subscribers) {
+                        subscriber.heartbeat();
+                    }
+                }
+                nextHeartbeat = now + HEARTBEAT_MS;
+            }
+        } catch (RuntimeException e) {
+            // Keep the ticker alive; the next tick starts over
+            System.err.println("⚠️ Availability stream tick failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads the counts of the given shows in one query and pushes the
+     * changes when it completes. Clears {@link #reading} when done.
+     */
+    private void refresh(Set<Integer> check) {
+        check.retainAll(feeds.keySet());
+        if (check.isEmpty()) {
+            reading.set(false);
+            return;
+        }
+        List<Integer> showIds = new ArrayList<>(check);
+        reads.incrementAndGet();
+        // Primary or in-memory inventory; a lagging replica would push stale counts
+        showService.getShowsByIdsForBookingAsync(showIds).whenComplete((shows, error) -> {
+            try {
+                if (error != null) {
+                    // Includes a full bulkhead; try again next tick
+                    dirty.addAll(showIds);
+                    return;
+                }
+                for (Show show : shows) {
+                    push(show.getShowId(), show.getAvailableSeats());
+                }
+            } catch (RuntimeException e) {
+                System.err.println("⚠️ Availability stream refresh failed: " + e.getMessage());
+            } finally {
+                reading.set(false);
+            }
+        });
+    }
+
+    private void push(int showId, int seats) {
+        Feed feed = feeds.get(showId);
+        if (feed == null) {
+            return;
+        }
+        int previous = feed.lastSeats;
+        if (seats == previous) {
+            return;
+        }
+        feed.lastSeats = seats;
+        byte[] event = event(showId, seats, previous < 0 ? 0 : seats - previous);
+        events.incrementAndGet();
+        for (Subscriber subscriber : feed.subscribers) {
+            subscriber.offer(event);
+        }
+    }
+
+    private byte[] event(int showId, int availableSeats, int delta) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("showId", showId);
+        data.put("availableSeats", availableSeats);
+        data.put("delta", delta);
+        return ("event: availability\ndata: " + gson.toJson(data) + "\n\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] joined = new byte[first.length + second.length];
+        System.arraycopy(first, 0, joined, 0, first.length);
+        System.arraycopy(second, 0, joined, first.length, second.length);
+        return joined;
+    }
+
+    // ==================== Subscribers ====================
+
+    /**
+     * One open stream. Writes are serialized by the monitor; the ticker and
+     * Jetty's write callbacks both go through {@link #flush}.
+     */
+    private final class Subscriber implements WriteListener, AsyncListener {
+        final int showId;
+        final AsyncContext async;
+        final ServletOutputStream out;
+        // Newest event not yet written; older ones are superseded
+        final AtomicReference<byte[]> next = new AtomicReference<>();
+        private boolean unflushed;
+        private volatile boolean closed;
+
+        Subscriber(int showId, AsyncContext async, ServletOutputStream out) {
+            this.showId = showId;
+            this.async = async;
+            this.out = out;
+        }
+
+        void offer(byte[] event) {
+            if (next.getAndSet(event) != null) {
+                skipped.incrementAndGet();
+            }
+            flush();
+        }
+
+        void heartbeat() {
+            if (next.compareAndSet(null, HEARTBEAT)) {
+                flush();
+            }
+        }
+
+        synchronized void flush() {
+            if (closed) {
+                return;
+            }
+            try {
+                // Write only while Jetty can take it without blocking; otherwise onWritePossible resumes
+                while (out.isReady()) {
+                    byte[] data = next.getAndSet(null);
+                    if (data == null) {
+                        if (!unflushed) {
+                            return;
+                        }
+                        unflushed = false;
+                        out.flush();
+                        continue;
+                    }
+                    out.write(data);
+                    unflushed = true;
+                    if (data != HEARTBEAT) {
+                        deliveries.incrementAndGet();
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                close();
+            }
+        }
+
+        void close() {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+            }
+            unsubscribe(this);
+            try {
+                async.complete();
+            } catch (IllegalStateException e) {
+                // Already completed by the container
+            }
+        }
+
+        @Override
+        public void onWritePossible() {
+            flush();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            close();
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            close();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            close();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            close();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+
+    // ==================== Stats ====================
+
+    int getMaxUpdatesPerSecond() {
+        return maxUpdatesPerSecond;
+    }
+
+    int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    int getStreamedShowCount() {
+        return feeds.size();
+    }
+
+    long getEventCount() {
+        return events.get();
+    }
+
+    long getDeliveryCount() {
+        return deliveries.get();
+    }
+
+    long getSkippedCount() {
+        return skipped.get();
+    }
+
+    long getReadCount() {
+        return reads.get();
+    }
+}
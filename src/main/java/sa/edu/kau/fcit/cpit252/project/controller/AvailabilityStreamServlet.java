@@ -0,0 +1,127 @@
+package sa.edu.kau.fcit.cpit252.project.controller;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import sa.edu.kau.fcit.cpit252.project.service.ShowService;
+import sa.edu.kau.fcit.cpit252.project.store.DatabaseExecutor;
+
+/**
+ * Server-Sent Events stream of a show's seat availability.
+ *
+ * GET /seatavailability/stream?showId=... answers with text/event-stream:
+ * an "availability" event with the current count right away, then one
+ * each time the count changes, at most SSE_MAX_UPDATES_PER_SECOND per
+ * second. Event data is {"showId", "availableSeats", "delta"}; a slow
+ * client may skip events, so availableSeats is the value to display.
+ * See {@link AvailabilityHub}.
+ */
+@WebServlet(value = "/seatavailability/stream", asyncSupported = true)
+public class AvailabilityStreamServlet extends HttpServlet {
+
+    private ShowService showService;
+    private AvailabilityHub hub;
+    private Gson gson;
+
+    @Override
+    public void init() throws ServletException {
+        this.showService = new ShowService();
+        this.hub = AvailabilityHub.getInstance();
+        this.gson = new GsonBuilder().setPrettyPrinting().create();
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp)
+            throws ServletException, IOException {
+
+        // Enable CORS
+        resp.setHeader("Access-Control-Allow-Origin", "*");
+        resp.setHeader("Access-Control-Allow-Methods", "GET, OPTIONS");
+        resp.setHeader("Access-Control-Allow-Headers", "Content-Type");
+
+        int showId;
+        try {
+            showId = Integer.parseInt(req.getParameter("showId"));
+        } catch (NumberFormatException e) {
+            sendError(resp, HttpServletResponse.SC_BAD_REQUEST, "Missing or invalid parameter: showId");
+            return;
+        }
+
+        if (!hub.tryAcquire()) {
+            resp.setHeader("Retry-After", String.valueOf(AvailabilityHub.RECONNECT_MS / 1000));
+            sendError(resp, HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Too many live subscribers, please retry shortly");
+            return;
+        }
+
+        // The stream stays open until the client leaves; no timeout
+        AsyncContext async = req.startAsync();
+        async.setTimeout(0);
+
+        showService.getShowByIdAsync(showId)
+            .thenCompose(show -> show == null
+                ? CompletableFuture.completedFuture((Integer) null)
+                : showService.getAvailableSeatsForBookingAsync(showId))
+            .whenComplete((availableSeats, error) -> {
+                if (error != null || availableSeats == null) {
+                    hub.releaseSlot();
+                    try {
+                        if (error != null) {
+                            Throwable cause = DatabaseExecutor.unwrap(error);
+                            sendError(resp, HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+                                "Could not load show: " + cause.getMessage());
+                        } else {
+                            sendError(resp, HttpServletResponse.SC_NOT_FOUND, "Show not found");
+                        }
+                    } catch (IOException e) {
+                        // Client went away; nothing left to report
+                    } finally {
+                        async.complete();
+                    }
+                    return;
+                }
+
+                resp.setStatus(HttpServletResponse.SC_OK);
+                resp.setContentType("text/event-stream");
+                resp.setCharacterEncoding("UTF-8");
+                resp.setHeader("Cache-Control", "no-cache");
+                // Stops buffering proxies from holding events back
+                resp.setHeader("X-Accel-Buffering", "no");
+                try {
+                    hub.subscribe(async, showId, availableSeats);
+                } catch (IOException e) {
+                    hub.releaseSlot();
+                    async.complete();
+                }
+            });
+    }
+
+    private void sendError(HttpServletResponse resp, int status, String error) throws IOException {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("error", error);
+        resp.setStatus(status);
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
+        resp.getWriter().print(gson.toJson(response));
+    }
+
+    @Override
+    protected void doOptions(HttpServletRequest req, HttpServletResponse resp)
+            throws ServletException, IOException {
+        resp.setHeader("Access-Control-Allow-Origin", "*");
+        resp.setHeader("Access-Control-Allow-Methods", "GET, OPTIONS");
+        resp.setHeader("Access-Control-Allow-Headers", "Content-Type");
+        resp.setStatus(HttpServletResponse.SC_OK);
+    }
+}
@@ -0,0 +1,178 @@
+package sa.edu.kau.fcit.cpit252.project.controller;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import sa.edu.kau.fcit.cpit252.project.model.Booking;
+import sa.edu.kau.fcit.cpit252.project.model.BookingCursor;
+import sa.edu.kau.fcit.cpit252.project.service.BookingService;
+import sa.edu.kau.fcit.cpit252.project.store.DatabaseExecutor;
+
+/**
+ * Servlet for the logged-in user's booking history, newest first.
+ *
+ * GET /bookings?limit=20&cursor=... returns one page plus the cursor of the
+ * next one. GET /bookings?stream=true writes the whole history as a JSON
+ * array, row by row, without building it in memory.
+ * Both read on the database bulkhead; no request thread waits on the database.
+ */
+@WebServlet(value = "/bookings", asyncSupported = true)
+public class BookingHistoryServlet extends HttpServlet {
+
+    private BookingService bookingService;
+    private Gson gson;
+
+    @Override
+    public void init() throws ServletException {
+        this.bookingService = new BookingService();
+        this.gson = new GsonBuilder().setPrettyPrinting().create();
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp)
+            throws ServletException, IOException {
+        
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
+        
+        PrintWriter out = resp.getWriter();
+        Map<String, Object> response = new HashMap<>();
+        
+        // Get user from session
+        HttpSession session = req.getSession();
+        String userEmail = (String) session.getAttribute("userEmail");
+        
+        if (userEmail == null) {
+            resp.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            response.put("success", false);
+            response.put("error", "User not logged in");
+            out.print(gson.toJson(response));
+            return;
+        }
+        
+        if ("true".equalsIgnoreCase(req.getParameter("stream"))) {
+            streamHistory(userEmail, req, resp);
+            return;
+        }
+        
+        String limitStr = req.getParameter("limit");
+        String cursorStr = req.getParameter("cursor");
+        
+        int limit;
+        BookingCursor cursor;
+        try {
+            limit = limitStr != null ? Integer.parseInt(limitStr) : BookingService.DEFAULT_PAGE_SIZE;
+            cursor = cursorStr != null && !cursorStr.isEmpty() ? BookingCursor.decode(cursorStr) : null;
+        } catch (IllegalArgumentException e) {
+            // Also covers NumberFormatException
+            resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            response.put("success", false);
+            response.put("error", "Invalid limit or cursor");
+            out.print(gson.toJson(response));
+            return;
+        }
+        
+        AsyncJsonResponse asyncResponse = AsyncJsonResponse.start(req, resp, gson);
+        bookingService.getBookingsPageAsync(userEmail, cursor, limit).whenComplete((page, error) -> {
+            if (error != null) {
+                asyncResponse.sendFailure(error);
+                return;
+            }
+            List<Map<String, Object>> rows = new ArrayList<>();
+            for (Booking booking : page.getBookings()) {
+                rows.add(toRow(booking));
+            }
+            Map<String, Object> body = new HashMap<>();
+            body.put("success", true);
+            body.put("bookings", rows);
+            body.put("nextCursor", page.hasMore() ? page.getNextCursor().encode() : null);
+            asyncResponse.send(HttpServletResponse.SC_OK, body);
+        });
+    }
+    
+    /**
+     * Writes {"success": true, "bookings": [...]} incrementally. Pages are
+     * read on the database bulkhead and written from container threads
+     * (AsyncContext.start). Once the first byte is sent the status cannot
+     * change, so a mid-stream error ends the array and adds an "error"
+     * field instead.
+     */
+    private void streamHistory(String userEmail, HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        AsyncContext async = req.startAsync();
+        // Every page is bounded by the database; a long history may outlast one request timeout
+        async.setTimeout(0);
+        JsonWriter writer = new JsonWriter(resp.getWriter());
+        writer.beginObject();
+        writer.name("success").value(true);
+        writer.name("bookings").beginArray();
+        
+        bookingService.streamBookingsByUserAsync(userEmail, booking -> {
+            gson.toJson(toRow(booking), Map.class, writer);
+            writer.flush();
+        }, async::start).whenComplete((ignored, error) -> async.start(() -> finishStream(async, resp, writer, error)));
+    }
+    
+    private void finishStream(AsyncContext async, HttpServletResponse resp, JsonWriter writer, Throwable error) {
+        try {
+            Throwable cause = error != null ? DatabaseExecutor.unwrap(error) : null;
+            if (cause instanceof RejectedExecutionException && !resp.isCommitted()) {
+                // Nothing sent yet, so the client can still be told to retry
+                resp.resetBuffer();
+                resp.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                resp.setHeader("Retry-After", String.valueOf(AsyncJsonResponse.RETRY_AFTER_SECONDS));
+                Map<String, Object> body = new HashMap<>();
+                body.put("success", false);
+                body.put("error", "Server is busy, please retry shortly");
+                resp.getWriter().print(gson.toJson(body));
+                return;
+            }
+            if (cause instanceof IOException) {
+                // Client went away
+                return;
+            }
+            
+            writer.endArray();
+            if (cause != null) {
+                writer.name("error").value(cause instanceof SQLException
+                    ? "Database error: " + cause.getMessage()
+                    : "Internal error: " + cause.getMessage());
+            }
+            writer.endObject();
+            writer.flush();
+        } catch (IOException e) {
+            // Client went away; nothing left to report
+        } finally {
+            async.complete();
+        }
+    }
+    
+    private static Map<String, Object> toRow(Booking booking) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("bookingId", booking.getBookingId());
+        row.put("showId", booking.getShowId());
+        row.put("ticketType", booking.getTicketType());
+        row.put("ticketQuantity", booking.getTicketQuantity());
+        row.put("popcornQuantity", booking.getPopcornQuantity());
+        row.put("totalPrice", booking.getTotalPrice());
+        row.put("bookingDate", booking.getBookingDate() != null ? booking.getBookingDate().toString() : null);
+        return row;
+    }
+}
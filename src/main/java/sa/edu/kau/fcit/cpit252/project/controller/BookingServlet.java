@@ -3,9 +3,9 @@ package sa.edu.kau.fcit.cpit252.project.controller;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.math.BigDecimal;
-import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
@@ -16,26 +16,31 @@ import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
-import sa.edu.kau.fcit.cpit252.project.model.Movie;
+import sa.edu.kau.fcit.cpit252.project.model.Booking;
+import sa.edu.kau.fcit.cpit252.project.model.BookingResult;
+import sa.edu.kau.fcit.cpit252.project.model.SeatHold;
 import sa.edu.kau.fcit.cpit252.project.service.BookingService;
-import sa.edu.kau.fcit.cpit252.project.service.MovieService;
 import sa.edu.kau.fcit.cpit252.project.service.PricingService;
 import sa.edu.kau.fcit.cpit252.project.service.ShowService;
+import sa.edu.kau.fcit.cpit252.project.service.WaitingRoom;
+import sa.edu.kau.fcit.cpit252.project.store.SeatMap;
 
-@WebServlet("/booking")
+@WebServlet(value = "/booking", asyncSupported = true)
 public class BookingServlet extends HttpServlet {
 
     private BookingService bookingService;
+    private IdempotencyCache idempotencyCache;
+    private WaitingRoom waitingRoom;
     private ShowService showService;
-    private MovieService movieService;
     private PricingService pricingService;
     private Gson gson;
 
     @Override
     public void init() throws ServletException {
         this.bookingService = new BookingService();
+        this.idempotencyCache = IdempotencyCache.getInstance();
+        this.waitingRoom = WaitingRoom.getInstance();
         this.showService = new ShowService();
-        this.movieService = new MovieService();
         this.pricingService = new PricingService();
         this.gson = new GsonBuilder().setPrettyPrinting().create();
     }
@@ -50,7 +55,7 @@ public class BookingServlet extends HttpServlet {
         // Enable CORS for API access
         resp.setHeader("Access-Control-Allow-Origin", "*");
         resp.setHeader("Access-Control-Allow-Methods", "POST, GET, OPTIONS");
-        resp.setHeader("Access-Control-Allow-Headers", "Content-Type");
+        resp.setHeader("Access-Control-Allow-Headers", "Content-Type, Idempotency-Key, X-Admission-Token");
         
         PrintWriter out = resp.getWriter();
         Map<String, Object> response = new HashMap<>();
@@ -75,6 +80,10 @@ public class BookingServlet extends HttpServlet {
         String ticketType = req.getParameter("ticketType");
         String ticketQuantityStr = req.getParameter("ticketQuantity");
         String popcornQuantityStr = req.getParameter("popcornQuantity");
+        String seatsStr = req.getParameter("seats");
+        String holdToken = req.getParameter("holdToken");
+        // Optional; retries carrying the same key are answered with the first attempt's result
+        String idempotencyKey = req.getHeader("Idempotency-Key");
         
         try {
             // Validate parameters
@@ -86,93 +95,258 @@ public class BookingServlet extends HttpServlet {
                 out.print(gson.toJson(response));
                 return;
             }
+            if (idempotencyKey != null && !isValidIdempotencyKey(idempotencyKey)) {
+                resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                response.put("success", false);
+                response.put("error", "Invalid Idempotency-Key header");
+                out.print(gson.toJson(response));
+                return;
+            }
+            if (holdToken != null && seatsStr != null) {
+                resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                response.put("success", false);
+                response.put("error", "Seat selection cannot be combined with a seat hold");
+                out.print(gson.toJson(response));
+                return;
+            }
             
             int ticketQuantity = Integer.parseInt(ticketQuantityStr);
             int popcornQuantity = popcornQuantityStr != null ? Integer.parseInt(popcornQuantityStr) : 0;
+            // Optional seat selection, e.g. "A1,A2"; without it any free seats are booked
+            int[] seats = seatsStr != null && !seatsStr.isBlank() ? SeatMap.parseLabels(seatsStr) : null;
             
             // CALCULATE PRICE SERVER-SIDE - No longer trust client-provided total
             BigDecimal totalPrice = pricingService.calculateTotalPrice(ticketType, ticketQuantity, popcornQuantity);
             
-            // Get or create movie
-            Movie movie = movieService.getMovieByName(movieName);
-            if (movie == null) {
-                resp.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            // Stored with the booking, so a reused key is caught even after the cache forgot it
+            String fingerprint = idempotencyKey != null
+                ? IdempotencyCache.fingerprint(movieName, location, showTime, String.valueOf(hallType),
+                    ticketType, ticketQuantityStr, String.valueOf(popcornQuantityStr),
+                    String.valueOf(seatsStr), String.valueOf(holdToken))
+                : null;
+            
+            Booking booking = Booking.builder()
+                .userEmail(userEmail)
+                .ticketType(ticketType)
+                .ticketQuantity(ticketQuantity)
+                .popcornQuantity(popcornQuantity)
+                .totalPrice(totalPrice)
+                .seats(seats)
+                .idempotencyKey(idempotencyKey)
+                .requestFingerprint(fingerprint)
+                .build();
+            
+            String scopedKey = idempotencyKey != null ? userEmail + "\n" + idempotencyKey : null;
+            // A retry of a request that already ran is answered even if its admission has lapsed since
+            IdempotencyCache.Claim earlier = scopedKey != null ? idempotencyCache.find(scopedKey) : null;
+            if (earlier != null && !earlier.isMismatch(fingerprint)) {
+                replayDuplicate(AsyncJsonResponse.start(req, resp, gson), earlier);
+                return;
+            }
+            // During an on-sale only users let in by the waiting room may book; checked before any store work
+            if (!waitingRoom.isAdmitted(movieName, userEmail, req.getHeader("X-Admission-Token"))) {
+                resp.setStatus(HttpServletResponse.SC_FORBIDDEN);
                 response.put("success", false);
-                response.put("error", "Movie not found");
+                response.put("error", "Join the waiting room at /queue to book this movie");
+                response.put("waitingRoom", true);
                 out.print(gson.toJson(response));
                 return;
             }
             
-            // Get or create show
-            int showId = showService.getOrCreateShow(
-                movie.getMovieId(), 
-                location, 
-                showTime, 
-                hallType != null ? hallType : "Standard Hall"
-            );
-            
-            // Check available seats before booking
-            int availableSeats = showService.getAvailableSeats(showId);
-            if (availableSeats < ticketQuantity) {
-                resp.setStatus(HttpServletResponse.SC_CONFLICT);
+            // Rejected before the hold is touched, so the user keeps it
+            SeatHold held = holdToken != null ? showService.peekHold(holdToken) : null;
+            if (held != null && held.getQuantity() != ticketQuantity) {
+                resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
                 response.put("success", false);
-                response.put("error", "Not enough seats available");
-                response.put("availableSeats", availableSeats);
-                response.put("requestedSeats", ticketQuantity);
+                response.put("error", "Ticket quantity must match the held seats");
+                response.put("heldSeats", held.getQuantity());
                 out.print(gson.toJson(response));
                 return;
             }
             
-            // Create booking (this will atomically reserve seats)
-            int bookingId = bookingService.createBooking(
-                showId,
-                userEmail,
-                ticketType,
-                ticketQuantity,
-                popcornQuantity,
-                totalPrice
-            );
+            IdempotencyCache.Claim claim = null;
+            if (idempotencyKey != null) {
+                claim = idempotencyCache.claim(scopedKey, fingerprint);
+                if (claim.isMismatch(fingerprint)) {
+                    resp.setStatus(resultStatus(BookingResult.keyReused(), response, ticketType, ticketQuantity, popcornQuantity));
+                    out.print(gson.toJson(response));
+                    return;
+                }
+                if (!claim.isOwner()) {
+                    replayDuplicate(AsyncJsonResponse.start(req, resp, gson), claim);
+                    return;
+                }
+            }
+            IdempotencyCache.Claim ownClaim = claim;
             
-            if (bookingId > 0) {
-                // Get price breakdown for response
-                PricingService.PriceBreakdown breakdown = pricingService.getPriceBreakdown(
-                    ticketType, ticketQuantity, popcornQuantity
-                );
-                
-                response.put("success", true);
-                response.put("bookingId", bookingId);
-                response.put("message", "Booking successful");
-                
-                // Include pricing details in response
-                Map<String, Object> pricing = new HashMap<>();
-                pricing.put("ticketUnitPrice", breakdown.getTicketUnitPrice());
-                pricing.put("ticketQuantity", breakdown.getTicketQuantity());
-                pricing.put("ticketSubtotal", breakdown.getTicketSubtotal());
-                pricing.put("popcornUnitPrice", breakdown.getPopcornUnitPrice());
-                pricing.put("popcornQuantity", breakdown.getPopcornQuantity());
-                pricing.put("popcornSubtotal", breakdown.getPopcornSubtotal());
-                pricing.put("discount", breakdown.getDiscount());
-                pricing.put("total", breakdown.getTotal());
-                response.put("pricing", pricing);
-                
-                out.print(gson.toJson(response));
+            // Resolve movie and show, reserve seats and insert the booking in one transaction,
+            // or store the booking for seats already held.
+            // The work runs on the database bulkhead so this request thread is released meanwhile.
+            AsyncJsonResponse asyncResponse = AsyncJsonResponse.start(req, resp, gson);
+            CompletableFuture<BookingResult> future;
+            if (holdToken != null) {
+                // A retry whose first attempt was stored (e.g. before a restart) leaves the hold alone
+                future = bookingService.findReplayAsync(booking)
+                    .thenCompose(replay -> replay != null
+                        ? CompletableFuture.completedFuture(replay)
+                        : showService.confirmHoldAsync(holdToken, hold -> bookingService.bookHeldSeats(hold, booking))
+                            .thenApply(result -> result != null ? result : BookingResult.holdExpired()));
             } else {
-                resp.setStatus(HttpServletResponse.SC_CONFLICT);
-                response.put("success", false);
-                response.put("error", "Failed to create booking. Not enough seats available.");
-                out.print(gson.toJson(response));
+                future = bookingService.bookTicketsAsync(
+                    movieName,
+                    location,
+                    showTime,
+                    hallType != null ? hallType : "Standard Hall",
+                    booking
+                );
             }
+            future.whenComplete((result, error) -> {
+                if (error != null) {
+                    if (ownClaim != null) {
+                        ownClaim.abandon(error);
+                    }
+                    asyncResponse.sendFailure(error);
+                } else {
+                    sendResult(asyncResponse, ownClaim, result, booking, ticketType, ticketQuantity, popcornQuantity);
+                }
+            });
             
         } catch (NumberFormatException e) {
             resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
             response.put("success", false);
             response.put("error", "Invalid number format");
             out.print(gson.toJson(response));
-        } catch (SQLException e) {
-            resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        } catch (IllegalArgumentException e) {
+            // Malformed or repeated seat label
+            resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
             response.put("success", false);
-            response.put("error", "Database error: " + e.getMessage());
+            response.put("error", e.getMessage());
             out.print(gson.toJson(response));
+        } catch (IllegalStateException e) {
+            // Rejected by Booking.Builder validation
+            resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            out.print(gson.toJson(response));
+        }
+    }
+    
+    private static boolean isValidIdempotencyKey(String key) {
+        if (key.isEmpty() || key.length() > IdempotencyCache.MAX_KEY_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c < 0x21 || c > 0x7e) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Answers a duplicate with the response of the request that claimed the
+     * key first, waiting for it if that request is still running.
+     */
+    private void replayDuplicate(AsyncJsonResponse asyncResponse, IdempotencyCache.Claim claim) {
+        claim.result().whenComplete((cached, error) -> {
+            if (error != null) {
+                asyncResponse.sendFailure(error);
+            } else {
+                asyncResponse.setHeader("Idempotent-Replayed", "true");
+                asyncResponse.send(cached.status, cached.body);
+            }
+        });
+    }
+    
+    private void sendResult(AsyncJsonResponse asyncResponse, IdempotencyCache.Claim claim, BookingResult result,
+                            Booking booking, String ticketType, int ticketQuantity, int popcornQuantity) {
+        Map<String, Object> response = new HashMap<>();
+        Booking stored = result.getStoredBooking();
+        // A replay describes the booking that was stored, not this request
+        int status = stored != null
+            ? resultStatus(result, response, stored.getTicketType(), stored.getTicketQuantity(), stored.getPopcornQuantity())
+            : resultStatus(result, response, ticketType, ticketQuantity, popcornQuantity);
+        if (result.isBooked() && !result.isReplayed() && booking.getSeats() != null) {
+            // Seats picked by the client, or the ones assigned to it
+            response.put("seats", SeatMap.labels(booking.getSeats()));
+        }
+        if (claim != null) {
+            claim.complete(status, response);
+        }
+        if (result.isReplayed()) {
+            asyncResponse.setHeader("Idempotent-Replayed", "true");
+        }
+        asyncResponse.send(status, response);
+    }
+    
+    /**
+     * Fills the response body for a booking result and returns its HTTP status.
+     */
+    private int resultStatus(BookingResult result, Map<String, Object> response,
+                             String ticketType, int ticketQuantity, int popcornQuantity) {
+        
+        if (result.getStatus() == BookingResult.Status.MOVIE_NOT_FOUND) {
+            response.put("success", false);
+            response.put("error", "Movie not found");
+            return HttpServletResponse.SC_NOT_FOUND;
+        }
+        
+        if (result.getStatus() == BookingResult.Status.NOT_ENOUGH_SEATS) {
+            response.put("success", false);
+            response.put("error", "Not enough seats available");
+            response.put("availableSeats", result.getAvailableSeats());
+            response.put("requestedSeats", ticketQuantity);
+            return HttpServletResponse.SC_CONFLICT;
+        }
+        
+        if (result.getStatus() == BookingResult.Status.HOLD_EXPIRED) {
+            response.put("success", false);
+            response.put("error", "Seat hold has expired");
+            return HttpServletResponse.SC_CONFLICT;
+        }
+        
+        if (result.getStatus() == BookingResult.Status.KEY_REUSED) {
+            response.put("success", false);
+            response.put("error", "Idempotency-Key was already used for a different booking");
+            return 422; // Unprocessable Content
+        }
+        
+        if (result.getStatus() == BookingResult.Status.SEATS_UNAVAILABLE) {
+            response.put("success", false);
+            response.put("error", "Selected seats are no longer available");
+            return HttpServletResponse.SC_CONFLICT;
+        }
+        
+        int bookingId = result.getBookingId();
+        
+        if (bookingId > 0) {
+            // Get price breakdown for response
+            PricingService.PriceBreakdown breakdown = pricingService.getPriceBreakdown(
+                ticketType, ticketQuantity, popcornQuantity
+            );
+            
+            response.put("success", true);
+            response.put("bookingId", bookingId);
+            response.put("message", result.isReplayed() ? "Booking already made" : "Booking successful");
+            
+            // Include pricing details in response
+            Map<String, Object> pricing = new HashMap<>();
+            pricing.put("ticketUnitPrice", breakdown.getTicketUnitPrice());
+            pricing.put("ticketQuantity", breakdown.getTicketQuantity());
+            pricing.put("ticketSubtotal", breakdown.getTicketSubtotal());
+            pricing.put("popcornUnitPrice", breakdown.getPopcornUnitPrice());
+            pricing.put("popcornQuantity", breakdown.getPopcornQuantity());
+            pricing.put("popcornSubtotal", breakdown.getPopcornSubtotal());
+            pricing.put("discount", breakdown.getDiscount());
+            pricing.put("total", breakdown.getTotal());
+            response.put("pricing", pricing);
+            
+            return HttpServletResponse.SC_OK;
+        } else {
+            response.put("success", false);
+            response.put("error", "Failed to create booking. Not enough seats available.");
+            return HttpServletResponse.SC_CONFLICT;
         }
     }
     
@@ -182,7 +356,7 @@ public class BookingServlet extends HttpServlet {
         // Handle CORS preflight requests
         resp.setHeader("Access-Control-Allow-Origin", "*");
         resp.setHeader("Access-Control-Allow-Methods", "POST, GET, OPTIONS");
-        resp.setHeader("Access-Control-Allow-Headers", "Content-Type");
+        resp.setHeader("Access-Control-Allow-Headers", "Content-Type, Idempotency-Key, X-Admission-Token");
         resp.setStatus(HttpServletResponse.SC_OK);
     }
 }
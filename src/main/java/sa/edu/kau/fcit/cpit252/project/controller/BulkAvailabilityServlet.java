@@ -0,0 +1,148 @@
+package sa.edu.kau.fcit.cpit252.project.controller;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import sa.edu.kau.fcit.cpit252.project.model.Show;
+import sa.edu.kau.fcit.cpit252.project.service.ShowService;
+import sa.edu.kau.fcit.cpit252.project.store.ShowStore;
+
+/**
+ * Servlet returning the seat availability of many shows at once, for the
+ * show picker.
+ *
+ * GET /seatavailability/bulk?movieName=...[&location=...] lists every show
+ * of the movie; GET /seatavailability/bulk?showIds=1,2,3 lists the given
+ * shows. Either way it is one query and read-only: combinations nobody has
+ * booked yet have no show and are not listed, and have defaultSeats free.
+ */
+@WebServlet(value = "/seatavailability/bulk", asyncSupported = true)
+public class BulkAvailabilityServlet extends HttpServlet {
+
+    static final int MAX_SHOW_IDS = 100;
+
+    private ShowService showService;
+    private Gson gson;
+
+    @Override
+    public void init() throws ServletException {
+        this.showService = new ShowService();
+        this.gson = new GsonBuilder().setPrettyPrinting().create();
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp)
+            throws ServletException, IOException {
+
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
+
+        // Enable CORS
+        resp.setHeader("Access-Control-Allow-Origin", "*");
+        resp.setHeader("Access-Control-Allow-Methods", "GET, OPTIONS");
+        resp.setHeader("Access-Control-Allow-Headers", "Content-Type");
+
+        String movieName = req.getParameter("movieName");
+        String location = req.getParameter("location");
+        String showIdsStr = req.getParameter("showIds");
+
+        PrintWriter out = resp.getWriter();
+        Map<String, Object> response = new HashMap<>();
+
+        if ((movieName == null) == (showIdsStr == null)) {
+            resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            response.put("success", false);
+            response.put("error", "Pass either movieName (and optionally location) or showIds");
+            out.print(gson.toJson(response));
+            return;
+        }
+
+        List<Integer> showIds = null;
+        if (showIdsStr != null) {
+            Set<Integer> unique = new LinkedHashSet<>();
+            try {
+                for (String id : showIdsStr.split(",")) {
+                    if (!id.isBlank()) {
+                        unique.add(Integer.parseInt(id.trim()));
+                    }
+                }
+            } catch (NumberFormatException e) {
+                resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                response.put("success", false);
+                response.put("error", "Invalid number format");
+                out.print(gson.toJson(response));
+                return;
+            }
+            if (unique.isEmpty() || unique.size() > MAX_SHOW_IDS) {
+                resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                response.put("success", false);
+                response.put("error", "showIds must list between 1 and " + MAX_SHOW_IDS + " shows");
+                out.print(gson.toJson(response));
+                return;
+            }
+            showIds = new ArrayList<>(unique);
+        }
+
+        AsyncJsonResponse asyncResponse = AsyncJsonResponse.start(req, resp, gson);
+        CompletableFuture<List<Show>> shows = showIds != null
+            ? showService.getShowsByIdsAsync(showIds)
+            : showService.getShowsByMovieNameAsync(movieName, location);
+        shows.thenApply(found -> {
+            if (found == null) {
+                response.put("success", false);
+                response.put("error", "Movie not found");
+                return HttpServletResponse.SC_NOT_FOUND;
+            }
+
+            List<Map<String, Object>> items = new ArrayList<>(found.size());
+            for (Show show : found) {
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("showId", show.getShowId());
+                item.put("location", show.getLocation());
+                item.put("showTime", show.getShowTime());
+                item.put("hallType", show.getHallType());
+                item.put("totalSeats", show.getTotalSeats());
+                item.put("availableSeats", show.getAvailableSeats());
+                items.add(item);
+            }
+            response.put("success", true);
+            if (movieName != null) {
+                response.put("movieName", movieName);
+            }
+            response.put("defaultSeats", ShowStore.DEFAULT_SEATS);
+            response.put("shows", items);
+            return HttpServletResponse.SC_OK;
+        }).whenComplete((status, error) -> {
+            if (error != null) {
+                asyncResponse.sendFailure(error);
+            } else {
+                asyncResponse.send(status, response);
+            }
+        });
+    }
+
+    @Override
+    protected void doOptions(HttpServletRequest req, HttpServletResponse resp)
+            throws ServletException, IOException {
+        resp.setHeader("Access-Control-Allow-Origin", "*");
+        resp.setHeader("Access-Control-Allow-Methods", "GET, OPTIONS");
+        resp.setHeader("Access-Control-Allow-Headers", "Content-Type");
+        resp.setStatus(HttpServletResponse.SC_OK);
+    }
+}
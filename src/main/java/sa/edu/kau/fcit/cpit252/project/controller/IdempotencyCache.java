@@ -0,0 +1,226 @@
+package sa.edu.kau.fcit.cpit252.project.controller;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Results of recent requests by Idempotency-Key, in flight or completed.
+ *
+ * The first request with a key claims it and runs; duplicates arriving
+ * meanwhile get the same future and answer with the first request's
+ * response instead of running again. Only definitive responses are kept:
+ * if the first attempt fails (database error, server busy) the key is
+ * dropped so the client's next retry runs normally.
+ *
+ * Bounded by IDEMPOTENCY_CACHE_SIZE entries and IDEMPOTENCY_TTL_SECONDS.
+ * Every entry lives for the same TTL, so insertion order is also expiry
+ * order and one FIFO queue serves both bounds. Entries lost to either
+ * bound are still caught by the unique index on Bookings.idempotencyKey,
+ * and the {@link #fingerprint} stored next to it still tells a retry from a
+ * key reused for a different booking.
+ */
+final class IdempotencyCache {
+
+    private static final int MAX_ENTRIES = System.getenv("IDEMPOTENCY_CACHE_SIZE") != null
+        ? Integer.parseInt(System.getenv("IDEMPOTENCY_CACHE_SIZE"))
+        : 10_000;
+
+    private static final long TTL_SECONDS = System.getenv("IDEMPOTENCY_TTL_SECONDS") != null
+        ? Long.parseLong(System.getenv("IDEMPOTENCY_TTL_SECONDS"))
+        : 24 * 60 * 60;
+
+    static final int MAX_KEY_LENGTH = 64;
+
+    private static final IdempotencyCache INSTANCE = new IdempotencyCache(MAX_ENTRIES, TTL_SECONDS);
+
+    /**
+     * A response to send again for duplicates.
+     */
+    static final class Result {
+        final int status;
+        final Map<String, Object> body;
+
+        Result(int status, Map<String, Object> body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    private static final class Entry {
+        final String key;
+        final String fingerprint;
+        final long expiresAtNanos;
+        final CompletableFuture<Result> result = new CompletableFuture<>();
+
+        Entry(String key, String fingerprint, long expiresAtNanos) {
+            this.key = key;
+            this.fingerprint = fingerprint;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+
+    /**
+     * Outcome of {@link #claim}.
+     */
+    final class Claim {
+        private final Entry entry;
+        private final boolean owner;
+
+        private Claim(Entry entry, boolean owner) {
+            this.entry = entry;
+            this.owner = owner;
+        }
+
+        /**
+         * True for the first request with this key, which must run and then
+         * call {@link #complete} or {@link #abandon}.
+         */
+        boolean isOwner() {
+            return owner;
+        }
+
+        /**
+         * True if the key was used before with different request parameters.
+         */
+        boolean isMismatch(String fingerprint) {
+            return !entry.fingerprint.equals(fingerprint);
+        }
+
+        /**
+         * The first request's response, for duplicates to wait on.
+         */
+        CompletableFuture<Result> result() {
+            return entry.result;
+        }
+
+        void complete(int status, Map<String, Object> body) {
+            entry.result.complete(new Result(status, body));
+        }
+
+        /**
+         * Drops the key and fails waiting duplicates with the same error.
+         */
+        void abandon(Throwable error) {
+            entries.remove(entry.key, entry);
+            entry.result.completeExceptionally(error);
+        }
+    }
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    IdempotencyCache(int maxEntries, long ttlSeconds) {
+        this(maxEntries, ttlSeconds, System::nanoTime);
+    }
+
+    /**
+     * @param nanoClock source of {@link System#nanoTime}-style timestamps
+     */
+    IdempotencyCache(int maxEntries, long ttlSeconds, LongSupplier nanoClock) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.nanoClock = nanoClock;
+    }
+
+    static IdempotencyCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * SHA-256 of the request parameters as 64 hex characters; stored with the
+     * booking, so it outlives the cache entry.
+     */
+    static String fingerprint(String... parameters) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256")
+                .digest(String.join("\u0000", parameters).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Claims a key for this request, or joins the request that claimed it first.
+     *
+     * @param key         scoped key, e.g. user + Idempotency-Key header
+     * @param fingerprint the request parameters, to detect a key reused for a different request
+     */
+    Claim claim(String key, String fingerprint) {
+        long now = nanoClock.getAsLong();
+        Entry created = new Entry(key, fingerprint, now + ttlNanos);
+        while (true) {
+            Entry existing = entries.putIfAbsent(key, created);
+            if (existing == null) {
+                insertionOrder.add(created);
+                queued.incrementAndGet();
+                misses.incrementAndGet();
+                evict(now);
+                return new Claim(created, true);
+            }
+            if (existing.expiresAtNanos - now > 0) {
+                hits.incrementAndGet();
+                return new Claim(existing, false);
+            }
+            // Expired but not evicted yet
+            entries.remove(key, existing);
+        }
+    }
+
+    /**
+     * The live claim of a key without claiming it, e.g. to answer a retry
+     * before checks the first attempt already passed.
+     *
+     * @return the claim of the request that holds the key, or null
+     */
+    Claim find(String key) {
+        Entry existing = entries.get(key);
+        if (existing == null || existing.expiresAtNanos - nanoClock.getAsLong() <= 0) {
+            return null;
+        }
+        hits.incrementAndGet();
+        return new Claim(existing, false);
+    }
+
+    // Drops entries from the head while they are expired or the cache is over size
+    private void evict(long now) {
+        Entry head;
+        while ((head = insertionOrder.peek()) != null
+                && (head.expiresAtNanos - now <= 0 || queued.get() > maxEntries)) {
+            if (insertionOrder.remove(head)) {
+                queued.decrementAndGet();
+                entries.remove(head.key, head);
+            }
+        }
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    long getHitCount() {
+        return hits.get();
+    }
+
+    long getMissCount() {
+        return misses.get();
+    }
+}
@@ -1,9 +1,10 @@
 package sa.edu.kau.fcit.cpit252.project.controller;
 
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
@@ -14,12 +15,15 @@ import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import sa.edu.kau.fcit.cpit252.project.service.MovieApiService;
+import sa.edu.kau.fcit.cpit252.project.service.OmdbCircuitBreaker;
 
 /**
  * Servlet that provides movie information from external OMDB API.
  * Demonstrates integration with external REST APIs.
+ * Requests complete asynchronously, so no server thread waits on OMDB.
+ * While OMDB is failing and nothing is cached, answers 503 with Retry-After.
  */
-@WebServlet("/movieapi")
+@WebServlet(value = "/movieapi", asyncSupported = true)
 public class MovieApiServlet extends HttpServlet {
 
     private MovieApiService movieApiService;
@@ -43,7 +47,6 @@ public class MovieApiServlet extends HttpServlet {
         resp.setHeader("Access-Control-Allow-Methods", "GET, OPTIONS");
         resp.setHeader("Access-Control-Allow-Headers", "Content-Type");
         
-        PrintWriter out = resp.getWriter();
         Map<String, Object> response = new HashMap<>();
         
         String action = req.getParameter("action");
@@ -51,72 +54,85 @@ public class MovieApiServlet extends HttpServlet {
         String imdbId = req.getParameter("imdbId");
         String keyword = req.getParameter("keyword");
         
-        try {
-            if (action == null) {
-                action = "search";
-            }
-            
-            switch (action) {
-                case "details":
-                    // Get detailed movie info by title
-                    if (title != null && !title.trim().isEmpty()) {
-                        MovieApiService.MovieInfo movie = movieApiService.searchMovie(title);
-                        if (movie != null) {
-                            response.put("success", true);
-                            response.put("movie", movie);
-                        } else {
-                            response.put("success", false);
-                            response.put("error", "Movie not found");
-                        }
-                    } else if (imdbId != null && !imdbId.trim().isEmpty()) {
-                        MovieApiService.MovieInfo movie = movieApiService.getMovieById(imdbId);
-                        if (movie != null) {
-                            response.put("success", true);
-                            response.put("movie", movie);
-                        } else {
-                            response.put("success", false);
-                            response.put("error", "Movie not found");
-                        }
+        if (action == null) {
+            action = "search";
+        }
+        
+        CompletableFuture<Void> lookup;
+        switch (action) {
+            case "details":
+                // Get detailed movie info by title or IMDB ID
+                CompletableFuture<MovieApiService.MovieInfo> details;
+                if (title != null && !title.trim().isEmpty()) {
+                    details = movieApiService.searchMovieAsync(title);
+                } else if (imdbId != null && !imdbId.trim().isEmpty()) {
+                    details = movieApiService.getMovieByIdAsync(imdbId);
+                } else {
+                    sendBadRequest(resp, response, "Please provide title or imdbId parameter");
+                    return;
+                }
+                lookup = details.thenAccept(movie -> {
+                    if (movie != null) {
+                        response.put("success", true);
+                        response.put("movie", movie);
                     } else {
-                        resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
                         response.put("success", false);
-                        response.put("error", "Please provide title or imdbId parameter");
+                        response.put("error", "Movie not found");
                     }
-                    break;
-                    
-                case "search":
-                    // Search for movies
-                    String searchTerm = keyword != null ? keyword : title;
-                    if (searchTerm != null && !searchTerm.trim().isEmpty()) {
-                        MovieApiService.MovieSearchResult result = movieApiService.searchMovies(searchTerm);
-                        if (result.isSuccess()) {
-                            response.put("success", true);
-                            response.put("totalResults", result.getTotalResults());
-                            response.put("movies", result.getSearch());
-                        } else {
-                            response.put("success", false);
-                            response.put("error", "No movies found");
-                        }
+                });
+                break;
+                
+            case "search":
+                // Search for movies
+                String searchTerm = keyword != null ? keyword : title;
+                if (searchTerm == null || searchTerm.trim().isEmpty()) {
+                    sendBadRequest(resp, response, "Please provide keyword or title parameter");
+                    return;
+                }
+                lookup = movieApiService.searchMoviesAsync(searchTerm).thenAccept(result -> {
+                    if (result.isSuccess()) {
+                        response.put("success", true);
+                        response.put("totalResults", result.getTotalResults());
+                        response.put("movies", result.getSearch());
                     } else {
-                        resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
                         response.put("success", false);
-                        response.put("error", "Please provide keyword or title parameter");
+                        response.put("error", "No movies found");
                     }
-                    break;
-                    
-                default:
-                    resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
-                    response.put("success", false);
-                    response.put("error", "Invalid action. Use 'search' or 'details'");
-            }
-            
-        } catch (IOException e) {
-            resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-            response.put("success", false);
-            response.put("error", "Failed to fetch movie data: " + e.getMessage());
+                });
+                break;
+                
+            default:
+                sendBadRequest(resp, response, "Invalid action. Use 'search' or 'details'");
+                return;
         }
         
-        out.print(gson.toJson(response));
+        AsyncJsonResponse asyncResponse = AsyncJsonResponse.start(req, resp, gson);
+        lookup.whenComplete((ignored, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+                response.clear();
+                response.put("success", false);
+                if (cause instanceof OmdbCircuitBreaker.OpenException) {
+                    long retryAfterMillis = ((OmdbCircuitBreaker.OpenException) cause).getRetryAfterMillis();
+                    asyncResponse.setHeader("Retry-After", String.valueOf((retryAfterMillis + 999) / 1000));
+                    response.put("error", "Movie search is temporarily unavailable, please retry shortly");
+                    asyncResponse.send(HttpServletResponse.SC_SERVICE_UNAVAILABLE, response);
+                } else {
+                    response.put("error", "Failed to fetch movie data: " + cause.getMessage());
+                    asyncResponse.send(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, response);
+                }
+            } else {
+                asyncResponse.send(HttpServletResponse.SC_OK, response);
+            }
+        });
+    }
+    
+    private void sendBadRequest(HttpServletResponse resp, Map<String, Object> response, String error) throws IOException {
+        resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+        response.put("success", false);
+        response.put("error", error);
+        resp.getWriter().print(gson.toJson(response));
     }
     
     @Override
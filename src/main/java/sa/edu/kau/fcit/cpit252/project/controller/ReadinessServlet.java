@@ -0,0 +1,34 @@
+package sa.edu.kau.fcit.cpit252.project.controller;
+
+import java.io.IOException;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import sa.edu.kau.fcit.cpit252.project.service.WarmupService;
+
+/**
+ * Readiness probe for load balancers and rolling deploys.
+ * Returns 200 once startup warm-up has passed its required steps, 503
+ * while it runs or while they keep failing (e.g. database unreachable).
+ */
+@WebServlet("/ready")
+public class ReadinessServlet extends HttpServlet {
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp)
+            throws ServletException, IOException {
+        
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
+        
+        if (WarmupService.isReady()) {
+            resp.getWriter().print("{\"ready\": true}");
+        } else {
+            resp.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            resp.getWriter().print("{\"ready\": false}");
+        }
+    }
+}
@@ -2,9 +2,10 @@ package sa.edu.kau.fcit.cpit252.project.controller;
 
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.sql.SQLException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
@@ -14,15 +15,17 @@ import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import sa.edu.kau.fcit.cpit252.project.model.Movie;
 import sa.edu.kau.fcit.cpit252.project.service.MovieService;
 import sa.edu.kau.fcit.cpit252.project.service.ShowService;
+import sa.edu.kau.fcit.cpit252.project.store.ShowStore;
 
 /**
  * Servlet for checking seat availability for a show.
- * Returns JSON response with available seat count.
+ * Returns JSON response with available seat count; with includeSeats=true
+ * it also lists the taken seats (e.g. "A1", "B4") for seat selection.
+ * Checking a show nobody has booked yet does not create it.
  */
-@WebServlet("/seatavailability")
+@WebServlet(value = "/seatavailability", asyncSupported = true)
 public class SeatAvailabilityServlet extends HttpServlet {
 
     private ShowService showService;
@@ -51,55 +54,64 @@ public class SeatAvailabilityServlet extends HttpServlet {
         String movieName = req.getParameter("movieName");
         String location = req.getParameter("location");
         String showTime = req.getParameter("showTime");
-        String hallType = req.getParameter("hallType");
+        boolean includeSeats = "true".equalsIgnoreCase(req.getParameter("includeSeats"));
         
         PrintWriter out = resp.getWriter();
         Map<String, Object> response = new HashMap<>();
         
-        try {
-            if (movieName == null || location == null || showTime == null) {
-                resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
-                response.put("success", false);
-                response.put("error", "Missing required parameters: movieName, location, showTime");
-                out.print(gson.toJson(response));
-                return;
-            }
-            
-            // Get or create movie
-            Movie movie = movieService.getMovieByName(movieName);
+        if (movieName == null || location == null || showTime == null) {
+            resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            response.put("success", false);
+            response.put("error", "Missing required parameters: movieName, location, showTime");
+            out.print(gson.toJson(response));
+            return;
+        }
+        
+        // Movie lookup, show resolution and seat count run on the database bulkhead
+        AsyncJsonResponse asyncResponse = AsyncJsonResponse.start(req, resp, gson);
+        movieService.getMovieByNameAsync(movieName).thenCompose(movie -> {
             if (movie == null) {
-                resp.setStatus(HttpServletResponse.SC_NOT_FOUND);
                 response.put("success", false);
                 response.put("error", "Movie not found");
-                out.print(gson.toJson(response));
-                return;
+                return CompletableFuture.completedFuture(HttpServletResponse.SC_NOT_FOUND);
             }
             
-            // Get or create show
-            int showId = showService.getOrCreateShow(
-                movie.getMovieId(), 
-                location, 
-                showTime, 
-                hallType != null ? hallType : "Standard Hall"
-            );
-            
-            // Get available seats
-            int availableSeats = showService.getAvailableSeats(showId);
-            
-            response.put("success", true);
-            response.put("showId", showId);
-            response.put("movieName", movie.getMovieName());
-            response.put("location", location);
-            response.put("showTime", showTime);
-            response.put("availableSeats", availableSeats);
-            out.print(gson.toJson(response));
-            
-        } catch (SQLException e) {
-            resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-            response.put("success", false);
-            response.put("error", "Database error: " + e.getMessage());
-            out.print(gson.toJson(response));
-        }
+            // Reads never create shows; one nobody has booked yet simply has every seat free
+            return showService.findShowIdAsync(movie.getMovieId(), location, showTime).thenCompose(showId -> {
+                response.put("success", true);
+                response.put("movieName", movie.getMovieName());
+                response.put("location", location);
+                response.put("showTime", showTime);
+                if (showId == null) {
+                    response.put("availableSeats", ShowStore.DEFAULT_SEATS);
+                    if (includeSeats) {
+                        response.put("totalSeats", ShowStore.DEFAULT_SEATS);
+                        response.put("takenSeats", Collections.emptyList());
+                    }
+                    return CompletableFuture.completedFuture(HttpServletResponse.SC_OK);
+                }
+                response.put("showId", showId);
+                return showService.getAvailableSeatsAsync(showId).thenCompose(availableSeats -> {
+                    response.put("availableSeats", availableSeats);
+                    if (!includeSeats) {
+                        return CompletableFuture.completedFuture(HttpServletResponse.SC_OK);
+                    }
+                    return showService.getSeatMapAsync(showId).thenApply(seatMap -> {
+                        if (seatMap != null) {
+                            response.put("totalSeats", seatMap.getCapacity());
+                            response.put("takenSeats", seatMap.takenLabels());
+                        }
+                        return HttpServletResponse.SC_OK;
+                    });
+                });
+            });
+        }).whenComplete((status, error) -> {
+            if (error != null) {
+                asyncResponse.sendFailure(error);
+            } else {
+                asyncResponse.send(status, response);
+            }
+        });
     }
     
     @Override
@@ -0,0 +1,163 @@
+package sa.edu.kau.fcit.cpit252.project.controller;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import sa.edu.kau.fcit.cpit252.project.service.MovieService;
+import sa.edu.kau.fcit.cpit252.project.service.SeatHolds;
+import sa.edu.kau.fcit.cpit252.project.service.ShowService;
+import sa.edu.kau.fcit.cpit252.project.service.WaitingRoom;
+
+/**
+ * Servlet for holding seats during checkout.
+ *
+ * POST /hold with movieName, location, showTime, quantity (and optionally
+ * hallType, seconds) takes the seats for a limited time and returns a hold
+ * token. The token is confirmed by POST /booking with holdToken, or given
+ * back early with POST /hold?action=release&holdToken=...
+ * During an on-sale the X-Admission-Token from /queue is required.
+ */
+@WebServlet(value = "/hold", asyncSupported = true)
+public class SeatHoldServlet extends HttpServlet {
+
+    private ShowService showService;
+    private MovieService movieService;
+    private WaitingRoom waitingRoom;
+    private Gson gson;
+
+    @Override
+    public void init() throws ServletException {
+        this.showService = new ShowService();
+        this.movieService = new MovieService();
+        this.waitingRoom = WaitingRoom.getInstance();
+        this.gson = new GsonBuilder().setPrettyPrinting().create();
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp)
+            throws ServletException, IOException {
+
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
+
+        // Enable CORS for API access
+        resp.setHeader("Access-Control-Allow-Origin", "*");
+        resp.setHeader("Access-Control-Allow-Methods", "POST, OPTIONS");
+        resp.setHeader("Access-Control-Allow-Headers", "Content-Type, X-Admission-Token");
+
+        PrintWriter out = resp.getWriter();
+        Map<String, Object> response = new HashMap<>();
+
+        // Holds take seats from everyone else, so only logged-in users may create them
+        String userEmail = (String) req.getSession().getAttribute("userEmail");
+        if (userEmail == null) {
+            resp.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            response.put("success", false);
+            response.put("error", "User not logged in");
+            out.print(gson.toJson(response));
+            return;
+        }
+
+        if ("release".equals(req.getParameter("action"))) {
+            boolean released = showService.releaseHold(req.getParameter("holdToken"));
+            resp.setStatus(released ? HttpServletResponse.SC_OK : HttpServletResponse.SC_NOT_FOUND);
+            response.put("success", released);
+            if (!released) {
+                response.put("error", "Hold not found or already expired");
+            }
+            out.print(gson.toJson(response));
+            return;
+        }
+
+        String movieName = req.getParameter("movieName");
+        String location = req.getParameter("location");
+        String showTime = req.getParameter("showTime");
+        String hallType = req.getParameter("hallType");
+        String quantityStr = req.getParameter("quantity");
+        String secondsStr = req.getParameter("seconds");
+
+        if (movieName == null || location == null || showTime == null || quantityStr == null) {
+            resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            response.put("success", false);
+            response.put("error", "Missing required parameters: movieName, location, showTime, quantity");
+            out.print(gson.toJson(response));
+            return;
+        }
+        if (!waitingRoom.isAdmitted(movieName, userEmail, req.getHeader("X-Admission-Token"))) {
+            resp.setStatus(HttpServletResponse.SC_FORBIDDEN);
+            response.put("success", false);
+            response.put("error", "Join the waiting room at /queue to hold seats for this movie");
+            response.put("waitingRoom", true);
+            out.print(gson.toJson(response));
+            return;
+        }
+
+        int quantity;
+        int seconds;
+        try {
+            quantity = Integer.parseInt(quantityStr);
+            seconds = secondsStr != null ? Integer.parseInt(secondsStr) : SeatHolds.DEFAULT_HOLD_SECONDS;
+        } catch (NumberFormatException e) {
+            resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            response.put("success", false);
+            response.put("error", "Invalid number format");
+            out.print(gson.toJson(response));
+            return;
+        }
+
+        AsyncJsonResponse asyncResponse = AsyncJsonResponse.start(req, resp, gson);
+        movieService.getMovieByNameAsync(movieName).thenCompose(movie -> {
+            if (movie == null) {
+                response.put("success", false);
+                response.put("error", "Movie not found");
+                return CompletableFuture.completedFuture(HttpServletResponse.SC_NOT_FOUND);
+            }
+
+            return showService.getOrCreateShowAsync(
+                movie.getMovieId(),
+                location,
+                showTime,
+                hallType != null ? hallType : "Standard Hall"
+            ).thenCompose(showId -> showService.holdSeatsAsync(showId, quantity, seconds).thenApply(hold -> {
+                if (hold == null) {
+                    response.put("success", false);
+                    response.put("error", "Not enough seats available");
+                    response.put("showId", showId);
+                    return HttpServletResponse.SC_CONFLICT;
+                }
+                response.put("success", true);
+                response.put("holdToken", hold.getToken());
+                response.put("showId", hold.getShowId());
+                response.put("quantity", hold.getQuantity());
+                response.put("expiresAt", hold.getExpiresAt());
+                return HttpServletResponse.SC_OK;
+            }));
+        }).whenComplete((status, error) -> {
+            if (error != null) {
+                asyncResponse.sendFailure(error);
+            } else {
+                asyncResponse.send(status, response);
+            }
+        });
+    }
+
+    @Override
+    protected void doOptions(HttpServletRequest req, HttpServletResponse resp)
+            throws ServletException, IOException {
+        resp.setHeader("Access-Control-Allow-Origin", "*");
+        resp.setHeader("Access-Control-Allow-Methods", "POST, OPTIONS");
+        resp.setHeader("Access-Control-Allow-Headers", "Content-Type, X-Admission-Token");
+        resp.setStatus(HttpServletResponse.SC_OK);
+    }
+}
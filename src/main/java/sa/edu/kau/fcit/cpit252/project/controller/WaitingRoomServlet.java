@@ -0,0 +1,143 @@
+package sa.edu.kau.fcit.cpit252.project.controller;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import sa.edu.kau.fcit.cpit252.project.model.QueuePosition;
+import sa.edu.kau.fcit.cpit252.project.service.WaitingRoom;
+
+/**
+ * Servlet for the waiting room of high-demand movies.
+ *
+ * POST /queue with movieName joins the queue and returns a queue token.
+ * GET /queue?queueToken=... returns the current position and, once the
+ * user is admitted, the admission token to send with POST /booking and
+ * POST /hold in the X-Admission-Token header. Neither call touches the
+ * database; Retry-After tells clients when to poll again.
+ */
+@WebServlet("/queue")
+public class WaitingRoomServlet extends HttpServlet {
+
+    private WaitingRoom waitingRoom;
+    private Gson gson;
+
+    @Override
+    public void init() throws ServletException {
+        this.waitingRoom = WaitingRoom.getInstance();
+        this.gson = new GsonBuilder().setPrettyPrinting().create();
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp)
+            throws ServletException, IOException {
+
+        prepare(resp);
+        PrintWriter out = resp.getWriter();
+        Map<String, Object> response = new HashMap<>();
+
+        String userEmail = (String) req.getSession().getAttribute("userEmail");
+        if (userEmail == null) {
+            resp.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            response.put("success", false);
+            response.put("error", "User not logged in");
+            out.print(gson.toJson(response));
+            return;
+        }
+
+        String movieName = req.getParameter("movieName");
+        if (movieName == null) {
+            resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            response.put("success", false);
+            response.put("error", "Missing required parameter: movieName");
+            out.print(gson.toJson(response));
+            return;
+        }
+
+        QueuePosition position = waitingRoom.join(movieName, userEmail);
+        if (position == null) {
+            // No on-sale in progress; book directly
+            response.put("success", true);
+            response.put("waitingRoom", false);
+            out.print(gson.toJson(response));
+            return;
+        }
+        sendPosition(resp, out, response, position);
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp)
+            throws ServletException, IOException {
+
+        prepare(resp);
+        PrintWriter out = resp.getWriter();
+        Map<String, Object> response = new HashMap<>();
+
+        String userEmail = (String) req.getSession().getAttribute("userEmail");
+        if (userEmail == null) {
+            resp.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            response.put("success", false);
+            response.put("error", "User not logged in");
+            out.print(gson.toJson(response));
+            return;
+        }
+
+        QueuePosition position = waitingRoom.poll(req.getParameter("queueToken"), userEmail);
+        if (position == null) {
+            resp.setStatus(HttpServletResponse.SC_FORBIDDEN);
+            response.put("success", false);
+            response.put("error", "Invalid or expired queue token; join the queue again");
+            out.print(gson.toJson(response));
+            return;
+        }
+        sendPosition(resp, out, response, position);
+    }
+
+    private void sendPosition(HttpServletResponse resp, PrintWriter out,
+                              Map<String, Object> response, QueuePosition position) {
+        response.put("success", true);
+        response.put("waitingRoom", true);
+        response.put("queueToken", position.getQueueToken());
+        response.put("position", position.getPosition());
+        response.put("ahead", position.getAhead());
+        response.put("admitted", position.isAdmitted());
+        if (position.isAdmitted()) {
+            response.put("admissionToken", position.getAdmissionToken());
+        } else {
+            int pollAfter = waitingRoom.pollAfterSeconds(position);
+            resp.setHeader("Retry-After", String.valueOf(pollAfter));
+            response.put("estimatedWaitSeconds", position.getEstimatedWaitSeconds());
+            response.put("pollAfterSeconds", pollAfter);
+        }
+        out.print(gson.toJson(response));
+    }
+
+    private static void prepare(HttpServletResponse resp) {
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
+        resp.setHeader("Cache-Control", "no-store");
+
+        // Enable CORS for API access
+        resp.setHeader("Access-Control-Allow-Origin", "*");
+        resp.setHeader("Access-Control-Allow-Methods", "POST, GET, OPTIONS");
+        resp.setHeader("Access-Control-Allow-Headers", "Content-Type");
+    }
+
+    @Override
+    protected void doOptions(HttpServletRequest req, HttpServletResponse resp)
+            throws ServletException, IOException {
+        resp.setHeader("Access-Control-Allow-Origin", "*");
+        resp.setHeader("Access-Control-Allow-Methods", "POST, GET, OPTIONS");
+        resp.setHeader("Access-Control-Allow-Headers", "Content-Type");
+        resp.setStatus(HttpServletResponse.SC_OK);
+    }
+}
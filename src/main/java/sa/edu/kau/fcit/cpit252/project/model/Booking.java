@@ -18,6 +18,9 @@ public class Booking {
     private int popcornQuantity;
     private BigDecimal totalPrice;
     private LocalDateTime bookingDate;
+    private int[] seats;
+    private String idempotencyKey;
+    private String requestFingerprint;
 
     // ==================== Constructors ====================
 
@@ -47,6 +50,9 @@ public class Booking {
         this.popcornQuantity = builder.popcornQuantity;
         this.totalPrice = builder.totalPrice;
         this.bookingDate = builder.bookingDate != null ? builder.bookingDate : LocalDateTime.now();
+        this.seats = builder.seats;
+        this.idempotencyKey = builder.idempotencyKey;
+        this.requestFingerprint = builder.requestFingerprint;
     }
 
     // ==================== Builder Factory ====================
@@ -89,6 +95,30 @@ public class Booking {
         return bookingDate;
     }
 
+    /**
+     * Assigned seat numbers in ascending order, or null if the booking has no
+     * specific seats. The array is shared, not copied; do not modify it.
+     */
+    public int[] getSeats() {
+        return seats;
+    }
+
+    /**
+     * Client-supplied key that makes retries of this booking safe, or null.
+     * Unique per user.
+     */
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    /**
+     * Hash of the parameters of the request that sent the idempotency key,
+     * or null if there was no key (or the booking predates fingerprints).
+     */
+    public String getRequestFingerprint() {
+        return requestFingerprint;
+    }
+
     // ==================== Setters ====================
 
     public void setBookingId(int bookingId) {
@@ -123,6 +153,18 @@ public class Booking {
         this.bookingDate = bookingDate;
     }
 
+    public void setSeats(int[] seats) {
+        this.seats = seats;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public void setRequestFingerprint(String requestFingerprint) {
+        this.requestFingerprint = requestFingerprint;
+    }
+
     // ==================== Object Methods ====================
 
     @Override
@@ -155,6 +197,9 @@ public class Booking {
         private int popcornQuantity = 0;
         private BigDecimal totalPrice;
         private LocalDateTime bookingDate;
+        private int[] seats;
+        private String idempotencyKey;
+        private String requestFingerprint;
 
         public Builder bookingId(int bookingId) {
             this.bookingId = bookingId;
@@ -196,6 +241,28 @@ public class Booking {
             return this;
         }
 
+        /**
+         * Specific seats to book, in ascending order; one per ticket.
+         */
+        public Builder seats(int[] seats) {
+            this.seats = seats;
+            return this;
+        }
+
+        public Builder idempotencyKey(String idempotencyKey) {
+            this.idempotencyKey = idempotencyKey;
+            return this;
+        }
+
+        /**
+         * Hash of the parameters of the request that sent the idempotency
+         * key, so a retry can be told apart from a key reused for another booking.
+         */
+        public Builder requestFingerprint(String requestFingerprint) {
+            this.requestFingerprint = requestFingerprint;
+            return this;
+        }
+
         /**
          * Builds the Booking object.
          * @return the constructed Booking
@@ -211,6 +278,9 @@ public class Booking {
             if (popcornQuantity < 0) {
                 throw new IllegalStateException("Popcorn quantity cannot be negative");
             }
+            if (seats != null && seats.length != ticketQuantity) {
+                throw new IllegalStateException("Number of seats must match ticket quantity");
+            }
             return new Booking(this);
         }
     }
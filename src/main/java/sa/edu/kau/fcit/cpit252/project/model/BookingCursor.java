@@ -0,0 +1,69 @@
+package sa.edu.kau.fcit.cpit252.project.model;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in a user's booking history, newest first.
+ *
+ * The next page starts strictly after (bookingDate, bookingId), so pages
+ * stay stable while new bookings are added. Clients see the cursor as an
+ * opaque URL-safe token.
+ */
+public class BookingCursor {
+
+    private final LocalDateTime bookingDate;
+    private final int bookingId;
+
+    public BookingCursor(LocalDateTime bookingDate, int bookingId) {
+        this.bookingDate = bookingDate;
+        this.bookingId = bookingId;
+    }
+
+    /**
+     * Cursor positioned after the given booking.
+     */
+    public static BookingCursor after(Booking booking) {
+        return new BookingCursor(booking.getBookingDate(), booking.getBookingId());
+    }
+
+    public LocalDateTime getBookingDate() {
+        return bookingDate;
+    }
+
+    public int getBookingId() {
+        return bookingId;
+    }
+
+    /**
+     * Whether a booking sorts after this cursor (older, or same time with a lower id).
+     */
+    public boolean isBefore(Booking booking) {
+        int cmp = booking.getBookingDate().compareTo(bookingDate);
+        return cmp < 0 || (cmp == 0 && booking.getBookingId() < bookingId);
+    }
+
+    public String encode() {
+        String raw = bookingDate + "|" + bookingId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token was not produced by {@link #encode()}
+     */
+    public static BookingCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new BookingCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                Integer.parseInt(raw.substring(separator + 1)));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
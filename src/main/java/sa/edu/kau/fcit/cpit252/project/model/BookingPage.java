@@ -0,0 +1,44 @@
+package sa.edu.kau.fcit.cpit252.project.model;
+
+import java.util.List;
+
+/**
+ * One page of a user's booking history, newest first.
+ */
+public class BookingPage {
+
+    private final List<Booking> bookings;
+    private final BookingCursor nextCursor;
+
+    public BookingPage(List<Booking> bookings, BookingCursor nextCursor) {
+        this.bookings = bookings;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Builds a page from up to pageSize + 1 rows read in history order;
+     * the extra row only signals that another page exists.
+     */
+    public static BookingPage of(List<Booking> rows, int pageSize) {
+        if (rows.size() <= pageSize) {
+            return new BookingPage(rows, null);
+        }
+        List<Booking> page = rows.subList(0, pageSize);
+        return new BookingPage(page, BookingCursor.after(page.get(pageSize - 1)));
+    }
+
+    public List<Booking> getBookings() {
+        return bookings;
+    }
+
+    /**
+     * Cursor for the following page, or null if this is the last page.
+     */
+    public BookingCursor getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+}
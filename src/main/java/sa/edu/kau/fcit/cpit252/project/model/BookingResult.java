@@ -0,0 +1,107 @@
+package sa.edu.kau.fcit.cpit252.project.model;
+
+/**
+ * Outcome of booking tickets by movie name, location and show time.
+ */
+public class BookingResult {
+
+    public enum Status { BOOKED, MOVIE_NOT_FOUND, NOT_ENOUGH_SEATS, SEATS_UNAVAILABLE, HOLD_EXPIRED, KEY_REUSED }
+
+    private final Status status;
+    private final int bookingId;
+    private final int showId;
+    private final int availableSeats;
+    // The stored booking a replay answers with
+    private final Booking stored;
+
+    public BookingResult(Status status, int bookingId, int showId, int availableSeats) {
+        this(status, bookingId, showId, availableSeats, null);
+    }
+
+    private BookingResult(Status status, int bookingId, int showId, int availableSeats, Booking stored) {
+        this.status = status;
+        this.bookingId = bookingId;
+        this.showId = showId;
+        this.availableSeats = availableSeats;
+        this.stored = stored;
+    }
+
+    public static BookingResult booked(int bookingId, int showId) {
+        return new BookingResult(Status.BOOKED, bookingId, showId, -1);
+    }
+
+    /**
+     * The answer to a request whose idempotency key is already stored with
+     * the existing booking: that booking, replayed, if the request is a
+     * retry of the one that stored it, otherwise {@link Status#KEY_REUSED}.
+     * Nothing new is booked either way. Bookings stored without a
+     * fingerprint are taken as retries.
+     */
+    public static BookingResult replayOf(Booking existing, Booking request) {
+        String stored = existing.getRequestFingerprint();
+        if (stored != null && !stored.equals(request.getRequestFingerprint())) {
+            return keyReused();
+        }
+        return new BookingResult(Status.BOOKED, existing.getBookingId(), existing.getShowId(), -1, existing);
+    }
+
+    /**
+     * The idempotency key was already used by the same user for a different request.
+     */
+    public static BookingResult keyReused() {
+        return new BookingResult(Status.KEY_REUSED, -1, -1, -1);
+    }
+
+    public static BookingResult movieNotFound() {
+        return new BookingResult(Status.MOVIE_NOT_FOUND, -1, -1, -1);
+    }
+
+    public static BookingResult notEnoughSeats(int showId, int availableSeats) {
+        return new BookingResult(Status.NOT_ENOUGH_SEATS, -1, showId, availableSeats);
+    }
+
+    /**
+     * One of the requested specific seats is taken or does not exist.
+     */
+    public static BookingResult seatsUnavailable(int showId) {
+        return new BookingResult(Status.SEATS_UNAVAILABLE, -1, showId, -1);
+    }
+
+    /**
+     * The seat hold being confirmed was released, expired or never existed.
+     */
+    public static BookingResult holdExpired() {
+        return new BookingResult(Status.HOLD_EXPIRED, -1, -1, -1);
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public int getBookingId() {
+        return bookingId;
+    }
+
+    public int getShowId() {
+        return showId;
+    }
+
+    public int getAvailableSeats() {
+        return availableSeats;
+    }
+
+    public boolean isBooked() {
+        return status == Status.BOOKED;
+    }
+
+    public boolean isReplayed() {
+        return stored != null;
+    }
+
+    /**
+     * The stored booking of a replayed result, or null.
+     */
+    public Booking getStoredBooking() {
+        return stored;
+    }
+}
@@ -0,0 +1,61 @@
+package sa.edu.kau.fcit.cpit252.project.model;
+
+/**
+ * A user's place in the waiting room of a high-demand movie.
+ *
+ * Returned when joining and on every poll. Once the position has been
+ * reached, the admission token is set and must be sent with the booking.
+ */
+public class QueuePosition {
+
+    private final String queueToken;
+    private final long position;
+    private final long ahead;
+    private final long estimatedWaitSeconds;
+    private final String admissionToken;
+
+    public QueuePosition(String queueToken, long position, long ahead,
+                         long estimatedWaitSeconds, String admissionToken) {
+        this.queueToken = queueToken;
+        this.position = position;
+        this.ahead = ahead;
+        this.estimatedWaitSeconds = estimatedWaitSeconds;
+        this.admissionToken = admissionToken;
+    }
+
+    /**
+     * Signed ticket the client polls with.
+     */
+    public String getQueueToken() {
+        return queueToken;
+    }
+
+    /**
+     * Place in the queue, 1 for the first user who joined.
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * Users still to be admitted before this one; 0 once admitted.
+     */
+    public long getAhead() {
+        return ahead;
+    }
+
+    public long getEstimatedWaitSeconds() {
+        return estimatedWaitSeconds;
+    }
+
+    /**
+     * Signed admission token, or null while still waiting.
+     */
+    public String getAdmissionToken() {
+        return admissionToken;
+    }
+
+    public boolean isAdmitted() {
+        return admissionToken != null;
+    }
+}
@@ -0,0 +1,44 @@
+package sa.edu.kau.fcit.cpit252.project.model;
+
+/**
+ * Seats set aside for one user for a limited time.
+ *
+ * The seat count is already taken from the show; the hold either becomes a
+ * booking (confirmed) or gives the seats back when released or expired.
+ */
+public class SeatHold {
+
+    private final String token;
+    private final int showId;
+    private final int quantity;
+    private final long expiresAt;
+
+    public SeatHold(String token, int showId, int quantity, long expiresAt) {
+        this.token = token;
+        this.showId = showId;
+        this.quantity = quantity;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Opaque, unguessable id the client uses to confirm or release the hold.
+     */
+    public String getToken() {
+        return token;
+    }
+
+    public int getShowId() {
+        return showId;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    /**
+     * Expiry time in epoch milliseconds.
+     */
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+}
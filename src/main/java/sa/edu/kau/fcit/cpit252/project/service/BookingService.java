@@ -1,22 +1,55 @@
 package sa.edu.kau.fcit.cpit252.project.service;
 
+import java.io.IOException;
 import java.math.BigDecimal;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 import sa.edu.kau.fcit.cpit252.project.model.Booking;
-import sa.edu.kau.fcit.cpit252.project.store.DatabaseConnection;
+import sa.edu.kau.fcit.cpit252.project.model.BookingCursor;
+import sa.edu.kau.fcit.cpit252.project.model.BookingPage;
+import sa.edu.kau.fcit.cpit252.project.model.BookingResult;
+import sa.edu.kau.fcit.cpit252.project.model.SeatHold;
+import sa.edu.kau.fcit.cpit252.project.store.BookingStore;
+import sa.edu.kau.fcit.cpit252.project.store.DatabaseExecutor;
+import sa.edu.kau.fcit.cpit252.project.store.StoreFactory;
 
 /**
- * Service for managing bookings in the database.
+ * Service for managing bookings.
+ * Storage is delegated to a BookingStore (database or in-memory).
+ * The *Async variants run on the DatabaseExecutor bulkhead.
  */
 public class BookingService {
     
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+    private static final int STREAM_PAGE_SIZE = 200;
+    
+    /**
+     * Receives bookings one at a time from {@link #streamBookingsByUser}.
+     */
+    @FunctionalInterface
+    public interface BookingVisitor {
+        void visit(Booking booking) throws IOException;
+    }
+    
+    private final BookingStore bookingStore;
+    private final DatabaseExecutor dbExecutor = DatabaseExecutor.getInstance();
+    
+    /**
+     * Creates BookingService using the store selected at startup.
+     */
+    public BookingService() {
+        this(StoreFactory.bookingStore());
+    }
+    
+    public BookingService(BookingStore bookingStore) {
+        this.bookingStore = bookingStore;
+    }
+    
     /**
      * Create a booking and reduce seats atomically
      * Returns the booking ID if successful, -1 if not enough seats
@@ -24,96 +57,152 @@ public class BookingService {
     public int createBooking(int showId, String userEmail, String ticketType, 
                            int ticketQuantity, int popcornQuantity, BigDecimal totalPrice) throws SQLException {
         
-        ShowService showService = new ShowService();
+        Booking booking = Booking.builder()
+            .showId(showId)
+            .userEmail(userEmail)
+            .ticketType(ticketType)
+            .ticketQuantity(ticketQuantity)
+            .popcornQuantity(popcornQuantity)
+            .totalPrice(totalPrice)
+            .build();
         
-        // Check and reserve seats atomically
-        if (!showService.reserveSeats(showId, ticketQuantity)) {
-            return -1; // Not enough seats
+        return bookingStore.create(booking);
+    }
+    
+    /**
+     * Resolve the movie and show, reserve seats and store the booking as one
+     * atomic unit. The show is created on first use.
+     *
+     * @param booking carries userEmail, ticketType, quantities and totalPrice
+     * @return the outcome; seats are never decremented without a booking row
+     */
+    public BookingResult bookTickets(String movieName, String location, String showTime,
+                                     String hallType, Booking booking) throws SQLException {
+        return bookingStore.bookTickets(movieName, location, showTime, hallType, booking);
+    }
+    
+    /**
+     * Same as {@link #bookTickets} without blocking the caller.
+     * Fails with RejectedExecutionException when the database queue or the
+     * group-commit writer's queue is full.
+     */
+    public CompletableFuture<BookingResult> bookTicketsAsync(String movieName, String location, String showTime,
+                                                             String hallType, Booking booking) {
+        return bookingStore.bookTicketsAsync(movieName, location, showTime, hallType, booking, dbExecutor);
+    }
+    
+    /**
+     * Store the booking for seats already held, as the action of
+     * {@link ShowService#confirmHold}. No seats are reserved here.
+     *
+     * @throws IllegalArgumentException if the ticket quantity differs from the
+     *         held quantity; the hold stays in place
+     */
+    public BookingResult bookHeldSeats(SeatHold hold, Booking booking) throws SQLException {
+        if (booking.getTicketQuantity() != hold.getQuantity()) {
+            throw new IllegalArgumentException("Ticket quantity must match the held seats");
         }
-        
-        // Create booking using Singleton DatabaseConnection
-        String sql = "INSERT INTO Bookings (showId, userEmail, ticketType, ticketQuantity, popcornQuantity, totalPrice) " +
-                    "VALUES (?, ?, ?, ?, ?, ?)";
-        
-        try (Connection conn = DatabaseConnection.createConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            
-            stmt.setInt(1, showId);
-            stmt.setString(2, userEmail);
-            stmt.setString(3, ticketType);
-            stmt.setInt(4, ticketQuantity);
-            stmt.setInt(5, popcornQuantity);
-            stmt.setBigDecimal(6, totalPrice);
-            
-            stmt.executeUpdate();
-            
-            try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
-                if (generatedKeys.next()) {
-                    return generatedKeys.getInt(1);
-                }
-            }
+        booking.setShowId(hold.getShowId());
+        return bookingStore.createReserved(hold, booking);
+    }
+    
+    /**
+     * The booking an earlier attempt stored under the booking's idempotency
+     * key, as a replayed result, or null if there is none (or no key).
+     * Read on the database bulkhead.
+     */
+    public CompletableFuture<BookingResult> findReplayAsync(Booking booking) {
+        if (booking.getIdempotencyKey() == null) {
+            return CompletableFuture.completedFuture(null);
         }
-        
-        return -1;
+        return dbExecutor.submit(() -> {
+            Booking existing = bookingStore.findByIdempotencyKey(booking.getUserEmail(), booking.getIdempotencyKey());
+            return existing != null ? BookingResult.replayOf(existing, booking) : null;
+        });
     }
     
     /**
      * Get all bookings for a user by email.
+     * Prefer {@link #getBookingsPage} or {@link #streamBookingsByUser} for long histories.
      */
     public List<Booking> getBookingsByUser(String userEmail) throws SQLException {
-        List<Booking> bookings = new ArrayList<>();
-        String sql = "SELECT * FROM Bookings WHERE userEmail = ? ORDER BY bookingDate DESC";
-        
-        try (Connection conn = DatabaseConnection.createConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setString(1, userEmail);
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    Booking booking = new Booking();
-                    booking.setBookingId(rs.getInt("bookingId"));
-                    booking.setShowId(rs.getInt("showId"));
-                    booking.setUserEmail(rs.getString("userEmail"));
-                    booking.setTicketType(rs.getString("ticketType"));
-                    booking.setTicketQuantity(rs.getInt("ticketQuantity"));
-                    booking.setPopcornQuantity(rs.getInt("popcornQuantity"));
-                    booking.setTotalPrice(rs.getBigDecimal("totalPrice"));
-                    bookings.add(booking);
-                }
+        return bookingStore.findByUser(userEmail);
+    }
+    
+    /**
+     * Get one page of a user's bookings, newest first.
+     *
+     * @param after cursor from the previous page, or null for the first page
+     * @param pageSize clamped to 1..MAX_PAGE_SIZE
+     */
+    public BookingPage getBookingsPage(String userEmail, BookingCursor after, int pageSize) throws SQLException {
+        return bookingStore.findByUser(userEmail, after, clampPageSize(pageSize));
+    }
+    
+    /**
+     * Same as {@link #getBookingsPage} without blocking the caller.
+     */
+    public CompletableFuture<BookingPage> getBookingsPageAsync(String userEmail, BookingCursor after, int pageSize) {
+        int size = clampPageSize(pageSize);
+        return dbExecutor.submit(() -> bookingStore.findByUser(userEmail, after, size));
+    }
+    
+    /**
+     * Hands every booking of a user to the visitor, newest first.
+     * Reads one keyset page at a time, so memory stays flat and no connection
+     * is held while the visitor writes to a slow client.
+     */
+    public void streamBookingsByUser(String userEmail, BookingVisitor visitor) throws SQLException, IOException {
+        BookingCursor cursor = null;
+        do {
+            BookingPage page = bookingStore.findByUser(userEmail, cursor, STREAM_PAGE_SIZE);
+            for (Booking booking : page.getBookings()) {
+                visitor.visit(booking);
             }
-        }
-        
-        return bookings;
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+    }
+    
+    /**
+     * Same as {@link #streamBookingsByUser} without blocking the caller.
+     * Each page is read on the database bulkhead and handed to the visitor on
+     * the given executor, so neither a server thread nor a database thread
+     * waits while the other side is slow.
+     *
+     * @return completes after the last booking was visited; fails with the
+     *         first SQLException, IOException or RejectedExecutionException
+     */
+    public CompletableFuture<Void> streamBookingsByUserAsync(String userEmail, BookingVisitor visitor, Executor visitorExecutor) {
+        return streamFrom(userEmail, null, visitor, visitorExecutor);
+    }
+    
+    private CompletableFuture<Void> streamFrom(String userEmail, BookingCursor cursor,
+                                               BookingVisitor visitor, Executor visitorExecutor) {
+        return dbExecutor.submit(() -> bookingStore.findByUser(userEmail, cursor, STREAM_PAGE_SIZE))
+            .thenComposeAsync(page -> {
+                try {
+                    for (Booking booking : page.getBookings()) {
+                        visitor.visit(booking);
+                    }
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+                BookingCursor next = page.getNextCursor();
+                return next != null
+                    ? streamFrom(userEmail, next, visitor, visitorExecutor)
+                    : CompletableFuture.<Void>completedFuture(null);
+            }, visitorExecutor);
+    }
+    
+    private static int clampPageSize(int pageSize) {
+        return Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
     }
     
     /**
      * Get a booking by ID.
      */
     public Booking getBookingById(int bookingId) throws SQLException {
-        String sql = "SELECT * FROM Bookings WHERE bookingId = ?";
-        
-        try (Connection conn = DatabaseConnection.createConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setInt(1, bookingId);
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    Booking booking = new Booking();
-                    booking.setBookingId(rs.getInt("bookingId"));
-                    booking.setShowId(rs.getInt("showId"));
-                    booking.setUserEmail(rs.getString("userEmail"));
-                    booking.setTicketType(rs.getString("ticketType"));
-                    booking.setTicketQuantity(rs.getInt("ticketQuantity"));
-                    booking.setPopcornQuantity(rs.getInt("popcornQuantity"));
-                    booking.setTotalPrice(rs.getBigDecimal("totalPrice"));
-                    return booking;
-                }
-            }
-        }
-        
-        return null;
+        return bookingStore.findById(bookingId);
     }
 }
 
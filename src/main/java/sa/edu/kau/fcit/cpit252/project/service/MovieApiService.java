@@ -1,12 +1,19 @@
 package sa.edu.kau.fcit.cpit252.project.service;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import com.google.gson.annotations.SerializedName;
 
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
@@ -14,6 +21,11 @@ import okhttp3.Response;
 /**
  * Service to fetch movie information from external OMDB API.
  * This demonstrates integration with external REST APIs.
+ * The *Async variants do not block the caller while OMDB answers; the
+ * blocking methods wait for them.
+ * Calls go through an {@link OmdbCircuitBreaker}, and an expired cached
+ * answer is served while a single background call refreshes it, so an OMDB
+ * outage degrades searches to slightly old results instead of errors.
  */
 public class MovieApiService {
     
@@ -24,15 +36,54 @@ public class MovieApiService {
     
     private static final String OMDB_BASE_URL = "https://www.omdbapi.com/";
     
-    private final OkHttpClient httpClient;
+    // Whole call, connecting included; a slow OMDB fails fast instead of piling up requests
+    private static final long CALL_TIMEOUT_MS = System.getenv("OMDB_CALL_TIMEOUT_MS") != null
+        ? Long.parseLong(System.getenv("OMDB_CALL_TIMEOUT_MS"))
+        : 10_000;
+    
+    // Calls beyond this wait in OkHttp's dispatcher queue, not on a thread
+    private static final int MAX_CONCURRENT_CALLS = System.getenv("OMDB_MAX_CONCURRENT_CALLS") != null
+        ? Integer.parseInt(System.getenv("OMDB_MAX_CONCURRENT_CALLS"))
+        : 16;
+    
+    // One connection pool and dispatcher for every service instance
+    private static final OkHttpClient HTTP_CLIENT = createHttpClient();
+    
     private final Gson gson;
+    private final OmdbCache cache;
+    private final OmdbSingleFlight inFlight;
+    private final OmdbDiskStore diskStore;
+    private final OmdbCircuitBreaker breaker;
     
     public MovieApiService() {
-        this.httpClient = new OkHttpClient.Builder()
-            .connectTimeout(10, TimeUnit.SECONDS)
-            .readTimeout(30, TimeUnit.SECONDS)
-            .build();
+        this(OmdbCache.getInstance(), OmdbSingleFlight.getInstance(), OmdbDiskStore.getInstance(),
+            OmdbCircuitBreaker.getInstance());
+    }
+    
+    /**
+     * @param diskStore responses kept across restarts, or null to keep them
+     *                  in memory only
+     */
+    public MovieApiService(OmdbCache cache, OmdbSingleFlight inFlight, OmdbDiskStore diskStore,
+                           OmdbCircuitBreaker breaker) {
         this.gson = new Gson();
+        this.cache = cache;
+        this.inFlight = inFlight;
+        this.diskStore = diskStore;
+        this.breaker = breaker;
+    }
+    
+    private static OkHttpClient createHttpClient() {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(MAX_CONCURRENT_CALLS);
+        dispatcher.setMaxRequestsPerHost(MAX_CONCURRENT_CALLS);
+        return new OkHttpClient.Builder()
+            .dispatcher(dispatcher)
+            .connectionPool(new ConnectionPool(MAX_CONCURRENT_CALLS, 5, TimeUnit.MINUTES))
+            .connectTimeout(Math.min(CALL_TIMEOUT_MS, 5_000), TimeUnit.MILLISECONDS)
+            .readTimeout(CALL_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+            .callTimeout(CALL_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+            .build();
     }
     
     /**
@@ -42,28 +93,15 @@ public class MovieApiService {
      * @return MovieInfo object with details, or null if not found
      */
     public MovieInfo searchMovie(String title) throws IOException {
-        String url = OMDB_BASE_URL + "?apikey=" + OMDB_API_KEY + "&t=" + encodeUrl(title);
-        
-        Request request = new Request.Builder()
-            .url(url)
-            .get()
-            .build();
-        
-        try (Response response = httpClient.newCall(request).execute()) {
-            if (!response.isSuccessful()) {
-                throw new IOException("Unexpected response code: " + response);
-            }
-            
-            String responseBody = response.body().string();
-            JsonObject json = gson.fromJson(responseBody, JsonObject.class);
-            
-            // Check if movie was found
-            if (json.has("Response") && json.get("Response").getAsString().equals("False")) {
-                return null;
-            }
-            
-            return gson.fromJson(responseBody, MovieInfo.class);
-        }
+        return await(searchMovieAsync(title));
+    }
+    
+    /**
+     * Search for a movie by title without blocking the caller
+     */
+    public CompletableFuture<MovieInfo> searchMovieAsync(String title) {
+        return fetchAsync(OmdbCache.key("t", title), "&t=" + encodeUrl(title), OmdbCache.Kind.DETAIL)
+            .thenApply(this::parseMovie);
     }
     
     /**
@@ -73,21 +111,15 @@ public class MovieApiService {
      * @return MovieSearchResult with list of movies
      */
     public MovieSearchResult searchMovies(String keyword) throws IOException {
-        String url = OMDB_BASE_URL + "?apikey=" + OMDB_API_KEY + "&s=" + encodeUrl(keyword);
-        
-        Request request = new Request.Builder()
-            .url(url)
-            .get()
-            .build();
-        
-        try (Response response = httpClient.newCall(request).execute()) {
-            if (!response.isSuccessful()) {
-                throw new IOException("Unexpected response code: " + response);
-            }
-            
-            String responseBody = response.body().string();
-            return gson.fromJson(responseBody, MovieSearchResult.class);
-        }
+        return await(searchMoviesAsync(keyword));
+    }
+    
+    /**
+     * Search for movies by keyword without blocking the caller
+     */
+    public CompletableFuture<MovieSearchResult> searchMoviesAsync(String keyword) {
+        return fetchAsync(OmdbCache.key("s", keyword), "&s=" + encodeUrl(keyword), OmdbCache.Kind.SEARCH)
+            .thenApply(responseBody -> gson.fromJson(responseBody, MovieSearchResult.class));
     }
     
     /**
@@ -97,29 +129,144 @@ public class MovieApiService {
      * @return MovieInfo object with full details
      */
     public MovieInfo getMovieById(String imdbId) throws IOException {
-        String url = OMDB_BASE_URL + "?apikey=" + OMDB_API_KEY + "&i=" + imdbId + "&plot=full";
+        return await(getMovieByIdAsync(imdbId));
+    }
+    
+    /**
+     * Get detailed movie information by IMDB ID without blocking the caller
+     */
+    public CompletableFuture<MovieInfo> getMovieByIdAsync(String imdbId) {
+        return fetchAsync(OmdbCache.key("i", imdbId), "&i=" + imdbId + "&plot=full", OmdbCache.Kind.DETAIL)
+            .thenApply(this::parseMovie);
+    }
+    
+    /**
+     * Return the OMDB response body for a query, from the cache or the disk
+     * store if possible. "Not found" answers are cached too; failed calls
+     * are not. Concurrent misses for the same query share one call.
+     * An expired answer still in the cache is returned at once while the
+     * call runs in the background.
+     */
+    private CompletableFuture<String> fetchAsync(String cacheKey, String query, OmdbCache.Kind kind) {
+        String cached = cache.get(cacheKey);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        
+        if (diskStore != null) {
+            try {
+                OmdbDiskStore.Stored stored = diskStore.get(cacheKey);
+                if (stored != null) {
+                    cache.put(cacheKey, stored.getBody(), stored.getExpiresAtMillis() - System.currentTimeMillis());
+                    return CompletableFuture.completedFuture(stored.getBody());
+                }
+            } catch (IOException e) {
+                System.err.println("⚠️ Could not read OMDB store: " + e.getMessage());
+            }
+        }
+        
+        CompletableFuture<String> call = inFlight.executeAsync(cacheKey, () -> callAsync(cacheKey, query, kind));
+        String stale = cache.getStale(cacheKey);
+        if (stale != null) {
+            // The refresh stores its answer for the next caller; if it fails the stale answer stays
+            return CompletableFuture.completedFuture(stale);
+        }
+        return call;
+    }
+    
+    private CompletableFuture<String> callAsync(String cacheKey, String query, OmdbCache.Kind kind) {
+        try {
+            breaker.acquire();
+        } catch (OmdbCircuitBreaker.OpenException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        long started = System.nanoTime();
+        
+        String url = OMDB_BASE_URL + "?apikey=" + OMDB_API_KEY + query;
         
         Request request = new Request.Builder()
             .url(url)
             .get()
             .build();
         
-        try (Response response = httpClient.newCall(request).execute()) {
-            if (!response.isSuccessful()) {
-                throw new IOException("Unexpected response code: " + response);
+        CompletableFuture<String> result = new CompletableFuture<>();
+        HTTP_CLIENT.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                breaker.record(System.nanoTime() - started, true);
+                result.completeExceptionally(e);
             }
             
-            String responseBody = response.body().string();
-            JsonObject json = gson.fromJson(responseBody, JsonObject.class);
-            
-            if (json.has("Response") && json.get("Response").getAsString().equals("False")) {
-                return null;
+            @Override
+            public void onResponse(Call call, Response response) {
+                String responseBody;
+                try (response) {
+                    if (!response.isSuccessful()) {
+                        throw new IOException("Unexpected response code: " + response);
+                    }
+                    
+                    responseBody = response.body().string();
+                } catch (IOException e) {
+                    breaker.record(System.nanoTime() - started, true);
+                    result.completeExceptionally(e);
+                    return;
+                }
+                // "Not found" is a normal answer, not an OMDB failure
+                breaker.record(System.nanoTime() - started, false);
+                
+                try {
+                    store(cacheKey, responseBody, kind);
+                    result.complete(responseBody);
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                }
             }
-            
-            return gson.fromJson(responseBody, MovieInfo.class);
+        });
+        return result;
+    }
+    
+    private void store(String cacheKey, String responseBody, OmdbCache.Kind kind) {
+        // OMDB may add a missing movie any time, so "not found" expires like a search
+        long ttlMillis = cache.ttlMillis(isNotFound(responseBody) ? OmdbCache.Kind.SEARCH : kind);
+        cache.put(cacheKey, responseBody, ttlMillis);
+        if (diskStore != null) {
+            try {
+                diskStore.put(cacheKey, responseBody, System.currentTimeMillis() + ttlMillis);
+            } catch (IOException e) {
+                System.err.println("⚠️ Could not save OMDB response: " + e.getMessage());
+            }
+        }
+    }
+    
+    private static <T> T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for OMDB");
         }
     }
     
+    private MovieInfo parseMovie(String responseBody) {
+        // Check if movie was found
+        if (isNotFound(responseBody)) {
+            return null;
+        }
+        
+        return gson.fromJson(responseBody, MovieInfo.class);
+    }
+    
+    private boolean isNotFound(String responseBody) {
+        JsonObject json = gson.fromJson(responseBody, JsonObject.class);
+        return json.has("Response") && json.get("Response").getAsString().equals("False");
+    }
+    
     private String encodeUrl(String value) {
         return value.replace(" ", "+").replace("&", "%26");
     }
@@ -1,71 +1,61 @@
 package sa.edu.kau.fcit.cpit252.project.service;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import sa.edu.kau.fcit.cpit252.project.model.Movie;
-import sa.edu.kau.fcit.cpit252.project.store.DatabaseConnection;
+import sa.edu.kau.fcit.cpit252.project.store.DatabaseExecutor;
+import sa.edu.kau.fcit.cpit252.project.store.MovieStore;
+import sa.edu.kau.fcit.cpit252.project.store.StoreFactory;
 
 /**
- * Service for managing movies in the database.
+ * Service for managing movies.
+ * Storage is delegated to a MovieStore (database or in-memory).
+ * The *Async variants run on the DatabaseExecutor bulkhead.
  */
 public class MovieService {
     
+    private final MovieStore movieStore;
+    private final DatabaseExecutor dbExecutor = DatabaseExecutor.getInstance();
+    
+    /**
+     * Creates MovieService using the store selected at startup.
+     */
+    public MovieService() {
+        this(StoreFactory.movieStore());
+    }
+    
+    public MovieService(MovieStore movieStore) {
+        this.movieStore = movieStore;
+    }
+    
     /**
-     * Get movie by ID
+     * Get movie by ID (without description)
      */
     public Movie getMovieById(int movieId) throws SQLException {
-        String sql = "SELECT * FROM Movies WHERE movieId = ?";
-        
-        try (Connection conn = DatabaseConnection.createConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setInt(1, movieId);
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    Movie movie = new Movie();
-                    movie.setMovieId(rs.getInt("movieId"));
-                    movie.setMovieName(rs.getString("movieName"));
-                    movie.setDescription(rs.getString("description"));
-                    movie.setImageUrl(rs.getString("imageUrl"));
-                    return movie;
-                }
-            }
-        }
-        
-        return null;
+        return movieStore.findById(movieId);
+    }
+    
+    /**
+     * Get movie by ID including its description
+     */
+    public Movie getMovieDetails(int movieId) throws SQLException {
+        return movieStore.findDetailsById(movieId);
     }
     
     /**
-     * Get movie by name (case-insensitive)
+     * Get movie by name (case-insensitive, without description)
      */
     public Movie getMovieByName(String movieName) throws SQLException {
-        String sql = "SELECT * FROM Movies WHERE LOWER(movieName) = LOWER(?)";
-        
-        try (Connection conn = DatabaseConnection.createConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setString(1, movieName);
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    Movie movie = new Movie();
-                    movie.setMovieId(rs.getInt("movieId"));
-                    movie.setMovieName(rs.getString("movieName"));
-                    movie.setDescription(rs.getString("description"));
-                    movie.setImageUrl(rs.getString("imageUrl"));
-                    return movie;
-                }
-            }
-        }
-        
-        return null;
+        return movieStore.findByName(movieName);
+    }
+    
+    /**
+     * Get movie by name without blocking the caller
+     */
+    public CompletableFuture<Movie> getMovieByNameAsync(String movieName) {
+        return dbExecutor.submit(() -> movieStore.findByName(movieName));
     }
     
     /**
@@ -77,50 +67,14 @@ public class MovieService {
             return existing.getMovieId();
         }
         
-        // Create new movie
-        String sql = "INSERT INTO Movies (movieName, description, imageUrl) VALUES (?, ?, ?)";
-        
-        try (Connection conn = DatabaseConnection.createConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            
-            stmt.setString(1, movieName);
-            stmt.setString(2, description);
-            stmt.setString(3, imageUrl);
-            
-            stmt.executeUpdate();
-            
-            try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
-                if (generatedKeys.next()) {
-                    return generatedKeys.getInt(1);
-                }
-            }
-        }
-        
-        throw new SQLException("Failed to create movie");
+        return movieStore.create(movieName, description, imageUrl);
     }
     
     /**
-     * Get all movies
+     * Get all movies (without descriptions)
      */
     public List<Movie> getAllMovies() throws SQLException {
-        List<Movie> movies = new ArrayList<>();
-        String sql = "SELECT * FROM Movies ORDER BY movieName";
-        
-        try (Connection conn = DatabaseConnection.createConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
-            
-            while (rs.next()) {
-                Movie movie = new Movie();
-                movie.setMovieId(rs.getInt("movieId"));
-                movie.setMovieName(rs.getString("movieName"));
-                movie.setDescription(rs.getString("description"));
-                movie.setImageUrl(rs.getString("imageUrl"));
-                movies.add(movie);
-            }
-        }
-        
-        return movies;
+        return movieStore.findAll();
     }
 }
 
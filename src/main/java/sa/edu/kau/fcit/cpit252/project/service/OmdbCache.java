@@ -0,0 +1,402 @@
+package sa.edu.kau.fcit.cpit252.project.service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * In-process cache of OMDB responses for {@link MovieApiService}.
+ *
+ * Entries are the raw JSON bodies, keyed by a normalized action and
+ * parameter. Search results live OMDB_SEARCH_TTL_SECONDS and details
+ * OMDB_DETAIL_TTL_SECONDS; the cache holds at most OMDB_CACHE_MAX_BYTES of
+ * bodies.
+ *
+ * An expired body is kept for up to OMDB_CACHE_MAX_STALE_SECONDS more:
+ * {@link #get} no longer returns it, but {@link #getStale} does, so callers
+ * can answer with it while a refresh runs or while OMDB is down.
+ *
+ * Eviction is W-TinyLFU: new entries land in a small LRU window, and an
+ * entry pushed out of the window only enters the main LRU region if it has
+ * been requested more often than the main region's least recently used
+ * entry. Request counts come from a count-min sketch that is halved now and
+ * then, so a burst of one-off searches (every keystroke of a title) cannot
+ * push out the few dozen current releases most users look at.
+ */
+public final class OmdbCache {
+
+    static final long MAX_BYTES = System.getenv("OMDB_CACHE_MAX_BYTES") != null
+        ? Long.parseLong(System.getenv("OMDB_CACHE_MAX_BYTES"))
+        : 16L * 1024 * 1024;
+
+    static final long SEARCH_TTL_SECONDS = System.getenv("OMDB_SEARCH_TTL_SECONDS") != null
+        ? Long.parseLong(System.getenv("OMDB_SEARCH_TTL_SECONDS"))
+        : 600;
+
+    static final long DETAIL_TTL_SECONDS = System.getenv("OMDB_DETAIL_TTL_SECONDS") != null
+        ? Long.parseLong(System.getenv("OMDB_DETAIL_TTL_SECONDS"))
+        : 86_400;
+
+    static final long MAX_STALE_SECONDS = System.getenv("OMDB_CACHE_MAX_STALE_SECONDS") != null
+        ? Long.parseLong(System.getenv("OMDB_CACHE_MAX_STALE_SECONDS"))
+        : 86_400;
+
+    // Object headers, the key and the map entry, on top of the body's chars
+    private static final int ENTRY_OVERHEAD = 96;
+    // Typical OMDB body, to size the sketch for the number of entries that fit
+    private static final int TYPICAL_ENTRY_BYTES = 2_048;
+
+    private static final class Holder {
+        static final OmdbCache INSTANCE = new OmdbCache(MAX_BYTES,
+            TimeUnit.SECONDS.toMillis(SEARCH_TTL_SECONDS), TimeUnit.SECONDS.toMillis(DETAIL_TTL_SECONDS),
+            TimeUnit.SECONDS.toMillis(MAX_STALE_SECONDS));
+    }
+
+    /**
+     * What a cached body answers; decides its time to live.
+     */
+    public enum Kind { SEARCH, DETAIL }
+
+    private static final class Entry {
+        final String key;
+        final String body;
+        final int weight;
+        final long expiresAt;
+        final long staleUntil;
+
+        Entry(String key, String body, int weight, long expiresAt, long staleUntil) {
+            this.key = key;
+            this.body = body;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+            this.staleUntil = staleUntil;
+        }
+    }
+
+    private final long maxWeight;
+    private final long windowMaxWeight;
+    private final long searchTtlNanos;
+    private final long detailTtlNanos;
+    private final long maxStaleNanos;
+    private final LongSupplier nanoClock;
+
+    // Both access-ordered for LRU; guarded by this
+    private final LinkedHashMap<String, Entry> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, Entry> main = new LinkedHashMap<>(16, 0.75f, true);
+    private long windowWeight;
+    private long mainWeight;
+    private final FrequencySketch sketch;
+
+    private long hits;
+    private long misses;
+    private long expirations;
+    private long evictions;
+    private long rejections;
+    private long staleHits;
+
+    public static OmdbCache getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    public OmdbCache(long maxWeight, long searchTtlMillis, long detailTtlMillis) {
+        this(maxWeight, searchTtlMillis, detailTtlMillis, 0);
+    }
+
+    /**
+     * @param maxStaleMillis how long expired bodies stay available to {@link #getStale}
+     */
+    public OmdbCache(long maxWeight, long searchTtlMillis, long detailTtlMillis, long maxStaleMillis) {
+        this(maxWeight, searchTtlMillis, detailTtlMillis, maxStaleMillis, System::nanoTime);
+    }
+
+    /**
+     * @param nanoClock source of {@link System#nanoTime}-style timestamps
+     */
+    public OmdbCache(long maxWeight, long searchTtlMillis, long detailTtlMillis, long maxStaleMillis,
+                     LongSupplier nanoClock) {
+        this.maxWeight = maxWeight;
+        this.windowMaxWeight = Math.max(maxWeight / 100, Math.min(maxWeight, TYPICAL_ENTRY_BYTES));
+        this.searchTtlNanos = TimeUnit.MILLISECONDS.toNanos(searchTtlMillis);
+        this.detailTtlNanos = TimeUnit.MILLISECONDS.toNanos(detailTtlMillis);
+        this.maxStaleNanos = TimeUnit.MILLISECONDS.toNanos(maxStaleMillis);
+        this.nanoClock = nanoClock;
+        this.sketch = new FrequencySketch((int) Math.min(1 << 24, Math.max(64, maxWeight / TYPICAL_ENTRY_BYTES)));
+    }
+
+    /**
+     * Cache key of an OMDB request: the action and its parameter, trimmed,
+     * lower-cased and with runs of whitespace collapsed, so "The  Matrix"
+     * and "the matrix" share an entry.
+     */
+    public static String key(String action, String value) {
+        return action + ":" + value.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * The cached body, or null if absent or expired. Every call counts as a
+     * request of the key for admission.
+     */
+    public synchronized String get(String key) {
+        sketch.increment(key);
+        Entry entry = window.get(key);
+        if (entry == null) {
+            entry = main.get(key);
+        }
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        long now = nanoClock.getAsLong();
+        if (now - entry.expiresAt >= 0) {
+            if (now - entry.staleUntil >= 0) {
+                remove(entry);
+                expirations++;
+            }
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.body;
+    }
+
+    /**
+     * The cached body even if expired, as long as it is within the stale
+     * limit; null otherwise. Meant for after {@link #get} missed, so it does
+     * not count as another request.
+     */
+    public synchronized String getStale(String key) {
+        Entry entry = window.get(key);
+        if (entry == null) {
+            entry = main.get(key);
+        }
+        if (entry == null || nanoClock.getAsLong() - entry.staleUntil >= 0) {
+            return null;
+        }
+        staleHits++;
+        return entry.body;
+    }
+
+    /**
+     * Caches a body. It may be evicted again right away if it loses the
+     * admission check, or if it alone exceeds the cache size.
+     */
+    public void put(String key, String body, Kind kind) {
+        put(key, body, ttlMillis(kind));
+    }
+
+    /**
+     * Caches a body for the given time, such as the rest of the life of a
+     * body read back from the {@link OmdbDiskStore}.
+     */
+    public synchronized void put(String key, String body, long ttlMillis) {
+        Entry existing = window.get(key);
+        if (existing == null) {
+            existing = main.get(key);
+        }
+        if (existing != null) {
+            remove(existing);
+        }
+
+        int weight = ENTRY_OVERHEAD + key.length() * 2 + body.length() * 2;
+        if (weight > maxWeight) {
+            rejections++;
+            return;
+        }
+        long expiresAt = nanoClock.getAsLong() + TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        Entry entry = new Entry(key, body, weight, expiresAt, expiresAt + maxStaleNanos);
+        window.put(key, entry);
+        windowWeight += weight;
+
+        while (windowWeight > windowMaxWeight) {
+            Iterator<Entry> eldest = window.values().iterator();
+            Entry candidate = eldest.next();
+            eldest.remove();
+            windowWeight -= candidate.weight;
+            admit(candidate);
+        }
+    }
+
+    /**
+     * How long bodies of a kind stay fresh.
+     */
+    public long ttlMillis(Kind kind) {
+        return TimeUnit.NANOSECONDS.toMillis(kind == Kind.SEARCH ? searchTtlNanos : detailTtlNanos);
+    }
+
+    /**
+     * Moves an entry leaving the window into the main region if it is
+     * requested more often than the entries it would displace. The victims
+     * are only evicted once the candidate has won against all of them, so a
+     * rejected candidate leaves the main region as it was.
+     */
+    private void admit(Entry candidate) {
+        long mainMaxWeight = maxWeight - windowMaxWeight;
+        int candidateFrequency = sketch.frequency(candidate.key);
+        long now = nanoClock.getAsLong();
+
+        List<Entry> victims = new ArrayList<>();
+        long freed = 0;
+        Iterator<Entry> eldest = main.values().iterator();
+        while (mainWeight - freed + candidate.weight > mainMaxWeight) {
+            if (!eldest.hasNext()) {
+                rejections++;
+                return;
+            }
+            Entry victim = eldest.next();
+            boolean expired = now - victim.expiresAt >= 0;
+            if (!expired && sketch.frequency(victim.key) >= candidateFrequency) {
+                rejections++;
+                return;
+            }
+            victims.add(victim);
+            freed += victim.weight;
+        }
+
+        for (Entry victim : victims) {
+            main.remove(victim.key);
+            mainWeight -= victim.weight;
+            if (now - victim.expiresAt >= 0) {
+                expirations++;
+            } else {
+                evictions++;
+            }
+        }
+        main.put(candidate.key, candidate);
+        mainWeight += candidate.weight;
+    }
+
+    private void remove(Entry entry) {
+        if (window.remove(entry.key) != null) {
+            windowWeight -= entry.weight;
+        } else if (main.remove(entry.key) != null) {
+            mainWeight -= entry.weight;
+        }
+    }
+
+    // ==================== Frequency sketch ====================
+
+    /**
+     * Count-min sketch of recent requests: four rows of 4-bit counters. After
+     * ten times as many requests as it has counters per row, every counter is
+     * halved, so old popularity fades.
+     */
+    private static final class FrequencySketch {
+        private static final int[] SEEDS = { 0x97cb3127, 0xb4b82e1d, 0x4b3b72a3, 0x27d4eb2f };
+        private static final int MAX_COUNT = 15;
+
+        private final byte[][] rows = new byte[SEEDS.length][];
+        private final int mask;
+        private final int resetAfter;
+        private int additions;
+
+        FrequencySketch(int expectedEntries) {
+            int width = Integer.highestOneBit(Math.max(16, expectedEntries - 1)) << 1;
+            for (int i = 0; i < rows.length; i++) {
+                rows[i] = new byte[width];
+            }
+            this.mask = width - 1;
+            this.resetAfter = width * 10;
+        }
+
+        void increment(String key) {
+            int hash = spread(key.hashCode());
+            boolean added = false;
+            for (int i = 0; i < rows.length; i++) {
+                int index = index(hash, i);
+                if (rows[i][index] < MAX_COUNT) {
+                    rows[i][index]++;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= resetAfter) {
+                for (byte[] row : rows) {
+                    for (int j = 0; j < row.length; j++) {
+                        row[j] >>= 1;
+                    }
+                }
+                additions /= 2;
+            }
+        }
+
+        int frequency(String key) {
+            int hash = spread(key.hashCode());
+            int min = MAX_COUNT;
+            for (int i = 0; i < rows.length; i++) {
+                min = Math.min(min, rows[i][index(hash, i)]);
+            }
+            return min;
+        }
+
+        private int index(int hash, int row) {
+            int h = hash * SEEDS[row];
+            return (h ^ (h >>> 16)) & mask;
+        }
+
+        private static int spread(int hash) {
+            hash ^= hash >>> 16;
+            hash *= 0x45d9f3b;
+            return hash ^ (hash >>> 16);
+        }
+    }
+
+    // ==================== Stats ====================
+
+    public synchronized int size() {
+        return window.size() + main.size();
+    }
+
+    public synchronized long getWeight() {
+        return windowWeight + mainWeight;
+    }
+
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    /**
+     * Entries dropped because their time to live ran out.
+     */
+    public synchronized long getExpirationCount() {
+        return expirations;
+    }
+
+    /**
+     * Entries pushed out of the main region by more popular ones.
+     */
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    /**
+     * New entries turned away because they were requested less often than
+     * what they would have displaced.
+     */
+    public synchronized long getRejectionCount() {
+        return rejections;
+    }
+
+    /**
+     * Expired bodies served while they were refreshed or OMDB was down.
+     */
+    public synchronized long getStaleHitCount() {
+        return staleHits;
+    }
+
+    public synchronized double getHitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+}
@@ -0,0 +1,215 @@
+package sa.edu.kau.fcit.cpit252.project.service;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Circuit breaker around the OMDB calls of {@link MovieApiService}.
+ *
+ * While closed, the outcome of the last OMDB_BREAKER_WINDOW calls is kept.
+ * Once at least OMDB_BREAKER_MIN_CALLS are recorded and either
+ * OMDB_BREAKER_FAILURE_PERCENT of them failed or OMDB_BREAKER_SLOW_PERCENT
+ * took longer than OMDB_BREAKER_SLOW_CALL_MS, the breaker opens: calls fail
+ * at once with {@link OpenException} for OMDB_BREAKER_OPEN_MS instead of
+ * waiting out timeouts. After that it lets OMDB_BREAKER_TRIAL_CALLS trial
+ * calls through (half-open); if they all succeed quickly it closes, and any
+ * failed or slow trial opens it again.
+ */
+public final class OmdbCircuitBreaker {
+
+    private static final int WINDOW = System.getenv("OMDB_BREAKER_WINDOW") != null
+        ? Integer.parseInt(System.getenv("OMDB_BREAKER_WINDOW"))
+        : 20;
+
+    private static final int MIN_CALLS = System.getenv("OMDB_BREAKER_MIN_CALLS") != null
+        ? Integer.parseInt(System.getenv("OMDB_BREAKER_MIN_CALLS"))
+        : 10;
+
+    private static final int FAILURE_PERCENT = System.getenv("OMDB_BREAKER_FAILURE_PERCENT") != null
+        ? Integer.parseInt(System.getenv("OMDB_BREAKER_FAILURE_PERCENT"))
+        : 50;
+
+    private static final int SLOW_CALL_MS = System.getenv("OMDB_BREAKER_SLOW_CALL_MS") != null
+        ? Integer.parseInt(System.getenv("OMDB_BREAKER_SLOW_CALL_MS"))
+        : 3_000;
+
+    private static final int SLOW_PERCENT = System.getenv("OMDB_BREAKER_SLOW_PERCENT") != null
+        ? Integer.parseInt(System.getenv("OMDB_BREAKER_SLOW_PERCENT"))
+        : 80;
+
+    private static final int OPEN_MS = System.getenv("OMDB_BREAKER_OPEN_MS") != null
+        ? Integer.parseInt(System.getenv("OMDB_BREAKER_OPEN_MS"))
+        : 30_000;
+
+    private static final int TRIAL_CALLS = System.getenv("OMDB_BREAKER_TRIAL_CALLS") != null
+        ? Integer.parseInt(System.getenv("OMDB_BREAKER_TRIAL_CALLS"))
+        : 3;
+
+    private static final class Holder {
+        static final OmdbCircuitBreaker INSTANCE = new OmdbCircuitBreaker(
+            WINDOW, MIN_CALLS, FAILURE_PERCENT, SLOW_CALL_MS, SLOW_PERCENT, OPEN_MS, TRIAL_CALLS);
+    }
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /**
+     * Thrown instead of calling OMDB while the breaker is open.
+     */
+    public static final class OpenException extends IOException {
+        private final long retryAfterMillis;
+
+        OpenException(long retryAfterMillis) {
+            super("OMDB is unavailable, calls are suspended for " + retryAfterMillis + " ms");
+            this.retryAfterMillis = retryAfterMillis;
+        }
+
+        public long getRetryAfterMillis() {
+            return retryAfterMillis;
+        }
+    }
+
+    private final int minCalls;
+    private final int failurePercent;
+    private final long slowCallNanos;
+    private final int slowPercent;
+    private final long openNanos;
+    private final int trialCalls;
+
+    // Ring of the last calls while closed; guarded by this
+    private final boolean[] failed;
+    private final boolean[] slow;
+    private int recorded;
+    private int next;
+    private int failures;
+    private int slowCalls;
+
+    private State state = State.CLOSED;
+    private long openUntil;
+    private int trialsStarted;
+    private int trialsPassed;
+
+    private long opened;
+    private long rejected;
+
+    public static OmdbCircuitBreaker getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    public OmdbCircuitBreaker(int window, int minCalls, int failurePercent, long slowCallMillis,
+                              int slowPercent, long openMillis, int trialCalls) {
+        this.failed = new boolean[window];
+        this.slow = new boolean[window];
+        this.minCalls = Math.min(minCalls, window);
+        this.failurePercent = failurePercent;
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMillis);
+        this.slowPercent = slowPercent;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+        this.trialCalls = trialCalls;
+    }
+
+    /**
+     * Asks to make a call; every permitted call must be reported to
+     * {@link #record}.
+     *
+     * @throws OpenException if calls are suspended
+     */
+    public synchronized void acquire() throws OpenException {
+        long now = System.nanoTime();
+        if (state == State.OPEN && now - openUntil >= 0) {
+            state = State.HALF_OPEN;
+            trialsStarted = 0;
+            trialsPassed = 0;
+        }
+        if (state == State.CLOSED) {
+            return;
+        }
+        if (state == State.HALF_OPEN && trialsStarted < trialCalls) {
+            trialsStarted++;
+            return;
+        }
+        rejected++;
+        long retryAfter = state == State.OPEN ? openUntil - now : openNanos;
+        throw new OpenException(Math.max(1, TimeUnit.NANOSECONDS.toMillis(retryAfter)));
+    }
+
+    /**
+     * Reports how a permitted call went.
+     */
+    public synchronized void record(long durationNanos, boolean failure) {
+        boolean wasSlow = durationNanos > slowCallNanos;
+        if (state == State.HALF_OPEN) {
+            if (failure || wasSlow) {
+                open();
+            } else if (++trialsPassed >= trialCalls) {
+                state = State.CLOSED;
+                recorded = 0;
+                next = 0;
+                failures = 0;
+                slowCalls = 0;
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            // A call permitted before the breaker opened
+            return;
+        }
+
+        if (recorded == failed.length) {
+            failures -= failed[next] ? 1 : 0;
+            slowCalls -= slow[next] ? 1 : 0;
+        } else {
+            recorded++;
+        }
+        failed[next] = failure;
+        slow[next] = wasSlow;
+        failures += failure ? 1 : 0;
+        slowCalls += wasSlow ? 1 : 0;
+        next = (next + 1) % failed.length;
+
+        if (recorded >= minCalls
+                && (failures * 100 >= failurePercent * recorded || slowCalls * 100 >= slowPercent * recorded)) {
+            open();
+        }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openUntil = System.nanoTime() + openNanos;
+        opened++;
+        System.err.println("⚠️ OMDB circuit breaker opened for " + TimeUnit.NANOSECONDS.toMillis(openNanos) + " ms");
+    }
+
+    // ==================== Stats ====================
+
+    public synchronized State getState() {
+        if (state == State.OPEN && System.nanoTime() - openUntil >= 0) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    /**
+     * Share of failed calls in the current window, in percent.
+     */
+    public synchronized double getFailurePercent() {
+        return recorded == 0 ? 0 : 100.0 * failures / recorded;
+    }
+
+    /**
+     * Share of slow calls in the current window, in percent.
+     */
+    public synchronized double getSlowPercent() {
+        return recorded == 0 ? 0 : 100.0 * slowCalls / recorded;
+    }
+
+    public synchronized long getOpenedCount() {
+        return opened;
+    }
+
+    /**
+     * Calls refused while open or while half-open trials were running.
+     */
+    public synchronized long getRejectedCount() {
+        return rejected;
+    }
+}
@@ -0,0 +1,636 @@
+package sa.edu.kau.fcit.cpit252.project.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * OMDB responses kept on disk across restarts (OMDB_STORE=disk), so a cold
+ * start does not spend the daily quota fetching them again.
+ *
+ * Bodies are appended to a data file as records of key length (int), body
+ * length (int), expiry in epoch millis (long), CRC32 of key and body (int),
+ * then the UTF-8 key and body. A rewritten key just appends a new record.
+ * An index file maps key hashes to record offsets with open addressing:
+ * a 64-byte header, then slots of hash (long, 0 for empty) and offset
+ * (long). Both files are memory-mapped, so opening the store reads nothing
+ * but the header, and lookups read straight from the page cache.
+ *
+ * Records written after the index was last updated are indexed again on
+ * open; a torn record at the end of the data file (crash mid-write) is cut
+ * off. Every OMDB_STORE_COMPACT_MINUTES the store is rewritten without
+ * superseded and expired records once they make up a quarter of the data
+ * file. Rewrites go to the next generation of files, named in CURRENT, so
+ * the old ones stay intact until the switch.
+ */
+public final class OmdbDiskStore implements AutoCloseable {
+
+    private static final boolean ENABLED = "disk".equalsIgnoreCase(System.getenv("OMDB_STORE"));
+
+    private static final String STORE_DIR = System.getenv("OMDB_STORE_DIR") != null
+        ? System.getenv("OMDB_STORE_DIR")
+        : "omdb-store";
+
+    private static final long COMPACT_MINUTES = System.getenv("OMDB_STORE_COMPACT_MINUTES") != null
+        ? Long.parseLong(System.getenv("OMDB_STORE_COMPACT_MINUTES"))
+        : 60;
+
+    private static final int INDEX_MAGIC = 0x4f4d4442;
+    private static final int INDEX_VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int SLOT_BYTES = 16;
+    private static final int MIN_CAPACITY = 4096;
+    private static final double MAX_LOAD = 0.7;
+
+    // Index header fields
+    private static final int CAPACITY_AT = 8;
+    private static final int COUNT_AT = 12;
+    private static final int INDEXED_LENGTH_AT = 16;
+    private static final int LIVE_BYTES_AT = 24;
+
+    private static final int RECORD_HEADER_BYTES = Integer.BYTES + Integer.BYTES + Long.BYTES + Integer.BYTES;
+
+    private static final class Holder {
+        static final OmdbDiskStore INSTANCE = openConfigured();
+    }
+
+    /**
+     * A stored body and when it stops being fresh.
+     */
+    public static final class Stored {
+        private final String body;
+        private final long expiresAtMillis;
+
+        Stored(String body, long expiresAtMillis) {
+            this.body = body;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        public String getBody() { return body; }
+        public long getExpiresAtMillis() { return expiresAtMillis; }
+    }
+
+    private final Path dir;
+    private long generation;
+    private FileChannel data;
+    private FileChannel indexFile;
+    private MappedByteBuffer index;
+    // Read view of the data file, remapped when records are read past its end
+    private MappedByteBuffer dataView;
+    private int capacity;
+    private int count;
+    private long dataLength;
+    private long liveBytes;
+    private ScheduledExecutorService compactor;
+
+    private long hits;
+    private long misses;
+    private long expiredReads;
+    private long compactions;
+
+    private OmdbDiskStore(Path dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * The store configured by OMDB_STORE and OMDB_STORE_DIR, or null if
+     * responses are not kept on disk or the store could not be opened.
+     */
+    public static OmdbDiskStore getInstance() {
+        return ENABLED ? Holder.INSTANCE : null;
+    }
+
+    private static OmdbDiskStore openConfigured() {
+        try {
+            OmdbDiskStore store = open(Paths.get(STORE_DIR));
+            store.compactor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "omdb-store-compactor");
+                t.setDaemon(true);
+                return t;
+            });
+            store.compactor.scheduleWithFixedDelay(store::compactQuietly, COMPACT_MINUTES, COMPACT_MINUTES, TimeUnit.MINUTES);
+            Runtime.getRuntime().addShutdownHook(new Thread(store::close, "omdb-store-shutdown"));
+            return store;
+        } catch (IOException e) {
+            // The store only saves quota; movie search works without it
+            System.err.println("⚠️ OMDB store disabled, could not open " + STORE_DIR + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Opens the store in a directory, creating it if needed.
+     */
+    public static OmdbDiskStore open(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        OmdbDiskStore store = new OmdbDiskStore(dir);
+        store.load();
+        return store;
+    }
+
+    private void load() throws IOException {
+        Path current = dir.resolve("CURRENT");
+        if (Files.exists(current)) {
+            generation = Long.parseLong(Files.readString(current).trim());
+        } else {
+            writeCurrent(0);
+        }
+        deleteOtherGenerations();
+
+        data = FileChannel.open(dataPath(generation),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long from = 0;
+        Path indexPath = indexPath(generation);
+        if (Files.exists(indexPath) && Files.size(indexPath) >= HEADER_BYTES) {
+            mapIndex(indexPath, 0);
+            long indexedLength = index.getLong(INDEXED_LENGTH_AT);
+            if (index.getInt(0) == INDEX_MAGIC && index.getInt(4) == INDEX_VERSION
+                    && Integer.bitCount(capacity) == 1 && index.capacity() >= HEADER_BYTES + (long) capacity * SLOT_BYTES
+                    && indexedLength <= data.size()) {
+                from = indexedLength;
+            } else {
+                // Unreadable index; rebuild it from the data file
+                indexFile.close();
+                index = null;
+            }
+        }
+
+        // First pass finds where the valid records end, so a torn tail is cut before mapping
+        long validEnd = from;
+        int records = 0;
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+        while (true) {
+            int recordBytes = validRecordAt(validEnd, header);
+            if (recordBytes < 0) {
+                break;
+            }
+            validEnd += recordBytes;
+            records++;
+        }
+        if (validEnd < data.size()) {
+            System.err.println("⚠️ OMDB store: dropping " + (data.size() - validEnd) + " bytes of torn records");
+            data.truncate(validEnd);
+        }
+
+        if (index == null) {
+            mapIndex(indexPath, capacityFor(records));
+        }
+        dataLength = from;
+        for (long position = from; position < validEnd; ) {
+            int keyLength = view(position, RECORD_HEADER_BYTES).getInt((int) position);
+            byte[] key = new byte[keyLength];
+            view(position, RECORD_HEADER_BYTES + keyLength).get((int) position + RECORD_HEADER_BYTES, key);
+            int recordBytes = recordBytes(position);
+            indexRecord(key, position, recordBytes);
+            position += recordBytes;
+            dataLength = position;
+        }
+        index.putLong(INDEXED_LENGTH_AT, dataLength);
+        if (count > capacity * MAX_LOAD) {
+            compact();
+        }
+    }
+
+    /**
+     * Size of the complete, checksum-valid record at a position, or -1.
+     */
+    private int validRecordAt(long position, ByteBuffer header) throws IOException {
+        long size = data.size();
+        if (size - position < RECORD_HEADER_BYTES) {
+            return -1;
+        }
+        header.clear();
+        readFully(header, position);
+        header.flip();
+        int keyLength = header.getInt();
+        int bodyLength = header.getInt();
+        long expiresAt = header.getLong();
+        int crc = header.getInt();
+        if (keyLength <= 0 || bodyLength < 0
+                || size - position - RECORD_HEADER_BYTES < (long) keyLength + bodyLength) {
+            return -1;
+        }
+        ByteBuffer content = ByteBuffer.allocate(keyLength + bodyLength);
+        readFully(content, position + RECORD_HEADER_BYTES);
+        content.flip();
+        if (checksum(expiresAt, content) != crc) {
+            return -1;
+        }
+        return RECORD_HEADER_BYTES + keyLength + bodyLength;
+    }
+
+    // ==================== Reads and writes ====================
+
+    /**
+     * The stored body for a key, or null if absent or past its expiry.
+     */
+    public synchronized Stored get(String key) throws IOException {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        long offset = find(keyBytes, hash(keyBytes));
+        if (offset < 0) {
+            misses++;
+            return null;
+        }
+        ByteBuffer record = view(offset, recordBytes(offset));
+        int position = (int) offset;
+        int bodyLength = record.getInt(position + 4);
+        long expiresAt = record.getLong(position + 8);
+        if (expiresAt <= System.currentTimeMillis()) {
+            expiredReads++;
+            misses++;
+            return null;
+        }
+        ByteBuffer body = record.duplicate();
+        body.position(position + RECORD_HEADER_BYTES + keyBytes.length).limit(position + RECORD_HEADER_BYTES + keyBytes.length + bodyLength);
+        hits++;
+        return new Stored(StandardCharsets.UTF_8.decode(body).toString(), expiresAt);
+    }
+
+    /**
+     * Appends a body, replacing any earlier one for the key.
+     */
+    public synchronized void put(String key, String body, long expiresAtMillis) throws IOException {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] bodyBytes = body.getBytes(StandardCharsets.UTF_8);
+        int recordBytes = RECORD_HEADER_BYTES + keyBytes.length + bodyBytes.length;
+        // The read view is one mapping, so the file must stay addressable by int
+        if (dataLength + recordBytes > Integer.MAX_VALUE) {
+            throw new IOException("OMDB store is full");
+        }
+
+        ByteBuffer content = ByteBuffer.allocate(keyBytes.length + bodyBytes.length);
+        content.put(keyBytes).put(bodyBytes).flip();
+        ByteBuffer record = ByteBuffer.allocate(recordBytes);
+        record.putInt(keyBytes.length).putInt(bodyBytes.length).putLong(expiresAtMillis)
+            .putInt(checksum(expiresAtMillis, content)).put(content).flip();
+        long position = dataLength;
+        while (record.hasRemaining()) {
+            position += data.write(record, position);
+        }
+
+        indexRecord(keyBytes, dataLength, recordBytes);
+        dataLength = position;
+        index.putLong(INDEXED_LENGTH_AT, dataLength);
+        if (count > capacity * MAX_LOAD) {
+            compact();
+        }
+    }
+
+    // ==================== Index ====================
+
+    private long find(byte[] key, long hash) throws IOException {
+        int mask = capacity - 1;
+        for (int slot = (int) hash & mask; ; slot = (slot + 1) & mask) {
+            int at = HEADER_BYTES + slot * SLOT_BYTES;
+            long slotHash = index.getLong(at);
+            if (slotHash == 0) {
+                return -1;
+            }
+            long offset = index.getLong(at + 8);
+            if (slotHash == hash && keyMatches(offset, key)) {
+                return offset;
+            }
+        }
+    }
+
+    private void indexRecord(byte[] key, long offset, int recordBytes) throws IOException {
+        long hash = hash(key);
+        int mask = capacity - 1;
+        for (int slot = (int) hash & mask; ; slot = (slot + 1) & mask) {
+            int at = HEADER_BYTES + slot * SLOT_BYTES;
+            long slotHash = index.getLong(at);
+            if (slotHash == 0) {
+                if (count >= capacity - 1) {
+                    throw new IOException("OMDB store index is full");
+                }
+                index.putLong(at + 8, offset);
+                index.putLong(at, hash);
+                count++;
+                break;
+            }
+            if (slotHash == hash) {
+                long existing = index.getLong(at + 8);
+                if (existing == offset) {
+                    // Indexed before the crash that left it past the indexed length
+                    return;
+                }
+                if (keyMatches(existing, key)) {
+                    liveBytes -= recordBytes(existing);
+                    index.putLong(at + 8, offset);
+                    break;
+                }
+            }
+        }
+        liveBytes += recordBytes;
+        index.putInt(COUNT_AT, count);
+        index.putLong(LIVE_BYTES_AT, liveBytes);
+    }
+
+    private boolean keyMatches(long offset, byte[] key) throws IOException {
+        ByteBuffer record = view(offset, RECORD_HEADER_BYTES + key.length);
+        int position = (int) offset;
+        if (record.getInt(position) != key.length) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (record.get(position + RECORD_HEADER_BYTES + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int recordBytes(long offset) throws IOException {
+        ByteBuffer record = view(offset, RECORD_HEADER_BYTES);
+        return RECORD_HEADER_BYTES + record.getInt((int) offset) + record.getInt((int) offset + 4);
+    }
+
+    /**
+     * The data file's read view, covering at least length bytes from offset.
+     */
+    private ByteBuffer view(long offset, int length) throws IOException {
+        if (dataView == null || offset + length > dataView.capacity()) {
+            dataView = data.map(FileChannel.MapMode.READ_ONLY, 0, data.size());
+        }
+        return dataView;
+    }
+
+    private void mapIndex(Path path, int newCapacity) throws IOException {
+        indexFile = FileChannel.open(path,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (newCapacity > 0) {
+            index = indexFile.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) newCapacity * SLOT_BYTES);
+            // The file may hold an older, unreadable index
+            for (int at = 0; at < index.capacity(); at += Long.BYTES) {
+                index.putLong(at, 0);
+            }
+            index.putInt(0, INDEX_MAGIC);
+            index.putInt(4, INDEX_VERSION);
+            index.putInt(CAPACITY_AT, newCapacity);
+            index.putLong(INDEXED_LENGTH_AT, 0);
+            capacity = newCapacity;
+            count = 0;
+            liveBytes = 0;
+        } else {
+            index = indexFile.map(FileChannel.MapMode.READ_WRITE, 0, indexFile.size());
+            capacity = index.getInt(CAPACITY_AT);
+            count = index.getInt(COUNT_AT);
+            liveBytes = index.getLong(LIVE_BYTES_AT);
+        }
+    }
+
+    private static int capacityFor(int records) {
+        int needed = (int) Math.ceil(records / (MAX_LOAD / 2));
+        return Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, needed - 1)) << 1);
+    }
+
+    // ==================== Compaction ====================
+
+    private void compactQuietly() {
+        try {
+            compactIfWasteful();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("⚠️ OMDB store compaction failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Compacts if superseded and expired records make up a quarter of the
+     * data file.
+     */
+    public synchronized void compactIfWasteful() throws IOException {
+        long now = System.currentTimeMillis();
+        long expiredBytes = 0;
+        for (int slot = 0; slot < capacity; slot++) {
+            int at = HEADER_BYTES + slot * SLOT_BYTES;
+            if (index.getLong(at) != 0) {
+                long offset = index.getLong(at + 8);
+                if (view(offset, RECORD_HEADER_BYTES).getLong((int) offset + 8) <= now) {
+                    expiredBytes += recordBytes(offset);
+                }
+            }
+        }
+        if (dataLength - liveBytes + expiredBytes > dataLength / 4) {
+            compact();
+        }
+    }
+
+    /**
+     * Rewrites the live, unexpired records into the next generation of files.
+     */
+    public synchronized void compact() throws IOException {
+        long now = System.currentTimeMillis();
+        long next = generation + 1;
+        int kept = 0;
+        for (int slot = 0; slot < capacity; slot++) {
+            int at = HEADER_BYTES + slot * SLOT_BYTES;
+            if (index.getLong(at) != 0) {
+                long offset = index.getLong(at + 8);
+                if (view(offset, RECORD_HEADER_BYTES).getLong((int) offset + 8) > now) {
+                    kept++;
+                }
+            }
+        }
+
+        Path nextData = dataPath(next);
+        Path nextIndex = indexPath(next);
+        Files.deleteIfExists(nextData);
+        Files.deleteIfExists(nextIndex);
+        FileChannel oldData = data;
+        FileChannel oldIndexFile = indexFile;
+        MappedByteBuffer oldIndex = index;
+        int oldCapacity = capacity;
+        int oldCount = count;
+        long oldLiveBytes = liveBytes;
+
+        FileChannel newData = FileChannel.open(nextData,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long length = 0;
+        try {
+            mapIndex(nextIndex, capacityFor(kept));
+            int mask = capacity - 1;
+            for (int slot = 0; slot < oldCapacity; slot++) {
+                int at = HEADER_BYTES + slot * SLOT_BYTES;
+                long hash = oldIndex.getLong(at);
+                if (hash == 0) {
+                    continue;
+                }
+                long offset = oldIndex.getLong(at + 8);
+                if (view(offset, RECORD_HEADER_BYTES).getLong((int) offset + 8) <= now) {
+                    continue;
+                }
+                int recordBytes = recordBytes(offset);
+                // Copied by the kernel, without passing through the heap
+                for (long copied = 0; copied < recordBytes; ) {
+                    copied += oldData.transferTo(offset + copied, recordBytes - copied, newData);
+                }
+                int newSlot = (int) hash & mask;
+                while (index.getLong(HEADER_BYTES + newSlot * SLOT_BYTES) != 0) {
+                    newSlot = (newSlot + 1) & mask;
+                }
+                index.putLong(HEADER_BYTES + newSlot * SLOT_BYTES + 8, length);
+                index.putLong(HEADER_BYTES + newSlot * SLOT_BYTES, hash);
+                count++;
+                length += recordBytes;
+            }
+            liveBytes = length;
+            index.putInt(COUNT_AT, count);
+            index.putLong(LIVE_BYTES_AT, liveBytes);
+            index.putLong(INDEXED_LENGTH_AT, length);
+            newData.force(true);
+            index.force();
+        } catch (IOException | RuntimeException e) {
+            // Keep serving from the current generation
+            newData.close();
+            if (indexFile != oldIndexFile) {
+                indexFile.close();
+            }
+            indexFile = oldIndexFile;
+            index = oldIndex;
+            capacity = oldCapacity;
+            count = oldCount;
+            liveBytes = oldLiveBytes;
+            deleteGeneration(next);
+            throw e;
+        }
+
+        writeCurrent(next);
+        long previous = generation;
+        generation = next;
+        data = newData;
+        dataView = null;
+        dataLength = length;
+        compactions++;
+        oldData.close();
+        oldIndexFile.close();
+        deleteGeneration(previous);
+    }
+
+    // ==================== Files ====================
+
+    private Path dataPath(long gen) {
+        return dir.resolve("omdb-" + gen + ".dat");
+    }
+
+    private Path indexPath(long gen) {
+        return dir.resolve("omdb-" + gen + ".idx");
+    }
+
+    private void writeCurrent(long gen) throws IOException {
+        Path temp = dir.resolve("CURRENT.tmp");
+        Files.writeString(temp, Long.toString(gen));
+        Files.move(temp, dir.resolve("CURRENT"), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void deleteGeneration(long gen) {
+        try {
+            Files.deleteIfExists(dataPath(gen));
+            Files.deleteIfExists(indexPath(gen));
+        } catch (IOException e) {
+            // Still mapped on some platforms; removed on the next start
+        }
+    }
+
+    private void deleteOtherGenerations() throws IOException {
+        String keep = "omdb-" + generation + ".";
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "omdb-*.{dat,idx}")) {
+            for (Path file : files) {
+                if (!file.getFileName().toString().startsWith(keep)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (data.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of OMDB store");
+            }
+        }
+    }
+
+    private static int checksum(long expiresAt, ByteBuffer content) {
+        CRC32 crc = new CRC32();
+        crc.update(ByteBuffer.allocate(Long.BYTES).putLong(0, expiresAt));
+        crc.update(content.duplicate());
+        return (int) crc.getValue();
+    }
+
+    // FNV-1a, never 0 since 0 marks an empty slot
+    private static long hash(byte[] key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        return hash == 0 ? 1 : hash;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (compactor != null) {
+            compactor.shutdownNow();
+        }
+        try {
+            index.force();
+            data.close();
+            indexFile.close();
+        } catch (IOException e) {
+            System.err.println("⚠️ Could not close OMDB store: " + e.getMessage());
+        }
+    }
+
+    // ==================== Stats ====================
+
+    public synchronized int size() {
+        return count;
+    }
+
+    public synchronized long getDataBytes() {
+        return dataLength;
+    }
+
+    /**
+     * Bytes of the newest record of each key; the rest is reclaimed by compaction.
+     */
+    public synchronized long getLiveBytes() {
+        return liveBytes;
+    }
+
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    /**
+     * Lookups that found only an expired body.
+     */
+    public synchronized long getExpiredReadCount() {
+        return expiredReads;
+    }
+
+    public synchronized long getCompactionCount() {
+        return compactions;
+    }
+}
@@ -0,0 +1,180 @@
+package sa.edu.kau.fcit.cpit252.project.service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Shares concurrent identical OMDB calls of {@link MovieApiService}.
+ *
+ * The first caller for a key (see {@link OmdbCache#key}) makes the HTTP
+ * call; callers arriving while it runs wait for its body or its error
+ * instead of calling OMDB themselves. Each flight has a deadline of
+ * OMDB_SINGLE_FLIGHT_TIMEOUT_MS: followers give up when it passes, and a
+ * caller arriving after it starts a fresh call rather than joining one that
+ * is probably stuck.
+ */
+public final class OmdbSingleFlight {
+
+    static final long TIMEOUT_MS = System.getenv("OMDB_SINGLE_FLIGHT_TIMEOUT_MS") != null
+        ? Long.parseLong(System.getenv("OMDB_SINGLE_FLIGHT_TIMEOUT_MS"))
+        : 15_000;
+
+    private static final class Holder {
+        static final OmdbSingleFlight INSTANCE = new OmdbSingleFlight(TIMEOUT_MS);
+    }
+
+    /**
+     * Fetches an OMDB response body for {@link #execute}.
+     */
+    @FunctionalInterface
+    public interface Call {
+        String call() throws IOException;
+    }
+
+    private static final class Flight {
+        final CompletableFuture<String> result = new CompletableFuture<>();
+        // In System.nanoTime()
+        final long deadline;
+
+        Flight(long deadline) {
+            this.deadline = deadline;
+        }
+    }
+
+    private final long timeoutNanos;
+    private final Map<String, Flight> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong joined = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+
+    public static OmdbSingleFlight getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    public OmdbSingleFlight(long timeoutMs) {
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+    }
+
+    /**
+     * Runs the call, or waits for the one already running for the key.
+     *
+     * @throws IOException the call's error, shared by everyone waiting for
+     *         it, or a timeout if the flight's deadline passes first
+     */
+    public String execute(String key, Call call) throws IOException {
+        CompletableFuture<String> result = executeAsync(key, () -> {
+            try {
+                return CompletableFuture.completedFuture(call.call());
+            } catch (IOException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        });
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            // A fresh exception, so this caller's stack shows where it waited
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for OMDB");
+        }
+    }
+
+    /**
+     * Starts the call, or joins the one already running for the key,
+     * without blocking the caller.
+     *
+     * @return the call's body; it fails with the call's error, or with an
+     *         IOException if the flight's deadline passes first
+     */
+    public CompletableFuture<String> executeAsync(String key, Supplier<CompletableFuture<String>> call) {
+        Flight mine = new Flight(System.nanoTime() + timeoutNanos);
+        Flight flight = inFlight.compute(key, (k, existing) ->
+            existing != null && System.nanoTime() - existing.deadline < 0 ? existing : mine);
+        if (flight != mine) {
+            joined.incrementAndGet();
+            return follow(flight);
+        }
+
+        calls.incrementAndGet();
+        CompletableFuture<String> started;
+        try {
+            started = call.get();
+        } catch (RuntimeException e) {
+            started = CompletableFuture.failedFuture(e);
+        }
+        started.whenComplete((body, error) -> {
+            inFlight.remove(key, mine);
+            if (error != null) {
+                mine.result.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error);
+            } else {
+                mine.result.complete(body);
+            }
+        });
+        // A copy, so no caller can complete the flight for the others
+        return mine.result.copy();
+    }
+
+    private CompletableFuture<String> follow(Flight flight) {
+        long remaining = Math.max(0, flight.deadline - System.nanoTime());
+        CompletableFuture<String> result = new CompletableFuture<>();
+        flight.result.copy().orTimeout(remaining, TimeUnit.NANOSECONDS).whenComplete((body, error) -> {
+            if (error == null) {
+                result.complete(body);
+            } else if (error instanceof TimeoutException) {
+                timeouts.incrementAndGet();
+                result.completeExceptionally(new IOException("Timed out waiting for OMDB"));
+            } else {
+                result.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error);
+            }
+        });
+        return result;
+    }
+
+    // ==================== Stats ====================
+
+    public long getTimeoutMs() {
+        return TimeUnit.NANOSECONDS.toMillis(timeoutNanos);
+    }
+
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * Calls made to OMDB.
+     */
+    public long getCallCount() {
+        return calls.get();
+    }
+
+    /**
+     * Callers that shared a call already running instead of making their own.
+     */
+    public long getJoinedCount() {
+        return joined.get();
+    }
+
+    /**
+     * Followers that gave up because the call they waited for ran past its deadline.
+     */
+    public long getTimeoutCount() {
+        return timeouts.get();
+    }
+}
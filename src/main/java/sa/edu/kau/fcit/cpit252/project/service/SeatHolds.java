@@ -0,0 +1,321 @@
+package sa.edu.kau.fcit.cpit252.project.service;
+
+import java.security.SecureRandom;
+import java.sql.SQLException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import sa.edu.kau.fcit.cpit252.project.model.SeatHold;
+import sa.edu.kau.fcit.cpit252.project.store.InMemorySeatHoldStore;
+import sa.edu.kau.fcit.cpit252.project.store.SeatHoldStore;
+import sa.edu.kau.fcit.cpit252.project.store.ShowStore;
+import sa.edu.kau.fcit.cpit252.project.store.StoreFactory;
+
+/**
+ * Outstanding seat holds of one ShowStore, used through {@link ShowService}.
+ *
+ * A hold takes its seats from the show immediately, so availability shown
+ * to other users already excludes them. Expiry is driven by a
+ * {@link TimingWheel} advanced by one reaper thread: creating or expiring a
+ * hold is O(1), with no task per hold and no polling of the database.
+ * Whoever removes a hold from the map first (confirm, release or the
+ * reaper) decides its fate, so seats are given back exactly once. A confirm
+ * whose booking fails puts the hold back, so the client can retry it.
+ *
+ * Holds are recorded in a {@link SeatHoldStore} together with their seats.
+ * The reaper's first tick picks up the holds recorded by a previous run:
+ * expired ones give their seats back, the others expire on schedule. If the
+ * store cannot be read yet, it keeps trying.
+ */
+public class SeatHolds {
+
+    public static final int DEFAULT_HOLD_SECONDS = 300;
+    public static final int MAX_HOLD_SECONDS = 900;
+
+    private static final long TICK_MS = System.getenv("SEAT_HOLD_TICK_MS") != null
+        ? Long.parseLong(System.getenv("SEAT_HOLD_TICK_MS"))
+        : 100;
+
+    // Between attempts to load the recorded holds while the store is unavailable
+    private static final long RECOVERY_RETRY_MS = 5_000;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    // A hold in the map together with its wheel entry
+    private static final class Held {
+        final SeatHold hold;
+        volatile TimingWheel.Timeout<SeatHold> timeout;
+
+        Held(SeatHold hold) {
+            this.hold = hold;
+        }
+    }
+
+    private final SeatHoldStore store;
+    private final Map<String, Held> holds = new ConcurrentHashMap<>();
+    private final TimingWheel<SeatHold> wheel = new TimingWheel<>(TICK_MS, System.currentTimeMillis());
+    // Seats whose give-back failed (e.g. database down), retried on every tick
+    private final Queue<SeatHold> pendingReleases = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService reaper;
+    private volatile boolean recovered;
+    // Only touched by the reaper thread
+    private int recoveryFailures;
+    private long nextRecoveryAt;
+
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong confirmed = new AtomicLong();
+    private final AtomicLong released = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong recoveredHolds = new AtomicLong();
+
+    /**
+     * Holds that are not recorded anywhere, taking seats from the given store.
+     */
+    public SeatHolds(ShowStore showStore) {
+        this(new InMemorySeatHoldStore(showStore));
+    }
+
+    public SeatHolds(SeatHoldStore store) {
+        this.store = store;
+        this.reaper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "seat-hold-reaper");
+            t.setDaemon(true);
+            return t;
+        });
+        reaper.scheduleWithFixedDelay(this::reap, TICK_MS, TICK_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private static final class Holder {
+        static final SeatHolds INSTANCE = new SeatHolds(StoreFactory.seatHoldStore());
+    }
+
+    /**
+     * Holds of the store selected at startup, shared by every ShowService.
+     */
+    public static SeatHolds getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Takes seats from the show and holds them for the given time.
+     *
+     * @return the hold, or null if not enough seats are available
+     * @throws IllegalArgumentException if quantity or duration is out of range
+     */
+    public SeatHold hold(int showId, int quantity, int seconds) throws SQLException {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        if (seconds <= 0 || seconds > MAX_HOLD_SECONDS) {
+            throw new IllegalArgumentException("Hold time must be between 1 and " + MAX_HOLD_SECONDS + " seconds");
+        }
+        SeatHold hold = new SeatHold(newToken(), showId, quantity, System.currentTimeMillis() + seconds * 1000L);
+        if (!store.hold(hold)) {
+            return null;
+        }
+
+        Held held = new Held(hold);
+        // In the map before the wheel, so the reaper always finds what it expires
+        holds.put(hold.getToken(), held);
+        held.timeout = wheel.schedule(hold, hold.getExpiresAt());
+        created.incrementAndGet();
+        return hold;
+    }
+
+    /**
+     * The hold for a token without taking it, e.g. to validate a request
+     * before confirming.
+     *
+     * @return the hold, or null if it is unknown, confirmed, released or expired
+     */
+    public SeatHold peek(String token) {
+        Held held = token != null ? holds.get(token) : null;
+        if (held == null || held.hold.getExpiresAt() <= System.currentTimeMillis()) {
+            return null;
+        }
+        return held.hold;
+    }
+
+    /**
+     * Turns a hold into a booking. The seats stay taken if the action
+     * succeeds. If it throws, the booking was not stored and the hold is
+     * put back until its deadline, so the same token can be confirmed again.
+     *
+     * @return the action's result, or null if the hold is unknown or expired
+     */
+    public <T> T confirm(String token, ShowService.HoldConfirmation<T> action) throws SQLException {
+        Held held = take(token);
+        if (held == null) {
+            return null;
+        }
+        if (held.hold.getExpiresAt() <= System.currentTimeMillis()) {
+            // Past its deadline but not reaped yet (the wheel rounds up to a tick)
+            giveBack(held.hold);
+            expired.incrementAndGet();
+            return null;
+        }
+
+        try {
+            T result = action.confirm(held.hold);
+            confirmed.incrementAndGet();
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            restore(held);
+            throw e;
+        }
+    }
+
+    // Returns a hold taken by confirm to the map, or gives its seats back if it expired meanwhile
+    private void restore(Held taken) {
+        SeatHold hold = taken.hold;
+        if (hold.getExpiresAt() <= System.currentTimeMillis()) {
+            giveBack(hold);
+            expired.incrementAndGet();
+            return;
+        }
+        Held held = new Held(hold);
+        holds.put(hold.getToken(), held);
+        held.timeout = wheel.schedule(hold, hold.getExpiresAt());
+    }
+
+    /**
+     * Gives a hold's seats back early.
+     *
+     * @return false if the hold is unknown, already confirmed or expired
+     */
+    public boolean release(String token) {
+        Held held = take(token);
+        if (held == null) {
+            return false;
+        }
+        giveBack(held.hold);
+        released.incrementAndGet();
+        return true;
+    }
+
+    private Held take(String token) {
+        if (token == null) {
+            return null;
+        }
+        Held held = holds.remove(token);
+        if (held != null && held.timeout != null) {
+            wheel.cancel(held.timeout);
+        }
+        return held;
+    }
+
+    // ==================== Expiry ====================
+
+    /**
+     * Picks up the holds recorded by a previous run.
+     */
+    private void recover() {
+        List<SeatHold> stored;
+        try {
+            stored = store.findAll();
+        } catch (SQLException e) {
+            if (recoveryFailures++ == 0) {
+                System.err.println("⚠️ Could not load recorded seat holds, retrying: " + e.getMessage());
+            }
+            nextRecoveryAt = System.currentTimeMillis() + RECOVERY_RETRY_MS;
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        for (SeatHold hold : stored) {
+            if (hold.getExpiresAt() <= now) {
+                giveBack(hold);
+                expired.incrementAndGet();
+                continue;
+            }
+            Held held = new Held(hold);
+            if (holds.putIfAbsent(hold.getToken(), held) == null) {
+                held.timeout = wheel.schedule(hold, hold.getExpiresAt());
+                recoveredHolds.incrementAndGet();
+            }
+        }
+        recovered = true;
+    }
+
+    private void reap() {
+        try {
+            if (!recovered && System.currentTimeMillis() >= nextRecoveryAt) {
+                recover();
+            }
+
+            SeatHold retry;
+            int retries = pendingReleases.size();
+            while (retries-- > 0 && (retry = pendingReleases.poll()) != null) {
+                giveBack(retry);
+            }
+
+            for (SeatHold hold : wheel.advanceTo(System.currentTimeMillis())) {
+                Held held = holds.get(hold.getToken());
+                // A confirm racing with expiry may have removed it already
+                if (held != null && held.hold == hold && holds.remove(hold.getToken(), held)) {
+                    giveBack(hold);
+                    expired.incrementAndGet();
+                }
+            }
+        } catch (RuntimeException e) {
+            // Keep the reaper alive; the next tick picks up where this one stopped
+            System.err.println("⚠️ Seat hold reaper failed: " + e.getMessage());
+        }
+    }
+
+    private void giveBack(SeatHold hold) {
+        try {
+            // False if another instance already gave it back
+            store.release(hold);
+        } catch (SQLException e) {
+            pendingReleases.add(hold);
+        }
+    }
+
+    private static String newToken() {
+        byte[] bytes = new byte[18];
+        RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    // ==================== Stats ====================
+
+    public int getActiveCount() {
+        return holds.size();
+    }
+
+    public long getCreatedCount() {
+        return created.get();
+    }
+
+    public long getConfirmedCount() {
+        return confirmed.get();
+    }
+
+    public long getReleasedCount() {
+        return released.get();
+    }
+
+    public long getExpiredCount() {
+        return expired.get();
+    }
+
+    public int getPendingReleaseCount() {
+        return pendingReleases.size();
+    }
+
+    /**
+     * Unexpired holds of a previous run picked up at start.
+     */
+    public long getRecoveredCount() {
+        return recoveredHolds.get();
+    }
+}
@@ -1,82 +1,159 @@
 package sa.edu.kau.fcit.cpit252.project.service;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
+import sa.edu.kau.fcit.cpit252.project.model.SeatHold;
 import sa.edu.kau.fcit.cpit252.project.model.Show;
-import sa.edu.kau.fcit.cpit252.project.store.DatabaseConnection;
+import sa.edu.kau.fcit.cpit252.project.store.ConnectionIntent;
+import sa.edu.kau.fcit.cpit252.project.store.DatabaseExecutor;
+import sa.edu.kau.fcit.cpit252.project.store.SeatCountLoader;
+import sa.edu.kau.fcit.cpit252.project.store.SeatMap;
+import sa.edu.kau.fcit.cpit252.project.store.ShowStore;
+import sa.edu.kau.fcit.cpit252.project.store.StoreFactory;
 
 /**
- * Service for managing movie shows in the database.
+ * Service for managing movie shows.
+ * Storage is delegated to a ShowStore (database or in-memory).
+ * The *Async variants run on the DatabaseExecutor bulkhead.
  */
 public class ShowService {
     
+    /**
+     * Stores the booking for a confirmed seat hold; see {@link #confirmHold}.
+     */
+    @FunctionalInterface
+    public interface HoldConfirmation<T> {
+        T confirm(SeatHold hold) throws SQLException;
+    }
+    
+    private final ShowStore showStore;
+    private final SeatHolds seatHolds;
+    private final SeatCountLoader seatCounts;
+    private final DatabaseExecutor dbExecutor = DatabaseExecutor.getInstance();
+    
+    /**
+     * Creates ShowService using the store selected at startup.
+     */
+    public ShowService() {
+        this(StoreFactory.showStore(), SeatHolds.getInstance(), StoreFactory.seatCountLoader());
+    }
+    
+    public ShowService(ShowStore showStore) {
+        this(showStore, new SeatHolds(showStore));
+    }
+    
+    public ShowService(ShowStore showStore, SeatHolds seatHolds) {
+        this(showStore, seatHolds, null);
+    }
+    
+    /**
+     * @param seatCounts batches replica seat count lookups, or null to read
+     *                   them one by one
+     */
+    public ShowService(ShowStore showStore, SeatHolds seatHolds, SeatCountLoader seatCounts) {
+        this.showStore = showStore;
+        this.seatHolds = seatHolds;
+        this.seatCounts = seatCounts;
+    }
+    
     /**
      * Get or create a show for a specific movie, location, and time
      * Returns the showId
      */
     public int getOrCreateShow(int movieId, String location, String showTime, String hallType) throws SQLException {
-        String sql = "SELECT showId, availableSeats FROM Shows WHERE movieId = ? AND location = ? AND showTime = ?";
-        
-        try (Connection conn = DatabaseConnection.createConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setInt(1, movieId);
-            stmt.setString(2, location);
-            stmt.setString(3, showTime);
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt("showId");
-                }
-            }
-            
-            // Show doesn't exist, create it
-            String insertSql = "INSERT INTO Shows (movieId, location, showTime, hallType, totalSeats, availableSeats) " +
-                             "VALUES (?, ?, ?, ?, 100, 100)";
-            
-            try (PreparedStatement insertStmt = conn.prepareStatement(insertSql, Statement.RETURN_GENERATED_KEYS)) {
-                insertStmt.setInt(1, movieId);
-                insertStmt.setString(2, location);
-                insertStmt.setString(3, showTime);
-                insertStmt.setString(4, hallType);
-                insertStmt.executeUpdate();
-                
-                try (ResultSet generatedKeys = insertStmt.getGeneratedKeys()) {
-                    if (generatedKeys.next()) {
-                        return generatedKeys.getInt(1);
-                    }
-                }
-            }
+        return showStore.getOrCreateShow(movieId, location, showTime, hallType);
+    }
+    
+    /**
+     * Get or create a show without blocking the caller
+     */
+    public CompletableFuture<Integer> getOrCreateShowAsync(int movieId, String location, String showTime, String hallType) {
+        // Known shows resolve on the caller's thread without queueing on the bulkhead
+        Integer cached = showStore.cachedShowId(movieId, location, showTime);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return dbExecutor.submit(() -> showStore.getOrCreateShow(movieId, location, showTime, hallType));
+    }
+    
+    /**
+     * Find a show without creating it
+     * Returns the showId, or null if nobody has booked or held seats for it yet
+     */
+    public Integer findShowId(int movieId, String location, String showTime) throws SQLException {
+        return showStore.findShowId(movieId, location, showTime);
+    }
+    
+    /**
+     * Find a show without creating it and without blocking the caller
+     */
+    public CompletableFuture<Integer> findShowIdAsync(int movieId, String location, String showTime) {
+        Integer cached = showStore.cachedShowId(movieId, location, showTime);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
         }
-        
-        throw new SQLException("Failed to create show");
+        return dbExecutor.submit(() -> showStore.findShowId(movieId, location, showTime));
     }
     
     /**
-     * Get available seats for a specific show
+     * Get available seats for a specific show (may be served by a read replica)
      */
     public int getAvailableSeats(int showId) throws SQLException {
-        String sql = "SELECT availableSeats FROM Shows WHERE showId = ?";
-        
-        try (Connection conn = DatabaseConnection.createConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setInt(1, showId);
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt("availableSeats");
-                }
+        if (seatCounts == null) {
+            return showStore.getAvailableSeats(showId);
+        }
+        try {
+            return seatCounts.load(showId).join();
+        } catch (CompletionException e) {
+            Throwable cause = DatabaseExecutor.unwrap(e);
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
             }
+            throw new SQLException(cause.getMessage(), cause);
+        }
+    }
+    
+    /**
+     * Get available seats without blocking the caller; concurrent lookups
+     * share one batched query when SEAT_LOOKUP_BATCHING is on
+     */
+    public CompletableFuture<Integer> getAvailableSeatsAsync(int showId) {
+        if (seatCounts != null) {
+            return seatCounts.load(showId);
         }
-        
-        return 0;
+        return dbExecutor.submit(() -> showStore.getAvailableSeats(showId));
+    }
+    
+    /**
+     * Get available seats from the primary, for checks that must see the
+     * latest reservations (for example right before booking)
+     */
+    public int getAvailableSeatsForBooking(int showId) throws SQLException {
+        return showStore.getAvailableSeats(showId, ConnectionIntent.READ_YOUR_WRITES);
+    }
+    
+    /**
+     * Get available seats from the primary without blocking the caller
+     */
+    public CompletableFuture<Integer> getAvailableSeatsForBookingAsync(int showId) {
+        return dbExecutor.submit(() -> showStore.getAvailableSeats(showId, ConnectionIntent.READ_YOUR_WRITES));
+    }
+    
+    /**
+     * Get the per-seat map of a show, or null if the show does not exist
+     */
+    public SeatMap getSeatMap(int showId) throws SQLException {
+        return showStore.getSeatMap(showId);
+    }
+    
+    /**
+     * Get the per-seat map of a show without blocking the caller
+     */
+    public CompletableFuture<SeatMap> getSeatMapAsync(int showId) {
+        return dbExecutor.submit(() -> showStore.getSeatMap(showId));
     }
     
     /**
@@ -84,92 +161,99 @@ public class ShowService {
      * Returns true if seats were successfully reserved, false otherwise
      */
     public boolean reserveSeats(int showId, int quantity) throws SQLException {
-        String sql = "UPDATE Shows SET availableSeats = availableSeats - ? " +
-                    "WHERE showId = ? AND availableSeats >= ?";
-        
-        try (Connection conn = DatabaseConnection.createConnection()) {
-            conn.setAutoCommit(false);
-            
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setInt(1, quantity);
-                stmt.setInt(2, showId);
-                stmt.setInt(3, quantity);
-                
-                int rowsAffected = stmt.executeUpdate();
-                
-                if (rowsAffected > 0) {
-                    conn.commit();
-                    return true;
-                } else {
-                    conn.rollback();
-                    return false;
-                }
-            } catch (SQLException e) {
-                conn.rollback();
-                throw e;
-            } finally {
-                conn.setAutoCommit(true);
-            }
-        }
+        return showStore.reserveSeats(showId, quantity);
+    }
+    
+    /**
+     * Hold seats for a limited time so they cannot be sold to anyone else
+     * while the user checks out. Returns null if not enough seats are available.
+     */
+    public SeatHold holdSeats(int showId, int quantity, int seconds) throws SQLException {
+        return seatHolds.hold(showId, quantity, seconds);
+    }
+    
+    /**
+     * Hold seats without blocking the caller
+     */
+    public CompletableFuture<SeatHold> holdSeatsAsync(int showId, int quantity, int seconds) {
+        return dbExecutor.submit(() -> seatHolds.hold(showId, quantity, seconds));
+    }
+    
+    /**
+     * Get a hold without confirming or releasing it.
+     * Returns null if the hold was confirmed, released, expired or never existed.
+     */
+    public SeatHold peekHold(String token) {
+        return seatHolds.peek(token);
+    }
+    
+    /**
+     * Confirm a hold by running the action that stores its booking.
+     * If the action throws, the hold stays in place until it expires.
+     * Returns null if the hold was released, expired or never existed.
+     */
+    public <T> T confirmHold(String token, HoldConfirmation<T> action) throws SQLException {
+        return seatHolds.confirm(token, action);
+    }
+    
+    /**
+     * Confirm a hold without blocking the caller
+     */
+    public <T> CompletableFuture<T> confirmHoldAsync(String token, HoldConfirmation<T> action) {
+        return dbExecutor.submit(() -> seatHolds.confirm(token, action));
+    }
+    
+    /**
+     * Give a hold's seats back before it expires.
+     * Returns false if the hold was already confirmed, released or expired.
+     */
+    public boolean releaseHold(String token) {
+        return seatHolds.release(token);
     }
     
     /**
      * Get show details by showId
      */
     public Show getShowById(int showId) throws SQLException {
-        String sql = "SELECT * FROM Shows WHERE showId = ?";
-        
-        try (Connection conn = DatabaseConnection.createConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setInt(1, showId);
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    Show show = new Show();
-                    show.setShowId(rs.getInt("showId"));
-                    show.setMovieId(rs.getInt("movieId"));
-                    show.setLocation(rs.getString("location"));
-                    show.setShowTime(rs.getString("showTime"));
-                    show.setHallType(rs.getString("hallType"));
-                    show.setTotalSeats(rs.getInt("totalSeats"));
-                    show.setAvailableSeats(rs.getInt("availableSeats"));
-                    return show;
-                }
-            }
-        }
-        
-        return null;
+        return showStore.findById(showId);
+    }
+    
+    /**
+     * Get show details without blocking the caller
+     */
+    public CompletableFuture<Show> getShowByIdAsync(int showId) {
+        return dbExecutor.submit(() -> showStore.findById(showId));
+    }
+    
+    /**
+     * Get the shows of a movie by name, optionally at one location, with
+     * their seat counts in one query; never creates shows
+     * Returns null if the movie does not exist
+     */
+    public CompletableFuture<List<Show>> getShowsByMovieNameAsync(String movieName, String location) {
+        return dbExecutor.submit(() -> showStore.findByMovieName(movieName, location));
+    }
+    
+    /**
+     * Get several shows with their seat counts in one query
+     */
+    public CompletableFuture<List<Show>> getShowsByIdsAsync(List<Integer> showIds) {
+        return dbExecutor.submit(() -> showStore.findByIds(showIds));
+    }
+    
+    /**
+     * Get several shows from the primary in one query without blocking the
+     * caller, for seat counts that must see the latest reservations
+     */
+    public CompletableFuture<List<Show>> getShowsByIdsForBookingAsync(List<Integer> showIds) {
+        return dbExecutor.submit(() -> showStore.findByIds(showIds, ConnectionIntent.READ_YOUR_WRITES));
     }
     
     /**
      * Get all shows for a movie
      */
     public List<Show> getShowsByMovie(int movieId) throws SQLException {
-        List<Show> shows = new ArrayList<>();
-        String sql = "SELECT * FROM Shows WHERE movieId = ?";
-        
-        try (Connection conn = DatabaseConnection.createConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setInt(1, movieId);
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    Show show = new Show();
-                    show.setShowId(rs.getInt("showId"));
-                    show.setMovieId(rs.getInt("movieId"));
-                    show.setLocation(rs.getString("location"));
-                    show.setShowTime(rs.getString("showTime"));
-                    show.setHallType(rs.getString("hallType"));
-                    show.setTotalSeats(rs.getInt("totalSeats"));
-                    show.setAvailableSeats(rs.getInt("availableSeats"));
-                    shows.add(show);
-                }
-            }
-        }
-        
-        return shows;
+        return showStore.findByMovie(movieId);
     }
 }
 
@@ -0,0 +1,198 @@
+package sa.edu.kau.fcit.cpit252.project.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel for a large number of deadlines.
+ *
+ * Time advances in ticks of tickMs. Level 0 has one slot per tick for the
+ * next 64 ticks, level 1 one slot per 64 ticks, and so on. An entry is
+ * placed in the lowest level whose current rotation contains its deadline;
+ * when a higher-level slot comes due its entries are moved down (cascaded).
+ * Scheduling and cancelling are O(1), and each entry is moved at most once
+ * per level before it expires, so there is no per-entry timer task and no
+ * scan over pending entries.
+ *
+ * The wheel does not run a thread; the owner calls {@link #advanceTo} and
+ * handles the expired items it returns.
+ */
+public class TimingWheel<T> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    /**
+     * A scheduled item, used to cancel it.
+     */
+    public static final class Timeout<T> {
+        private final T item;
+        private final long deadlineTick;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+        private boolean linked;
+
+        private Timeout(T item, long deadlineTick) {
+            this.item = item;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public T getItem() {
+            return item;
+        }
+    }
+
+    private final long tickMs;
+    private final long startMs;
+    private final Timeout<T>[][] heads;
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param tickMs  resolution; deadlines are rounded up to a whole tick
+     * @param startMs time of tick 0, in the same clock later passed to {@link #advanceTo}
+     */
+    public TimingWheel(long tickMs, long startMs) {
+        if (tickMs <= 0) {
+            throw new IllegalArgumentException("tickMs must be positive");
+        }
+        this.tickMs = tickMs;
+        this.startMs = startMs;
+        @SuppressWarnings("unchecked")
+        Timeout<T>[][] slots = (Timeout<T>[][]) new Timeout<?>[LEVELS][SLOTS];
+        this.heads = slots;
+    }
+
+    /**
+     * Schedules an item to expire at the given time (at least one tick from now).
+     */
+    public synchronized Timeout<T> schedule(T item, long deadlineMs) {
+        long deadlineTick = Math.max(currentTick + 1, ceilDiv(deadlineMs - startMs, tickMs));
+        Timeout<T> timeout = new Timeout<>(item, deadlineTick);
+        place(timeout);
+        size++;
+        return timeout;
+    }
+
+    /**
+     * Removes a scheduled item.
+     *
+     * @return false if it has already expired or been cancelled
+     */
+    public synchronized boolean cancel(Timeout<T> timeout) {
+        if (!timeout.linked) {
+            return false;
+        }
+        unlink(timeout);
+        size--;
+        return true;
+    }
+
+    /**
+     * Advances the wheel tick by tick up to the given time.
+     *
+     * @return items whose deadline has passed, in deadline order
+     */
+    public synchronized List<T> advanceTo(long nowMs) {
+        List<T> expired = new ArrayList<>();
+        long targetTick = (nowMs - startMs) / tickMs;
+        while (currentTick < targetTick) {
+            currentTick++;
+            // Higher levels first, so entries cascaded into a slot due now are expired below
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                    cascade(level, (int) ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK), expired);
+                }
+            }
+            Timeout<T> timeout = detach(0, (int) (currentTick & SLOT_MASK));
+            while (timeout != null) {
+                Timeout<T> next = timeout.next;
+                expired.add(timeout.item);
+                size--;
+                timeout = next;
+            }
+        }
+        return expired;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    // ==================== Slots ====================
+
+    private void cascade(int level, int slot, List<T> expired) {
+        Timeout<T> timeout = detach(level, slot);
+        while (timeout != null) {
+            Timeout<T> next = timeout.next;
+            if (timeout.deadlineTick <= currentTick) {
+                expired.add(timeout.item);
+                size--;
+            } else {
+                place(timeout);
+            }
+            timeout = next;
+        }
+    }
+
+    private void place(Timeout<T> timeout) {
+        long deadline = timeout.deadlineTick;
+        int level = 0;
+        // Lowest level whose current rotation still contains the deadline; the top level takes the rest
+        while (level < LEVELS - 1
+                && (deadline >>> (SLOT_BITS * (level + 1))) != (currentTick >>> (SLOT_BITS * (level + 1)))) {
+            level++;
+        }
+        int slot = (int) ((deadline >>> (SLOT_BITS * level)) & SLOT_MASK);
+        timeout.prev = null;
+        timeout.next = heads[level][slot];
+        if (timeout.next != null) {
+            timeout.next.prev = timeout;
+        }
+        heads[level][slot] = timeout;
+        timeout.linked = true;
+    }
+
+    private void unlink(Timeout<T> timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            int level = levelOf(timeout);
+            int slot = (int) ((timeout.deadlineTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+            heads[level][slot] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.linked = false;
+    }
+
+    // Level a linked head entry sits in; found by identity since placement depends on the tick it was placed at
+    private int levelOf(Timeout<T> timeout) {
+        for (int level = 0; level < LEVELS; level++) {
+            int slot = (int) ((timeout.deadlineTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+            if (heads[level][slot] == timeout) {
+                return level;
+            }
+        }
+        throw new IllegalStateException("Timeout is not in the wheel");
+    }
+
+    // Empties a slot and returns its former list; entries keep their next links for iteration
+    private Timeout<T> detach(int level, int slot) {
+        Timeout<T> head = heads[level][slot];
+        heads[level][slot] = null;
+        for (Timeout<T> t = head; t != null; t = t.next) {
+            t.linked = false;
+        }
+        return head;
+    }
+
+    private static long ceilDiv(long x, long y) {
+        return -Math.floorDiv(-x, y);
+    }
+}
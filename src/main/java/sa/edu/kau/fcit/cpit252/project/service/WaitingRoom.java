@@ -0,0 +1,344 @@
+package sa.edu.kau.fcit.cpit252.project.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import sa.edu.kau.fcit.cpit252.project.model.QueuePosition;
+
+/**
+ * Admission control for on-sales of high-demand movies.
+ *
+ * While a movie's waiting room is open, bookings and holds for it are only
+ * accepted with an admission token. Users join the queue and get a
+ * numbered, signed queue token; joining again returns the same number, so
+ * repeated POSTs cannot crowd out other users. An admitter thread lets positions in at
+ * WAITING_ROOM_ADMIT_PER_SECOND, never running ahead of the users actually
+ * waiting, so an idle room does not build up a burst.
+ *
+ * Nothing here touches the database: a room is two counters and the
+ * number of each user who joined it, polling
+ * verifies the queue token's HMAC and compares its number with the
+ * admitted count, and the booking path rejects a missing, forged, expired
+ * or borrowed admission token with one HMAC before any other work.
+ *
+ * Tokens are signed with WAITING_ROOM_SECRET. Without it a random key is
+ * generated per process, so queue and admission tokens do not survive a
+ * restart and users simply join again.
+ */
+public class WaitingRoom {
+
+    private static final double ADMIT_PER_SECOND = System.getenv("WAITING_ROOM_ADMIT_PER_SECOND") != null
+        ? Double.parseDouble(System.getenv("WAITING_ROOM_ADMIT_PER_SECOND"))
+        : 20;
+
+    private static final int ADMISSION_SECONDS = System.getenv("WAITING_ROOM_ADMISSION_SECONDS") != null
+        ? Integer.parseInt(System.getenv("WAITING_ROOM_ADMISSION_SECONDS"))
+        : 600;
+
+    private static final long TICK_MS = 100;
+
+    // Polling clients are told to come back no sooner or later than this
+    private static final int MIN_POLL_SECONDS = 1;
+    private static final int MAX_POLL_SECONDS = 30;
+
+    private static final String QUEUE_TOKEN = "q";
+    private static final String ADMISSION_TOKEN = "a";
+    private static final String SEPARATOR = "\n";
+    private static final String HMAC = "HmacSHA256";
+
+    private static final class Room {
+        final String name;
+        // Distinguishes tokens of a room that was closed and opened again
+        final long epoch;
+        final AtomicLong issued = new AtomicLong();
+        // userEmail -> queue number; one place per user
+        final Map<String, Long> tickets = new ConcurrentHashMap<>();
+        volatile long admitted;
+        // Fractional admissions carried between ticks; admitter thread only
+        double credit;
+
+        Room(String name, long epoch) {
+            this.name = name;
+            this.epoch = epoch;
+        }
+    }
+
+    private final byte[] secret;
+    private final double admitPerSecond;
+    private final long admissionMillis;
+    private final Map<String, Room> rooms = new ConcurrentHashMap<>();
+    // Wall-clock based so epochs also differ across restarts sharing a secret
+    private final AtomicLong lastEpoch = new AtomicLong();
+    private final ThreadLocal<Mac> macs;
+    private final ScheduledExecutorService admitter;
+
+    private final AtomicLong admissionsIssued = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public WaitingRoom(byte[] secret, double admitPerSecond, int admissionSeconds) {
+        this.secret = secret.clone();
+        this.admitPerSecond = admitPerSecond;
+        this.admissionMillis = admissionSeconds * 1000L;
+        this.macs = ThreadLocal.withInitial(this::newMac);
+        newMac(); // Fail at startup, not on the first request, if HMAC is unavailable
+        this.admitter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "waiting-room-admitter");
+            t.setDaemon(true);
+            return t;
+        });
+        admitter.scheduleAtFixedRate(this::admit, TICK_MS, TICK_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private static final class Holder {
+        static final WaitingRoom INSTANCE = create();
+
+        private static WaitingRoom create() {
+            String configured = System.getenv("WAITING_ROOM_SECRET");
+            byte[] secret;
+            if (configured != null && !configured.isEmpty()) {
+                secret = configured.getBytes(StandardCharsets.UTF_8);
+            } else {
+                secret = new byte[32];
+                new SecureRandom().nextBytes(secret);
+            }
+            WaitingRoom room = new WaitingRoom(secret, ADMIT_PER_SECOND, ADMISSION_SECONDS);
+            String movies = System.getenv("WAITING_ROOM_MOVIES");
+            if (movies != null) {
+                for (String movie : movies.split(",")) {
+                    if (!movie.isBlank()) {
+                        room.open(movie);
+                    }
+                }
+            }
+            return room;
+        }
+    }
+
+    /**
+     * Waiting rooms of this server, opened from WAITING_ROOM_MOVIES
+     * (comma-separated movie names).
+     */
+    public static WaitingRoom getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Starts queueing users for a movie. Has no effect if already open.
+     */
+    public void open(String movieName) {
+        String key = roomKey(movieName);
+        rooms.computeIfAbsent(key, k -> new Room(k,
+            lastEpoch.updateAndGet(last -> Math.max(last + 1, System.currentTimeMillis()))));
+    }
+
+    /**
+     * Stops queueing users for a movie; bookings need no admission afterwards.
+     */
+    public void close(String movieName) {
+        rooms.remove(roomKey(movieName));
+    }
+
+    public boolean isActive(String movieName) {
+        return movieName != null && rooms.containsKey(roomKey(movieName));
+    }
+
+    // ==================== Queue ====================
+
+    /**
+     * Gives the user the next position in the movie's queue, or the position
+     * they already have if they joined before.
+     *
+     * @return the position, or null if the movie has no open waiting room
+     */
+    public QueuePosition join(String movieName, String userEmail) {
+        Room room = rooms.get(roomKey(movieName));
+        if (room == null) {
+            return null;
+        }
+        long ticket = room.tickets.computeIfAbsent(userEmail, user -> room.issued.incrementAndGet());
+        String queueToken = sign(QUEUE_TOKEN, room.name, userEmail, room.epoch, ticket);
+        return position(room, userEmail, queueToken, ticket);
+    }
+
+    /**
+     * Current position for a queue token; once admitted it carries an
+     * admission token.
+     *
+     * @return the position, or null if the token is invalid, belongs to
+     *         another user, or its room has been closed or reopened
+     */
+    public QueuePosition poll(String queueToken, String userEmail) {
+        String[] fields = verify(queueToken, QUEUE_TOKEN, userEmail);
+        if (fields == null) {
+            return null;
+        }
+        Room room = rooms.get(fields[2]);
+        if (room == null || room.epoch != Long.parseLong(fields[3])) {
+            rejected.incrementAndGet();
+            return null;
+        }
+        return position(room, userEmail, queueToken, Long.parseLong(fields[4]));
+    }
+
+    private QueuePosition position(Room room, String userEmail, String queueToken, long ticket) {
+        long ahead = Math.max(0, ticket - room.admitted);
+        if (ahead > 0) {
+            return new QueuePosition(queueToken, ticket, ahead, estimatedWaitSeconds(ahead), null);
+        }
+        long expiresAt = System.currentTimeMillis() + admissionMillis;
+        admissionsIssued.incrementAndGet();
+        String admission = sign(ADMISSION_TOKEN, room.name, userEmail, room.epoch, expiresAt);
+        return new QueuePosition(queueToken, ticket, 0, 0, admission);
+    }
+
+    private long estimatedWaitSeconds(long ahead) {
+        return (long) Math.ceil(ahead / admitPerSecond);
+    }
+
+    /**
+     * How long a client should wait before polling again: sooner when
+     * close to the front, rarely when far back.
+     */
+    public int pollAfterSeconds(QueuePosition position) {
+        long half = position.getEstimatedWaitSeconds() / 2;
+        return (int) Math.max(MIN_POLL_SECONDS, Math.min(MAX_POLL_SECONDS, half));
+    }
+
+    /**
+     * True if the user may book the movie now: its waiting room is closed,
+     * or the admission token is valid for this user and movie.
+     */
+    public boolean isAdmitted(String movieName, String userEmail, String admissionToken) {
+        Room room = movieName != null ? rooms.get(roomKey(movieName)) : null;
+        if (room == null) {
+            return true;
+        }
+        String[] fields = verify(admissionToken, ADMISSION_TOKEN, userEmail);
+        if (fields == null) {
+            return false;
+        }
+        if (!fields[2].equals(room.name) || room.epoch != Long.parseLong(fields[3])
+                || Long.parseLong(fields[4]) <= System.currentTimeMillis()) {
+            rejected.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    // ==================== Admission ====================
+
+    private void admit() {
+        double perTick = admitPerSecond * TICK_MS / 1000.0;
+        for (Room room : rooms.values()) {
+            long waiting = room.issued.get() - room.admitted;
+            if (waiting <= 0) {
+                // Nobody to let in; do not save up admissions for a later burst
+                room.credit = 0;
+                continue;
+            }
+            room.credit += perTick;
+            long admit = Math.min(waiting, (long) room.credit);
+            if (admit > 0) {
+                room.credit -= admit;
+                room.admitted += admit;
+            }
+        }
+    }
+
+    // ==================== Tokens ====================
+
+    // Token = base64url(type, room, user, epoch, number) "." base64url(HMAC of that payload)
+    private String sign(String type, String room, String userEmail, long epoch, long number) {
+        String payload = String.join(SEPARATOR, type, userEmail, room, Long.toString(epoch), Long.toString(number));
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString(payloadBytes) + "." + encoder.encodeToString(macs.get().doFinal(payloadBytes));
+    }
+
+    // Returns the payload fields, or null unless the signature, type and user all match
+    private String[] verify(String token, String type, String userEmail) {
+        if (token == null || userEmail == null) {
+            rejected.incrementAndGet();
+            return null;
+        }
+        int dot = token.indexOf('.');
+        try {
+            if (dot <= 0 || token.length() > 1024) {
+                throw new IllegalArgumentException("Malformed token");
+            }
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            byte[] payloadBytes = decoder.decode(token.substring(0, dot));
+            byte[] signature = decoder.decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(signature, macs.get().doFinal(payloadBytes))) {
+                throw new IllegalArgumentException("Bad signature");
+            }
+            String[] fields = new String(payloadBytes, StandardCharsets.UTF_8).split(SEPARATOR, -1);
+            if (fields.length != 5 || !fields[0].equals(type) || !fields[1].equals(userEmail)) {
+                throw new IllegalArgumentException("Wrong token");
+            }
+            return fields;
+        } catch (IllegalArgumentException e) {
+            rejected.incrementAndGet();
+            return null;
+        }
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(HMAC);
+            mac.init(new SecretKeySpec(secret, HMAC));
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC unavailable: " + e.getMessage(), e);
+        }
+    }
+
+    private static String roomKey(String movieName) {
+        return movieName.trim().toLowerCase(Locale.ROOT).replace(SEPARATOR, " ");
+    }
+
+    // ==================== Stats ====================
+
+    /**
+     * Issued and admitted positions per open room.
+     */
+    public Map<String, Object> getRoomStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (Room room : rooms.values()) {
+            Map<String, Object> roomStats = new LinkedHashMap<>();
+            long issued = room.issued.get();
+            long admitted = room.admitted;
+            roomStats.put("issued", issued);
+            roomStats.put("admitted", admitted);
+            roomStats.put("waiting", Math.max(0, issued - admitted));
+            stats.put(room.name, roomStats);
+        }
+        return stats;
+    }
+
+    public double getAdmitPerSecond() {
+        return admitPerSecond;
+    }
+
+    public long getAdmissionsIssuedCount() {
+        return admissionsIssued.get();
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+}
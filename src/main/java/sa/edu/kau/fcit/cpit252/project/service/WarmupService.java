@@ -0,0 +1,183 @@
+package sa.edu.kau.fcit.cpit252.project.service;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import sa.edu.kau.fcit.cpit252.project.model.Movie;
+import sa.edu.kau.fcit.cpit252.project.model.Show;
+import sa.edu.kau.fcit.cpit252.project.store.DatabaseConnection;
+import sa.edu.kau.fcit.cpit252.project.store.StoreFactory;
+
+/**
+ * Warms the application up while the readiness probe still reports 503.
+ *
+ * Opens the connection pool, runs the read-only movie, show and pricing
+ * paths and serializes sample responses, so class loading, TLS setup and
+ * JIT compilation happen here instead of on the first bookings. Nothing is
+ * written to the database. The readiness flag flips only once the required
+ * steps (connection pool and queries) have passed; until then warm-up is
+ * retried every WARMUP_RETRY_MS.
+ */
+public class WarmupService {
+    
+    private static final int ITERATIONS = System.getenv("WARMUP_ITERATIONS") != null
+        ? Integer.parseInt(System.getenv("WARMUP_ITERATIONS"))
+        : 200;
+    
+    // Database round trips are far more expensive than CPU-only paths
+    private static final int QUERY_ITERATIONS = Math.max(1, ITERATIONS / 10);
+    
+    private static final long RETRY_MS = System.getenv("WARMUP_RETRY_MS") != null
+        ? Long.parseLong(System.getenv("WARMUP_RETRY_MS"))
+        : 5_000;
+    
+    private static volatile boolean ready;
+    
+    private final MovieService movieService;
+    private final ShowService showService;
+    private final PricingService pricingService;
+    private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    
+    public WarmupService() {
+        this(new MovieService(), new ShowService(), new PricingService());
+    }
+    
+    public WarmupService(MovieService movieService, ShowService showService, PricingService pricingService) {
+        this.movieService = movieService;
+        this.showService = showService;
+        this.pricingService = pricingService;
+    }
+    
+    /**
+     * Whether warm-up has finished and the server should receive traffic.
+     */
+    public static boolean isReady() {
+        return ready;
+    }
+    
+    /**
+     * Marks the application ready without warming up.
+     */
+    public static void markReady() {
+        ready = true;
+    }
+    
+    /**
+     * Runs every warm-up step once. The application is marked ready only if
+     * the required steps passed; a failing optional step is reported and
+     * skipped.
+     *
+     * @return timings per step in milliseconds, plus "total"
+     */
+    public Map<String, Long> warmUp() {
+        Map<String, Long> timings = new HashMap<>();
+        long start = System.nanoTime();
+        
+        boolean passed = true;
+        if (StoreFactory.getMode() == StoreFactory.Mode.JDBC) {
+            passed = timed("connectionPool", () -> DatabaseConnection.getInstance().warmUp(), timings);
+        }
+        // Without a working pool the queries can only time out
+        passed = passed && timed("queries", this::warmUpQueries, timings);
+        // CPU-only; a failure costs first-request latency, not correctness
+        timed("pricing", this::warmUpPricing, timings);
+        timed("serialization", this::warmUpSerialization, timings);
+        
+        timings.put("total", (System.nanoTime() - start) / 1_000_000);
+        if (passed) {
+            ready = true;
+        }
+        return timings;
+    }
+    
+    /**
+     * Runs {@link #warmUp} until its required steps pass, waiting
+     * WARMUP_RETRY_MS between attempts. Meant for a background thread
+     * started after the connector opens, so the readiness probe answers
+     * 503 meanwhile.
+     */
+    public void warmUpUntilReady() {
+        for (int attempt = 1; ; attempt++) {
+            Map<String, Long> timings = warmUp();
+            if (ready) {
+                System.out.println("🔥 Warm-up finished in " + timings.get("total") + " ms " + timings);
+                return;
+            }
+            System.out.println("⚠️  Warm-up attempt " + attempt + " failed, not ready; retrying in " + RETRY_MS + " ms");
+            try {
+                Thread.sleep(RETRY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+    
+    @FunctionalInterface
+    private interface Step {
+        void run() throws SQLException;
+    }
+    
+    /**
+     * Runs a step, recording its time under its name.
+     *
+     * @return whether the step passed
+     */
+    private static boolean timed(String name, Step step, Map<String, Long> timings) {
+        long start = System.nanoTime();
+        boolean passed = true;
+        try {
+            step.run();
+        } catch (SQLException | RuntimeException e) {
+            System.out.println("⚠️  Warm-up step '" + name + "' failed: " + e.getMessage());
+            passed = false;
+        }
+        timings.put(name, (System.nanoTime() - start) / 1_000_000);
+        return passed;
+    }
+    
+    private void warmUpQueries() throws SQLException {
+        for (int i = 0; i < QUERY_ITERATIONS; i++) {
+            List<Movie> movies = movieService.getAllMovies();
+            if (movies.isEmpty()) {
+                return;
+            }
+            Movie movie = movieService.getMovieByName(movies.get(i % movies.size()).getMovieName());
+            for (Show show : showService.getShowsByMovie(movie.getMovieId())) {
+                showService.getAvailableSeats(show.getShowId());
+            }
+        }
+    }
+    
+    private void warmUpPricing() {
+        String[] ticketTypes = { "regular", "pro" };
+        for (int i = 0; i < ITERATIONS; i++) {
+            String ticketType = ticketTypes[i % ticketTypes.length];
+            int tickets = 1 + i % 8;
+            pricingService.calculateTotalPrice(ticketType, tickets, i % 4);
+            pricingService.getPriceBreakdown(ticketType, tickets, i % 4);
+        }
+    }
+    
+    private void warmUpSerialization() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            Map<String, Object> booking = new HashMap<>();
+            booking.put("success", true);
+            booking.put("bookingId", i);
+            booking.put("message", "Booking successful");
+            booking.put("pricing", pricingService.getPriceBreakdown("pro", 3, 2));
+            gson.toJson(booking);
+            
+            Map<String, Object> availability = new HashMap<>();
+            availability.put("success", true);
+            availability.put("showId", i);
+            availability.put("availableSeats", 100);
+            gson.toJson(availability);
+        }
+    }
+}
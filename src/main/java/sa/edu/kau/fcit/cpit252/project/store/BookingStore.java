@@ -0,0 +1,66 @@
+package sa.edu.kau.fcit.cpit252.project.store;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import sa.edu.kau.fcit.cpit252.project.model.Booking;
+import sa.edu.kau.fcit.cpit252.project.model.BookingCursor;
+import sa.edu.kau.fcit.cpit252.project.model.BookingPage;
+import sa.edu.kau.fcit.cpit252.project.model.BookingResult;
+import sa.edu.kau.fcit.cpit252.project.model.SeatHold;
+
+/**
+ * Storage for bookings. Implemented by {@link JdbcBookingStore} and {@link InMemoryBookingStore}.
+ */
+public interface BookingStore {
+    /**
+     * Reserves seats on the booking's show and stores the booking as one atomic unit.
+     *
+     * @return the new bookingId, or -1 if not enough seats are available
+     */
+    int create(Booking booking) throws SQLException;
+
+    /**
+     * Stores the booking of a confirmed seat hold, whose seat count was
+     * already taken from the show, and removes the hold's record in the same
+     * unit. Nothing is reserved here.
+     *
+     * @return the booked result, or the replayed earlier booking with the
+     *         same idempotency key, in which case the hold's seats are given back
+     */
+    BookingResult createReserved(SeatHold hold, Booking booking) throws SQLException;
+
+    /**
+     * Resolves the movie and show (creating the show on first use), reserves
+     * seats and stores the booking as one atomic unit.
+     */
+    BookingResult bookTickets(String movieName, String location, String showTime,
+                              String hallType, Booking booking) throws SQLException;
+
+    /**
+     * Same as {@link #bookTickets} without blocking the caller; the database
+     * work runs on the given executor.
+     */
+    default CompletableFuture<BookingResult> bookTicketsAsync(String movieName, String location, String showTime,
+                                                              String hallType, Booking booking,
+                                                              DatabaseExecutor executor) {
+        return executor.submit(() -> bookTickets(movieName, location, showTime, hallType, booking));
+    }
+
+    List<Booking> findByUser(String userEmail) throws SQLException;
+
+    /**
+     * Keyset-paginated booking history, newest first.
+     *
+     * @param after cursor from the previous page, or null for the first page
+     */
+    BookingPage findByUser(String userEmail, BookingCursor after, int pageSize) throws SQLException;
+
+    Booking findById(int bookingId) throws SQLException;
+
+    /**
+     * The user's booking created with the given idempotency key, or null.
+     */
+    Booking findByIdempotencyKey(String userEmail, String idempotencyKey) throws SQLException;
+}
@@ -0,0 +1,459 @@
+package sa.edu.kau.fcit.cpit252.project.store;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import sa.edu.kau.fcit.cpit252.project.model.Booking;
+
+/**
+ * Group-commit writer for bookings on a known show (BOOKING_GROUP_COMMIT=true).
+ *
+ * Concurrent bookings are queued and written by a few writer threads. Each
+ * thread takes the first waiting booking, then keeps collecting until
+ * BOOKING_BATCH_MAX_ROWS are gathered or BOOKING_BATCH_MAX_WAIT_MS have
+ * passed (with 0 it only takes what is already queued). The whole batch is
+ * written in one transaction: one JDBC batch of conditional seat UPDATEs,
+ * one multi-row insert, one JDBC batch of BookingSeats rows for the lowest
+ * free seats of each booking, one commit. Bookings without enough seats get -1;
+ * if the transaction fails, every booking is retried in its own transaction
+ * so one bad row cannot fail the others.
+ */
+public class BookingWriter {
+
+    private static final boolean ENABLED = "true".equalsIgnoreCase(System.getenv("BOOKING_GROUP_COMMIT"));
+
+    private static final int MAX_ROWS = System.getenv("BOOKING_BATCH_MAX_ROWS") != null
+        ? Integer.parseInt(System.getenv("BOOKING_BATCH_MAX_ROWS"))
+        : 100;
+
+    private static final long MAX_WAIT_MS = System.getenv("BOOKING_BATCH_MAX_WAIT_MS") != null
+        ? Long.parseLong(System.getenv("BOOKING_BATCH_MAX_WAIT_MS"))
+        : 5;
+
+    private static final int THREADS = System.getenv("BOOKING_WRITER_THREADS") != null
+        ? Integer.parseInt(System.getenv("BOOKING_WRITER_THREADS"))
+        : 2;
+
+    private static final int QUEUE_CAPACITY = System.getenv("BOOKING_WRITER_QUEUE") != null
+        ? Integer.parseInt(System.getenv("BOOKING_WRITER_QUEUE"))
+        : 10_000;
+
+    // 9 parameters per row; SQL Server allows 2100 per statement
+    private static final int MAX_ROWS_PER_STATEMENT = 230;
+
+    /** Batch size histogram bucket upper bounds; the last bucket is unbounded. */
+    static final int[] BATCH_SIZE_BOUNDS = { 1, 2, 4, 8, 16, 32, 64, 128, 256 };
+
+    // One queued booking and the caller waiting for its id
+    private static final class Pending {
+        final Booking booking;
+        final CompletableFuture<Integer> result = new CompletableFuture<>();
+
+        Pending(Booking booking) {
+            this.booking = booking;
+        }
+    }
+
+    private final JdbcShowStore showStore;
+    private final ConnectionPool.ConnectionFactory connections;
+    private final int maxRows;
+    private final long maxWaitNanos;
+    private final BlockingQueue<Pending> queue;
+    private final ExecutorService writers;
+    private volatile boolean closed;
+
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong rows = new AtomicLong();
+    private final AtomicLong fullFlushes = new AtomicLong();
+    private final AtomicLong timedFlushes = new AtomicLong();
+    private final AtomicLong notEnoughSeats = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+    private final AtomicInteger largestBatch = new AtomicInteger();
+    private final AtomicLongArray batchSizes = new AtomicLongArray(BATCH_SIZE_BOUNDS.length + 1);
+
+    BookingWriter(JdbcShowStore showStore) {
+        this(showStore, () -> DatabaseConnection.createConnection(ConnectionIntent.WRITE),
+            MAX_ROWS, MAX_WAIT_MS, THREADS, QUEUE_CAPACITY);
+    }
+
+    /**
+     * @param connections opens the primary connection each batch is written on
+     */
+    BookingWriter(JdbcShowStore showStore, ConnectionPool.ConnectionFactory connections,
+                  int maxRows, long maxWaitMs, int threads, int queueCapacity) {
+        this.showStore = showStore;
+        this.connections = connections;
+        this.maxRows = Math.max(1, Math.min(maxRows, MAX_ROWS_PER_STATEMENT));
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.writers = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "booking-writer-" + threadNumber.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        for (int i = 0; i < threads; i++) {
+            writers.execute(this::run);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "booking-writer-shutdown"));
+    }
+
+    /**
+     * Whether bookings are group-committed (BOOKING_GROUP_COMMIT=true).
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Queues a booking for its show. The booking must have a showId and no
+     * specific seats.
+     *
+     * @return completes with the bookingId, or -1 if not enough seats are
+     *         available; fails with RejectedExecutionException if the queue is full
+     */
+    public CompletableFuture<Integer> submit(Booking booking) {
+        Pending pending = new Pending(booking);
+        if (closed || !queue.offer(pending)) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Booking writer queue is full"));
+        }
+        return pending.result;
+    }
+
+    // ==================== Flushing ====================
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(maxRows);
+        while (!closed) {
+            try {
+                Pending first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxWaitNanos;
+                while (batch.size() < maxRows) {
+                    long remaining = deadline - System.nanoTime();
+                    // Past the deadline only bookings already waiting are taken
+                    Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                (batch.size() == maxRows ? fullFlushes : timedFlushes).incrementAndGet();
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failAll(batch, e);
+                return;
+            } catch (RuntimeException e) {
+                failAll(batch, e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<Pending> batch) {
+        recordBatch(batch.size());
+        try {
+            writeBatch(batch);
+        } catch (SQLException e) {
+            // Isolate the failing booking: retry each one in its own transaction
+            fallbacks.incrementAndGet();
+            for (Pending pending : batch) {
+                try {
+                    writeBatch(Collections.singletonList(pending));
+                } catch (SQLException single) {
+                    pending.result.completeExceptionally(single);
+                }
+            }
+        }
+    }
+
+    /**
+     * Assigns seats to every booking, reserves the seat counts and inserts
+     * the bookings that got seats together with their BookingSeats rows, in
+     * one transaction. Futures are completed only after the commit.
+     */
+    private void writeBatch(List<Pending> batch) throws SQLException {
+        int n = batch.size();
+        int[][] seats = new int[n][];
+        SeatMap[] seatMaps = new SeatMap[n];
+        boolean[] reserved = new boolean[n];
+        int[] bookingIds;
+
+        try (Connection conn = connections.create()) {
+            conn.setAutoCommit(false);
+            try {
+                // Lowest free seats first; a show without enough free seats gets -1 like one without enough count
+                int claimed = 0;
+                for (int i = 0; i < n; i++) {
+                    Booking booking = batch.get(i).booking;
+                    seatMaps[i] = showStore.getSeatMap(conn, booking.getShowId());
+                    seats[i] = seatMaps[i] != null ? seatMaps[i].tryReserveAny(booking.getTicketQuantity()) : null;
+                    if (seats[i] != null) {
+                        claimed++;
+                    }
+                }
+
+                int[] showIds = new int[claimed];
+                int[] quantities = new int[claimed];
+                for (int i = 0, j = 0; i < n; i++) {
+                    if (seats[i] != null) {
+                        showIds[j] = batch.get(i).booking.getShowId();
+                        quantities[j++] = batch.get(i).booking.getTicketQuantity();
+                    }
+                }
+                boolean[] counts = claimed > 0 ? showStore.reserveSeats(conn, showIds, quantities) : new boolean[0];
+
+                List<Booking> accepted = new ArrayList<>(claimed);
+                List<int[]> acceptedSeats = new ArrayList<>(claimed);
+                for (int i = 0, j = 0; i < n; i++) {
+                    if (seats[i] == null) {
+                        continue;
+                    }
+                    reserved[i] = counts[j++];
+                    if (reserved[i]) {
+                        accepted.add(batch.get(i).booking);
+                        acceptedSeats.add(seats[i]);
+                    } else {
+                        seatMaps[i].release(seats[i]);
+                        seats[i] = null;
+                    }
+                }
+                bookingIds = accepted.isEmpty() ? new int[0] : insertAll(conn, accepted);
+                if (!accepted.isEmpty()) {
+                    insertSeats(conn, accepted, acceptedSeats, bookingIds);
+                }
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                for (int i = 0; i < n; i++) {
+                    if (reserved[i]) {
+                        showStore.undoReservation(batch.get(i).booking.getShowId(), batch.get(i).booking.getTicketQuantity());
+                    }
+                    if (seats[i] != null) {
+                        seatMaps[i].release(seats[i]);
+                        if (e instanceof SQLException && JdbcBookingStore.isUniqueViolation((SQLException) e)) {
+                            // Another instance may have booked one of these seats; reload from BookingSeats
+                            showStore.invalidateSeatMap(batch.get(i).booking.getShowId());
+                        }
+                    }
+                }
+                throw e;
+            }
+        }
+
+        int next = 0;
+        for (int i = 0; i < n; i++) {
+            Pending pending = batch.get(i);
+            if (reserved[i]) {
+                pending.booking.setSeats(seats[i]);
+                SeatChanges.publish(pending.booking.getShowId());
+                pending.result.complete(bookingIds[next++]);
+            } else {
+                notEnoughSeats.incrementAndGet();
+                pending.result.complete(-1);
+            }
+        }
+    }
+
+    /**
+     * Inserts the BookingSeats rows of all accepted bookings as one JDBC batch.
+     */
+    private static void insertSeats(Connection conn, List<Booking> bookings, List<int[]> seats,
+                                    int[] bookingIds) throws SQLException {
+        String sql = "INSERT INTO BookingSeats (bookingId, showId, seatNo) VALUES (?, ?, ?)";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < bookings.size(); i++) {
+                for (int seat : seats.get(i)) {
+                    stmt.setInt(1, bookingIds[i]);
+                    stmt.setInt(2, bookings.get(i).getShowId());
+                    stmt.setInt(3, seat);
+                    stmt.addBatch();
+                }
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    /**
+     * Inserts all bookings with one statement and returns their ids in input order.
+     *
+     * SQL Server's driver does not return generated keys for executeBatch,
+     * and OUTPUT of a plain multi-row INSERT has no guaranteed order. A MERGE
+     * may OUTPUT columns of its source, so each row carries its position and
+     * the ids are matched back by it.
+     */
+    private int[] insertAll(Connection conn, List<Booking> bookings) throws SQLException {
+        StringBuilder sql = new StringBuilder("MERGE INTO Bookings AS t USING (VALUES ");
+        for (int i = 0; i < bookings.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append("(?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        }
+        sql.append(") AS s (ord, showId, userEmail, ticketType, ticketQuantity, popcornQuantity, totalPrice, ")
+            .append("idempotencyKey, requestFingerprint) ")
+            .append("ON 1 = 0 WHEN NOT MATCHED THEN ")
+            .append("INSERT (showId, userEmail, ticketType, ticketQuantity, popcornQuantity, totalPrice, ")
+            .append("idempotencyKey, requestFingerprint) ")
+            .append("VALUES (s.showId, s.userEmail, s.ticketType, s.ticketQuantity, s.popcornQuantity, s.totalPrice, ")
+            .append("s.idempotencyKey, s.requestFingerprint) ")
+            .append("OUTPUT s.ord, INSERTED.bookingId;");
+
+        int[] ids = new int[bookings.size()];
+        try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            int p = 1;
+            for (int i = 0; i < bookings.size(); i++) {
+                Booking booking = bookings.get(i);
+                stmt.setInt(p++, i);
+                stmt.setInt(p++, booking.getShowId());
+                stmt.setString(p++, booking.getUserEmail());
+                stmt.setString(p++, booking.getTicketType());
+                stmt.setInt(p++, booking.getTicketQuantity());
+                stmt.setInt(p++, booking.getPopcornQuantity());
+                stmt.setBigDecimal(p++, booking.getTotalPrice());
+                stmt.setString(p++, booking.getIdempotencyKey());
+                stmt.setString(p++, booking.getRequestFingerprint());
+            }
+
+            int returned = 0;
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    ids[rs.getInt(1)] = rs.getInt(2);
+                    returned++;
+                }
+            }
+            if (returned != ids.length) {
+                // Fail the whole transaction so the seat reservations are rolled back
+                throw new SQLException("Expected " + ids.length + " booking ids, got " + returned);
+            }
+        }
+        return ids;
+    }
+
+    private static void failAll(List<Pending> batch, Throwable error) {
+        for (Pending pending : batch) {
+            pending.result.completeExceptionally(error);
+        }
+    }
+
+    private void recordBatch(int size) {
+        batches.incrementAndGet();
+        rows.addAndGet(size);
+        largestBatch.accumulateAndGet(size, Math::max);
+        int bucket = BATCH_SIZE_BOUNDS.length;
+        for (int i = 0; i < BATCH_SIZE_BOUNDS.length; i++) {
+            if (size <= BATCH_SIZE_BOUNDS[i]) {
+                bucket = i;
+                break;
+            }
+        }
+        batchSizes.incrementAndGet(bucket);
+    }
+
+    /**
+     * Stops the writer threads and writes whatever is still queued.
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        writers.shutdown();
+        try {
+            writers.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<Pending> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        for (int i = 0; i < rest.size(); i += maxRows) {
+            write(rest.subList(i, Math.min(i + maxRows, rest.size())));
+        }
+    }
+
+    // ==================== Stats ====================
+
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+    public long getRowCount() {
+        return rows.get();
+    }
+
+    public double getMeanBatchSize() {
+        long count = batches.get();
+        return count > 0 ? (double) rows.get() / count : 0;
+    }
+
+    public int getLargestBatch() {
+        return largestBatch.get();
+    }
+
+    /**
+     * Batches flushed because they reached the row limit.
+     */
+    public long getFullFlushCount() {
+        return fullFlushes.get();
+    }
+
+    /**
+     * Batches flushed because the wait time ran out or the queue was empty.
+     */
+    public long getTimedFlushCount() {
+        return timedFlushes.get();
+    }
+
+    public long getNotEnoughSeatsCount() {
+        return notEnoughSeats.get();
+    }
+
+    /**
+     * Batches whose transaction failed and were retried one booking at a time.
+     */
+    public long getFallbackCount() {
+        return fallbacks.get();
+    }
+
+    /**
+     * Batch counts per bucket of {@link #BATCH_SIZE_BOUNDS}, with one extra
+     * trailing bucket for larger batches.
+     */
+    public long[] getBatchSizeHistogram() {
+        long[] counts = new long[batchSizes.length()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = batchSizes.get(i);
+        }
+        return counts;
+    }
+
+    public int getMaxRows() {
+        return maxRows;
+    }
+
+    public long getMaxWaitMs() {
+        return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos);
+    }
+}
@@ -0,0 +1,18 @@
+package sa.edu.kau.fcit.cpit252.project.store;
+
+/**
+ * What a caller is going to do with a connection, used by DatabaseConnection
+ * to route it to the primary or to the read replica.
+ */
+public enum ConnectionIntent {
+    /** Read that tolerates replica lag; served by the read pool. */
+    READ,
+    /** Read that must see this application's latest writes; served by the primary. */
+    READ_YOUR_WRITES,
+    /** Insert, update or transaction; served by the primary. */
+    WRITE;
+
+    public boolean isReplicaSafe() {
+        return this == READ;
+    }
+}
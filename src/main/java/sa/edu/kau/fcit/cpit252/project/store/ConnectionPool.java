@@ -0,0 +1,455 @@
+package sa.edu.kau.fcit.cpit252.project.store;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded JDBC connection pool.
+ *
+ * Physical connections are opened lazily through a {@link ConnectionFactory}
+ * and handed out as proxies whose {@code close()} returns them to the pool.
+ * A background housekeeper evicts idle and expired connections and keeps
+ * at least {@code minSize} connections open once the pool has been used.
+ * Each physical connection carries a {@link StatementCache} so hot SQL stays
+ * prepared across borrows.
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    /**
+     * Opens a new physical connection.
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection create() throws SQLException;
+    }
+
+    // Connections returned within this window skip isValid() on the next borrow
+    private static final long VALIDATION_BYPASS_MS = 500;
+
+    private final String name;
+    private final ConnectionFactory factory;
+    private final int minSize;
+    private final int maxSize;
+    private final long idleTimeoutMs;
+    private final long maxLifetimeMs;
+    private final long borrowTimeoutMs;
+    private final int validationTimeoutSeconds;
+    private final int statementCacheSize;
+
+    // LIFO so the most recently used (warmest) connection is reused first
+    private final LinkedBlockingDeque<PooledEntry> idle = new LinkedBlockingDeque<>();
+    private final Semaphore permits;
+    private final AtomicInteger totalConnections = new AtomicInteger();
+
+    // Metrics
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong borrowTimeouts = new AtomicLong();
+    private final AtomicLong borrowWaitNanos = new AtomicLong();
+    private final AtomicLong maxBorrowWaitNanos = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong destroyedCount = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final AtomicLong statementCacheHits = new AtomicLong();
+    private final AtomicLong statementCacheMisses = new AtomicLong();
+
+    private volatile ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    public ConnectionPool(String name, ConnectionFactory factory, int minSize, int maxSize,
+                          long idleTimeoutMs, long maxLifetimeMs, long borrowTimeoutMs,
+                          int statementCacheSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be at least 1");
+        }
+        if (minSize < 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("minSize must be between 0 and maxSize");
+        }
+        this.name = name;
+        this.factory = factory;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.maxLifetimeMs = maxLifetimeMs;
+        this.borrowTimeoutMs = borrowTimeoutMs;
+        this.validationTimeoutSeconds = 5;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    /**
+     * Borrows a connection, waiting up to the borrow timeout for one to become free.
+     * Closing the returned connection hands it back to the pool.
+     */
+    public Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool '" + name + "' is closed");
+        }
+        startHousekeeper();
+
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        long waited = System.nanoTime() - start;
+        borrowWaitNanos.addAndGet(waited);
+        maxBorrowWaitNanos.accumulateAndGet(waited, Math::max);
+
+        if (!acquired) {
+            borrowTimeouts.incrementAndGet();
+            throw new SQLException("Timed out after " + borrowTimeoutMs
+                    + " ms waiting for a database connection from pool '" + name + "'");
+        }
+
+        try {
+            PooledEntry entry = takeUsableEntry();
+            borrowCount.incrementAndGet();
+            return entry.lease();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens connections until the pool holds at least {@code minSize} of them.
+     * Each connection is opened under a permit, like a borrow, so filling never
+     * pushes the pool past {@code maxSize}; the fill stops when no permit is free.
+     */
+    public void fillToMinimum() throws SQLException {
+        while (!closed && totalConnections.get() < minSize) {
+            if (!permits.tryAcquire()) {
+                return;
+            }
+            try {
+                if (closed || totalConnections.get() >= minSize) {
+                    return;
+                }
+                idle.offerLast(openEntry());
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * Closes every idle connection. Borrowed connections are closed when returned.
+     */
+    public void evictIdle() {
+        PooledEntry entry;
+        while ((entry = idle.pollFirst()) != null) {
+            destroy(entry);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        ScheduledExecutorService executor = housekeeper;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        evictIdle();
+    }
+
+    public PoolStats getStats() {
+        int total = totalConnections.get();
+        int idleCount = idle.size();
+        return new PoolStats(name, minSize, maxSize, total, idleCount, total - idleCount,
+                permits.getQueueLength(), borrowCount.get(), borrowTimeouts.get(),
+                TimeUnit.NANOSECONDS.toMillis(borrowWaitNanos.get()),
+                TimeUnit.NANOSECONDS.toMillis(maxBorrowWaitNanos.get()),
+                createdCount.get(), destroyedCount.get(), validationFailures.get(),
+                statementCacheHits.get(), statementCacheMisses.get());
+    }
+
+    // ==================== Internals ====================
+
+    private PooledEntry takeUsableEntry() throws SQLException {
+        PooledEntry entry;
+        while ((entry = idle.pollFirst()) != null) {
+            if (isExpired(entry, System.currentTimeMillis())) {
+                destroy(entry);
+                continue;
+            }
+            if (!isAlive(entry)) {
+                validationFailures.incrementAndGet();
+                destroy(entry);
+                continue;
+            }
+            return entry;
+        }
+        return openEntry();
+    }
+
+    private PooledEntry openEntry() throws SQLException {
+        Connection physical = factory.create();
+        totalConnections.incrementAndGet();
+        createdCount.incrementAndGet();
+        return new PooledEntry(physical);
+    }
+
+    private boolean isAlive(PooledEntry entry) {
+        if (System.currentTimeMillis() - entry.lastReturnedAt < VALIDATION_BYPASS_MS) {
+            return true;
+        }
+        try {
+            return entry.physical.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private boolean isExpired(PooledEntry entry, long now) {
+        return maxLifetimeMs > 0 && now - entry.createdAt >= maxLifetimeMs;
+    }
+
+    private void giveBack(PooledEntry entry) {
+        try {
+            boolean reusable = !closed && !entry.broken && !entry.physical.isClosed()
+                    && !isExpired(entry, System.currentTimeMillis());
+            if (reusable) {
+                if (entry.statementCache != null) {
+                    entry.statementCache.releaseAll();
+                }
+                resetState(entry);
+                entry.lastReturnedAt = System.currentTimeMillis();
+                idle.offerFirst(entry);
+            } else {
+                destroy(entry);
+            }
+        } catch (SQLException e) {
+            destroy(entry);
+        } finally {
+            permits.release();
+        }
+    }
+
+    // Leave no open transaction or altered session state behind for the next borrower
+    private void resetState(PooledEntry entry) throws SQLException {
+        Connection physical = entry.physical;
+        if (!physical.getAutoCommit()) {
+            physical.rollback();
+            physical.setAutoCommit(true);
+        }
+    }
+
+    private void destroy(PooledEntry entry) {
+        totalConnections.decrementAndGet();
+        destroyedCount.incrementAndGet();
+        try {
+            entry.physical.close();
+        } catch (SQLException e) {
+            // Connection is being discarded anyway
+        }
+    }
+
+    private void startHousekeeper() {
+        if (housekeeper == null) {
+            synchronized (this) {
+                if (housekeeper == null) {
+                    ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+                        Thread t = new Thread(r, "db-pool-housekeeper-" + name);
+                        t.setDaemon(true);
+                        return t;
+                    });
+                    executor.scheduleWithFixedDelay(this::housekeep, 30, 30, TimeUnit.SECONDS);
+                    housekeeper = executor;
+                }
+            }
+        }
+    }
+
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+        Iterator<PooledEntry> it = idle.descendingIterator();
+        while (it.hasNext()) {
+            PooledEntry entry = it.next();
+            boolean idleTooLong = idleTimeoutMs > 0 && now - entry.lastReturnedAt >= idleTimeoutMs
+                    && totalConnections.get() > minSize;
+            if ((idleTooLong || isExpired(entry, now)) && idle.remove(entry)) {
+                destroy(entry);
+            }
+        }
+        try {
+            fillToMinimum();
+        } catch (SQLException e) {
+            // Database unreachable; the next borrow will surface the error
+        }
+    }
+
+    // ==================== Pooled connection ====================
+
+    /**
+     * A physical connection plus its pool bookkeeping.
+     */
+    private final class PooledEntry {
+        final Connection physical;
+        final StatementCache statementCache;
+        final long createdAt = System.currentTimeMillis();
+        volatile long lastReturnedAt = createdAt;
+        volatile boolean broken;
+
+        PooledEntry(Connection physical) {
+            this.physical = physical;
+            this.statementCache = statementCacheSize > 0
+                    ? new StatementCache(physical, statementCacheSize, statementCacheHits, statementCacheMisses)
+                    : null;
+        }
+
+        Connection lease() {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[] { Connection.class },
+                    new LeaseHandler(this));
+        }
+    }
+
+    /**
+     * Delegates to the physical connection until the borrower closes it.
+     */
+    private final class LeaseHandler implements InvocationHandler {
+        private final PooledEntry entry;
+        private boolean returned;
+
+        LeaseHandler(PooledEntry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        giveBack(entry);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || entry.physical.isClosed();
+                case "abort":
+                    entry.broken = true;
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + name + "]";
+                default:
+                    if (returned) {
+                        throw new SQLException("Connection has already been returned to the pool");
+                    }
+            }
+            if (entry.statementCache != null && isCacheablePrepare(method, args)) {
+                int autoGeneratedKeys = args.length == 2 ? (Integer) args[1] : Statement.NO_GENERATED_KEYS;
+                return entry.statementCache.prepare((String) args[0], autoGeneratedKeys);
+            }
+            try {
+                return method.invoke(entry.physical, args);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof SQLException && isFatal((SQLException) cause)) {
+                    entry.broken = true;
+                }
+                throw cause;
+            }
+        }
+    }
+
+    // prepareStatement(String) and prepareStatement(String, int autoGeneratedKeys)
+    private static boolean isCacheablePrepare(Method method, Object[] args) {
+        if (!method.getName().equals("prepareStatement") || args == null) {
+            return false;
+        }
+        Class<?>[] types = method.getParameterTypes();
+        return types.length == 1 || (types.length == 2 && types[1] == int.class);
+    }
+
+    // SQLState class 08 = connection exception
+    private static boolean isFatal(SQLException e) {
+        String state = e.getSQLState();
+        return state != null && state.startsWith("08");
+    }
+
+    // ==================== Stats ====================
+
+    /**
+     * Point-in-time snapshot of pool usage.
+     */
+    public static class PoolStats {
+        private final String name;
+        private final int minSize;
+        private final int maxSize;
+        private final int totalConnections;
+        private final int idleConnections;
+        private final int activeConnections;
+        private final int threadsWaiting;
+        private final long borrowCount;
+        private final long borrowTimeouts;
+        private final long totalBorrowWaitMs;
+        private final long maxBorrowWaitMs;
+        private final long createdCount;
+        private final long destroyedCount;
+        private final long validationFailures;
+        private final long statementCacheHits;
+        private final long statementCacheMisses;
+
+        public PoolStats(String name, int minSize, int maxSize, int totalConnections, int idleConnections,
+                         int activeConnections, int threadsWaiting, long borrowCount, long borrowTimeouts,
+                         long totalBorrowWaitMs, long maxBorrowWaitMs, long createdCount,
+                         long destroyedCount, long validationFailures,
+                         long statementCacheHits, long statementCacheMisses) {
+            this.name = name;
+            this.minSize = minSize;
+            this.maxSize = maxSize;
+            this.totalConnections = totalConnections;
+            this.idleConnections = idleConnections;
+            this.activeConnections = activeConnections;
+            this.threadsWaiting = threadsWaiting;
+            this.borrowCount = borrowCount;
+            this.borrowTimeouts = borrowTimeouts;
+            this.totalBorrowWaitMs = totalBorrowWaitMs;
+            this.maxBorrowWaitMs = maxBorrowWaitMs;
+            this.createdCount = createdCount;
+            this.destroyedCount = destroyedCount;
+            this.validationFailures = validationFailures;
+            this.statementCacheHits = statementCacheHits;
+            this.statementCacheMisses = statementCacheMisses;
+        }
+
+        // Getters
+        public String getName() { return name; }
+        public int getMinSize() { return minSize; }
+        public int getMaxSize() { return maxSize; }
+        public int getTotalConnections() { return totalConnections; }
+        public int getIdleConnections() { return idleConnections; }
+        public int getActiveConnections() { return activeConnections; }
+        public int getThreadsWaiting() { return threadsWaiting; }
+        public long getBorrowCount() { return borrowCount; }
+        public long getBorrowTimeouts() { return borrowTimeouts; }
+        public long getTotalBorrowWaitMs() { return totalBorrowWaitMs; }
+        public long getMaxBorrowWaitMs() { return maxBorrowWaitMs; }
+        public long getCreatedCount() { return createdCount; }
+        public long getDestroyedCount() { return destroyedCount; }
+        public long getValidationFailures() { return validationFailures; }
+        public long getStatementCacheHits() { return statementCacheHits; }
+        public long getStatementCacheMisses() { return statementCacheMisses; }
+    }
+}
@@ -7,14 +7,25 @@ import java.sql.SQLException;
 /**
  * Thread-safe Singleton pattern implementation for Database Connection.
  * Uses double-checked locking for lazy initialization.
+ * Connections are served from a bounded {@link ConnectionPool}; closing a
+ * borrowed connection returns it to the pool instead of logging out.
+ * Callers state a {@link ConnectionIntent}: plain reads go to the read pool
+ * (a read-only replica when configured), everything else to the primary.
+ * Borrowed connections report statement metrics to {@link QueryMetrics}.
  */
 public class DatabaseConnection {
     
     // Volatile ensures visibility across threads
     private static volatile DatabaseConnection instance;
     
-    // Connection pool would be better for production, but this demonstrates Singleton
-    private Connection connection;
+    // Bounded pool on the primary, used for writes and read-your-writes reads
+    private final ConnectionPool pool;
+    
+    // Pool for replica-safe reads; the primary pool itself when no replica is configured
+    private final ConnectionPool readPool;
+    
+    // Records latency, rows and errors of every statement run on a borrowed connection
+    private final QueryMetrics queryMetrics = QueryMetrics.getInstance();
     
     // Azure SQL Database connection parameters
     private static final String DB_URL = System.getenv("DB_URL") != null 
@@ -28,6 +39,22 @@ public class DatabaseConnection {
     private static final String DB_PASSWORD = System.getenv("DB_PASSWORD") != null 
         ? System.getenv("DB_PASSWORD") 
         : "YourStrongP@ssw0rd!";
+    
+    // Read replica: an explicit DB_READ_URL, or Azure SQL read scale-out on the primary URL
+    private static final String DB_READ_URL = System.getenv("DB_READ_URL") != null
+        ? System.getenv("DB_READ_URL")
+        : "true".equalsIgnoreCase(System.getenv("DB_READ_SCALE_OUT"))
+            ? DB_URL + (DB_URL.endsWith(";") ? "" : ";") + "applicationIntent=ReadOnly;"
+            : null;
+    
+    // Pool sizing and lifetime settings
+    private static final int POOL_MIN_SIZE = intEnv("DB_POOL_MIN_SIZE", 2);
+    private static final int POOL_MAX_SIZE = intEnv("DB_POOL_MAX_SIZE", 10);
+    private static final long POOL_IDLE_TIMEOUT_MS = intEnv("DB_POOL_IDLE_TIMEOUT_MS", 600_000);
+    private static final long POOL_MAX_LIFETIME_MS = intEnv("DB_POOL_MAX_LIFETIME_MS", 1_800_000);
+    private static final long POOL_BORROW_TIMEOUT_MS = intEnv("DB_POOL_BORROW_TIMEOUT_MS", 5_000);
+    private static final int STATEMENT_CACHE_SIZE = intEnv("DB_STATEMENT_CACHE_SIZE", 32);
+    private static final int READ_POOL_MAX_SIZE = intEnv("DB_READ_POOL_MAX_SIZE", POOL_MAX_SIZE);
 
     // Private constructor prevents instantiation from outside
     private DatabaseConnection() {
@@ -36,6 +63,25 @@ public class DatabaseConnection {
         } catch (ClassNotFoundException e) {
             throw new RuntimeException("SQL Server JDBC Driver not found", e);
         }
+        this.pool = new ConnectionPool("primary",
+            () -> DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD),
+            POOL_MIN_SIZE, POOL_MAX_SIZE,
+            POOL_IDLE_TIMEOUT_MS, POOL_MAX_LIFETIME_MS, POOL_BORROW_TIMEOUT_MS,
+            STATEMENT_CACHE_SIZE);
+        
+        if (DB_READ_URL != null) {
+            this.readPool = new ConnectionPool("replica",
+                () -> {
+                    Connection conn = DriverManager.getConnection(DB_READ_URL, DB_USER, DB_PASSWORD);
+                    conn.setReadOnly(true);
+                    return conn;
+                },
+                Math.min(POOL_MIN_SIZE, READ_POOL_MAX_SIZE), READ_POOL_MAX_SIZE,
+                POOL_IDLE_TIMEOUT_MS, POOL_MAX_LIFETIME_MS, POOL_BORROW_TIMEOUT_MS,
+                STATEMENT_CACHE_SIZE);
+        } else {
+            this.readPool = pool;
+        }
     }
     
     /**
@@ -54,39 +100,86 @@ public class DatabaseConnection {
     }
     
     /**
-     * Gets a database connection. Creates a new one if the current one is closed or null.
-     * For production use, consider using a connection pool like HikariCP.
+     * Borrows a connection to the primary.
+     * Callers must close it (try-with-resources) to hand it back.
      */
     public Connection getConnection() throws SQLException {
-        if (connection == null || connection.isClosed()) {
-            connection = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
-        }
-        return connection;
+        return queryMetrics.instrument(pool.borrow());
     }
     
     /**
-     * Static convenience method to get a new connection.
-     * Each call creates a fresh connection (recommended for servlets to avoid threading issues).
+     * Borrows a connection routed by intent: READ goes to the read pool,
+     * READ_YOUR_WRITES and WRITE go to the primary.
+     */
+    public Connection getConnection(ConnectionIntent intent) throws SQLException {
+        return queryMetrics.instrument(intent.isReplicaSafe() ? readPool.borrow() : pool.borrow());
+    }
+    
+    /**
+     * Static convenience method to borrow a pooled connection to the primary.
+     * Each call hands out a connection owned by the caller until it is closed,
+     * so it is safe to use from concurrent servlet threads.
      */
     public static Connection createConnection() throws SQLException {
-        getInstance(); // Ensure driver is loaded
-        return DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
+        return getInstance().getConnection();
+    }
+    
+    /**
+     * Static convenience method to borrow a pooled connection routed by intent.
+     */
+    public static Connection createConnection(ConnectionIntent intent) throws SQLException {
+        return getInstance().getConnection(intent);
+    }
+    
+    /**
+     * Opens the minimum number of connections on each pool up front, so the
+     * first requests do not pay for driver loading, TLS and login.
+     */
+    public void warmUp() throws SQLException {
+        pool.fillToMinimum();
+        if (hasReadReplica()) {
+            readPool.fillToMinimum();
+        }
     }
     
     /**
-     * Closes the singleton connection if open.
+     * Whether plain reads are served by a separate replica pool.
+     */
+    public boolean hasReadReplica() {
+        return readPool != pool;
+    }
+    
+    /**
+     * Closes all idle pooled connections. The pools reopen connections on demand.
      */
     public void closeConnection() {
-        if (connection != null) {
-            try {
-                connection.close();
-            } catch (SQLException e) {
-                // Log error in production
-            }
-            connection = null;
+        pool.evictIdle();
+        if (hasReadReplica()) {
+            readPool.evictIdle();
         }
     }
     
+    /**
+     * Returns a snapshot of primary pool usage (sizes, borrow waits, timeouts
+     * and prepared statement cache hits/misses).
+     */
+    public ConnectionPool.PoolStats getPoolStats() {
+        return pool.getStats();
+    }
+    
+    /**
+     * Returns a snapshot of read pool usage. Same as {@link #getPoolStats()}
+     * when no replica is configured.
+     */
+    public ConnectionPool.PoolStats getReadPoolStats() {
+        return readPool.getStats();
+    }
+    
+    private static int intEnv(String name, int defaultValue) {
+        String value = System.getenv(name);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+    
     // Prevent cloning of singleton
     @Override
     protected Object clone() throws CloneNotSupportedException {
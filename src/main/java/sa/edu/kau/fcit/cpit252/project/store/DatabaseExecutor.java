@@ -0,0 +1,103 @@
+package sa.edu.kau.fcit.cpit252.project.store;
+
+import java.sql.SQLException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bulkhead for blocking JDBC work, using Singleton Pattern.
+ *
+ * Database calls run on a fixed number of threads with a bounded queue, so a
+ * slow database can only tie up this pool and never the servlet container's
+ * request threads. When the queue is full, work is rejected immediately
+ * instead of waiting.
+ */
+public class DatabaseExecutor {
+
+    /**
+     * A unit of database work.
+     */
+    @FunctionalInterface
+    public interface SqlTask<T> {
+        T run() throws SQLException;
+    }
+
+    private static final int THREADS = intEnv("DB_EXECUTOR_THREADS", intEnv("DB_POOL_MAX_SIZE", 10));
+    private static final int QUEUE_CAPACITY = intEnv("DB_EXECUTOR_QUEUE", 200);
+
+    private static final DatabaseExecutor INSTANCE = new DatabaseExecutor(THREADS, QUEUE_CAPACITY);
+
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    DatabaseExecutor(int threads, int queueCapacity) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            r -> {
+                Thread t = new Thread(r, "db-executor-" + threadNumber.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public static DatabaseExecutor getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Runs the task on a database thread.
+     *
+     * @return a future completed with the task's result; it fails with the
+     *         task's SQLException, or with RejectedExecutionException when the
+     *         queue is full
+     */
+    public <T> CompletableFuture<T> submit(SqlTask<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(task.run());
+                } catch (SQLException | RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCount.incrementAndGet();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Unwraps the CompletionException layer added by CompletableFuture stages.
+     */
+    public static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public int getQueuedCount() {
+        return executor.getQueue().size();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    private static int intEnv(String name, int defaultValue) {
+        String value = System.getenv(name);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+}
@@ -0,0 +1,238 @@
+package sa.edu.kau.fcit.cpit252.project.store;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import sa.edu.kau.fcit.cpit252.project.model.Booking;
+import sa.edu.kau.fcit.cpit252.project.model.BookingCursor;
+import sa.edu.kau.fcit.cpit252.project.model.BookingPage;
+import sa.edu.kau.fcit.cpit252.project.model.BookingResult;
+import sa.edu.kau.fcit.cpit252.project.model.Movie;
+import sa.edu.kau.fcit.cpit252.project.model.SeatHold;
+
+/**
+ * In-memory implementation of BookingStore using Singleton Pattern.
+ * Works against InMemoryMovieStore and InMemoryShowStore; a reservation is
+ * released again if its booking cannot be stored.
+ */
+public class InMemoryBookingStore implements BookingStore {
+
+    private static final InMemoryBookingStore INSTANCE = new InMemoryBookingStore();
+
+    private final InMemoryMovieStore movieStore = InMemoryMovieStore.getInstance();
+    private final InMemoryShowStore showStore = InMemoryShowStore.getInstance();
+
+    private final Map<Integer, Booking> bookings = new ConcurrentHashMap<>();
+    // userEmail + idempotency key -> bookingId, like the unique index on Bookings
+    private final Map<String, Integer> idempotencyKeys = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger(1);
+
+    private InMemoryBookingStore() {
+        // Private constructor for Singleton
+    }
+
+    public static InMemoryBookingStore getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public int create(Booking booking) {
+        BookingResult result = reserveAndInsert(booking.getShowId(), booking);
+        return result.isBooked() ? result.getBookingId() : -1;
+    }
+
+    /**
+     * The held seat count is already taken; the lowest free seats of the show
+     * are assigned to the booking here. A taken idempotency key gives the
+     * held seats back instead.
+     */
+    @Override
+    public BookingResult createReserved(SeatHold hold, Booking booking) {
+        Booking existing = findByIdempotencyKey(booking.getUserEmail(), booking.getIdempotencyKey());
+        if (existing != null) {
+            showStore.releaseSeats(hold.getShowId(), hold.getQuantity());
+            return BookingResult.replayOf(existing, booking);
+        }
+
+        SeatMap seatMap = showStore.getSeatMap(booking.getShowId());
+        int[] seats = seatMap != null ? seatMap.tryReserveAny(booking.getTicketQuantity()) : null;
+        if (seats == null) {
+            throw new IllegalStateException("No free seats to assign to the held tickets of show " + booking.getShowId());
+        }
+        booking.setSeats(seats);
+        int bookingId = nextId.getAndIncrement();
+        Booking stored = copy(booking, bookingId, booking.getShowId());
+        stored.setBookingDate(LocalDateTime.now());
+        bookings.put(bookingId, stored);
+        if (booking.getIdempotencyKey() != null) {
+            Integer first = idempotencyKeys.putIfAbsent(keyOf(booking.getUserEmail(), booking.getIdempotencyKey()), bookingId);
+            if (first != null) {
+                // A concurrent attempt with the same key won; undo this one
+                bookings.remove(bookingId);
+                seatMap.release(seats);
+                showStore.releaseSeats(hold.getShowId(), hold.getQuantity());
+                return BookingResult.replayOf(bookings.get(first), booking);
+            }
+        }
+        return BookingResult.booked(bookingId, booking.getShowId());
+    }
+
+    @Override
+    public BookingResult bookTickets(String movieName, String location, String showTime,
+                                     String hallType, Booking booking) {
+        Movie movie = movieStore.findByName(movieName);
+        if (movie == null) {
+            return BookingResult.movieNotFound();
+        }
+
+        int showId = showStore.getOrCreateShow(movie.getMovieId(), location, showTime, hallType);
+        return reserveAndInsert(showId, booking);
+    }
+
+    /**
+     * Claims the booking's specific seats (if any), then the seat count, then
+     * stores the booking; each step is undone if a later one fails. A booking
+     * without specific seats is given the lowest free ones.
+     */
+    private BookingResult reserveAndInsert(int showId, Booking booking) {
+        Booking existing = findByIdempotencyKey(booking.getUserEmail(), booking.getIdempotencyKey());
+        if (existing != null) {
+            return BookingResult.replayOf(existing, booking);
+        }
+
+        int[] seats = booking.getSeats();
+        SeatMap seatMap = null;
+        if (seats != null) {
+            seatMap = showStore.getSeatMap(showId);
+            if (seatMap == null || !seatMap.tryReserve(seats)) {
+                return BookingResult.seatsUnavailable(showId);
+            }
+        }
+
+        if (!showStore.reserveSeats(showId, booking.getTicketQuantity())) {
+            if (seatMap != null) {
+                seatMap.release(seats);
+            }
+            return BookingResult.notEnoughSeats(showId, showStore.getAvailableSeats(showId));
+        }
+
+        if (seats == null) {
+            seatMap = showStore.getSeatMap(showId);
+            seats = seatMap.tryReserveAny(booking.getTicketQuantity());
+            if (seats == null) {
+                showStore.releaseSeats(showId, booking.getTicketQuantity());
+                return BookingResult.notEnoughSeats(showId, showStore.getAvailableSeats(showId));
+            }
+            booking.setSeats(seats);
+        }
+
+        int bookingId = insertOrRelease(showId, booking, seatMap);
+        if (booking.getIdempotencyKey() != null) {
+            Integer first = idempotencyKeys.putIfAbsent(keyOf(booking.getUserEmail(), booking.getIdempotencyKey()), bookingId);
+            if (first != null) {
+                // A concurrent attempt with the same key won; undo this one
+                bookings.remove(bookingId);
+                showStore.releaseSeats(showId, booking.getTicketQuantity());
+                if (seatMap != null) {
+                    seatMap.release(seats);
+                }
+                return BookingResult.replayOf(bookings.get(first), booking);
+            }
+        }
+        return BookingResult.booked(bookingId, showId);
+    }
+
+    @Override
+    public List<Booking> findByUser(String userEmail) {
+        List<Booking> result = new ArrayList<>();
+        for (Booking booking : bookings.values()) {
+            if (booking.getUserEmail().equals(userEmail)) {
+                result.add(copy(booking, booking.getBookingId(), booking.getShowId()));
+            }
+        }
+        // Newest first, like ORDER BY bookingDate DESC
+        result.sort(Comparator.comparing(Booking::getBookingDate)
+            .thenComparingInt(Booking::getBookingId)
+            .reversed());
+        return result;
+    }
+
+    @Override
+    public BookingPage findByUser(String userEmail, BookingCursor after, int pageSize) {
+        List<Booking> rows = new ArrayList<>(pageSize + 1);
+        for (Booking booking : findByUser(userEmail)) {
+            if (after == null || after.isBefore(booking)) {
+                rows.add(booking);
+                if (rows.size() > pageSize) {
+                    break;
+                }
+            }
+        }
+        return BookingPage.of(rows, pageSize);
+    }
+
+    @Override
+    public Booking findById(int bookingId) {
+        Booking booking = bookings.get(bookingId);
+        return booking != null ? copy(booking, bookingId, booking.getShowId()) : null;
+    }
+
+    @Override
+    public Booking findByIdempotencyKey(String userEmail, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return null;
+        }
+        Integer bookingId = idempotencyKeys.get(keyOf(userEmail, idempotencyKey));
+        return bookingId != null ? findById(bookingId) : null;
+    }
+
+    private static String keyOf(String userEmail, String idempotencyKey) {
+        return userEmail + "\n" + idempotencyKey;
+    }
+
+    /**
+     * Clears all stored bookings. Useful for testing.
+     */
+    public void clear() {
+        bookings.clear();
+        idempotencyKeys.clear();
+        nextId.set(1);
+    }
+
+    private int insertOrRelease(int showId, Booking booking, SeatMap seatMap) {
+        try {
+            int bookingId = nextId.getAndIncrement();
+            Booking stored = copy(booking, bookingId, showId);
+            stored.setBookingDate(LocalDateTime.now());
+            bookings.put(bookingId, stored);
+            return bookingId;
+        } catch (RuntimeException e) {
+            showStore.releaseSeats(showId, booking.getTicketQuantity());
+            if (seatMap != null) {
+                seatMap.release(booking.getSeats());
+            }
+            throw e;
+        }
+    }
+
+    private static Booking copy(Booking booking, int bookingId, int showId) {
+        return Booking.builder()
+            .bookingId(bookingId)
+            .showId(showId)
+            .userEmail(booking.getUserEmail())
+            .ticketType(booking.getTicketType())
+            .ticketQuantity(booking.getTicketQuantity())
+            .popcornQuantity(booking.getPopcornQuantity())
+            .totalPrice(booking.getTotalPrice())
+            .bookingDate(booking.getBookingDate())
+            .seats(booking.getSeats() != null ? booking.getSeats().clone() : null)
+            .idempotencyKey(booking.getIdempotencyKey())
+            .requestFingerprint(booking.getRequestFingerprint())
+            .build();
+    }
+}
@@ -0,0 +1,98 @@
+package sa.edu.kau.fcit.cpit252.project.store;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import sa.edu.kau.fcit.cpit252.project.model.Movie;
+
+/**
+ * In-memory implementation of MovieStore using Singleton Pattern.
+ * Thread-safe with ConcurrentHashMap; returns copies so callers cannot
+ * modify stored movies.
+ */
+public class InMemoryMovieStore implements MovieStore {
+
+    private static final InMemoryMovieStore INSTANCE = new InMemoryMovieStore();
+
+    private final Map<Integer, Movie> movies = new ConcurrentHashMap<>();
+    private final Map<String, Integer> idsByName = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger(1);
+
+    private InMemoryMovieStore() {
+        // Private constructor for Singleton
+    }
+
+    public static InMemoryMovieStore getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public Movie findById(int movieId) {
+        return summary(movies.get(movieId));
+    }
+
+    @Override
+    public Movie findDetailsById(int movieId) {
+        Movie movie = movies.get(movieId);
+        if (movie == null) {
+            return null;
+        }
+        return new Movie(movie.getMovieId(), movie.getMovieName(), movie.getDescription(), movie.getImageUrl());
+    }
+
+    @Override
+    public Movie findByName(String movieName) {
+        if (movieName == null) {
+            return null;
+        }
+        Integer movieId = idsByName.get(normalize(movieName));
+        return movieId != null ? findById(movieId) : null;
+    }
+
+    @Override
+    public int create(String movieName, String description, String imageUrl) {
+        int movieId = nextId.getAndIncrement();
+        movies.put(movieId, new Movie(movieId, movieName, description, imageUrl));
+        // Like the case-insensitive SELECT, name lookups resolve to the first movie stored
+        idsByName.putIfAbsent(normalize(movieName), movieId);
+        return movieId;
+    }
+
+    @Override
+    public List<Movie> findAll() {
+        List<Movie> result = new ArrayList<>();
+        for (Movie movie : movies.values()) {
+            result.add(summary(movie));
+        }
+        result.sort(Comparator.comparing(Movie::getMovieName, String.CASE_INSENSITIVE_ORDER));
+        return result;
+    }
+
+    /**
+     * Clears all stored movies. Useful for testing.
+     */
+    public void clear() {
+        movies.clear();
+        idsByName.clear();
+        nextId.set(1);
+    }
+
+    private static String normalize(String movieName) {
+        return movieName.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Copy without the description, matching what JdbcMovieStore loads.
+     */
+    private static Movie summary(Movie movie) {
+        if (movie == null) {
+            return null;
+        }
+        return new Movie(movie.getMovieId(), movie.getMovieName(), null, movie.getImageUrl());
+    }
+}
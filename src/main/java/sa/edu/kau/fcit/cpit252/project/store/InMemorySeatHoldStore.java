@@ -0,0 +1,37 @@
+package sa.edu.kau.fcit.cpit252.project.store;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+
+import sa.edu.kau.fcit.cpit252.project.model.SeatHold;
+
+/**
+ * SeatHoldStore that takes seats from any ShowStore and keeps no records,
+ * so holds do not outlive the process. Used in in-memory mode, where the
+ * seat counts do not outlive it either.
+ */
+public class InMemorySeatHoldStore implements SeatHoldStore {
+
+    private final ShowStore showStore;
+
+    public InMemorySeatHoldStore(ShowStore showStore) {
+        this.showStore = showStore;
+    }
+
+    @Override
+    public boolean hold(SeatHold hold) throws SQLException {
+        return showStore.reserveSeats(hold.getShowId(), hold.getQuantity());
+    }
+
+    @Override
+    public boolean release(SeatHold hold) throws SQLException {
+        showStore.releaseSeats(hold.getShowId(), hold.getQuantity());
+        return true;
+    }
+
+    @Override
+    public List<SeatHold> findAll() {
+        return Collections.emptyList();
+    }
+}
@@ -0,0 +1,194 @@
+package sa.edu.kau.fcit.cpit252.project.store;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import sa.edu.kau.fcit.cpit252.project.model.Movie;
+import sa.edu.kau.fcit.cpit252.project.model.Show;
+
+/**
+ * In-memory implementation of ShowStore using Singleton Pattern.
+ *
+ * Seat counts are AtomicIntegers updated with compare-and-set, giving the
+ * same all-or-nothing semantics as the conditional UPDATE in JdbcShowStore.
+ * Show creation is atomic per (movieId, location, showTime), matching the
+ * UNIQUE constraint on the Shows table.
+ */
+public class InMemoryShowStore implements ShowStore {
+
+    public static final int DEFAULT_SEATS = ShowStore.DEFAULT_SEATS;
+
+    private static final InMemoryShowStore INSTANCE = new InMemoryShowStore();
+
+    private final Map<Integer, ShowRecord> shows = new ConcurrentHashMap<>();
+    private final Map<String, Integer> idsByKey = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger(1);
+
+    private InMemoryShowStore() {
+        // Private constructor for Singleton
+    }
+
+    public static InMemoryShowStore getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public int getOrCreateShow(int movieId, String location, String showTime, String hallType) {
+        String key = movieId + "\u0000" + location + "\u0000" + showTime;
+        return idsByKey.computeIfAbsent(key, k -> {
+            int showId = nextId.getAndIncrement();
+            shows.put(showId, new ShowRecord(showId, movieId, location, showTime, hallType, DEFAULT_SEATS));
+            return showId;
+        });
+    }
+
+    @Override
+    public Integer findShowId(int movieId, String location, String showTime) {
+        return idsByKey.get(movieId + "\u0000" + location + "\u0000" + showTime);
+    }
+
+    @Override
+    public Integer cachedShowId(int movieId, String location, String showTime) {
+        return findShowId(movieId, location, showTime);
+    }
+
+    @Override
+    public int getAvailableSeats(int showId) {
+        return getAvailableSeats(showId, ConnectionIntent.READ);
+    }
+
+    @Override
+    public int getAvailableSeats(int showId, ConnectionIntent intent) {
+        // Single copy of the data, so every intent reads the latest value
+        ShowRecord record = shows.get(showId);
+        return record != null ? record.availableSeats.get() : 0;
+    }
+
+    @Override
+    public boolean reserveSeats(int showId, int quantity) {
+        ShowRecord record = shows.get(showId);
+        if (record == null) {
+            return false;
+        }
+        while (true) {
+            int available = record.availableSeats.get();
+            if (available < quantity) {
+                return false;
+            }
+            if (record.availableSeats.compareAndSet(available, available - quantity)) {
+                SeatChanges.publish(showId);
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public void releaseSeats(int showId, int quantity) {
+        ShowRecord record = shows.get(showId);
+        if (record != null) {
+            record.availableSeats.addAndGet(quantity);
+            SeatChanges.publish(showId);
+        }
+    }
+
+    @Override
+    public SeatMap getSeatMap(int showId) {
+        ShowRecord record = shows.get(showId);
+        return record != null ? record.seatMap : null;
+    }
+
+    @Override
+    public Show findById(int showId) {
+        ShowRecord record = shows.get(showId);
+        return record != null ? record.toShow() : null;
+    }
+
+    @Override
+    public List<Show> findByMovie(int movieId) {
+        List<Show> result = new ArrayList<>();
+        for (ShowRecord record : shows.values()) {
+            if (record.movieId == movieId) {
+                result.add(record.toShow());
+            }
+        }
+        result.sort(Comparator.comparingInt(Show::getShowId));
+        return result;
+    }
+
+    @Override
+    public List<Show> findByMovieName(String movieName, String location) {
+        Movie movie = InMemoryMovieStore.getInstance().findByName(movieName);
+        if (movie == null) {
+            return null;
+        }
+        List<Show> result = new ArrayList<>();
+        for (Show show : findByMovie(movie.getMovieId())) {
+            if (location == null || location.equals(show.getLocation())) {
+                result.add(show);
+            }
+        }
+        result.sort(Comparator.comparing(Show::getLocation).thenComparing(Show::getShowTime));
+        return result;
+    }
+
+    @Override
+    public List<Show> findByIds(List<Integer> showIds) {
+        return findByIds(showIds, ConnectionIntent.READ);
+    }
+
+    @Override
+    public List<Show> findByIds(List<Integer> showIds, ConnectionIntent intent) {
+        // Single copy of the data, so every intent reads the latest value
+        List<Show> result = new ArrayList<>();
+        for (int showId : new TreeSet<>(showIds)) {
+            ShowRecord record = shows.get(showId);
+            if (record != null) {
+                result.add(record.toShow());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Clears all stored shows. Useful for testing.
+     */
+    public void clear() {
+        idsByKey.clear();
+        shows.clear();
+        nextId.set(1);
+    }
+
+    /**
+     * Immutable show details plus a live seat counter and seat map.
+     */
+    private static final class ShowRecord {
+        final int showId;
+        final int movieId;
+        final String location;
+        final String showTime;
+        final String hallType;
+        final int totalSeats;
+        final AtomicInteger availableSeats;
+        final SeatMap seatMap;
+
+        ShowRecord(int showId, int movieId, String location, String showTime, String hallType, int totalSeats) {
+            this.showId = showId;
+            this.movieId = movieId;
+            this.location = location;
+            this.showTime = showTime;
+            this.hallType = hallType;
+            this.totalSeats = totalSeats;
+            this.availableSeats = new AtomicInteger(totalSeats);
+            this.seatMap = new SeatMap(totalSeats);
+        }
+
+        Show toShow() {
+            return new Show(showId, movieId, location, showTime, hallType, totalSeats, availableSeats.get());
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package sa.edu.kau.fcit.cpit252.project.store;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Arrays;
+
+/**
+ * Connection and PreparedStatement wrappers that report to {@link QueryMetrics}.
+ *
+ * Executions are timed around the driver call; query rows are counted as the
+ * caller reads them. Bind shape is tracked from the setXxx calls so slow
+ * query logs show parameter types without leaking values.
+ */
+final class InstrumentedConnection {
+
+    private InstrumentedConnection() {
+    }
+
+    static Connection wrap(Connection connection, QueryMetrics metrics) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                new ConnectionHandler(connection, metrics));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    // ==================== Connection ====================
+
+    private static final class ConnectionHandler implements InvocationHandler {
+        private final Connection connection;
+        private final QueryMetrics metrics;
+
+        ConnectionHandler(Connection connection, QueryMetrics metrics) {
+            this.connection = connection;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Instrumented" + connection;
+                default:
+                    break;
+            }
+            Object result = InstrumentedConnection.invoke(connection, method, args);
+            if (result instanceof PreparedStatement && method.getName().equals("prepareStatement")) {
+                return (PreparedStatement) Proxy.newProxyInstance(
+                        PreparedStatement.class.getClassLoader(),
+                        new Class<?>[] { PreparedStatement.class },
+                        new StatementHandler((PreparedStatement) result, (String) args[0], metrics));
+            }
+            return result;
+        }
+    }
+
+    // ==================== PreparedStatement ====================
+
+    private static final class StatementHandler implements InvocationHandler {
+        private final PreparedStatement statement;
+        private final String sql;
+        private final QueryMetrics metrics;
+        private String[] bindTypes = new String[8];
+
+        StatementHandler(PreparedStatement statement, String sql, QueryMetrics metrics) {
+            this.statement = statement;
+            this.sql = sql;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "executeQuery":
+                case "executeUpdate":
+                case "executeLargeUpdate":
+                case "execute":
+                case "executeBatch":
+                    if (args == null) {
+                        return timed(method, name);
+                    }
+                    break;
+                case "clearParameters":
+                    Arrays.fill(bindTypes, null);
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                        recordBind((Integer) args[0], name, args[1]);
+                    }
+            }
+            return InstrumentedConnection.invoke(statement, method, args);
+        }
+
+        private Object timed(Method method, String name) throws Throwable {
+            long start = System.nanoTime();
+            boolean failed = true;
+            Object result = null;
+            try {
+                result = InstrumentedConnection.invoke(statement, method, null);
+                failed = false;
+            } finally {
+                metrics.record(sql, System.nanoTime() - start, updatedRows(result), failed, bindShape());
+            }
+            if (result instanceof ResultSet) {
+                return Proxy.newProxyInstance(
+                        ResultSet.class.getClassLoader(),
+                        new Class<?>[] { ResultSet.class },
+                        new ResultSetHandler((ResultSet) result, sql, metrics));
+            }
+            return result;
+        }
+
+        private static long updatedRows(Object result) {
+            if (result instanceof Integer || result instanceof Long) {
+                return ((Number) result).longValue();
+            }
+            if (result instanceof int[]) {
+                long total = 0;
+                for (int count : (int[]) result) {
+                    total += Math.max(count, 0);
+                }
+                return total;
+            }
+            return -1;
+        }
+
+        private void recordBind(int index, String setter, Object value) {
+            if (index < 1 || index > 2_000) {
+                return;
+            }
+            if (index > bindTypes.length) {
+                bindTypes = Arrays.copyOf(bindTypes, Math.max(index, bindTypes.length * 2));
+            }
+            String type;
+            if (setter.equals("setNull") || value == null) {
+                type = "null";
+            } else if (setter.equals("setObject")) {
+                type = value.getClass().getSimpleName();
+            } else {
+                type = setter.substring(3);
+            }
+            bindTypes[index - 1] = type;
+        }
+
+        private String bindShape() {
+            StringBuilder shape = new StringBuilder("(");
+            int last = bindTypes.length;
+            while (last > 0 && bindTypes[last - 1] == null) {
+                last--;
+            }
+            for (int i = 0; i < last; i++) {
+                if (i > 0) {
+                    shape.append(", ");
+                }
+                shape.append(bindTypes[i] != null ? bindTypes[i] : "?");
+            }
+            return shape.append(')').toString();
+        }
+    }
+
+    // ==================== ResultSet ====================
+
+    private static final class ResultSetHandler implements InvocationHandler {
+        private final ResultSet resultSet;
+        private final String sql;
+        private final QueryMetrics metrics;
+
+        ResultSetHandler(ResultSet resultSet, String sql, QueryMetrics metrics) {
+            this.resultSet = resultSet;
+            this.sql = sql;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            Object result = InstrumentedConnection.invoke(resultSet, method, args);
+            if (Boolean.TRUE.equals(result) && method.getName().equals("next")) {
+                metrics.recordRowRead(sql);
+            }
+            return result;
+        }
+    }
+}
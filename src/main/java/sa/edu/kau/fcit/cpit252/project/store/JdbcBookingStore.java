@@ -0,0 +1,486 @@
+package sa.edu.kau.fcit.cpit252.project.store;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import sa.edu.kau.fcit.cpit252.project.model.Booking;
+import sa.edu.kau.fcit.cpit252.project.model.BookingCursor;
+import sa.edu.kau.fcit.cpit252.project.model.BookingPage;
+import sa.edu.kau.fcit.cpit252.project.model.BookingResult;
+import sa.edu.kau.fcit.cpit252.project.model.SeatHold;
+
+/**
+ * JDBC implementation of BookingStore backed by the Bookings table.
+ * Seat reservation, the booking row and its BookingSeats rows are written in
+ * one transaction; a booking without specific seats is given the lowest free ones.
+ * With a {@link BookingWriter}, bookings without specific seats on an
+ * existing show are group-committed together with concurrent ones.
+ */
+public class JdbcBookingStore implements BookingStore {
+    
+    private final JdbcShowStore showStore;
+    private final BookingWriter writer;
+    
+    public JdbcBookingStore(JdbcShowStore showStore) {
+        this(showStore, null);
+    }
+    
+    /**
+     * @param writer group-commit writer, or null to write each booking in its own transaction
+     */
+    public JdbcBookingStore(JdbcShowStore showStore, BookingWriter writer) {
+        this.showStore = showStore;
+        this.writer = writer;
+    }
+    
+    @Override
+    public int create(Booking booking) throws SQLException {
+        if (writer != null && booking.getSeats() == null) {
+            BookingResult result = awaitWriter(booking);
+            return result.isBooked() ? result.getBookingId() : -1;
+        }
+        
+        // Seat reservation and booking row commit or roll back together
+        try (Connection conn = DatabaseConnection.createConnection(ConnectionIntent.WRITE)) {
+            conn.setAutoCommit(false);
+            BookingResult result = reserveAndInsert(conn, booking.getShowId(), booking, 0);
+            return result.isBooked() ? result.getBookingId() : -1;
+        }
+    }
+    
+    /**
+     * The held seat count is already taken; the lowest free seats of the show
+     * are assigned to the booking here. The SeatHolds row is deleted in the
+     * booking's transaction, so a restart cannot give the seats back as well.
+     * If the idempotency key turns out to be taken, the hold is given back instead.
+     */
+    @Override
+    public BookingResult createReserved(SeatHold hold, Booking booking) throws SQLException {
+        int showId = booking.getShowId();
+        BookingResult replay;
+        try (Connection conn = DatabaseConnection.createConnection(ConnectionIntent.WRITE)) {
+            conn.setAutoCommit(false);
+            if (!JdbcSeatHoldStore.delete(conn, hold.getToken())) {
+                // Given back by another instance after it expired
+                conn.rollback();
+                throw new SQLException("Seat hold is no longer recorded");
+            }
+            SeatMap seatMap = showStore.getSeatMap(conn, showId);
+            int[] seats = seatMap != null ? seatMap.tryReserveAny(booking.getTicketQuantity()) : null;
+            if (seats == null) {
+                conn.rollback();
+                throw new SQLException("No free seats to assign to the held tickets of show " + showId);
+            }
+            try {
+                int bookingId = insertBooking(conn, booking);
+                insertSeats(conn, bookingId, showId, seats);
+                conn.commit();
+                booking.setSeats(seats);
+                return BookingResult.booked(bookingId, showId);
+            } catch (SQLException e) {
+                conn.rollback();
+                seatMap.release(seats);
+                replay = findReplay(e, booking);
+                if (replay == null) {
+                    if (isUniqueViolation(e)) {
+                        showStore.invalidateSeatMap(showId);
+                    }
+                    throw e;
+                }
+            }
+        }
+        
+        // An earlier attempt with the same key was stored first; the rollback kept the
+        // SeatHolds row, so this gives the held seats back exactly once
+        new JdbcSeatHoldStore(showStore).release(hold);
+        return replay;
+    }
+    
+    /**
+     * Resolve the movie and show, reserve seats and insert the booking on one
+     * connection in one transaction.
+     *
+     * Round trips: resolve movie + show (1), create show only if new (1),
+     * reserve seats (1), insert booking (1), commit (1). With a group-commit
+     * writer, the last three are shared with concurrent bookings of existing shows.
+     */
+    @Override
+    public BookingResult bookTickets(String movieName, String location, String showTime,
+                                     String hallType, Booking booking) throws SQLException {
+        BookingResult result = bookOrDefer(movieName, location, showTime, hallType, booking);
+        return result != null ? result : awaitWriter(booking);
+    }
+    
+    /**
+     * Same as {@link #bookTickets}, but a booking handed to the group-commit
+     * writer is waited for without holding a database thread: only the
+     * lookup (and, for a rejected booking, one follow-up read) runs on the
+     * executor, so concurrent bookings reach the writer together.
+     */
+    @Override
+    public CompletableFuture<BookingResult> bookTicketsAsync(String movieName, String location, String showTime,
+                                                             String hallType, Booking booking,
+                                                             DatabaseExecutor executor) {
+        return executor.submit(() -> bookOrDefer(movieName, location, showTime, hallType, booking))
+            .thenCompose(result -> result != null
+                ? CompletableFuture.completedFuture(result)
+                : writeAsync(booking, executor));
+    }
+    
+    /**
+     * Books in this transaction, or returns null after setting the booking's
+     * showId if the booking is left to the group-commit writer.
+     */
+    private BookingResult bookOrDefer(String movieName, String location, String showTime,
+                                      String hallType, Booking booking) throws SQLException {
+        
+        String sql = "SELECT m.movieId, s.showId, s.availableSeats " +
+                    "FROM Movies m LEFT JOIN Shows s " +
+                    "ON s.movieId = m.movieId AND s.location = ? AND s.showTime = ? " +
+                    "WHERE LOWER(m.movieName) = LOWER(?)";
+        
+        int showId;
+        try (Connection conn = DatabaseConnection.createConnection(ConnectionIntent.WRITE)) {
+            conn.setAutoCommit(false);
+            int availableSeats;
+            boolean created = false;
+            try {
+                int movieId;
+                
+                // A retry whose first attempt was stored (e.g. before a restart) books nothing new
+                if (booking.getIdempotencyKey() != null) {
+                    Booking existing = findByIdempotencyKey(conn, booking.getUserEmail(), booking.getIdempotencyKey());
+                    if (existing != null) {
+                        conn.rollback();
+                        return BookingResult.replayOf(existing, booking);
+                    }
+                }
+                
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    stmt.setString(1, location);
+                    stmt.setString(2, showTime);
+                    stmt.setString(3, movieName);
+                    
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        if (!rs.next()) {
+                            conn.rollback();
+                            return BookingResult.movieNotFound();
+                        }
+                        movieId = rs.getInt(1);
+                        showId = rs.getInt(2);
+                        if (rs.wasNull()) {
+                            showId = showStore.createShow(conn, movieId, location, showTime, hallType);
+                            availableSeats = ShowStore.DEFAULT_SEATS;
+                            created = true;
+                        } else {
+                            availableSeats = rs.getInt(3);
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+            
+            // An existing show needs nothing else from this transaction; the writer batches the rest
+            if (writer == null || booking.getSeats() != null || created) {
+                return reserveAndInsert(conn, showId, booking, availableSeats);
+            }
+            conn.rollback();
+        }
+        
+        booking.setShowId(showId);
+        return null;
+    }
+    
+    /**
+     * Hands the booking to the group-commit writer; the outcome completes on
+     * a writer thread, and only a rejection or a failure that may be a
+     * replay goes back to the executor for one more read.
+     */
+    private CompletableFuture<BookingResult> writeAsync(Booking booking, DatabaseExecutor executor) {
+        int showId = booking.getShowId();
+        return writer.submit(booking)
+            .handle((bookingId, error) -> {
+                if (error == null) {
+                    return bookingId >= 0
+                        ? CompletableFuture.completedFuture(BookingResult.booked(bookingId, showId))
+                        : executor.submit(() ->
+                            BookingResult.notEnoughSeats(showId, Math.max(showStore.getAvailableSeats(showId), 0)));
+                }
+                Throwable cause = DatabaseExecutor.unwrap(error);
+                if (cause instanceof SQLException && booking.getIdempotencyKey() != null
+                        && isUniqueViolation((SQLException) cause)) {
+                    return executor.submit(() -> {
+                        BookingResult replay = findReplay((SQLException) cause, booking);
+                        if (replay == null) {
+                            throw (SQLException) cause;
+                        }
+                        return replay;
+                    });
+                }
+                return CompletableFuture.<BookingResult>failedFuture(cause);
+            })
+            .thenCompose(outcome -> outcome);
+    }
+    
+    /**
+     * Hands the booking to the group-commit writer and waits for its outcome.
+     */
+    private BookingResult awaitWriter(Booking booking) throws SQLException {
+        int showId = booking.getShowId();
+        int bookingId;
+        try {
+            bookingId = await(writer.submit(booking));
+        } catch (SQLException e) {
+            BookingResult replay = findReplay(e, booking);
+            if (replay != null) {
+                return replay;
+            }
+            throw e;
+        }
+        if (bookingId < 0) {
+            return BookingResult.notEnoughSeats(showId, Math.max(showStore.getAvailableSeats(showId), 0));
+        }
+        return BookingResult.booked(bookingId, showId);
+    }
+    
+    /**
+     * Waits for a group-committed booking, rethrowing its failure.
+     */
+    private static int await(CompletableFuture<Integer> future) throws SQLException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for the booking writer", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new SQLException("Booking writer failed", cause);
+        }
+    }
+    
+    /**
+     * Claims the booking's specific seats (if any) and the seat count, then
+     * inserts the booking and its seats and commits. A booking without
+     * specific seats is given the lowest free ones. Every step is undone if
+     * a later one fails.
+     *
+     * @param knownAvailable seat count already read in this transaction, reported
+     *                       when there are not enough seats
+     */
+    private BookingResult reserveAndInsert(Connection conn, int showId, Booking booking,
+                                           int knownAvailable) throws SQLException {
+        int quantity = booking.getTicketQuantity();
+        int[] seats = booking.getSeats();
+        SeatMap seatMap = null;
+        boolean counted = false;
+        
+        try {
+            if (seats != null) {
+                seatMap = showStore.getSeatMap(conn, showId);
+                if (seatMap == null || !seatMap.tryReserve(seats)) {
+                    seatMap = null;
+                    conn.rollback();
+                    return BookingResult.seatsUnavailable(showId);
+                }
+            }
+            
+            if (!showStore.reserveSeats(conn, showId, quantity)) {
+                conn.rollback();
+                releaseSeatMap(seatMap, seats);
+                int available = knownAvailable;
+                if (showStore.hasInventory()) {
+                    // The Shows row lags behind the in-memory count
+                    available = showStore.getAvailableSeats(showId);
+                }
+                return BookingResult.notEnoughSeats(showId, Math.max(available, 0));
+            }
+            counted = true;
+            
+            if (seats == null) {
+                seatMap = showStore.getSeatMap(conn, showId);
+                seats = seatMap != null ? seatMap.tryReserveAny(quantity) : null;
+                if (seats == null) {
+                    seatMap = null;
+                    conn.rollback();
+                    showStore.undoReservation(showId, quantity);
+                    return BookingResult.notEnoughSeats(showId, 0);
+                }
+            }
+        } catch (SQLException e) {
+            conn.rollback();
+            if (counted) {
+                showStore.undoReservation(showId, quantity);
+            }
+            releaseSeatMap(seatMap, seats);
+            throw e;
+        }
+        
+        booking.setShowId(showId);
+        try {
+            int bookingId = insertBooking(conn, booking);
+            insertSeats(conn, bookingId, showId, seats);
+            conn.commit();
+            booking.setSeats(seats);
+            SeatChanges.publish(showId);
+            return BookingResult.booked(bookingId, showId);
+        } catch (SQLException e) {
+            conn.rollback();
+            showStore.undoReservation(showId, quantity);
+            releaseSeatMap(seatMap, seats);
+            BookingResult replay = findReplay(e, booking);
+            if (replay != null) {
+                return replay;
+            }
+            if (isUniqueViolation(e)) {
+                // Another instance booked one of these seats; resync the map from BookingSeats.
+                // Without a selection, a retry is assigned other seats.
+                showStore.invalidateSeatMap(showId);
+                return BookingResult.seatsUnavailable(showId);
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * A unique-key violation on a keyed booking means a concurrent or earlier
+     * attempt with the same idempotency key stored it first.
+     *
+     * @return that booking as a replayed result, or null if this is some other failure
+     */
+    private BookingResult findReplay(SQLException e, Booking booking) throws SQLException {
+        if (booking.getIdempotencyKey() == null || !isUniqueViolation(e)) {
+            return null;
+        }
+        Booking existing = findByIdempotencyKey(booking.getUserEmail(), booking.getIdempotencyKey());
+        return existing != null ? BookingResult.replayOf(existing, booking) : null;
+    }
+    
+    private static void releaseSeatMap(SeatMap seatMap, int[] seats) {
+        if (seatMap != null) {
+            seatMap.release(seats);
+        }
+    }
+    
+    // SQL Server 2627/2601: duplicate key on a unique constraint or index
+    static boolean isUniqueViolation(SQLException e) {
+        return e.getErrorCode() == 2627 || e.getErrorCode() == 2601;
+    }
+    
+    private void insertSeats(Connection conn, int bookingId, int showId, int[] seats) throws SQLException {
+        String sql = "INSERT INTO BookingSeats (bookingId, showId, seatNo) VALUES (?, ?, ?)";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int seat : seats) {
+                stmt.setInt(1, bookingId);
+                stmt.setInt(2, showId);
+                stmt.setInt(3, seat);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+    
+    private int insertBooking(Connection conn, Booking booking) throws SQLException {
+        String sql = "INSERT INTO Bookings (showId, userEmail, ticketType, ticketQuantity, popcornQuantity, totalPrice, " +
+                    "idempotencyKey, requestFingerprint) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            stmt.setInt(1, booking.getShowId());
+            stmt.setString(2, booking.getUserEmail());
+            stmt.setString(3, booking.getTicketType());
+            stmt.setInt(4, booking.getTicketQuantity());
+            stmt.setInt(5, booking.getPopcornQuantity());
+            stmt.setBigDecimal(6, booking.getTotalPrice());
+            stmt.setString(7, booking.getIdempotencyKey());
+            stmt.setString(8, booking.getRequestFingerprint());
+            
+            stmt.executeUpdate();
+            
+            try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                if (generatedKeys.next()) {
+                    return generatedKeys.getInt(1);
+                }
+            }
+        }
+        
+        // Fail the whole transaction so the seat reservation is rolled back
+        throw new SQLException("Failed to create booking");
+    }
+    
+    @Override
+    public List<Booking> findByUser(String userEmail) throws SQLException {
+        String sql = "SELECT " + Projections.BOOKING_COLUMNS + " FROM Bookings WHERE userEmail = ? ORDER BY bookingDate DESC, bookingId DESC";
+        
+        try (Connection conn = DatabaseConnection.createConnection(ConnectionIntent.READ)) {
+            return RowMapper.queryList(conn, sql, stmt -> stmt.setString(1, userEmail), Projections.BOOKING);
+        }
+    }
+    
+    /**
+     * Seeks on (bookingDate, bookingId) instead of using OFFSET, so every page
+     * costs the same however deep the history goes.
+     */
+    @Override
+    public BookingPage findByUser(String userEmail, BookingCursor after, int pageSize) throws SQLException {
+        String sql = "SELECT TOP (?) " + Projections.BOOKING_COLUMNS + " FROM Bookings WHERE userEmail = ?" +
+                    (after != null ? " AND (bookingDate < ? OR (bookingDate = ? AND bookingId < ?))" : "") +
+                    " ORDER BY bookingDate DESC, bookingId DESC";
+        
+        try (Connection conn = DatabaseConnection.createConnection(ConnectionIntent.READ)) {
+            List<Booking> rows = RowMapper.queryList(conn, sql, stmt -> {
+                stmt.setInt(1, pageSize + 1);
+                stmt.setString(2, userEmail);
+                if (after != null) {
+                    Timestamp bookingDate = Timestamp.valueOf(after.getBookingDate());
+                    stmt.setTimestamp(3, bookingDate);
+                    stmt.setTimestamp(4, bookingDate);
+                    stmt.setInt(5, after.getBookingId());
+                }
+            }, Projections.BOOKING);
+            return BookingPage.of(rows, pageSize);
+        }
+    }
+    
+    @Override
+    public Booking findById(int bookingId) throws SQLException {
+        String sql = "SELECT " + Projections.BOOKING_COLUMNS + " FROM Bookings WHERE bookingId = ?";
+        
+        try (Connection conn = DatabaseConnection.createConnection(ConnectionIntent.READ_YOUR_WRITES)) {
+            return RowMapper.queryOne(conn, sql, stmt -> stmt.setInt(1, bookingId), Projections.BOOKING);
+        }
+    }
+    
+    @Override
+    public Booking findByIdempotencyKey(String userEmail, String idempotencyKey) throws SQLException {
+        // From the primary: the booking may have been committed a moment ago
+        try (Connection conn = DatabaseConnection.createConnection(ConnectionIntent.READ_YOUR_WRITES)) {
+            return findByIdempotencyKey(conn, userEmail, idempotencyKey);
+        }
+    }
+    
+    private Booking findByIdempotencyKey(Connection conn, String userEmail, String idempotencyKey) throws SQLException {
+        String sql = "SELECT " + Projections.KEYED_BOOKING_COLUMNS + " FROM Bookings WHERE userEmail = ? AND idempotencyKey = ?";
+        
+        return RowMapper.queryOne(conn, sql, stmt -> {
+            stmt.setString(1, userEmail);
+            stmt.setString(2, idempotencyKey);
+        }, Projections.KEYED_BOOKING);
+    }
+}
+
+
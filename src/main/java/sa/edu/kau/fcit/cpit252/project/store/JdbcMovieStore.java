@@ -0,0 +1,78 @@
+package sa.edu.kau.fcit.cpit252.project.store;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import sa.edu.kau.fcit.cpit252.project.model.Movie;
+
+/**
+ * JDBC implementation of MovieStore backed by the Movies table.
+ * Only findDetailsById reads the description column.
+ */
+public class JdbcMovieStore implements MovieStore {
+    
+    @Override
+    public Movie findById(int movieId) throws SQLException {
+        String sql = "SELECT " + Projections.MOVIE_SUMMARY_COLUMNS + " FROM Movies WHERE movieId = ?";
+        
+        try (Connection conn = DatabaseConnection.createConnection(ConnectionIntent.READ)) {
+            return RowMapper.queryOne(conn, sql, stmt -> stmt.setInt(1, movieId), Projections.MOVIE_SUMMARY);
+        }
+    }
+    
+    @Override
+    public Movie findDetailsById(int movieId) throws SQLException {
+        String sql = "SELECT " + Projections.MOVIE_DETAIL_COLUMNS + " FROM Movies WHERE movieId = ?";
+        
+        try (Connection conn = DatabaseConnection.createConnection(ConnectionIntent.READ)) {
+            return RowMapper.queryOne(conn, sql, stmt -> stmt.setInt(1, movieId), Projections.MOVIE_DETAIL);
+        }
+    }
+    
+    @Override
+    public Movie findByName(String movieName) throws SQLException {
+        String sql = "SELECT " + Projections.MOVIE_SUMMARY_COLUMNS + " FROM Movies WHERE LOWER(movieName) = LOWER(?)";
+        
+        try (Connection conn = DatabaseConnection.createConnection(ConnectionIntent.READ)) {
+            return RowMapper.queryOne(conn, sql, stmt -> stmt.setString(1, movieName), Projections.MOVIE_SUMMARY);
+        }
+    }
+    
+    @Override
+    public int create(String movieName, String description, String imageUrl) throws SQLException {
+        String sql = "INSERT INTO Movies (movieName, description, imageUrl) VALUES (?, ?, ?)";
+        
+        try (Connection conn = DatabaseConnection.createConnection(ConnectionIntent.WRITE);
+             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            
+            stmt.setString(1, movieName);
+            stmt.setString(2, description);
+            stmt.setString(3, imageUrl);
+            
+            stmt.executeUpdate();
+            
+            try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                if (generatedKeys.next()) {
+                    return generatedKeys.getInt(1);
+                }
+            }
+        }
+        
+        throw new SQLException("Failed to create movie");
+    }
+    
+    @Override
+    public List<Movie> findAll() throws SQLException {
+        String sql = "SELECT " + Projections.MOVIE_SUMMARY_COLUMNS + " FROM Movies ORDER BY movieName";
+        
+        try (Connection conn = DatabaseConnection.createConnection(ConnectionIntent.READ)) {
+            return RowMapper.queryList(conn, sql, stmt -> { }, Projections.MOVIE_SUMMARY);
+        }
+    }
+}
+
+
@@ -0,0 +1,119 @@
+package sa.edu.kau.fcit.cpit252.project.store;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+import sa.edu.kau.fcit.cpit252.project.model.SeatHold;
+
+/**
+ * JDBC implementation of SeatHoldStore backed by the SeatHolds table.
+ *
+ * Without the seat inventory, the seat UPDATE and the SeatHolds row commit
+ * together. With it, seats are counted in memory and journaled, so the row
+ * is written right after reserving and deleted right before giving back; a
+ * crash in between is corrected by the inventory's recovery, which counts
+ * both bookings and recorded holds.
+ */
+public class JdbcSeatHoldStore implements SeatHoldStore {
+
+    private final JdbcShowStore showStore;
+
+    public JdbcSeatHoldStore(JdbcShowStore showStore) {
+        this.showStore = showStore;
+    }
+
+    @Override
+    public boolean hold(SeatHold hold) throws SQLException {
+        int showId = hold.getShowId();
+        try (Connection conn = DatabaseConnection.createConnection(ConnectionIntent.WRITE)) {
+            conn.setAutoCommit(false);
+            boolean reserved = false;
+            try {
+                if (!showStore.reserveSeats(conn, showId, hold.getQuantity())) {
+                    conn.rollback();
+                    return false;
+                }
+                reserved = true;
+                insert(conn, hold);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                if (reserved) {
+                    showStore.undoReservation(showId, hold.getQuantity());
+                }
+                throw e;
+            }
+        }
+        SeatChanges.publish(showId);
+        return true;
+    }
+
+    @Override
+    public boolean release(SeatHold hold) throws SQLException {
+        int showId = hold.getShowId();
+        if (showStore.hasInventory()) {
+            boolean deleted;
+            try (Connection conn = DatabaseConnection.createConnection(ConnectionIntent.WRITE)) {
+                deleted = delete(conn, hold.getToken());
+            }
+            if (deleted) {
+                showStore.releaseSeats(showId, hold.getQuantity());
+            }
+            return deleted;
+        }
+
+        try (Connection conn = DatabaseConnection.createConnection(ConnectionIntent.WRITE)) {
+            conn.setAutoCommit(false);
+            try {
+                if (!delete(conn, hold.getToken())) {
+                    conn.rollback();
+                    return false;
+                }
+                showStore.releaseSeats(conn, showId, hold.getQuantity());
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+        SeatChanges.publish(showId);
+        return true;
+    }
+
+    @Override
+    public List<SeatHold> findAll() throws SQLException {
+        String sql = "SELECT token, showId, quantity, expiresAt FROM SeatHolds";
+
+        try (Connection conn = DatabaseConnection.createConnection(ConnectionIntent.READ_YOUR_WRITES)) {
+            return RowMapper.queryList(conn, sql, stmt -> { },
+                rs -> new SeatHold(rs.getString(1), rs.getInt(2), rs.getInt(3), rs.getLong(4)));
+        }
+    }
+
+    private static void insert(Connection conn, SeatHold hold) throws SQLException {
+        String sql = "INSERT INTO SeatHolds (token, showId, quantity, expiresAt) VALUES (?, ?, ?, ?)";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, hold.getToken());
+            stmt.setInt(2, hold.getShowId());
+            stmt.setInt(3, hold.getQuantity());
+            stmt.setLong(4, hold.getExpiresAt());
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Deletes a hold's row on the caller's connection, e.g. in the
+     * transaction of the booking that confirms it.
+     *
+     * @return false if the row was already gone
+     */
+    static boolean delete(Connection conn, String token) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM SeatHolds WHERE token = ?")) {
+            stmt.setString(1, token);
+            return stmt.executeUpdate() > 0;
+        }
+    }
+}
@@ -0,0 +1,547 @@
+package sa.edu.kau.fcit.cpit252.project.store;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import sa.edu.kau.fcit.cpit252.project.model.Show;
+
+/**
+ * JDBC implementation of ShowStore backed by the Shows table.
+ * The connection-taking methods let JdbcBookingStore enlist show
+ * operations in its own transaction.
+ * With a {@link SeatInventory}, seat counts and reservations are served in
+ * memory and written to the Shows table behind the scenes.
+ * Show ids are resolved through a {@link ShowKeyCache}, so known shows cost
+ * no round trip and a new show is inserted once however many requests race
+ * to create it.
+ */
+public class JdbcShowStore implements ShowStore {
+    
+    private final SeatInventory inventory;
+    
+    // Seat maps of shows that have been booked by seat, loaded on first use
+    private final Map<Integer, SeatMap> seatMaps = new ConcurrentHashMap<>();
+    
+    private final ShowKeyCache showKeys = new ShowKeyCache(ShowKeyCache.MAX_ENTRIES, ShowKeyCache.NEGATIVE_TTL_MS);
+    
+    public JdbcShowStore() {
+        this(null);
+    }
+    
+    /**
+     * @param inventory in-memory seat counts, or null to reserve with SQL
+     */
+    public JdbcShowStore(SeatInventory inventory) {
+        this.inventory = inventory;
+    }
+    
+    /**
+     * Whether seat counts are served by the in-memory inventory.
+     */
+    public boolean hasInventory() {
+        return inventory != null;
+    }
+    
+    @Override
+    public int getOrCreateShow(int movieId, String location, String showTime, String hallType) throws SQLException {
+        // Autocommit connection, so whatever the loader returns is committed and safe to cache
+        return showKeys.resolve(ShowKeyCache.key(movieId, location, showTime), () -> {
+            try (Connection conn = DatabaseConnection.createConnection(ConnectionIntent.WRITE)) {
+                return getOrCreateShow(conn, movieId, location, showTime, hallType);
+            }
+        });
+    }
+    
+    @Override
+    public Integer cachedShowId(int movieId, String location, String showTime) {
+        return showKeys.get(ShowKeyCache.key(movieId, location, showTime));
+    }
+    
+    @Override
+    public Integer findShowId(int movieId, String location, String showTime) throws SQLException {
+        String key = ShowKeyCache.key(movieId, location, showTime);
+        Integer showId = showKeys.get(key);
+        if (showId != null || showKeys.isKnownMissing(key)) {
+            return showId;
+        }
+        
+        // Primary, so a show created moments ago is not cached as missing
+        try (Connection conn = DatabaseConnection.createConnection(ConnectionIntent.READ_YOUR_WRITES)) {
+            showId = findShowId(conn, movieId, location, showTime);
+        }
+        if (showId != null) {
+            showKeys.put(key, showId);
+        } else {
+            showKeys.putMissing(key);
+        }
+        return showId;
+    }
+    
+    /**
+     * Show id cache statistics.
+     */
+    public ShowKeyCache getShowKeyCache() {
+        return showKeys;
+    }
+    
+    /**
+     * Get or create a show using the caller's connection, so it can take part
+     * in the caller's transaction.
+     */
+    public int getOrCreateShow(Connection conn, int movieId, String location, String showTime, String hallType) throws SQLException {
+        Integer showId = findShowId(conn, movieId, location, showTime);
+        if (showId != null) {
+            return showId;
+        }
+        return createShow(conn, movieId, location, showTime, hallType);
+    }
+    
+    /**
+     * Insert a new show with the default seat count and return its showId.
+     * If a concurrent request created the same show first, its showId is returned.
+     */
+    public int createShow(Connection conn, int movieId, String location, String showTime, String hallType) throws SQLException {
+        String insertSql = "INSERT INTO Shows (movieId, location, showTime, hallType, totalSeats, availableSeats) " +
+                         "VALUES (?, ?, ?, ?, ?, ?)";
+        
+        try (PreparedStatement insertStmt = conn.prepareStatement(insertSql, Statement.RETURN_GENERATED_KEYS)) {
+            insertStmt.setInt(1, movieId);
+            insertStmt.setString(2, location);
+            insertStmt.setString(3, showTime);
+            insertStmt.setString(4, hallType);
+            insertStmt.setInt(5, DEFAULT_SEATS);
+            insertStmt.setInt(6, DEFAULT_SEATS);
+            insertStmt.executeUpdate();
+            // The row may still roll back with the caller's transaction, so only the negative entry goes
+            showKeys.forgetMissing(ShowKeyCache.key(movieId, location, showTime));
+            
+            try (ResultSet generatedKeys = insertStmt.getGeneratedKeys()) {
+                if (generatedKeys.next()) {
+                    return generatedKeys.getInt(1);
+                }
+            }
+        } catch (SQLException e) {
+            // Lost the race on UNIQUE (movieId, location, showTime); use the winner's row
+            Integer existing = findShowId(conn, movieId, location, showTime);
+            if (existing != null) {
+                return existing;
+            }
+            throw e;
+        }
+        
+        throw new SQLException("Failed to create show");
+    }
+    
+    private Integer findShowId(Connection conn, int movieId, String location, String showTime) throws SQLException {
+        String sql = "SELECT showId FROM Shows WHERE movieId = ? AND location = ? AND showTime = ?";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, movieId);
+            stmt.setString(2, location);
+            stmt.setString(3, showTime);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
+            }
+        }
+        
+        return null;
+    }
+    
+    @Override
+    public int getAvailableSeats(int showId, ConnectionIntent intent) throws SQLException {
+        if (inventory != null) {
+            return inventory.available(showId);
+        }
+        
+        Integer seats;
+        try (Connection conn = DatabaseConnection.createConnection(intent)) {
+            seats = selectAvailableSeats(conn, showId);
+        }
+        
+        // A show created moments ago may not have reached the replica yet
+        if (seats == null && intent.isReplicaSafe() && DatabaseConnection.getInstance().hasReadReplica()) {
+            try (Connection conn = DatabaseConnection.createConnection(ConnectionIntent.READ_YOUR_WRITES)) {
+                seats = selectAvailableSeats(conn, showId);
+            }
+        }
+        
+        return seats != null ? seats : 0;
+    }
+    
+    private Integer selectAvailableSeats(Connection conn, int showId) throws SQLException {
+        String sql = "SELECT availableSeats FROM Shows WHERE showId = ?";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, showId);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
+            }
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Get available seats of several shows in one query (may be served by a
+     * read replica). Shows that do not exist are left out of the map.
+     * Used by {@link SeatCountLoader}.
+     */
+    Map<Integer, Integer> getAvailableSeats(List<Integer> showIds) throws SQLException {
+        Map<Integer, Integer> seats = new HashMap<>();
+        if (showIds.isEmpty()) {
+            return seats;
+        }
+        if (inventory != null) {
+            List<Integer> untracked = new ArrayList<>();
+            for (Integer showId : showIds) {
+                Integer tracked = inventory.tracked(showId);
+                if (tracked != null) {
+                    seats.put(showId, tracked);
+                } else {
+                    untracked.add(showId);
+                }
+            }
+            if (!untracked.isEmpty()) {
+                // One query for all untracked shows; from the primary, as the counters start from it
+                Map<Integer, Integer> loaded = new HashMap<>();
+                try (Connection conn = DatabaseConnection.createConnection(ConnectionIntent.READ_YOUR_WRITES)) {
+                    selectAvailableSeats(conn, untracked, loaded);
+                }
+                for (Map.Entry<Integer, Integer> show : loaded.entrySet()) {
+                    seats.put(show.getKey(), inventory.seed(show.getKey(), show.getValue()));
+                }
+            }
+            return seats;
+        }
+    
+        try (Connection conn = DatabaseConnection.createConnection(ConnectionIntent.READ)) {
+            selectAvailableSeats(conn, showIds, seats);
+        }
+    
+        // Shows created moments ago may not have reached the replica yet
+        if (seats.size() < showIds.size() && DatabaseConnection.getInstance().hasReadReplica()) {
+            List<Integer> missing = new ArrayList<>();
+            for (Integer showId : showIds) {
+                if (!seats.containsKey(showId)) {
+                    missing.add(showId);
+                }
+            }
+            try (Connection conn = DatabaseConnection.createConnection(ConnectionIntent.READ_YOUR_WRITES)) {
+                selectAvailableSeats(conn, missing, seats);
+            }
+        }
+    
+        return seats;
+    }
+    
+    private void selectAvailableSeats(Connection conn, List<Integer> showIds, Map<Integer, Integer> seats) throws SQLException {
+        String sql = "SELECT showId, availableSeats FROM Shows WHERE showId IN (" +
+                    String.join(", ", Collections.nCopies(showIds.size(), "?")) + ")";
+    
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < showIds.size(); i++) {
+                stmt.setInt(i + 1, showIds.get(i));
+            }
+    
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    seats.put(rs.getInt(1), rs.getInt(2));
+                }
+            }
+        }
+    }
+    
+    @Override
+    public boolean reserveSeats(int showId, int quantity) throws SQLException {
+        if (inventory != null) {
+            if (inventory.tryReserve(showId, quantity)) {
+                SeatChanges.publish(showId);
+                return true;
+            }
+            return false;
+        }
+        
+        try (Connection conn = DatabaseConnection.createConnection(ConnectionIntent.WRITE)) {
+            conn.setAutoCommit(false);
+            
+            try {
+                if (reserveSeats(conn, showId, quantity)) {
+                    conn.commit();
+                    SeatChanges.publish(showId);
+                    return true;
+                } else {
+                    conn.rollback();
+                    return false;
+                }
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+    
+    @Override
+    public void releaseSeats(int showId, int quantity) throws SQLException {
+        if (inventory != null) {
+            inventory.release(showId, quantity);
+            SeatChanges.publish(showId);
+            return;
+        }
+        
+        try (Connection conn = DatabaseConnection.createConnection(ConnectionIntent.WRITE)) {
+            releaseSeats(conn, showId, quantity);
+        }
+        SeatChanges.publish(showId);
+    }
+    
+    /**
+     * Give seats back with an UPDATE on the caller's connection, as part of
+     * the caller's transaction. Not for use with the inventory, whose counts
+     * are given back with {@link #releaseSeats(int, int)}.
+     */
+    void releaseSeats(Connection conn, int showId, int quantity) throws SQLException {
+        String sql = "UPDATE Shows SET availableSeats = availableSeats + ? WHERE showId = ?";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, quantity);
+            stmt.setInt(2, showId);
+            stmt.executeUpdate();
+        }
+    }
+    
+    /**
+     * Reserve seats with a conditional UPDATE on the caller's connection.
+     * Commit and rollback are left to the caller's transaction.
+     * With the inventory, seats are taken in memory instead and a rolled-back
+     * caller must call {@link #undoReservation}.
+     */
+    public boolean reserveSeats(Connection conn, int showId, int quantity) throws SQLException {
+        if (inventory != null) {
+            return inventory.tryReserve(conn, showId, quantity);
+        }
+        
+        String sql = "UPDATE Shows SET availableSeats = availableSeats - ? " +
+                    "WHERE showId = ? AND availableSeats >= ?";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, quantity);
+            stmt.setInt(2, showId);
+            stmt.setInt(3, quantity);
+            
+            return stmt.executeUpdate() > 0;
+        }
+    }
+    
+    /**
+     * Reserve seats for several bookings on the caller's connection, sending
+     * the conditional UPDATEs as one JDBC batch. Entries are applied in order,
+     * so two bookings on the same show cannot both take its last seats.
+     * On an exception nothing stays reserved.
+     *
+     * @return for each entry, whether its seats were reserved
+     */
+    boolean[] reserveSeats(Connection conn, int[] showIds, int[] quantities) throws SQLException {
+        boolean[] reserved = new boolean[showIds.length];
+        if (inventory != null) {
+            try {
+                for (int i = 0; i < showIds.length; i++) {
+                    reserved[i] = inventory.tryReserve(conn, showIds[i], quantities[i]);
+                }
+            } catch (SQLException e) {
+                for (int i = 0; i < showIds.length; i++) {
+                    if (reserved[i]) {
+                        inventory.release(showIds[i], quantities[i]);
+                    }
+                }
+                throw e;
+            }
+            return reserved;
+        }
+        
+        String sql = "UPDATE Shows SET availableSeats = availableSeats - ? " +
+                    "WHERE showId = ? AND availableSeats >= ?";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < showIds.length; i++) {
+                stmt.setInt(1, quantities[i]);
+                stmt.setInt(2, showIds[i]);
+                stmt.setInt(3, quantities[i]);
+                stmt.addBatch();
+            }
+            int[] counts = stmt.executeBatch();
+            for (int i = 0; i < counts.length; i++) {
+                reserved[i] = counts[i] > 0;
+            }
+        }
+        return reserved;
+    }
+    
+    /**
+     * Undo a reservation made with {@link #reserveSeats(Connection, int, int)}
+     * whose transaction rolled back. The conditional UPDATE is undone by the
+     * rollback itself; only in-memory seat counts need to be given back.
+     */
+    public void undoReservation(int showId, int quantity) throws SQLException {
+        if (inventory != null) {
+            inventory.release(showId, quantity);
+            SeatChanges.publish(showId);
+        }
+    }
+    
+    @Override
+    public SeatMap getSeatMap(int showId) throws SQLException {
+        SeatMap seatMap = seatMaps.get(showId);
+        if (seatMap != null) {
+            return seatMap;
+        }
+        try (Connection conn = DatabaseConnection.createConnection(ConnectionIntent.READ_YOUR_WRITES)) {
+            return getSeatMap(conn, showId);
+        }
+    }
+    
+    /**
+     * Same as {@link #getSeatMap(int)}, loading through the caller's
+     * connection so a show created in the caller's transaction is visible.
+     */
+    public SeatMap getSeatMap(Connection conn, int showId) throws SQLException {
+        SeatMap seatMap = seatMaps.get(showId);
+        if (seatMap != null) {
+            return seatMap;
+        }
+        
+        // Load outside the map; racing loaders read the same rows and the first to register wins
+        Integer totalSeats = RowMapper.queryOne(conn, "SELECT totalSeats FROM Shows WHERE showId = ?",
+            stmt -> stmt.setInt(1, showId), rs -> rs.getInt(1));
+        if (totalSeats == null) {
+            return null;
+        }
+        SeatMap loaded = new SeatMap(totalSeats);
+        for (Integer seat : RowMapper.queryList(conn, "SELECT seatNo FROM BookingSeats WHERE showId = ?",
+                stmt -> stmt.setInt(1, showId), rs -> rs.getInt(1))) {
+            loaded.markTaken(seat);
+        }
+        SeatMap existing = seatMaps.putIfAbsent(showId, loaded);
+        return existing != null ? existing : loaded;
+    }
+    
+    /**
+     * Drops a cached seat map so the next use reloads it, e.g. after another
+     * instance took a seat this one still saw as free.
+     */
+    public void invalidateSeatMap(int showId) {
+        seatMaps.remove(showId);
+    }
+    
+    @Override
+    public Show findById(int showId) throws SQLException {
+        String sql = "SELECT " + Projections.SHOW_COLUMNS + " FROM Shows WHERE showId = ?";
+        
+        Show show;
+        try (Connection conn = DatabaseConnection.createConnection(ConnectionIntent.READ)) {
+            show = RowMapper.queryOne(conn, sql, stmt -> stmt.setInt(1, showId), Projections.SHOW);
+        }
+        if (show != null) {
+            withCurrentSeats(List.of(show));
+        }
+        return show;
+    }
+    
+    @Override
+    public List<Show> findByMovieName(String movieName, String location) throws SQLException {
+        // LEFT JOIN so a movie without shows still returns one row and is told apart from no movie
+        String sql = "SELECT s.showId, m.movieId, s.location, s.showTime, s.hallType, s.totalSeats, s.availableSeats " +
+                    "FROM Movies m LEFT JOIN Shows s ON s.movieId = m.movieId" +
+                    (location != null ? " AND s.location = ?" : "") +
+                    " WHERE LOWER(m.movieName) = LOWER(?) ORDER BY s.location, s.showTime";
+        
+        List<Show> shows = new ArrayList<>();
+        boolean movieFound = false;
+        try (Connection conn = DatabaseConnection.createConnection(ConnectionIntent.READ);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int index = 1;
+            if (location != null) {
+                stmt.setString(index++, location);
+            }
+            stmt.setString(index, movieName);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    movieFound = true;
+                    if (rs.getObject(1) != null) {
+                        shows.add(Projections.SHOW.map(rs));
+                    }
+                }
+            }
+        }
+        if (!movieFound) {
+            return null;
+        }
+        return withCurrentSeats(shows);
+    }
+    
+    @Override
+    public List<Show> findByIds(List<Integer> showIds, ConnectionIntent intent) throws SQLException {
+        if (showIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String sql = "SELECT " + Projections.SHOW_COLUMNS + " FROM Shows WHERE showId IN (" +
+                    String.join(", ", Collections.nCopies(showIds.size(), "?")) + ") ORDER BY showId";
+        
+        List<Show> shows;
+        try (Connection conn = DatabaseConnection.createConnection(intent)) {
+            shows = RowMapper.queryList(conn, sql, stmt -> {
+                for (int i = 0; i < showIds.size(); i++) {
+                    stmt.setInt(i + 1, showIds.get(i));
+                }
+            }, Projections.SHOW);
+        }
+        return withCurrentSeats(shows);
+    }
+    
+    // The Shows rows of inventory-tracked shows lag behind by the unflushed reservations
+    private List<Show> withCurrentSeats(List<Show> shows) {
+        if (inventory != null) {
+            for (Show show : shows) {
+                Integer tracked = inventory.tracked(show.getShowId());
+                if (tracked != null) {
+                    show.setAvailableSeats(tracked);
+                }
+            }
+        }
+        return shows;
+    }
+    
+    @Override
+    public List<Show> findByMovie(int movieId) throws SQLException {
+        String sql = "SELECT " + Projections.SHOW_COLUMNS + " FROM Shows WHERE movieId = ?";
+        
+        List<Show> shows;
+        try (Connection conn = DatabaseConnection.createConnection(ConnectionIntent.READ)) {
+            shows = RowMapper.queryList(conn, sql, stmt -> stmt.setInt(1, movieId), Projections.SHOW);
+        }
+        // Committed rows, so listing a movie's shows (e.g. during warm-up) also fills the show id cache
+        for (Show show : shows) {
+            showKeys.put(ShowKeyCache.key(show.getMovieId(), show.getLocation(), show.getShowTime()), show.getShowId());
+        }
+        return withCurrentSeats(shows);
+    }
+}
+
+
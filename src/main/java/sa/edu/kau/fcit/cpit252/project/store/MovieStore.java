@@ -0,0 +1,33 @@
+package sa.edu.kau.fcit.cpit252.project.store;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import sa.edu.kau.fcit.cpit252.project.model.Movie;
+
+/**
+ * Storage for movies. Implemented by {@link JdbcMovieStore} and {@link InMemoryMovieStore}.
+ */
+public interface MovieStore {
+    /**
+     * Lookup by id. Like the other finders, the description is not loaded.
+     */
+    Movie findById(int movieId) throws SQLException;
+
+    /**
+     * Lookup by id including the description.
+     */
+    Movie findDetailsById(int movieId) throws SQLException;
+
+    /**
+     * Case-insensitive lookup by movie name.
+     */
+    Movie findByName(String movieName) throws SQLException;
+
+    /**
+     * Inserts a movie and returns its generated movieId.
+     */
+    int create(String movieName, String description, String imageUrl) throws SQLException;
+
+    List<Movie> findAll() throws SQLException;
+}
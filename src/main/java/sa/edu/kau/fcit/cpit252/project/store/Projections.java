@@ -0,0 +1,81 @@
+package sa.edu.kau.fcit.cpit252.project.store;
+
+import java.sql.Timestamp;
+
+import sa.edu.kau.fcit.cpit252.project.model.Booking;
+import sa.edu.kau.fcit.cpit252.project.model.Movie;
+import sa.edu.kau.fcit.cpit252.project.model.Show;
+
+/**
+ * Explicit column lists and the row mappers that read them.
+ *
+ * Each mapper reads its columns by position, in the order of the matching
+ * column list, so the two must change together. Wide columns such as
+ * Movies.description are only part of the detail projections.
+ */
+final class Projections {
+
+    private Projections() {
+    }
+
+    // ==================== Movies ====================
+
+    static final String MOVIE_SUMMARY_COLUMNS = "movieId, movieName, imageUrl";
+
+    static final RowMapper<Movie> MOVIE_SUMMARY = rs ->
+        new Movie(rs.getInt(1), rs.getString(2), null, rs.getString(3));
+
+    /** Summary columns plus the NVARCHAR(MAX) description, read last. */
+    static final String MOVIE_DETAIL_COLUMNS = MOVIE_SUMMARY_COLUMNS + ", description";
+
+    static final RowMapper<Movie> MOVIE_DETAIL = rs -> {
+        Movie movie = MOVIE_SUMMARY.map(rs);
+        movie.setDescription(rs.getString(4));
+        return movie;
+    };
+
+    // ==================== Shows ====================
+
+    static final String SHOW_COLUMNS =
+        "showId, movieId, location, showTime, hallType, totalSeats, availableSeats";
+
+    static final RowMapper<Show> SHOW = rs -> {
+        Show show = new Show();
+        show.setShowId(rs.getInt(1));
+        show.setMovieId(rs.getInt(2));
+        show.setLocation(rs.getString(3));
+        show.setShowTime(rs.getString(4));
+        show.setHallType(rs.getString(5));
+        show.setTotalSeats(rs.getInt(6));
+        show.setAvailableSeats(rs.getInt(7));
+        return show;
+    };
+
+    // ==================== Bookings ====================
+
+    static final String BOOKING_COLUMNS =
+        "bookingId, showId, userEmail, ticketType, ticketQuantity, popcornQuantity, totalPrice, bookingDate";
+
+    static final RowMapper<Booking> BOOKING = rs -> {
+        Booking booking = new Booking();
+        booking.setBookingId(rs.getInt(1));
+        booking.setShowId(rs.getInt(2));
+        booking.setUserEmail(rs.getString(3));
+        booking.setTicketType(rs.getString(4));
+        booking.setTicketQuantity(rs.getInt(5));
+        booking.setPopcornQuantity(rs.getInt(6));
+        booking.setTotalPrice(rs.getBigDecimal(7));
+        Timestamp bookingDate = rs.getTimestamp(8);
+        booking.setBookingDate(bookingDate != null ? bookingDate.toLocalDateTime() : null);
+        return booking;
+    };
+
+    // A booking looked up by idempotency key, with the fingerprint to compare the retry against
+    static final String KEYED_BOOKING_COLUMNS = BOOKING_COLUMNS + ", requestFingerprint";
+
+    static final RowMapper<Booking> KEYED_BOOKING = rs -> {
+        Booking booking = BOOKING.map(rs);
+        booking.setRequestFingerprint(rs.getString(9));
+        return booking;
+    };
+}
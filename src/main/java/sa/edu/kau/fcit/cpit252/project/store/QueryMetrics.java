@@ -0,0 +1,292 @@
+package sa.edu.kau.fcit.cpit252.project.store;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Per-statement JDBC metrics, using Singleton Pattern.
+ *
+ * Connections handed out by DatabaseConnection are wrapped (see
+ * {@link InstrumentedConnection}) so every PreparedStatement execution is
+ * recorded under its normalized SQL text: a latency histogram, rows read or
+ * updated, and errors. Executions slower than DB_SLOW_QUERY_MS are logged
+ * with their bind shape (parameter types, never values).
+ */
+public class QueryMetrics {
+
+    private static final Logger LOG = Logger.getLogger(QueryMetrics.class.getName());
+
+    private static final long SLOW_QUERY_MS = System.getenv("DB_SLOW_QUERY_MS") != null
+        ? Long.parseLong(System.getenv("DB_SLOW_QUERY_MS"))
+        : 500;
+
+    /** Histogram bucket upper bounds in milliseconds; the last bucket is unbounded. */
+    static final long[] BUCKET_BOUNDS_MS = { 1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000 };
+
+    // Bounds the number of distinct statements tracked
+    private static final int MAX_STATEMENTS = 500;
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final QueryMetrics INSTANCE = new QueryMetrics(SLOW_QUERY_MS);
+
+    private final long slowQueryNanos;
+    private final Map<String, StatementMetrics> statements = new ConcurrentHashMap<>();
+    private final Map<String, String> normalized = new ConcurrentHashMap<>();
+    private final AtomicLong slowQueries = new AtomicLong();
+
+    QueryMetrics(long slowQueryMs) {
+        this.slowQueryNanos = slowQueryMs * 1_000_000;
+    }
+
+    public static QueryMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Wraps a connection so its prepared statements report to these metrics.
+     */
+    public Connection instrument(Connection connection) {
+        return InstrumentedConnection.wrap(connection, this);
+    }
+
+    /**
+     * Records one execution.
+     *
+     * @param rows rows updated, or -1 for queries (rows are counted as they are read)
+     */
+    void record(String sql, long elapsedNanos, long rows, boolean failed, String bindShape) {
+        StatementMetrics metrics = metricsFor(sql);
+        if (metrics == null) {
+            return;
+        }
+        metrics.record(elapsedNanos, rows, failed);
+
+        if (elapsedNanos >= slowQueryNanos) {
+            slowQueries.incrementAndGet();
+            LOG.warning(String.format("Slow query (%d ms%s): %s binds=%s",
+                elapsedNanos / 1_000_000, failed ? ", failed" : "", metrics.sql, bindShape));
+        }
+    }
+
+    /**
+     * Adds rows read from a query's ResultSet.
+     */
+    void recordRowRead(String sql) {
+        StatementMetrics metrics = metricsFor(sql);
+        if (metrics != null) {
+            metrics.rows.increment();
+        }
+    }
+
+    private StatementMetrics metricsFor(String sql) {
+        String key = normalized.get(sql);
+        if (key == null) {
+            if (normalized.size() >= MAX_STATEMENTS) {
+                return statements.get(normalize(sql));
+            }
+            key = normalize(sql);
+            normalized.put(sql, key);
+        }
+        StatementMetrics metrics = statements.get(key);
+        if (metrics == null && statements.size() < MAX_STATEMENTS) {
+            metrics = statements.computeIfAbsent(key, StatementMetrics::new);
+        }
+        return metrics;
+    }
+
+    /**
+     * Collapses whitespace, replaces literals with ? and IN lists of any
+     * length with a single placeholder, so equivalent statements share one entry.
+     */
+    static String normalize(String sql) {
+        String result = STRING_LITERAL.matcher(sql).replaceAll("?");
+        result = NUMBER_LITERAL.matcher(result).replaceAll("?");
+        result = WHITESPACE.matcher(result).replaceAll(" ").trim();
+        return IN_LIST.matcher(result).replaceAll("(?...)");
+    }
+
+    /**
+     * Returns a snapshot of every tracked statement, slowest total time first.
+     */
+    public List<StatementStats> snapshot() {
+        List<StatementStats> result = new ArrayList<>();
+        for (StatementMetrics metrics : statements.values()) {
+            result.add(metrics.snapshot());
+        }
+        result.sort(Comparator.comparingDouble(StatementStats::getTotalMs).reversed());
+        return result;
+    }
+
+    public long getSlowQueryCount() {
+        return slowQueries.get();
+    }
+
+    public long getSlowQueryThresholdMs() {
+        return slowQueryNanos / 1_000_000;
+    }
+
+    /**
+     * Clears all recorded metrics. Useful for testing.
+     */
+    public void reset() {
+        statements.clear();
+        normalized.clear();
+        slowQueries.set(0);
+    }
+
+    // ==================== Per-statement counters ====================
+
+    private static final class StatementMetrics {
+        final String sql;
+        final LongAdder executions = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder rows = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final AtomicLong maxNanos = new AtomicLong();
+        final AtomicLongArray buckets = new AtomicLongArray(BUCKET_BOUNDS_MS.length + 1);
+
+        StatementMetrics(String sql) {
+            this.sql = sql;
+        }
+
+        void record(long elapsedNanos, long rowCount, boolean failed) {
+            executions.increment();
+            totalNanos.add(elapsedNanos);
+            maxNanos.accumulateAndGet(elapsedNanos, Math::max);
+            buckets.incrementAndGet(bucketIndex(elapsedNanos));
+            if (failed) {
+                errors.increment();
+            }
+            if (rowCount > 0) {
+                rows.add(rowCount);
+            }
+        }
+
+        private static int bucketIndex(long elapsedNanos) {
+            long ms = elapsedNanos / 1_000_000;
+            for (int i = 0; i < BUCKET_BOUNDS_MS.length; i++) {
+                if (ms < BUCKET_BOUNDS_MS[i]) {
+                    return i;
+                }
+            }
+            return BUCKET_BOUNDS_MS.length;
+        }
+
+        StatementStats snapshot() {
+            long[] counts = new long[buckets.length()];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = buckets.get(i);
+            }
+            return new StatementStats(sql, executions.sum(), errors.sum(), rows.sum(),
+                totalNanos.sum() / 1_000_000.0, maxNanos.get() / 1_000_000.0, counts);
+        }
+    }
+
+    // ==================== Stats ====================
+
+    /**
+     * Point-in-time metrics for one normalized statement.
+     * Percentiles are the upper bound of the histogram bucket they fall in.
+     */
+    public static class StatementStats {
+        private final String sql;
+        private final long executions;
+        private final long errors;
+        private final long rows;
+        private final double totalMs;
+        private final double maxMs;
+        private final double meanMs;
+        private final long p50Ms;
+        private final long p95Ms;
+        private final long p99Ms;
+        private final long[] histogram;
+
+        StatementStats(String sql, long executions, long errors, long rows,
+                       double totalMs, double maxMs, long[] histogram) {
+            this.sql = sql;
+            this.executions = executions;
+            this.errors = errors;
+            this.rows = rows;
+            this.totalMs = totalMs;
+            this.maxMs = maxMs;
+            this.meanMs = executions > 0 ? totalMs / executions : 0;
+            this.histogram = histogram;
+            this.p50Ms = percentile(0.50);
+            this.p95Ms = percentile(0.95);
+            this.p99Ms = percentile(0.99);
+        }
+
+        private long percentile(double fraction) {
+            long target = (long) Math.ceil(executions * fraction);
+            long seen = 0;
+            for (int i = 0; i < histogram.length; i++) {
+                seen += histogram[i];
+                if (seen >= target && seen > 0) {
+                    return i < BUCKET_BOUNDS_MS.length ? BUCKET_BOUNDS_MS[i] : (long) Math.ceil(maxMs);
+                }
+            }
+            return 0;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public long getExecutions() {
+            return executions;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public double getTotalMs() {
+            return totalMs;
+        }
+
+        public double getMaxMs() {
+            return maxMs;
+        }
+
+        public double getMeanMs() {
+            return meanMs;
+        }
+
+        public long getP50Ms() {
+            return p50Ms;
+        }
+
+        public long getP95Ms() {
+            return p95Ms;
+        }
+
+        public long getP99Ms() {
+            return p99Ms;
+        }
+
+        /**
+         * Execution counts per bucket of {@link QueryMetrics#BUCKET_BOUNDS_MS},
+         * with one extra trailing bucket for slower executions.
+         */
+        public long[] getHistogram() {
+            return histogram.clone();
+        }
+    }
+}
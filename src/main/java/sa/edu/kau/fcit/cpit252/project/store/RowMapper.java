@@ -0,0 +1,61 @@
+package sa.edu.kau.fcit.cpit252.project.store;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maps the current row of a ResultSet to an object.
+ *
+ * A mapper is always paired with the column list it reads (see
+ * {@link Projections}) and reads by position, so no column names are looked
+ * up per row.
+ */
+@FunctionalInterface
+interface RowMapper<T> {
+
+    T map(ResultSet rs) throws SQLException;
+
+    /**
+     * Binds the parameters of a prepared statement.
+     */
+    @FunctionalInterface
+    interface Binder {
+        void bind(PreparedStatement stmt) throws SQLException;
+    }
+
+    /**
+     * Runs the query and maps the first row, or returns null if there is none.
+     */
+    static <T> T queryOne(Connection conn, String sql, Binder binder, RowMapper<T> mapper) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            binder.bind(stmt);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? mapper.map(rs) : null;
+            }
+        }
+    }
+
+    /**
+     * Runs the query and maps every row.
+     */
+    static <T> List<T> queryList(Connection conn, String sql, Binder binder, RowMapper<T> mapper) throws SQLException {
+        List<T> results = new ArrayList<>();
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            binder.bind(stmt);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    results.add(mapper.map(rs));
+                }
+            }
+        }
+
+        return results;
+    }
+}
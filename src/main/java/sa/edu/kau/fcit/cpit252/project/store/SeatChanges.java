@@ -0,0 +1,48 @@
+package sa.edu.kau.fcit.cpit252.project.store;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Notifies listeners that a show's available seats changed.
+ *
+ * Stores publish after the change is visible to readers: after the commit
+ * for SQL paths, right away for in-memory counts. Events carry only the
+ * showId; listeners read the new count themselves, so many changes to one
+ * show can be coalesced into one read. Listeners run on the writer's
+ * thread and must return quickly.
+ */
+public final class SeatChanges {
+
+    /**
+     * Receives showIds whose seat count changed.
+     */
+    @FunctionalInterface
+    public interface Listener {
+        void seatsChanged(int showId);
+    }
+
+    private static final List<Listener> LISTENERS = new CopyOnWriteArrayList<>();
+
+    private SeatChanges() {
+    }
+
+    public static void addListener(Listener listener) {
+        LISTENERS.add(listener);
+    }
+
+    public static void removeListener(Listener listener) {
+        LISTENERS.remove(listener);
+    }
+
+    static void publish(int showId) {
+        for (Listener listener : LISTENERS) {
+            try {
+                listener.seatsChanged(showId);
+            } catch (RuntimeException e) {
+                // A broken listener must not fail the booking that triggered it
+                System.err.println("⚠️ Seat change listener failed: " + e.getMessage());
+            }
+        }
+    }
+}
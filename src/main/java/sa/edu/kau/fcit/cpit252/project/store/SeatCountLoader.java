@@ -0,0 +1,204 @@
+package sa.edu.kau.fcit.cpit252.project.store;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces concurrent seat count lookups into batched queries
+ * (SEAT_LOOKUP_BATCHING=true).
+ *
+ * Lookups arriving within SEAT_LOOKUP_WINDOW_MS of the first one are
+ * collected; lookups for a show already waiting share its future. The
+ * window's distinct showIds are then read by one
+ * {@code WHERE showId IN (...)} query on the database executor, which
+ * completes every waiter. A window that reaches SEAT_LOOKUP_MAX_BATCH
+ * distinct shows is sent at once without waiting out the window.
+ */
+public class SeatCountLoader {
+
+    private static final boolean ENABLED = "true".equalsIgnoreCase(System.getenv("SEAT_LOOKUP_BATCHING"));
+
+    private static final long WINDOW_MS = System.getenv("SEAT_LOOKUP_WINDOW_MS") != null
+        ? Long.parseLong(System.getenv("SEAT_LOOKUP_WINDOW_MS"))
+        : 2;
+
+    private static final int MAX_BATCH = System.getenv("SEAT_LOOKUP_MAX_BATCH") != null
+        ? Integer.parseInt(System.getenv("SEAT_LOOKUP_MAX_BATCH"))
+        : 100;
+
+    // One parameter per show; SQL Server allows 2100 per statement
+    private static final int MAX_IDS_PER_STATEMENT = 2000;
+
+    /**
+     * Reads the seat counts of several shows at once. Shows left out of the
+     * result are reported as having no seats, like a single lookup of an
+     * unknown show.
+     */
+    @FunctionalInterface
+    public interface BatchLookup {
+        Map<Integer, Integer> load(List<Integer> showIds) throws SQLException;
+    }
+
+    private final BatchLookup lookup;
+    private final DatabaseExecutor executor;
+    private final long windowMs;
+    private final int maxBatch;
+    private final ScheduledExecutorService timer;
+
+    // Guarded by this
+    private Map<Integer, CompletableFuture<Integer>> pending = new HashMap<>();
+    private long window;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong merged = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong loadedShows = new AtomicLong();
+    private final AtomicLong fullBatches = new AtomicLong();
+    private final AtomicInteger largestBatch = new AtomicInteger();
+
+    SeatCountLoader(JdbcShowStore showStore) {
+        this(showStore::getAvailableSeats, DatabaseExecutor.getInstance(), WINDOW_MS, MAX_BATCH);
+    }
+
+    public SeatCountLoader(BatchLookup lookup, DatabaseExecutor executor, long windowMs, int maxBatch) {
+        this.lookup = lookup;
+        this.executor = executor;
+        this.windowMs = windowMs;
+        this.maxBatch = Math.max(1, Math.min(maxBatch, MAX_IDS_PER_STATEMENT));
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "seat-lookup-batcher");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Whether seat lookups are batched (SEAT_LOOKUP_BATCHING=true).
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Queues a seat count lookup for the current window.
+     *
+     * @return a future completed with the show's available seats; it fails
+     *         like {@link DatabaseExecutor#submit} if the batch query does
+     */
+    public CompletableFuture<Integer> load(int showId) {
+        requests.incrementAndGet();
+        Map<Integer, CompletableFuture<Integer>> full = null;
+        CompletableFuture<Integer> future;
+        synchronized (this) {
+            future = pending.get(showId);
+            if (future != null) {
+                merged.incrementAndGet();
+                return future;
+            }
+            future = new CompletableFuture<>();
+            pending.put(showId, future);
+            if (pending.size() >= maxBatch) {
+                full = take();
+            } else if (pending.size() == 1) {
+                long thisWindow = window;
+                timer.schedule(() -> flush(thisWindow), windowMs, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (full != null) {
+            fullBatches.incrementAndGet();
+            dispatch(full);
+        }
+        return future;
+    }
+
+    private void flush(long expectedWindow) {
+        Map<Integer, CompletableFuture<Integer>> batch;
+        synchronized (this) {
+            // That window was already sent full; the current one has its own timer
+            if (window != expectedWindow || pending.isEmpty()) {
+                return;
+            }
+            batch = take();
+        }
+        dispatch(batch);
+    }
+
+    // Caller holds the monitor
+    private Map<Integer, CompletableFuture<Integer>> take() {
+        Map<Integer, CompletableFuture<Integer>> batch = pending;
+        pending = new HashMap<>();
+        window++;
+        return batch;
+    }
+
+    private void dispatch(Map<Integer, CompletableFuture<Integer>> batch) {
+        List<Integer> showIds = new ArrayList<>(batch.keySet());
+        batches.incrementAndGet();
+        loadedShows.addAndGet(showIds.size());
+        largestBatch.accumulateAndGet(showIds.size(), Math::max);
+
+        executor.submit(() -> lookup.load(showIds)).whenComplete((counts, error) -> {
+            for (Map.Entry<Integer, CompletableFuture<Integer>> entry : batch.entrySet()) {
+                if (error != null) {
+                    entry.getValue().completeExceptionally(DatabaseExecutor.unwrap(error));
+                } else {
+                    Integer seats = counts.get(entry.getKey());
+                    entry.getValue().complete(seats != null ? seats : 0);
+                }
+            }
+        });
+    }
+
+    // ==================== Stats ====================
+
+    public long getWindowMs() {
+        return windowMs;
+    }
+
+    public int getMaxBatch() {
+        return maxBatch;
+    }
+
+    /**
+     * Lookups requested, including merged ones.
+     */
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    /**
+     * Lookups answered by a query already queued for the same show.
+     */
+    public long getMergedCount() {
+        return merged.get();
+    }
+
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+    /**
+     * Batches sent early because they reached the maximum size.
+     */
+    public long getFullBatchCount() {
+        return fullBatches.get();
+    }
+
+    public int getLargestBatch() {
+        return largestBatch.get();
+    }
+
+    public double getMeanBatchSize() {
+        long count = batches.get();
+        return count == 0 ? 0 : (double) loadedShows.get() / count;
+    }
+}
@@ -0,0 +1,36 @@
+package sa.edu.kau.fcit.cpit252.project.store;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import sa.edu.kau.fcit.cpit252.project.model.SeatHold;
+
+/**
+ * Storage for seat holds and the seats they take. Implemented by
+ * {@link JdbcSeatHoldStore} and {@link InMemorySeatHoldStore}.
+ *
+ * A hold is recorded together with taking its seats, and its record is
+ * removed together with giving them back or turning them into a booking,
+ * so a restart never loses seats to a hold nobody tracks.
+ */
+public interface SeatHoldStore {
+    /**
+     * Takes the hold's seats from its show and records the hold.
+     *
+     * @return false if not enough seats are available
+     */
+    boolean hold(SeatHold hold) throws SQLException;
+
+    /**
+     * Removes the hold's record and gives its seats back.
+     *
+     * @return false if the hold was no longer recorded (already confirmed or
+     *         released); nothing is given back then
+     */
+    boolean release(SeatHold hold) throws SQLException;
+
+    /**
+     * Holds still recorded, e.g. by a previous run.
+     */
+    List<SeatHold> findAll() throws SQLException;
+}
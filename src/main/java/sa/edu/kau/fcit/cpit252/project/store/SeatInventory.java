@@ -0,0 +1,439 @@
+package sa.edu.kau.fcit.cpit252.project.store;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Authoritative in-process seat counts for JDBC mode, using Singleton Pattern.
+ *
+ * Each show has an AtomicInteger initialized from Shows.availableSeats on
+ * first use; reservations succeed or fail with a CAS on that counter, so
+ * concurrent bookings never queue on the Shows row lock. Every change is
+ * appended to a {@link SeatJournal} before it is acknowledged, and a
+ * background flusher writes the journaled changes to the Shows table in
+ * batches, one transaction per batch.
+ *
+ * Each flushed row also records the last journal sequence number applied
+ * (Shows.journalSeq), which makes replaying the journal after a crash
+ * idempotent.
+ *
+ * A reservation is journaled before its booking commits. If the booking
+ * rolls back, a compensating release is journaled; if the process dies in
+ * between, the journal (or the Shows row it was flushed to) keeps a
+ * decrement no booking accounts for. Recovery therefore ends by
+ * recomputing availableSeats of every show as totalSeats minus its booked
+ * and held tickets. Recovery runs when the inventory is first requested, which Main
+ * does at startup so a failure stops the server instead of surfacing later.
+ *
+ * The counters are only authoritative while one application instance owns
+ * the Shows table; enable with SEAT_INVENTORY=memory.
+ */
+public class SeatInventory {
+
+    private static final boolean ENABLED = "memory".equalsIgnoreCase(System.getenv("SEAT_INVENTORY"));
+
+    private static final String JOURNAL_PATH = System.getenv("SEAT_JOURNAL_PATH") != null
+        ? System.getenv("SEAT_JOURNAL_PATH")
+        : "seat-journal.dat";
+
+    // Force each journal record to disk before the reservation is acknowledged
+    private static final boolean JOURNAL_SYNC = !"false".equalsIgnoreCase(System.getenv("SEAT_JOURNAL_SYNC"));
+
+    private static final long FLUSH_INTERVAL_MS = System.getenv("SEAT_FLUSH_INTERVAL_MS") != null
+        ? Long.parseLong(System.getenv("SEAT_FLUSH_INTERVAL_MS"))
+        : 200;
+
+    private static final int FLUSH_MAX_BATCH = System.getenv("SEAT_FLUSH_MAX_BATCH") != null
+        ? Integer.parseInt(System.getenv("SEAT_FLUSH_MAX_BATCH"))
+        : 500;
+
+    private static final String FLUSH_SQL =
+        "UPDATE Shows SET availableSeats = availableSeats - ?, journalSeq = ? " +
+        "WHERE showId = ? AND journalSeq < ?";
+
+    // Seats left = seats minus booked and held tickets, for every show whose row disagrees
+    private static final String RECONCILE_SQL =
+        "UPDATE s SET availableSeats = s.totalSeats - COALESCE(t.taken, 0) " +
+        "FROM Shows s LEFT JOIN (SELECT showId, SUM(quantity) AS taken FROM (" +
+        "SELECT showId, ticketQuantity AS quantity FROM Bookings " +
+        "UNION ALL SELECT showId, quantity FROM SeatHolds) u GROUP BY showId) t " +
+        "ON t.showId = s.showId " +
+        "WHERE s.availableSeats <> s.totalSeats - COALESCE(t.taken, 0)";
+
+    private static volatile SeatInventory instance;
+
+    private final ConnectionPool.ConnectionFactory connections;
+    private final Map<Integer, AtomicInteger> seats = new ConcurrentHashMap<>();
+    private final SeatJournal journal;
+    private final ConcurrentLinkedQueue<SeatJournal.Entry> unflushed = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService flusher;
+
+    // Only touched by flush(), which is synchronized
+    private final List<SeatJournal.Entry> inFlight = new ArrayList<>();
+    private volatile int inFlightCount;
+    private volatile long flushedSeq;
+
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong flushedEntries = new AtomicLong();
+    private final AtomicLong flushFailures = new AtomicLong();
+    private final AtomicInteger largestBatch = new AtomicInteger();
+    private int reconciledShows;
+
+    /**
+     * @param connections opens primary connections for loading, flushing and recovery
+     */
+    SeatInventory(Path journalPath, boolean sync, ConnectionPool.ConnectionFactory connections, long flushIntervalMs) {
+        this.connections = connections;
+        try {
+            this.journal = new SeatJournal(journalPath, sync);
+            recover();
+        } catch (IOException | SQLException e) {
+            throw new IllegalStateException("Seat inventory recovery failed", e);
+        }
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "seat-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "seat-flusher-shutdown"));
+    }
+
+    /**
+     * Whether seat counts are kept in memory (SEAT_INVENTORY=memory).
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Returns the inventory, replaying any journal left by a previous run on first use.
+     *
+     * @throws IllegalStateException if recovery fails; the next call tries again
+     */
+    public static SeatInventory getInstance() {
+        if (instance == null) {
+            synchronized (SeatInventory.class) {
+                if (instance == null) {
+                    instance = new SeatInventory(Paths.get(JOURNAL_PATH), JOURNAL_SYNC,
+                        () -> DatabaseConnection.createConnection(ConnectionIntent.WRITE), FLUSH_INTERVAL_MS);
+                }
+            }
+        }
+        return instance;
+    }
+
+    // ==================== Seat counts ====================
+
+    /**
+     * Available seats, loaded from the Shows table on first use; 0 for an unknown show.
+     */
+    public int available(int showId) throws SQLException {
+        return available(null, showId);
+    }
+
+    /**
+     * Same as {@link #available(int)}, loading through the caller's connection
+     * (and transaction) if the show is not tracked yet.
+     */
+    int available(Connection conn, int showId) throws SQLException {
+        AtomicInteger counter = counter(conn, showId);
+        return counter != null ? counter.get() : 0;
+    }
+
+    /**
+     * Count of a show already tracked in memory, or null if it is not loaded;
+     * the Shows row of an untracked show is current, as nothing is pending for it.
+     */
+    Integer tracked(int showId) {
+        AtomicInteger counter = seats.get(showId);
+        return counter != null ? counter.get() : null;
+    }
+
+    /**
+     * Starts tracking a show with the count the caller read from its Shows
+     * row on the primary, e.g. as part of a batched lookup. A show tracked
+     * meanwhile keeps its own count.
+     *
+     * @return the tracked count
+     */
+    int seed(int showId, int availableSeats) {
+        AtomicInteger created = new AtomicInteger(availableSeats);
+        AtomicInteger existing = seats.putIfAbsent(showId, created);
+        return (existing != null ? existing : created).get();
+    }
+
+    /**
+     * Reserves seats if enough are available. The change is journaled before returning.
+     */
+    public boolean tryReserve(int showId, int quantity) throws SQLException {
+        return tryReserve(null, showId, quantity);
+    }
+
+    boolean tryReserve(Connection conn, int showId, int quantity) throws SQLException {
+        AtomicInteger counter = counter(conn, showId);
+        if (counter == null) {
+            return false;
+        }
+        int current;
+        do {
+            current = counter.get();
+            if (current < quantity) {
+                return false;
+            }
+        } while (!counter.compareAndSet(current, current - quantity));
+
+        try {
+            journal.append(showId, quantity, unflushed::add);
+        } catch (IOException e) {
+            counter.addAndGet(quantity);
+            throw new SQLException("Failed to journal seat reservation", e);
+        }
+        return true;
+    }
+
+    /**
+     * Gives back seats from a reservation that did not turn into a booking.
+     */
+    public void release(int showId, int quantity) throws SQLException {
+        AtomicInteger counter = seats.get(showId);
+        if (counter == null) {
+            return;
+        }
+        counter.addAndGet(quantity);
+        try {
+            journal.append(showId, -quantity, unflushed::add);
+        } catch (IOException e) {
+            throw new SQLException("Failed to journal seat release", e);
+        }
+    }
+
+    private AtomicInteger counter(Connection conn, int showId) throws SQLException {
+        AtomicInteger counter = seats.get(showId);
+        if (counter != null) {
+            return counter;
+        }
+        // Load outside the map so a slow query never blocks other shows.
+        // Racing loaders read the same row; the first one to register wins.
+        Integer loaded;
+        if (conn != null) {
+            loaded = loadAvailableSeats(conn, showId);
+        } else {
+            try (Connection own = connections.create()) {
+                loaded = loadAvailableSeats(own, showId);
+            }
+        }
+        if (loaded == null) {
+            return null;
+        }
+        AtomicInteger created = new AtomicInteger(loaded);
+        AtomicInteger existing = seats.putIfAbsent(showId, created);
+        return existing != null ? existing : created;
+    }
+
+    private static Integer loadAvailableSeats(Connection conn, int showId) throws SQLException {
+        String sql = "SELECT availableSeats FROM Shows WHERE showId = ?";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, showId);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : null;
+            }
+        }
+    }
+
+    // ==================== Write-behind ====================
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (SQLException | IOException e) {
+            flushFailures.incrementAndGet();
+        }
+    }
+
+    /**
+     * Writes up to FLUSH_MAX_BATCH journaled changes to the Shows table in one
+     * transaction. A failed batch is kept and retried first on the next run.
+     */
+    synchronized void flush() throws SQLException, IOException {
+        SeatJournal.Entry entry;
+        while (inFlight.size() < FLUSH_MAX_BATCH && (entry = unflushed.poll()) != null) {
+            inFlight.add(entry);
+        }
+        inFlightCount = inFlight.size();
+        if (inFlight.isEmpty()) {
+            return;
+        }
+
+        // showId -> { net seats taken, first sequence number in this batch }
+        Map<Integer, long[]> changes = new LinkedHashMap<>();
+        for (SeatJournal.Entry change : inFlight) {
+            long[] totals = changes.computeIfAbsent(change.showId, id -> new long[] { 0, change.seq });
+            totals[0] += change.delta;
+        }
+        long batchEnd = inFlight.get(inFlight.size() - 1).seq;
+
+        applyToShows(changes, batchEnd);
+
+        flushCount.incrementAndGet();
+        flushedEntries.addAndGet(inFlight.size());
+        largestBatch.accumulateAndGet(inFlight.size(), Math::max);
+        inFlight.clear();
+        inFlightCount = 0;
+        flushedSeq = batchEnd;
+        journal.truncateIfFlushed(flushedSeq);
+    }
+
+    private void applyToShows(Map<Integer, long[]> changes, long batchEnd) throws SQLException {
+        try (Connection conn = connections.create()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(FLUSH_SQL)) {
+                for (Map.Entry<Integer, long[]> change : changes.entrySet()) {
+                    stmt.setInt(1, (int) change.getValue()[0]);
+                    stmt.setLong(2, batchEnd);
+                    stmt.setInt(3, change.getKey());
+                    // Skip shows this batch was already applied to (replay after a crash)
+                    stmt.setLong(4, change.getValue()[1]);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Applies journal records that never reached the database, reconciles
+     * every show against its bookings, then continues numbering after the
+     * highest sequence number seen.
+     */
+    private void recover() throws IOException, SQLException {
+        List<SeatJournal.Entry> entries = journal.readAll();
+        long lastSeq = 0;
+
+        try (Connection conn = connections.create()) {
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT MAX(journalSeq) FROM Shows");
+                 ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    lastSeq = rs.getLong(1);
+                }
+            }
+
+            Map<Integer, Long> appliedSeq = new HashMap<>();
+            Map<Integer, long[]> pending = new LinkedHashMap<>();
+            for (SeatJournal.Entry entry : entries) {
+                lastSeq = Math.max(lastSeq, entry.seq);
+                Long applied = appliedSeq.get(entry.showId);
+                if (applied == null) {
+                    applied = loadJournalSeq(conn, entry.showId);
+                    appliedSeq.put(entry.showId, applied);
+                }
+                if (entry.seq > applied) {
+                    long[] totals = pending.computeIfAbsent(entry.showId, id -> new long[] { 0, entry.seq });
+                    totals[0] += entry.delta;
+                }
+            }
+            if (!pending.isEmpty()) {
+                applyToShows(pending, lastSeq);
+            }
+
+            // Nothing is in flight yet, so Bookings and SeatHolds are the whole truth
+            try (PreparedStatement stmt = conn.prepareStatement(RECONCILE_SQL)) {
+                reconciledShows = stmt.executeUpdate();
+            }
+            if (reconciledShows > 0) {
+                System.err.println("⚠️ Seat inventory recovery corrected the seat count of " + reconciledShows
+                    + " show(s) whose reservations had no booking or hold");
+            }
+        }
+
+        journal.startAfter(lastSeq);
+        flushedSeq = lastSeq;
+        journal.truncateIfFlushed(lastSeq);
+    }
+
+    private static long loadJournalSeq(Connection conn, int showId) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT journalSeq FROM Shows WHERE showId = ?")) {
+            stmt.setInt(1, showId);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                // A deleted show has nothing to apply
+                return rs.next() ? rs.getLong(1) : Long.MAX_VALUE;
+            }
+        }
+    }
+
+    /**
+     * Stops the flusher and writes out everything still journaled.
+     */
+    public void close() {
+        flusher.shutdown();
+        try {
+            while (!unflushed.isEmpty() || inFlightCount > 0) {
+                flush();
+            }
+            journal.close();
+        } catch (SQLException | IOException e) {
+            // The journal still holds the changes; they are replayed on next start
+        }
+    }
+
+    // ==================== Stats ====================
+
+    public int getTrackedShows() {
+        return seats.size();
+    }
+
+    /**
+     * Journaled changes not yet written to the Shows table.
+     */
+    public int getUnflushedCount() {
+        return unflushed.size() + inFlightCount;
+    }
+
+    public long getFlushCount() {
+        return flushCount.get();
+    }
+
+    public long getFlushedEntries() {
+        return flushedEntries.get();
+    }
+
+    public int getLargestBatch() {
+        return largestBatch.get();
+    }
+
+    public long getFlushFailures() {
+        return flushFailures.get();
+    }
+
+    /**
+     * Shows whose seat count recovery had to correct at startup.
+     */
+    public int getReconciledShows() {
+        return reconciledShows;
+    }
+}
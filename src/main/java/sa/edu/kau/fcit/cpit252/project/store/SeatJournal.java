@@ -0,0 +1,119 @@
+package sa.edu.kau.fcit.cpit252.project.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Append-only file of seat count changes not yet written to the Shows table.
+ *
+ * Each record is fixed size: showId (int), seq (long), delta (int), where a
+ * positive delta is seats taken and a negative one seats given back.
+ * Sequence numbers are assigned here, under the append lock, so file order,
+ * queue order and sequence order always agree. A torn record at the end of
+ * the file (crash mid-write) is ignored on recovery.
+ */
+class SeatJournal implements AutoCloseable {
+
+    static final int RECORD_SIZE = Integer.BYTES + Long.BYTES + Integer.BYTES;
+
+    /**
+     * One journaled change.
+     */
+    static final class Entry {
+        final int showId;
+        final long seq;
+        final int delta;
+
+        Entry(int showId, long seq, int delta) {
+            this.showId = showId;
+            this.seq = seq;
+            this.delta = delta;
+        }
+    }
+
+    private final FileChannel channel;
+    private final boolean sync;
+    private final ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+    private long lastSeq;
+
+    /**
+     * @param sync force every record to disk before append returns
+     */
+    SeatJournal(Path path, boolean sync) throws IOException {
+        this.channel = FileChannel.open(path,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.sync = sync;
+    }
+
+    /**
+     * Reads every complete record, in file order.
+     */
+    synchronized List<Entry> readAll() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        long position = 0;
+        while (position + RECORD_SIZE <= channel.size()) {
+            record.clear();
+            while (record.hasRemaining()) {
+                if (channel.read(record, position + record.position()) < 0) {
+                    return entries;
+                }
+            }
+            record.flip();
+            entries.add(new Entry(record.getInt(), record.getLong(), record.getInt()));
+            position += RECORD_SIZE;
+        }
+        return entries;
+    }
+
+    /**
+     * Continues numbering after the given sequence number.
+     */
+    synchronized void startAfter(long seq) {
+        lastSeq = Math.max(lastSeq, seq);
+    }
+
+    /**
+     * Assigns the next sequence number, writes the record and hands it to the
+     * sink while still holding the lock, so the sink sees records in order.
+     */
+    synchronized Entry append(int showId, int delta, Consumer<Entry> sink) throws IOException {
+        Entry entry = new Entry(showId, lastSeq + 1, delta);
+        buffer.clear();
+        buffer.putInt(showId).putLong(entry.seq).putInt(delta).flip();
+        long position = channel.size();
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        if (sync) {
+            channel.force(false);
+        }
+        lastSeq = entry.seq;
+        sink.accept(entry);
+        return entry;
+    }
+
+    /**
+     * Empties the file if every appended record has been written to the
+     * database, so the journal does not grow without bound.
+     */
+    synchronized void truncateIfFlushed(long flushedSeq) throws IOException {
+        if (flushedSeq >= lastSeq && channel.size() > 0) {
+            channel.truncate(0);
+            if (sync) {
+                channel.force(true);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+}
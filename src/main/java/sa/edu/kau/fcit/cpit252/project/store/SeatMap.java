@@ -0,0 +1,241 @@
+package sa.edu.kau.fcit.cpit252.project.store;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Per-seat occupancy of one show, stored as a bitset of 64-seat words.
+ *
+ * Seats are numbered from 0; seat n is bit (n % 64) of word (n / 64) and is
+ * labelled row letter + number, e.g. seat 0 = "A1", seat 13 = "B4".
+ * Reserving several seats is all-or-nothing and lock-free: bits are set one
+ * word at a time with CAS, in ascending order, and the words already set are
+ * cleared again if a later word has a conflict. Neither path allocates.
+ *
+ * Every booking owns seats in the map: one without a selection is given
+ * the lowest free seats. Seats under a hold are only counted against the
+ * show, so they stay free here until the hold is confirmed.
+ */
+public class SeatMap {
+
+    public static final int SEATS_PER_ROW = 10;
+    public static final int MAX_ROWS = 26;
+
+    private final int capacity;
+    private final AtomicLongArray words;
+
+    public SeatMap(int capacity) {
+        if (capacity < 0 || capacity > SEATS_PER_ROW * MAX_ROWS) {
+            throw new IllegalArgumentException("Unsupported seat count: " + capacity);
+        }
+        this.capacity = capacity;
+        this.words = new AtomicLongArray((capacity + 63) >>> 6);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public boolean isTaken(int seat) {
+        return seat >= 0 && seat < capacity && (words.get(seat >>> 6) & (1L << (seat & 63))) != 0;
+    }
+
+    public int countTaken() {
+        int taken = 0;
+        for (int i = 0; i < words.length(); i++) {
+            taken += Long.bitCount(words.get(i));
+        }
+        return taken;
+    }
+
+    /**
+     * Takes every given seat, or none of them.
+     *
+     * @param seats seat numbers in strictly ascending order, as returned by {@link #parseLabels}
+     * @return false if any seat is already taken or outside this map
+     */
+    public boolean tryReserve(int[] seats) {
+        if (seats.length == 0) {
+            return true;
+        }
+        if (seats[0] < 0 || seats[seats.length - 1] >= capacity) {
+            return false;
+        }
+        int start = 0;
+        while (start < seats.length) {
+            int word = seats[start] >>> 6;
+            int end = groupEnd(seats, start);
+            if (!setBits(word, mask(seats, start, end))) {
+                clearRange(seats, 0, start);
+                return false;
+            }
+            start = end;
+        }
+        return true;
+    }
+
+    /**
+     * Takes the lowest-numbered free seats, for bookings that did not pick
+     * any. Rescans if a concurrent reservation takes one of them first.
+     *
+     * @return the seats taken, in ascending order, or null if fewer than
+     *         quantity seats are free
+     */
+    public int[] tryReserveAny(int quantity) {
+        int[] seats = new int[quantity];
+        while (true) {
+            int found = 0;
+            for (int seat = 0; seat < capacity && found < quantity; seat++) {
+                if (!isTaken(seat)) {
+                    seats[found++] = seat;
+                }
+            }
+            if (found < quantity) {
+                return null;
+            }
+            if (tryReserve(seats)) {
+                return seats;
+            }
+        }
+    }
+
+    /**
+     * Gives back seats taken with {@link #tryReserve} or {@link #tryReserveAny}.
+     */
+    public void release(int[] seats) {
+        clearRange(seats, 0, seats.length);
+    }
+
+    /**
+     * Marks a seat as taken while loading the map from storage.
+     */
+    void markTaken(int seat) {
+        if (seat >= 0 && seat < capacity) {
+            setBits(seat >>> 6, 1L << (seat & 63));
+        }
+    }
+
+    /**
+     * Labels of all taken seats, in seat order.
+     */
+    public List<String> takenLabels() {
+        List<String> labels = new ArrayList<>();
+        for (int seat = 0; seat < capacity; seat++) {
+            if (isTaken(seat)) {
+                labels.add(label(seat));
+            }
+        }
+        return labels;
+    }
+
+    // ==================== Bit operations ====================
+
+    // Index after the last seat that falls in the same word as seats[start]
+    private static int groupEnd(int[] seats, int start) {
+        int word = seats[start] >>> 6;
+        int end = start + 1;
+        while (end < seats.length && (seats[end] >>> 6) == word) {
+            end++;
+        }
+        return end;
+    }
+
+    private static long mask(int[] seats, int start, int end) {
+        long mask = 0;
+        for (int i = start; i < end; i++) {
+            mask |= 1L << (seats[i] & 63);
+        }
+        return mask;
+    }
+
+    private boolean setBits(int word, long mask) {
+        while (true) {
+            long current = words.get(word);
+            if ((current & mask) != 0) {
+                return false;
+            }
+            if (words.compareAndSet(word, current, current | mask)) {
+                return true;
+            }
+        }
+    }
+
+    private void clearRange(int[] seats, int from, int to) {
+        int start = from;
+        while (start < to) {
+            int end = Math.min(groupEnd(seats, start), to);
+            int word = seats[start] >>> 6;
+            long mask = mask(seats, start, end);
+            long current;
+            do {
+                current = words.get(word);
+            } while (!words.compareAndSet(word, current, current & ~mask));
+            start = end;
+        }
+    }
+
+    // ==================== Labels ====================
+
+    /**
+     * Label of a seat number, e.g. 0 -> "A1", 13 -> "B4".
+     */
+    public static String label(int seat) {
+        return (char) ('A' + seat / SEATS_PER_ROW) + Integer.toString(seat % SEATS_PER_ROW + 1);
+    }
+
+    /**
+     * Labels of the given seat numbers, in the same order.
+     */
+    public static List<String> labels(int[] seats) {
+        List<String> labels = new ArrayList<>(seats.length);
+        for (int seat : seats) {
+            labels.add(label(seat));
+        }
+        return labels;
+    }
+
+    /**
+     * Seat number of a label such as "B4" (case-insensitive).
+     *
+     * @throws IllegalArgumentException if the label is malformed
+     */
+    public static int parseLabel(String label) {
+        String trimmed = label.trim().toUpperCase();
+        if (trimmed.length() < 2) {
+            throw new IllegalArgumentException("Invalid seat: " + label);
+        }
+        int row = trimmed.charAt(0) - 'A';
+        int number;
+        try {
+            number = Integer.parseInt(trimmed.substring(1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid seat: " + label);
+        }
+        if (row < 0 || row >= MAX_ROWS || number < 1 || number > SEATS_PER_ROW) {
+            throw new IllegalArgumentException("Invalid seat: " + label);
+        }
+        return row * SEATS_PER_ROW + number - 1;
+    }
+
+    /**
+     * Parses comma-separated labels into sorted seat numbers.
+     *
+     * @throws IllegalArgumentException if a label is malformed or repeated
+     */
+    public static int[] parseLabels(String labels) {
+        String[] parts = labels.split(",");
+        int[] seats = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            seats[i] = parseLabel(parts[i]);
+        }
+        Arrays.sort(seats);
+        for (int i = 1; i < seats.length; i++) {
+            if (seats[i] == seats[i - 1]) {
+                throw new IllegalArgumentException("Seat selected twice: " + label(seats[i]));
+            }
+        }
+        return seats;
+    }
+}
@@ -0,0 +1,214 @@
+package sa.edu.kau.fcit.cpit252.project.store;
+
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Resolved (movieId, location, showTime) to showId mappings of
+ * {@link JdbcShowStore}.
+ *
+ * A show's id never changes once its row exists, so positive entries need
+ * no expiry; they are bounded by SHOW_KEY_CACHE_SIZE with LRU eviction.
+ * Lookups that found no show are remembered for SHOW_KEY_NEGATIVE_TTL_MS so
+ * repeated reads of a show nobody has booked yet skip the database too.
+ * Creating a show drops its negative entry at once.
+ *
+ * Only committed rows may be cached: a show created inside a booking
+ * transaction that later rolls back must not be handed out.
+ */
+public final class ShowKeyCache {
+
+    static final int MAX_ENTRIES = System.getenv("SHOW_KEY_CACHE_SIZE") != null
+        ? Integer.parseInt(System.getenv("SHOW_KEY_CACHE_SIZE"))
+        : 10_000;
+
+    static final long NEGATIVE_TTL_MS = System.getenv("SHOW_KEY_NEGATIVE_TTL_MS") != null
+        ? Long.parseLong(System.getenv("SHOW_KEY_NEGATIVE_TTL_MS"))
+        : 2_000;
+
+    /**
+     * Loads a showId for {@link #resolve}.
+     */
+    @FunctionalInterface
+    interface Loader {
+        int load() throws SQLException;
+    }
+
+    private final int maxEntries;
+    private final long negativeTtlNanos;
+    private final LongSupplier nanoClock;
+
+    // Access-ordered for LRU; guarded by its own monitor
+    private final LinkedHashMap<String, Integer> showIds;
+    // Key -> expiry in nanoClock time
+    private final Map<String, Long> missing = new ConcurrentHashMap<>();
+    // Creations in progress, so racing first requests share one INSERT
+    private final Map<String, CompletableFuture<Integer>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong negativeHits = new AtomicLong();
+    private final AtomicLong joined = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    ShowKeyCache(int maxEntries, long negativeTtlMs) {
+        this(maxEntries, negativeTtlMs, System::nanoTime);
+    }
+
+    /**
+     * @param nanoClock source of {@link System#nanoTime}-style timestamps
+     */
+    ShowKeyCache(int maxEntries, long negativeTtlMs, LongSupplier nanoClock) {
+        this.maxEntries = maxEntries;
+        this.negativeTtlNanos = TimeUnit.MILLISECONDS.toNanos(negativeTtlMs);
+        this.nanoClock = nanoClock;
+        this.showIds = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+                if (size() > ShowKeyCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    static String key(int movieId, String location, String showTime) {
+        return movieId + "\u0000" + location + "\u0000" + showTime;
+    }
+
+    /**
+     * The cached showId, or null if unknown.
+     */
+    Integer get(String key) {
+        Integer showId;
+        synchronized (showIds) {
+            showId = showIds.get(key);
+        }
+        if (showId != null) {
+            hits.incrementAndGet();
+        }
+        return showId;
+    }
+
+    /**
+     * True if a recent lookup found no show for this key.
+     */
+    boolean isKnownMissing(String key) {
+        Long expiresAt = missing.get(key);
+        if (expiresAt == null) {
+            return false;
+        }
+        if (expiresAt - nanoClock.getAsLong() <= 0) {
+            missing.remove(key, expiresAt);
+            return false;
+        }
+        negativeHits.incrementAndGet();
+        return true;
+    }
+
+    void put(String key, int showId) {
+        missing.remove(key);
+        synchronized (showIds) {
+            showIds.put(key, showId);
+        }
+    }
+
+    void putMissing(String key) {
+        if (missing.size() >= maxEntries) {
+            // Negative entries are short-lived; starting over is cheaper than tracking their order
+            missing.clear();
+        }
+        missing.put(key, nanoClock.getAsLong() + negativeTtlNanos);
+    }
+
+    void forgetMissing(String key) {
+        missing.remove(key);
+    }
+
+    /**
+     * Returns the cached showId, or runs the loader and caches its result.
+     * Concurrent callers for the same key wait for one loader instead of
+     * each running their own.
+     */
+    int resolve(String key, Loader loader) throws SQLException {
+        Integer cached = get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        CompletableFuture<Integer> mine = new CompletableFuture<>();
+        CompletableFuture<Integer> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            joined.incrementAndGet();
+            return await(running);
+        }
+
+        misses.incrementAndGet();
+        try {
+            int showId = loader.load();
+            put(key, showId);
+            mine.complete(showId);
+            return showId;
+        } catch (SQLException | RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private static int await(CompletableFuture<Integer> running) throws SQLException {
+        try {
+            return running.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for show creation", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw new SQLException("Show creation failed", e.getCause());
+        }
+    }
+
+    // ==================== Stats ====================
+
+    public int size() {
+        synchronized (showIds) {
+            return showIds.size();
+        }
+    }
+
+    public int getMissingCount() {
+        return missing.size();
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getNegativeHitCount() {
+        return negativeHits.get();
+    }
+
+    public long getJoinedCount() {
+        return joined.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+}
@@ -0,0 +1,100 @@
+package sa.edu.kau.fcit.cpit252.project.store;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import sa.edu.kau.fcit.cpit252.project.model.Show;
+
+/**
+ * Storage for shows and their seat counts.
+ * Implemented by {@link JdbcShowStore} and {@link InMemoryShowStore}.
+ */
+public interface ShowStore {
+    /**
+     * Seats of a newly created show.
+     */
+    int DEFAULT_SEATS = 100;
+
+    /**
+     * Returns the showId for the movie, location and time, creating the show on first use.
+     */
+    int getOrCreateShow(int movieId, String location, String showTime, String hallType) throws SQLException;
+
+    /**
+     * Returns the showId for the movie, location and time without creating
+     * the show.
+     *
+     * @return the showId, or null if no such show exists yet
+     */
+    Integer findShowId(int movieId, String location, String showTime) throws SQLException;
+
+    /**
+     * Shows of the movie with this name (case-insensitive), optionally only
+     * at one location, resolved together in one query. Never creates shows.
+     *
+     * @param location the location to keep, or null for all
+     * @return the shows ordered by location and time, or null if there is no such movie
+     */
+    List<Show> findByMovieName(String movieName, String location) throws SQLException;
+
+    /**
+     * Shows with the given ids, read in one query; may be served by a read
+     * replica. Unknown ids are left out.
+     */
+    default List<Show> findByIds(List<Integer> showIds) throws SQLException {
+        return findByIds(showIds, ConnectionIntent.READ);
+    }
+
+    /**
+     * Shows with the given ids, read in one query. Use READ_YOUR_WRITES when
+     * the seat counts must reflect the latest reservations.
+     */
+    List<Show> findByIds(List<Integer> showIds, ConnectionIntent intent) throws SQLException;
+
+    /**
+     * Returns the showId if the store already knows it without any I/O,
+     * letting callers skip the database executor entirely.
+     *
+     * @return the showId, or null if it would have to be looked up
+     */
+    default Integer cachedShowId(int movieId, String location, String showTime) {
+        return null;
+    }
+
+    /**
+     * Available seats for a show; may be served by a read replica.
+     */
+    default int getAvailableSeats(int showId) throws SQLException {
+        return getAvailableSeats(showId, ConnectionIntent.READ);
+    }
+
+    /**
+     * Available seats for a show. Use READ_YOUR_WRITES when the answer must
+     * reflect the latest reservations, e.g. right before booking.
+     */
+    int getAvailableSeats(int showId, ConnectionIntent intent) throws SQLException;
+
+    /**
+     * Atomically reserves seats if enough are available.
+     *
+     * @return true if the seats were reserved
+     */
+    boolean reserveSeats(int showId, int quantity) throws SQLException;
+
+    /**
+     * Gives back seats taken by {@link #reserveSeats} that will not be
+     * booked, e.g. when a seat hold is released or expires.
+     */
+    void releaseSeats(int showId, int quantity) throws SQLException;
+
+    /**
+     * Live per-seat map of a show, or null if the show does not exist.
+     * Reserving on the map only claims the seats; the seat count is reserved
+     * separately with {@link #reserveSeats}.
+     */
+    SeatMap getSeatMap(int showId) throws SQLException;
+
+    Show findById(int showId) throws SQLException;
+
+    List<Show> findByMovie(int movieId) throws SQLException;
+}
@@ -0,0 +1,173 @@
+package sa.edu.kau.fcit.cpit252.project.store;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LRU cache of prepared statements for one physical connection, keyed by SQL text.
+ *
+ * Statements handed out by the cache ignore {@code close()} and stay prepared
+ * on the server for the next borrower of the same connection. A pooled
+ * connection is only used by one thread at a time, so the cache needs no locking.
+ */
+class StatementCache {
+
+    private final Connection physical;
+    private final int maxSize;
+    private final AtomicLong poolHits;
+    private final AtomicLong poolMisses;
+
+    // Access-ordered map: the eldest entry is the least recently used
+    private final LinkedHashMap<String, CachedStatement> statements = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long hits;
+    private long misses;
+
+    StatementCache(Connection physical, int maxSize, AtomicLong poolHits, AtomicLong poolMisses) {
+        this.physical = physical;
+        this.maxSize = maxSize;
+        this.poolHits = poolHits;
+        this.poolMisses = poolMisses;
+    }
+
+    /**
+     * Returns a cached statement for the SQL, preparing it on a miss.
+     * If the cached statement is still open in the current lease (the same SQL
+     * prepared twice), an uncached statement is returned instead.
+     */
+    PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+        String key = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS ? "K:" + sql : "N:" + sql;
+        CachedStatement cached = statements.get(key);
+        if (cached != null) {
+            if (cached.inUse) {
+                return physical.prepareStatement(sql, autoGeneratedKeys);
+            }
+            hits++;
+            poolHits.incrementAndGet();
+            cached.inUse = true;
+            return cached.proxy;
+        }
+
+        misses++;
+        poolMisses.incrementAndGet();
+        PreparedStatement statement = physical.prepareStatement(sql, autoGeneratedKeys);
+        cached = new CachedStatement(statement);
+        cached.inUse = true;
+        statements.put(key, cached);
+        evictOverflow();
+        return cached.proxy;
+    }
+
+    /**
+     * Marks every statement as free. Called when the connection goes back to the pool.
+     */
+    void releaseAll() {
+        for (CachedStatement cached : statements.values()) {
+            if (cached.inUse) {
+                cached.inUse = false;
+                clearQuietly(cached.statement);
+            }
+        }
+    }
+
+    long getHits() {
+        return hits;
+    }
+
+    long getMisses() {
+        return misses;
+    }
+
+    int size() {
+        return statements.size();
+    }
+
+    private void evictOverflow() {
+        Iterator<CachedStatement> it = statements.values().iterator();
+        while (statements.size() > maxSize && it.hasNext()) {
+            CachedStatement eldest = it.next();
+            if (eldest.inUse) {
+                // Closed for real once the borrower is done with it
+                eldest.evicted = true;
+            } else {
+                closeQuietly(eldest.statement);
+            }
+            it.remove();
+        }
+    }
+
+    private static void clearQuietly(PreparedStatement statement) {
+        try {
+            statement.clearParameters();
+        } catch (SQLException e) {
+            // Parameters are rebound by the next user anyway
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            // Statement is being discarded
+        }
+    }
+
+    /**
+     * A prepared statement plus the proxy that keeps it open across leases.
+     */
+    private static final class CachedStatement implements InvocationHandler {
+        final PreparedStatement statement;
+        final PreparedStatement proxy;
+        boolean inUse;
+        boolean evicted;
+
+        CachedStatement(PreparedStatement statement) {
+            this.statement = statement;
+            this.proxy = (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[] { PreparedStatement.class },
+                    this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (inUse) {
+                        inUse = false;
+                        if (evicted) {
+                            closeQuietly(statement);
+                        } else {
+                            clearQuietly(statement);
+                        }
+                    }
+                    return null;
+                case "isClosed":
+                    return !inUse || statement.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    if (!inUse) {
+                        throw new SQLException("Statement has already been closed");
+                    }
+            }
+            try {
+                return method.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
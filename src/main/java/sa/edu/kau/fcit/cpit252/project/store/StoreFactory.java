@@ -0,0 +1,70 @@
+package sa.edu.kau.fcit.cpit252.project.store;
+
+/**
+ * Selects the storage backend for movies, shows and bookings.
+ *
+ * Main picks the mode once at startup (STORE_MODE=memory for the in-memory
+ * backend); services ask the factory for their store when constructed.
+ */
+public final class StoreFactory {
+
+    public enum Mode { JDBC, IN_MEMORY }
+
+    private static volatile Mode mode = Mode.JDBC;
+
+    private StoreFactory() {
+    }
+
+    public static void setMode(Mode newMode) {
+        mode = newMode;
+    }
+
+    public static Mode getMode() {
+        return mode;
+    }
+
+    public static MovieStore movieStore() {
+        return mode == Mode.IN_MEMORY ? InMemoryMovieStore.getInstance() : JdbcStores.MOVIES;
+    }
+
+    public static ShowStore showStore() {
+        return mode == Mode.IN_MEMORY ? InMemoryShowStore.getInstance() : JdbcStores.SHOWS;
+    }
+
+    public static BookingStore bookingStore() {
+        return mode == Mode.IN_MEMORY ? InMemoryBookingStore.getInstance() : JdbcStores.BOOKINGS;
+    }
+
+    public static SeatHoldStore seatHoldStore() {
+        return mode == Mode.IN_MEMORY ? new InMemorySeatHoldStore(InMemoryShowStore.getInstance()) : JdbcStores.HOLDS;
+    }
+
+    /**
+     * The group-commit booking writer, or null when bookings are written one
+     * by one (in-memory mode, or BOOKING_GROUP_COMMIT not set).
+     */
+    public static BookingWriter bookingWriter() {
+        return mode == Mode.IN_MEMORY ? null : JdbcStores.WRITER;
+    }
+
+    /**
+     * The seat count batcher, or null when seat counts are read one query
+     * per lookup (in-memory mode, SEAT_LOOKUP_BATCHING not set, or counts
+     * served from the in-memory seat inventory).
+     */
+    public static SeatCountLoader seatCountLoader() {
+        return mode == Mode.IN_MEMORY ? null : JdbcStores.SEAT_COUNTS;
+    }
+
+    // Created on first use so in-memory mode never touches JDBC classes
+    private static final class JdbcStores {
+        static final JdbcMovieStore MOVIES = new JdbcMovieStore();
+        static final JdbcShowStore SHOWS = new JdbcShowStore(
+            SeatInventory.isEnabled() ? SeatInventory.getInstance() : null);
+        static final BookingWriter WRITER = BookingWriter.isEnabled() ? new BookingWriter(SHOWS) : null;
+        static final JdbcBookingStore BOOKINGS = new JdbcBookingStore(SHOWS, WRITER);
+        static final JdbcSeatHoldStore HOLDS = new JdbcSeatHoldStore(SHOWS);
+        static final SeatCountLoader SEAT_COUNTS = SeatCountLoader.isEnabled() && !SeatInventory.isEnabled()
+            ? new SeatCountLoader(SHOWS) : null;
+    }
+}
@@ -0,0 +1,188 @@
+package sa.edu.kau.fcit.cpit252.project;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import sa.edu.kau.fcit.cpit252.project.store.ConnectionPool;
+
+/**
+ * Tests for the bounded JDBC connection pool using mocked physical connections.
+ */
+@DisplayName("ConnectionPool Tests")
+public class ConnectionPoolTest {
+
+    private AtomicInteger opened;
+    private Connection lastPhysical;
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void setUp() {
+        opened = new AtomicInteger();
+        pool = new ConnectionPool("test", this::newPhysicalConnection, 0, 2, 60_000, 60_000, 100, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    private Connection newPhysicalConnection() throws SQLException {
+        opened.incrementAndGet();
+        Connection connection = mock(Connection.class);
+        when(connection.isValid(anyInt())).thenReturn(true);
+        when(connection.getAutoCommit()).thenReturn(true);
+        when(connection.prepareStatement(anyString(), anyInt()))
+            .thenAnswer(invocation -> mock(PreparedStatement.class));
+        lastPhysical = connection;
+        return connection;
+    }
+
+    @Test
+    @DisplayName("Closing a borrowed connection returns it for reuse")
+    void testConnectionIsReused() throws SQLException {
+        Connection first = pool.borrow();
+        first.close();
+        Connection second = pool.borrow();
+        second.close();
+
+        assertEquals(1, opened.get());
+        assertEquals(2, pool.getStats().getBorrowCount());
+        assertEquals(1, pool.getStats().getIdleConnections());
+    }
+
+    @Test
+    @DisplayName("Returned connection cannot be used again by the old borrower")
+    void testClosedLeaseRejectsCalls() throws SQLException {
+        Connection connection = pool.borrow();
+        connection.close();
+
+        assertTrue(connection.isClosed());
+        assertThrows(SQLException.class, () -> connection.prepareStatement("SELECT 1"));
+    }
+
+    @Test
+    @DisplayName("Borrow times out when the pool is exhausted")
+    void testBorrowTimeout() throws SQLException {
+        Connection a = pool.borrow();
+        Connection b = pool.borrow();
+
+        assertThrows(SQLException.class, () -> pool.borrow());
+        assertEquals(1, pool.getStats().getBorrowTimeouts());
+
+        a.close();
+        b.close();
+    }
+
+    @Test
+    @DisplayName("Open transaction is rolled back when connection is returned")
+    void testTransactionResetOnReturn() throws SQLException {
+        Connection connection = pool.borrow();
+        Connection physical = lastPhysical;
+        when(physical.getAutoCommit()).thenReturn(false);
+
+        connection.close();
+
+        verify(physical).rollback();
+        verify(physical).setAutoCommit(true);
+    }
+
+    @Test
+    @DisplayName("Connections failing validation are replaced")
+    void testInvalidConnectionIsReplaced() throws Exception {
+        Connection connection = pool.borrow();
+        Connection physical = lastPhysical;
+        connection.close();
+
+        when(physical.isValid(anyInt())).thenReturn(false);
+        Thread.sleep(600); // past the validation bypass window
+
+        pool.borrow().close();
+
+        assertEquals(2, opened.get());
+        assertEquals(1, pool.getStats().getValidationFailures());
+        verify(physical).close();
+    }
+
+    @Test
+    @DisplayName("Same SQL on a reused connection hits the statement cache")
+    void testStatementCacheHit() throws SQLException {
+        String sql = "SELECT availableSeats FROM Shows WHERE showId = ?";
+
+        try (Connection connection = pool.borrow();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setInt(1, 1);
+        }
+        try (Connection connection = pool.borrow();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setInt(1, 2);
+        }
+
+        verify(lastPhysical, times(1)).prepareStatement(sql, java.sql.Statement.NO_GENERATED_KEYS);
+        assertEquals(1, pool.getStats().getStatementCacheHits());
+        assertEquals(1, pool.getStats().getStatementCacheMisses());
+    }
+
+    @Test
+    @DisplayName("Same SQL prepared twice in one lease gets distinct statements")
+    void testStatementInUseIsNotShared() throws SQLException {
+        String sql = "SELECT 1";
+
+        try (Connection connection = pool.borrow();
+             PreparedStatement first = connection.prepareStatement(sql);
+             PreparedStatement second = connection.prepareStatement(sql)) {
+            assertNotSame(first, second);
+        }
+    }
+
+    @Test
+    @DisplayName("Filling to the minimum never opens past the maximum")
+    void testFillRespectsMaxSize() throws Exception {
+        CountDownLatch opening = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ConnectionPool single = new ConnectionPool("fill", () -> {
+            opening.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return newPhysicalConnection();
+        }, 1, 1, 60_000, 60_000, 1_000, 4);
+        try {
+            // A borrower holds the only permit while its connection is still opening
+            CompletableFuture<Connection> borrowed = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return single.borrow();
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            assertTrue(opening.await(5, TimeUnit.SECONDS));
+
+            single.fillToMinimum();
+            release.countDown();
+            borrowed.get(5, TimeUnit.SECONDS).close();
+
+            assertEquals(1, opened.get());
+            assertEquals(1, single.getStats().getTotalConnections());
+        } finally {
+            release.countDown();
+            single.close();
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package sa.edu.kau.fcit.cpit252.project;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import sa.edu.kau.fcit.cpit252.project.model.Booking;
+import sa.edu.kau.fcit.cpit252.project.model.BookingCursor;
+import sa.edu.kau.fcit.cpit252.project.model.BookingPage;
+import sa.edu.kau.fcit.cpit252.project.model.BookingResult;
+import sa.edu.kau.fcit.cpit252.project.model.Show;
+import sa.edu.kau.fcit.cpit252.project.service.BookingService;
+import sa.edu.kau.fcit.cpit252.project.store.InMemoryBookingStore;
+import sa.edu.kau.fcit.cpit252.project.store.InMemoryMovieStore;
+import sa.edu.kau.fcit.cpit252.project.store.InMemoryShowStore;
+import sa.edu.kau.fcit.cpit252.project.store.SeatChanges;
+import sa.edu.kau.fcit.cpit252.project.store.SeatMap;
+
+/**
+ * Tests for the in-memory movie, show and booking stores.
+ */
+@DisplayName("In-Memory Store Tests")
+public class InMemoryStoreTest {
+
+    private InMemoryMovieStore movieStore;
+    private InMemoryShowStore showStore;
+    private BookingService bookingService;
+
+    @BeforeEach
+    void setUp() {
+        movieStore = InMemoryMovieStore.getInstance();
+        showStore = InMemoryShowStore.getInstance();
+        movieStore.clear();
+        showStore.clear();
+        InMemoryBookingStore.getInstance().clear();
+        bookingService = new BookingService(InMemoryBookingStore.getInstance());
+        movieStore.create("Inception", "Dreams within dreams", null);
+    }
+
+    private Booking booking(int tickets) {
+        return Booking.builder()
+            .userEmail("user@test.com")
+            .ticketType("regular")
+            .ticketQuantity(tickets)
+            .totalPrice(new BigDecimal("30.00").multiply(new BigDecimal(tickets)))
+            .build();
+    }
+
+    @Test
+    @DisplayName("Movie lookup by name is case-insensitive")
+    void testFindByNameIgnoresCase() {
+        assertNotNull(movieStore.findByName("INCEPTION"));
+        assertNull(movieStore.findByName("Unknown"));
+    }
+
+    @Test
+    @DisplayName("Description is only loaded by the details lookup")
+    void testDescriptionOnlyInDetails() {
+        int movieId = movieStore.findByName("Inception").getMovieId();
+
+        assertNull(movieStore.findById(movieId).getDescription());
+        assertNull(movieStore.findAll().get(0).getDescription());
+        assertEquals("Dreams within dreams", movieStore.findDetailsById(movieId).getDescription());
+    }
+
+    @Test
+    @DisplayName("Same movie, location and time resolve to one show")
+    void testGetOrCreateShowIsIdempotent() {
+        int first = showStore.getOrCreateShow(1, "Jeddah", "7:00 PM", "Standard Hall");
+        int second = showStore.getOrCreateShow(1, "Jeddah", "7:00 PM", "Standard Hall");
+
+        assertEquals(first, second);
+        assertEquals(InMemoryShowStore.DEFAULT_SEATS, showStore.getAvailableSeats(first));
+    }
+
+    @Test
+    @DisplayName("Seat count changes are published with their showId")
+    void testSeatChangesPublished() {
+        int showId = showStore.getOrCreateShow(1, "Jeddah", "7:00 PM", "Standard Hall");
+        List<Integer> changed = new ArrayList<>();
+        SeatChanges.Listener listener = changed::add;
+        SeatChanges.addListener(listener);
+        try {
+            assertTrue(showStore.reserveSeats(showId, 2));
+            assertFalse(showStore.reserveSeats(showId, InMemoryShowStore.DEFAULT_SEATS));
+            showStore.releaseSeats(showId, 2);
+        } finally {
+            SeatChanges.removeListener(listener);
+        }
+
+        // The failed reservation changed nothing and is not reported
+        assertEquals(List.of(showId, showId), changed);
+    }
+
+    @Test
+    @DisplayName("Bulk show lookups return seat counts without creating shows")
+    void testBulkShowLookups() {
+        int jeddah = showStore.getOrCreateShow(1, "Jeddah", "7:00 PM", "Standard Hall");
+        int riyadh = showStore.getOrCreateShow(1, "Riyadh", "9:00 PM", "Standard Hall");
+        showStore.reserveSeats(riyadh, 5);
+
+        List<Show> all = showStore.findByMovieName("INCEPTION", null);
+        List<Show> inRiyadh = showStore.findByMovieName("Inception", "Riyadh");
+        List<Show> byIds = showStore.findByIds(List.of(riyadh, 999, jeddah));
+
+        assertEquals(2, all.size());
+        assertEquals(1, inRiyadh.size());
+        assertEquals(InMemoryShowStore.DEFAULT_SEATS - 5, inRiyadh.get(0).getAvailableSeats());
+        assertEquals(List.of(jeddah, riyadh), byIds.stream().map(Show::getShowId).toList());
+        assertNull(showStore.findByMovieName("Unknown Movie", null));
+        assertTrue(showStore.findByMovieName("Inception", "Dammam").isEmpty());
+        assertEquals(2, showStore.findByMovie(1).size());
+    }
+
+    @Test
+    @DisplayName("Looking up a show does not create it")
+    void testFindShowIdDoesNotCreate() {
+        assertNull(showStore.findShowId(1, "Riyadh", "9:00 PM"));
+        assertNull(showStore.findShowId(1, "Riyadh", "9:00 PM"));
+        assertTrue(showStore.findByMovie(1).isEmpty());
+
+        int showId = showStore.getOrCreateShow(1, "Riyadh", "9:00 PM", "Standard Hall");
+
+        assertEquals(showId, showStore.findShowId(1, "Riyadh", "9:00 PM"));
+        assertEquals(showId, showStore.cachedShowId(1, "Riyadh", "9:00 PM"));
+    }
+
+    @Test
+    @DisplayName("Booking tickets reserves seats and stores the booking")
+    void testBookTickets() throws Exception {
+        BookingResult result = bookingService.bookTickets("inception", "Jeddah", "7:00 PM", "Standard Hall", booking(3));
+
+        assertTrue(result.isBooked());
+        assertEquals(InMemoryShowStore.DEFAULT_SEATS - 3, showStore.getAvailableSeats(result.getShowId()));
+        assertEquals(1, bookingService.getBookingsByUser("user@test.com").size());
+    }
+
+    @Test
+    @DisplayName("Unknown movie is reported without creating a show")
+    void testBookTicketsMovieNotFound() throws Exception {
+        BookingResult result = bookingService.bookTickets("Unknown", "Jeddah", "7:00 PM", "Standard Hall", booking(1));
+
+        assertEquals(BookingResult.Status.MOVIE_NOT_FOUND, result.getStatus());
+    }
+
+    @Test
+    @DisplayName("Booking more seats than available fails without changing the count")
+    void testNotEnoughSeats() throws Exception {
+        BookingResult result = bookingService.bookTickets("Inception", "Jeddah", "7:00 PM", "Standard Hall",
+            booking(InMemoryShowStore.DEFAULT_SEATS + 1));
+
+        assertEquals(BookingResult.Status.NOT_ENOUGH_SEATS, result.getStatus());
+        assertEquals(InMemoryShowStore.DEFAULT_SEATS, result.getAvailableSeats());
+    }
+
+    @Test
+    @DisplayName("Multi-seat reservation across bitmap words is all-or-nothing")
+    void testSeatMapReservationIsAllOrNothing() {
+        SeatMap seatMap = new SeatMap(100);
+        // G4 is seat 63 (last bit of the first word), G5 seat 64 (first bit of the second)
+        int[] straddling = SeatMap.parseLabels("G5,G4,A1");
+
+        assertTrue(seatMap.tryReserve(straddling));
+        assertFalse(seatMap.tryReserve(SeatMap.parseLabels("A2,G5")));
+        assertFalse(seatMap.isTaken(SeatMap.parseLabel("A2")), "Partial reservation must be rolled back");
+        assertEquals(List.of("A1", "G4", "G5"), seatMap.takenLabels());
+
+        seatMap.release(straddling);
+        assertEquals(0, seatMap.countTaken());
+        assertThrows(IllegalArgumentException.class, () -> SeatMap.parseLabels("A1,a1"));
+    }
+
+    @Test
+    @DisplayName("A seat can only be booked once")
+    void testBookSpecificSeats() throws Exception {
+        Booking first = booking(2);
+        first.setSeats(SeatMap.parseLabels("C3,C4"));
+        BookingResult booked = bookingService.bookTickets("Inception", "Jeddah", "7:00 PM", "Standard Hall", first);
+
+        Booking second = booking(2);
+        second.setSeats(SeatMap.parseLabels("C4,C5"));
+        BookingResult rejected = bookingService.bookTickets("Inception", "Jeddah", "7:00 PM", "Standard Hall", second);
+
+        assertTrue(booked.isBooked());
+        assertEquals(BookingResult.Status.SEATS_UNAVAILABLE, rejected.getStatus());
+        assertEquals(InMemoryShowStore.DEFAULT_SEATS - 2, showStore.getAvailableSeats(booked.getShowId()));
+        assertFalse(showStore.getSeatMap(booked.getShowId()).isTaken(SeatMap.parseLabel("C5")));
+    }
+
+    @Test
+    @DisplayName("A booking without a seat selection is given the lowest free seats")
+    void testSeatsAssignedWithoutSelection() throws Exception {
+        Booking picked = booking(2);
+        picked.setSeats(SeatMap.parseLabels("A1,A3"));
+        bookingService.bookTickets("Inception", "Jeddah", "7:00 PM", "Standard Hall", picked);
+
+        Booking any = booking(3);
+        BookingResult booked = bookingService.bookTickets("Inception", "Jeddah", "7:00 PM", "Standard Hall", any);
+        assertTrue(booked.isBooked());
+        assertEquals(List.of("A2", "A4", "A5"), SeatMap.labels(any.getSeats()));
+        assertArrayEquals(any.getSeats(), bookingService.getBookingById(booked.getBookingId()).getSeats());
+
+        Booking taken = booking(1);
+        taken.setSeats(SeatMap.parseLabels("A2"));
+        BookingResult rejected = bookingService.bookTickets("Inception", "Jeddah", "7:00 PM", "Standard Hall", taken);
+        assertEquals(BookingResult.Status.SEATS_UNAVAILABLE, rejected.getStatus());
+        assertEquals(5, showStore.getSeatMap(booked.getShowId()).countTaken());
+    }
+
+    @Test
+    @DisplayName("A retried booking with the same idempotency key books only once")
+    void testIdempotentRetry() throws Exception {
+        Booking first = booking(2);
+        first.setIdempotencyKey("retry-key-1");
+        Booking retry = booking(2);
+        retry.setIdempotencyKey("retry-key-1");
+
+        BookingResult booked = bookingService.bookTickets("Inception", "Jeddah", "7:00 PM", "Standard Hall", first);
+        BookingResult replayed = bookingService.bookTickets("Inception", "Jeddah", "7:00 PM", "Standard Hall", retry);
+
+        assertTrue(booked.isBooked());
+        assertFalse(booked.isReplayed());
+        assertTrue(replayed.isReplayed());
+        assertEquals(booked.getBookingId(), replayed.getBookingId());
+        assertEquals(InMemoryShowStore.DEFAULT_SEATS - 2, showStore.getAvailableSeats(booked.getShowId()));
+        assertEquals(1, bookingService.getBookingsByUser("user@test.com").size());
+    }
+
+    @Test
+    @DisplayName("A stored idempotency key reused for a different request is refused")
+    void testReusedIdempotencyKey() throws Exception {
+        Booking first = booking(2);
+        first.setIdempotencyKey("reused-key");
+        first.setRequestFingerprint("fingerprint-a");
+        Booking other = booking(3);
+        other.setIdempotencyKey("reused-key");
+        other.setRequestFingerprint("fingerprint-b");
+
+        BookingResult booked = bookingService.bookTickets("Inception", "Jeddah", "7:00 PM", "Standard Hall", first);
+        BookingResult refused = bookingService.bookTickets("Inception", "Jeddah", "7:00 PM", "Standard Hall", other);
+        BookingResult lookedUp = bookingService.findReplayAsync(other).get();
+
+        assertEquals(BookingResult.Status.KEY_REUSED, refused.getStatus());
+        assertEquals(BookingResult.Status.KEY_REUSED, lookedUp.getStatus());
+        assertEquals(InMemoryShowStore.DEFAULT_SEATS - 2, showStore.getAvailableSeats(booked.getShowId()));
+
+        // A genuine retry is answered with the stored booking
+        Booking retry = booking(2);
+        retry.setIdempotencyKey("reused-key");
+        retry.setRequestFingerprint("fingerprint-a");
+        BookingResult replayed = bookingService.findReplayAsync(retry).get();
+        assertTrue(replayed.isReplayed());
+        assertEquals(booked.getBookingId(), replayed.getBookingId());
+        assertEquals(2, replayed.getStoredBooking().getTicketQuantity());
+    }
+
+    @Test
+    @DisplayName("Keyset pages walk the whole history once, newest first")
+    void testBookingHistoryPagination() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            bookingService.bookTickets("Inception", "Jeddah", "7:00 PM", "Standard Hall", booking(1));
+        }
+
+        List<Integer> seen = new ArrayList<>();
+        BookingCursor cursor = null;
+        int pages = 0;
+        do {
+            BookingPage page = bookingService.getBookingsPage("user@test.com", cursor, 2);
+            page.getBookings().forEach(b -> seen.add(b.getBookingId()));
+            // Round-trip the cursor through its client-facing token
+            cursor = page.hasMore() ? BookingCursor.decode(page.getNextCursor().encode()) : null;
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(3, pages);
+        assertEquals(List.of(5, 4, 3, 2, 1), seen);
+
+        List<Integer> streamed = new ArrayList<>();
+        bookingService.streamBookingsByUser("user@test.com", b -> streamed.add(b.getBookingId()));
+        assertEquals(seen, streamed);
+    }
+
+    @Test
+    @DisplayName("Concurrent bookings never oversell a show")
+    void testConcurrentBookingsNeverOversell() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Callable<BookingResult>> tasks = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            tasks.add(() -> bookingService.bookTickets("Inception", "Riyadh", "10:30 PM", "Premium Hall", booking(2)));
+        }
+
+        int booked = 0;
+        int showId = -1;
+        for (Future<BookingResult> future : executor.invokeAll(tasks)) {
+            BookingResult result = future.get();
+            showId = result.getShowId();
+            if (result.isBooked()) {
+                booked++;
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(50, booked);
+        assertEquals(0, showStore.getAvailableSeats(showId));
+    }
+}
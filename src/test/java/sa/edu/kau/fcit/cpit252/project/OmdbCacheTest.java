@@ -0,0 +1,130 @@
+package sa.edu.kau.fcit.cpit252.project;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import sa.edu.kau.fcit.cpit252.project.service.OmdbCache;
+
+/**
+ * Tests for the OMDB response cache.
+ */
+@DisplayName("OMDB Cache Tests")
+public class OmdbCacheTest {
+
+    private static final String BODY = "{\"Title\":\"Inception\",\"Response\":\"True\"}";
+
+    private final AtomicLong now = new AtomicLong();
+
+    private void advanceMillis(long millis) {
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    @Test
+    @DisplayName("Keys ignore case and extra whitespace")
+    void testKeysAreNormalized() {
+        assertEquals(OmdbCache.key("s", "the matrix"), OmdbCache.key("s", "  The   Matrix "));
+        assertNotEquals(OmdbCache.key("s", "matrix"), OmdbCache.key("t", "matrix"));
+    }
+
+    @Test
+    @DisplayName("Entries expire after their kind's time to live")
+    void testSeparateTtls() {
+        OmdbCache cache = new OmdbCache(1024 * 1024, 50, 60_000, 0, now::get);
+        cache.put("s:inception", BODY, OmdbCache.Kind.SEARCH);
+        cache.put("i:tt1375666", BODY, OmdbCache.Kind.DETAIL);
+
+        advanceMillis(49);
+        assertEquals(BODY, cache.get("s:inception"));
+        advanceMillis(1);
+        assertNull(cache.get("s:inception"));
+        assertEquals(BODY, cache.get("i:tt1375666"));
+
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getExpirationCount());
+    }
+
+    @Test
+    @DisplayName("Expired entries stay available as stale until the stale limit")
+    void testStaleEntries() {
+        OmdbCache cache = new OmdbCache(1024 * 1024, 50, 60_000, 200, now::get);
+        cache.put("s:inception", BODY, OmdbCache.Kind.SEARCH);
+        assertEquals(BODY, cache.getStale("s:inception"));
+
+        advanceMillis(50);
+        assertNull(cache.get("s:inception"));
+        advanceMillis(199);
+        assertEquals(BODY, cache.getStale("s:inception"));
+        assertEquals(0, cache.getExpirationCount());
+
+        advanceMillis(1);
+        assertNull(cache.getStale("s:inception"));
+        assertNull(cache.get("s:inception"));
+        assertEquals(1, cache.getExpirationCount());
+        assertEquals(2, cache.getStaleHitCount());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    @DisplayName("A scan of one-off keys does not push out popular entries")
+    void testPopularEntriesSurviveScan() {
+        OmdbCache cache = new OmdbCache(8 * 1024, 60_000, 60_000);
+        String popular = "i:tt1375666";
+        cache.get(popular);
+        cache.put(popular, BODY, OmdbCache.Kind.DETAIL);
+
+        // Far more one-off keys between reads than fit, so plain LRU would drop it
+        int popularHits = 0;
+        for (int i = 0; i < 2_000; i++) {
+            String key = "s:scan" + i;
+            cache.get(key);
+            cache.put(key, BODY, OmdbCache.Kind.SEARCH);
+            if (i % 50 == 0 && cache.get(popular) != null) {
+                popularHits++;
+            }
+        }
+
+        assertEquals(40, popularHits);
+        assertTrue(cache.getRejectionCount() > 0);
+        assertTrue(cache.getWeight() <= cache.getMaxWeight());
+    }
+
+    @Test
+    @DisplayName("A rejected candidate does not evict the entries it lost against")
+    void testRejectedCandidateEvictsNothing() {
+        // Main region of 6144 bytes; A and B fill most of it, C needs both gone
+        OmdbCache cache = new OmdbCache(8 * 1024, 60_000, 60_000);
+        String a = "i:a";
+        String b = "i:b";
+        String c = "i:c";
+        cache.put(a, "a".repeat(1_400), OmdbCache.Kind.DETAIL);
+        cache.put(b, "b".repeat(1_400), OmdbCache.Kind.DETAIL);
+        for (int i = 0; i < 5; i++) {
+            cache.get(b);
+        }
+        cache.get(c);
+        cache.get(c);
+
+        // C beats the cold A but not the popular B, so neither is evicted
+        cache.put(c, "c".repeat(2_500), OmdbCache.Kind.DETAIL);
+        assertNull(cache.getStale(c));
+        assertNotNull(cache.getStale(a));
+        assertNotNull(cache.getStale(b));
+        assertEquals(1, cache.getRejectionCount());
+        assertEquals(0, cache.getEvictionCount());
+
+        // Once C is more popular than both, both make room for it
+        for (int i = 0; i < 10; i++) {
+            cache.get(c);
+        }
+        cache.put(c, "c".repeat(2_500), OmdbCache.Kind.DETAIL);
+        assertNotNull(cache.getStale(c));
+        assertEquals(1, cache.size());
+        assertEquals(2, cache.getEvictionCount());
+    }
+}
@@ -0,0 +1,96 @@
+package sa.edu.kau.fcit.cpit252.project;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import sa.edu.kau.fcit.cpit252.project.service.OmdbCircuitBreaker;
+
+/**
+ * Tests for the OMDB circuit breaker.
+ */
+@DisplayName("OMDB Circuit Breaker Tests")
+public class OmdbCircuitBreakerTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(2_000);
+
+    // Window of 10, opens at 50% failures or 80% slow calls (over 1s), 100ms open, 2 trials
+    private OmdbCircuitBreaker newBreaker() {
+        return new OmdbCircuitBreaker(10, 4, 50, 1_000, 80, 100, 2);
+    }
+
+    private void call(OmdbCircuitBreaker breaker, long duration, boolean failure) throws Exception {
+        breaker.acquire();
+        breaker.record(duration, failure);
+    }
+
+    @Test
+    @DisplayName("Opens on the failure rate and rejects calls while open")
+    void testOpensOnFailures() throws Exception {
+        OmdbCircuitBreaker breaker = newBreaker();
+        call(breaker, FAST, false);
+        call(breaker, FAST, true);
+        call(breaker, FAST, false);
+        assertEquals(OmdbCircuitBreaker.State.CLOSED, breaker.getState());
+
+        // 2 of 4 failed
+        call(breaker, FAST, true);
+        assertEquals(OmdbCircuitBreaker.State.OPEN, breaker.getState());
+        OmdbCircuitBreaker.OpenException rejected =
+            assertThrows(OmdbCircuitBreaker.OpenException.class, breaker::acquire);
+        assertTrue(rejected.getRetryAfterMillis() > 0 && rejected.getRetryAfterMillis() <= 100);
+        assertEquals(1, breaker.getOpenedCount());
+        assertEquals(1, breaker.getRejectedCount());
+    }
+
+    @Test
+    @DisplayName("Opens when most calls are slow")
+    void testOpensOnSlowCalls() throws Exception {
+        OmdbCircuitBreaker breaker = newBreaker();
+        for (int i = 0; i < 4; i++) {
+            call(breaker, SLOW, false);
+        }
+        assertEquals(OmdbCircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    @DisplayName("Closes after successful trials once the open time passes")
+    void testClosesAfterTrials() throws Exception {
+        OmdbCircuitBreaker breaker = newBreaker();
+        for (int i = 0; i < 4; i++) {
+            call(breaker, FAST, true);
+        }
+        Thread.sleep(150);
+        assertEquals(OmdbCircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        // Only the trial calls get through
+        breaker.acquire();
+        breaker.acquire();
+        assertThrows(OmdbCircuitBreaker.OpenException.class, breaker::acquire);
+        breaker.record(FAST, false);
+        breaker.record(FAST, false);
+
+        assertEquals(OmdbCircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.getFailurePercent());
+        call(breaker, FAST, false);
+    }
+
+    @Test
+    @DisplayName("A failed trial opens the breaker again")
+    void testFailedTrialReopens() throws Exception {
+        OmdbCircuitBreaker breaker = newBreaker();
+        for (int i = 0; i < 4; i++) {
+            call(breaker, FAST, true);
+        }
+        Thread.sleep(150);
+
+        call(breaker, SLOW, false);
+        assertEquals(OmdbCircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(2, breaker.getOpenedCount());
+        assertThrows(OmdbCircuitBreaker.OpenException.class, breaker::acquire);
+    }
+}
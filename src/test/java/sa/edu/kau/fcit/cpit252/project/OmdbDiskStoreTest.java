@@ -0,0 +1,117 @@
+package sa.edu.kau.fcit.cpit252.project;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import sa.edu.kau.fcit.cpit252.project.service.OmdbDiskStore;
+
+/**
+ * Tests for the on-disk OMDB response store.
+ */
+@DisplayName("OMDB Disk Store Tests")
+public class OmdbDiskStoreTest {
+
+    private static final String BODY = "{\"Title\":\"Inception\",\"Response\":\"True\"}";
+
+    @TempDir
+    Path dir;
+
+    private long inOneHour() {
+        return System.currentTimeMillis() + 3_600_000;
+    }
+
+    private Path dataFile() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(f -> f.toString().endsWith(".dat")).findFirst().orElseThrow();
+        }
+    }
+
+    @Test
+    @DisplayName("Responses survive a restart")
+    void testReopen() throws IOException {
+        try (OmdbDiskStore store = OmdbDiskStore.open(dir)) {
+            store.put("i:tt1375666", BODY, inOneHour());
+            store.put("s:matrix", "{\"Response\":\"False\"}", inOneHour());
+            assertNull(store.get("s:unknown"));
+        }
+
+        try (OmdbDiskStore store = OmdbDiskStore.open(dir)) {
+            assertEquals(2, store.size());
+            assertEquals(BODY, store.get("i:tt1375666").getBody());
+            assertEquals("{\"Response\":\"False\"}", store.get("s:matrix").getBody());
+        }
+    }
+
+    @Test
+    @DisplayName("Expired responses are not served and are dropped by compaction")
+    void testExpiryAndCompaction() throws IOException {
+        try (OmdbDiskStore store = OmdbDiskStore.open(dir)) {
+            for (int i = 0; i < 10; i++) {
+                store.put("i:tt1375666", BODY.replace("Inception", "Inception " + i), inOneHour());
+            }
+            store.put("s:old", BODY, System.currentTimeMillis() - 1);
+            assertNull(store.get("s:old"));
+            assertTrue(store.getLiveBytes() < store.getDataBytes());
+
+            store.compactIfWasteful();
+
+            assertEquals(1, store.getCompactionCount());
+            assertEquals(1, store.size());
+            assertEquals(store.getLiveBytes(), store.getDataBytes());
+            assertEquals(BODY.replace("Inception", "Inception 9"), store.get("i:tt1375666").getBody());
+        }
+
+        try (OmdbDiskStore store = OmdbDiskStore.open(dir)) {
+            assertEquals(1, store.getGeneration());
+            assertEquals(BODY.replace("Inception", "Inception 9"), store.get("i:tt1375666").getBody());
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(2, files.filter(f -> f.getFileName().toString().startsWith("omdb-")).count());
+        }
+    }
+
+    @Test
+    @DisplayName("A torn record left by a crash is cut off on open")
+    void testTornTail() throws IOException {
+        try (OmdbDiskStore store = OmdbDiskStore.open(dir)) {
+            store.put("i:tt1375666", BODY, inOneHour());
+        }
+        long intact = Files.size(dataFile());
+        Files.write(dataFile(), new byte[] { 0, 0, 0, 9, 0, 0 }, StandardOpenOption.APPEND);
+
+        try (OmdbDiskStore store = OmdbDiskStore.open(dir)) {
+            assertEquals(intact, Files.size(dataFile()));
+            assertEquals(BODY, store.get("i:tt1375666").getBody());
+            store.put("s:inception", BODY, inOneHour());
+            assertEquals(BODY, store.get("s:inception").getBody());
+        }
+    }
+
+    @Test
+    @DisplayName("A lost index is rebuilt from the data file")
+    void testIndexRebuilt() throws IOException {
+        try (OmdbDiskStore store = OmdbDiskStore.open(dir)) {
+            for (int i = 0; i < 5_000; i++) {
+                store.put("s:title" + i, BODY, inOneHour());
+            }
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            Path index = files.filter(f -> f.toString().endsWith(".idx")).findFirst().orElseThrow();
+            Files.write(index, new byte[64]);
+        }
+
+        try (OmdbDiskStore store = OmdbDiskStore.open(dir)) {
+            assertEquals(5_000, store.size());
+            assertEquals(BODY, store.get("s:title4321").getBody());
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package sa.edu.kau.fcit.cpit252.project;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import sa.edu.kau.fcit.cpit252.project.service.OmdbSingleFlight;
+
+/**
+ * Tests for sharing concurrent identical OMDB calls.
+ */
+@DisplayName("OMDB Single Flight Tests")
+public class OmdbSingleFlightTest {
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    private List<Future<String>> runConcurrently(OmdbSingleFlight flights, CountDownLatch started,
+            OmdbSingleFlight.Call call) throws InterruptedException {
+        List<Future<String>> results = new ArrayList<>();
+        results.add(pool.submit(() -> flights.execute("s:inception", call)));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 7; i++) {
+            results.add(pool.submit(() -> flights.execute("s:inception", call)));
+        }
+        // Followers must be queued on the flight before it finishes
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (flights.getJoinedCount() < 7 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        return results;
+    }
+
+    @Test
+    @DisplayName("Concurrent callers share one call and its result")
+    void testCallersShareResult() throws Exception {
+        OmdbSingleFlight flights = new OmdbSingleFlight(5_000);
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = runConcurrently(flights, started, () -> {
+            calls.incrementAndGet();
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            return "{\"Response\":\"True\"}";
+        });
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertEquals("{\"Response\":\"True\"}", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, calls.get());
+        assertEquals(1, flights.getCallCount());
+        assertEquals(7, flights.getJoinedCount());
+        assertEquals(0, flights.getInFlightCount());
+    }
+
+    @Test
+    @DisplayName("Followers get the call's error")
+    void testCallersShareError() throws Exception {
+        OmdbSingleFlight flights = new OmdbSingleFlight(5_000);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = runConcurrently(flights, started, () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            throw new IOException("Unexpected response code: 503");
+        });
+        release.countDown();
+
+        for (Future<String> result : results) {
+            Exception error = assertThrows(Exception.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IOException.class, error.getCause());
+            assertTrue(error.getCause().getMessage().contains("503"));
+        }
+    }
+
+    @Test
+    @DisplayName("Followers stop waiting at the flight's deadline")
+    void testFollowersTimeOut() throws Exception {
+        OmdbSingleFlight flights = new OmdbSingleFlight(300);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = runConcurrently(flights, started, () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            return "late";
+        });
+
+        for (Future<String> follower : results.subList(1, results.size())) {
+            Exception error = assertThrows(Exception.class, () -> follower.get(5, TimeUnit.SECONDS));
+            assertTrue(error.getCause().getMessage().contains("Timed out"));
+        }
+        assertEquals(7, flights.getTimeoutCount());
+
+        // Past the deadline a new caller makes its own call
+        assertEquals("fresh", flights.execute("s:inception", () -> "fresh"));
+        release.countDown();
+        assertEquals("late", results.get(0).get(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,92 @@
+package sa.edu.kau.fcit.cpit252.project;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import sa.edu.kau.fcit.cpit252.project.store.QueryMetrics;
+
+/**
+ * Tests for per-statement JDBC metrics using mocked connections.
+ */
+@DisplayName("QueryMetrics Tests")
+public class QueryMetricsTest {
+
+    private QueryMetrics metrics;
+    private Connection connection;
+    private PreparedStatement statement;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        metrics = QueryMetrics.getInstance();
+        metrics.reset();
+        statement = mock(PreparedStatement.class);
+        connection = mock(Connection.class);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+    }
+
+    private QueryMetrics.StatementStats only() {
+        List<QueryMetrics.StatementStats> stats = metrics.snapshot();
+        assertEquals(1, stats.size());
+        return stats.get(0);
+    }
+
+    @Test
+    @DisplayName("Update counts are recorded per normalized statement")
+    void testUpdateIsRecorded() throws SQLException {
+        when(statement.executeUpdate()).thenReturn(2);
+        Connection instrumented = metrics.instrument(connection);
+
+        try (PreparedStatement stmt = instrumented.prepareStatement("UPDATE Shows  SET availableSeats = 100\n WHERE showId = ?")) {
+            stmt.setInt(1, 7);
+            assertEquals(2, stmt.executeUpdate());
+            assertEquals(2, stmt.executeUpdate());
+        }
+
+        QueryMetrics.StatementStats stats = only();
+        assertEquals("UPDATE Shows SET availableSeats = ? WHERE showId = ?", stats.getSql());
+        assertEquals(2, stats.getExecutions());
+        assertEquals(4, stats.getRows());
+        assertEquals(0, stats.getErrors());
+        assertEquals(2, Arrays.stream(stats.getHistogram()).sum());
+    }
+
+    @Test
+    @DisplayName("Rows read from a query are counted")
+    void testQueryRowsAreCounted() throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.next()).thenReturn(true, true, true, false);
+        when(statement.executeQuery()).thenReturn(rs);
+
+        try (PreparedStatement stmt = metrics.instrument(connection).prepareStatement("SELECT showId FROM Shows");
+             ResultSet results = stmt.executeQuery()) {
+            while (results.next()) {
+                // drain
+            }
+        }
+
+        assertEquals(3, only().getRows());
+    }
+
+    @Test
+    @DisplayName("Failed executions count as errors and are rethrown")
+    void testErrorsAreCounted() throws SQLException {
+        when(statement.executeUpdate()).thenThrow(new SQLException("boom"));
+
+        PreparedStatement stmt = metrics.instrument(connection).prepareStatement("DELETE FROM Shows");
+        assertThrows(SQLException.class, stmt::executeUpdate);
+
+        assertEquals(1, only().getErrors());
+    }
+}
@@ -0,0 +1,88 @@
+package sa.edu.kau.fcit.cpit252.project;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import sa.edu.kau.fcit.cpit252.project.store.DatabaseExecutor;
+import sa.edu.kau.fcit.cpit252.project.store.SeatCountLoader;
+
+/**
+ * Tests for batching concurrent seat count lookups.
+ */
+@DisplayName("Seat Count Loader Tests")
+public class SeatCountLoaderTest {
+
+    private final List<List<Integer>> queries = Collections.synchronizedList(new ArrayList<>());
+
+    private Map<Integer, Integer> seatsPerShow(List<Integer> showIds) {
+        queries.add(showIds);
+        Map<Integer, Integer> seats = new HashMap<>();
+        for (Integer showId : showIds) {
+            if (showId > 0) {
+                seats.put(showId, showId * 10);
+            }
+        }
+        return seats;
+    }
+
+    @Test
+    @DisplayName("Lookups in one window share one query")
+    void testLookupsMergedIntoOneQuery() {
+        SeatCountLoader loader = new SeatCountLoader(this::seatsPerShow, DatabaseExecutor.getInstance(), 50, 100);
+
+        CompletableFuture<Integer> first = loader.load(1);
+        CompletableFuture<Integer> second = loader.load(2);
+        CompletableFuture<Integer> again = loader.load(1);
+        CompletableFuture<Integer> unknown = loader.load(-5);
+
+        assertSame(first, again);
+        assertEquals(10, first.join());
+        assertEquals(20, second.join());
+        assertEquals(0, unknown.join());
+        assertEquals(1, queries.size());
+        assertEquals(3, queries.get(0).size());
+        assertEquals(4, loader.getRequestCount());
+        assertEquals(1, loader.getMergedCount());
+        assertEquals(1, loader.getBatchCount());
+    }
+
+    @Test
+    @DisplayName("A full batch is sent without waiting out the window")
+    void testFullBatchSentAtOnce() {
+        SeatCountLoader loader = new SeatCountLoader(this::seatsPerShow, DatabaseExecutor.getInstance(), 60_000, 2);
+
+        CompletableFuture<Integer> first = loader.load(1);
+        CompletableFuture<Integer> second = loader.load(2);
+
+        assertEquals(10, first.join());
+        assertEquals(20, second.join());
+        assertEquals(1, loader.getFullBatchCount());
+        assertEquals(2, loader.getLargestBatch());
+    }
+
+    @Test
+    @DisplayName("A failed query fails every waiter")
+    void testFailureReachesEveryWaiter() {
+        SeatCountLoader loader = new SeatCountLoader(showIds -> {
+            throw new SQLException("replica down");
+        }, DatabaseExecutor.getInstance(), 10, 100);
+
+        CompletableFuture<Integer> first = loader.load(1);
+        CompletableFuture<Integer> second = loader.load(2);
+
+        CompletionException error = assertThrows(CompletionException.class, first::join);
+        assertInstanceOf(SQLException.class, error.getCause());
+        assertThrows(CompletionException.class, second::join);
+    }
+}
@@ -0,0 +1,217 @@
+package sa.edu.kau.fcit.cpit252.project;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import sa.edu.kau.fcit.cpit252.project.model.Booking;
+import sa.edu.kau.fcit.cpit252.project.model.BookingResult;
+import sa.edu.kau.fcit.cpit252.project.model.SeatHold;
+import sa.edu.kau.fcit.cpit252.project.service.BookingService;
+import sa.edu.kau.fcit.cpit252.project.service.SeatHolds;
+import sa.edu.kau.fcit.cpit252.project.service.ShowService;
+import sa.edu.kau.fcit.cpit252.project.service.TimingWheel;
+import sa.edu.kau.fcit.cpit252.project.store.InMemoryBookingStore;
+import sa.edu.kau.fcit.cpit252.project.store.InMemorySeatHoldStore;
+import sa.edu.kau.fcit.cpit252.project.store.InMemoryShowStore;
+import sa.edu.kau.fcit.cpit252.project.store.SeatHoldStore;
+
+/**
+ * Tests for seat holds and the timing wheel that expires them.
+ */
+@DisplayName("Seat Hold Tests")
+public class SeatHoldTest {
+
+    private InMemoryShowStore showStore;
+    private ShowService showService;
+    private BookingService bookingService;
+    private int showId;
+
+    @BeforeEach
+    void setUp() {
+        showStore = InMemoryShowStore.getInstance();
+        showStore.clear();
+        InMemoryBookingStore.getInstance().clear();
+        showService = new ShowService(showStore);
+        bookingService = new BookingService(InMemoryBookingStore.getInstance());
+        showId = showStore.getOrCreateShow(1, "Jeddah", "7:00 PM", "Standard Hall");
+    }
+
+    private Booking booking(int tickets) {
+        return Booking.builder()
+            .userEmail("user@test.com")
+            .ticketType("regular")
+            .ticketQuantity(tickets)
+            .totalPrice(new BigDecimal("30.00").multiply(new BigDecimal(tickets)))
+            .build();
+    }
+
+    @Test
+    @DisplayName("Timing wheel expires entries on their tick across all levels")
+    void testTimingWheelExpiresOnTime() {
+        TimingWheel<Long> wheel = new TimingWheel<>(10, 0);
+        // Level 0, level 1, level 2 and level 3 deadlines, plus one cancelled entry
+        long[] deadlines = { 30, 1_250, 85_000, 3_000_000 };
+        for (long deadline : deadlines) {
+            wheel.schedule(deadline, deadline);
+        }
+        TimingWheel.Timeout<Long> cancelled = wheel.schedule(-1L, 500);
+        assertTrue(wheel.cancel(cancelled));
+        assertFalse(wheel.cancel(cancelled));
+
+        List<Long> expiredAt = new ArrayList<>();
+        for (long now = 0; now <= 3_000_000; now += 10) {
+            for (Long deadline : wheel.advanceTo(now)) {
+                assertEquals((long) deadline, now, "Entry expired early or late");
+                expiredAt.add(deadline);
+            }
+        }
+
+        assertEquals(List.of(30L, 1_250L, 85_000L, 3_000_000L), expiredAt);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    @DisplayName("A hold takes seats until it is released")
+    void testHoldAndRelease() throws Exception {
+        SeatHold hold = showService.holdSeats(showId, 4, 60);
+
+        assertNotNull(hold);
+        assertEquals(InMemoryShowStore.DEFAULT_SEATS - 4, showStore.getAvailableSeats(showId));
+        assertNull(showService.holdSeats(showId, InMemoryShowStore.DEFAULT_SEATS, 60));
+
+        assertTrue(showService.releaseHold(hold.getToken()));
+        assertFalse(showService.releaseHold(hold.getToken()));
+        assertEquals(InMemoryShowStore.DEFAULT_SEATS, showStore.getAvailableSeats(showId));
+    }
+
+    @Test
+    @DisplayName("Confirming a hold books its seats exactly once")
+    void testConfirmHold() throws Exception {
+        SeatHold hold = showService.holdSeats(showId, 2, 60);
+
+        BookingResult result = showService.confirmHold(hold.getToken(), h -> bookingService.bookHeldSeats(h, booking(2)));
+        BookingResult again = showService.confirmHold(hold.getToken(), h -> bookingService.bookHeldSeats(h, booking(2)));
+
+        assertTrue(result.isBooked());
+        assertEquals(showId, result.getShowId());
+        assertNull(again);
+        assertEquals(InMemoryShowStore.DEFAULT_SEATS - 2, showStore.getAvailableSeats(showId));
+        assertEquals(1, bookingService.getBookingsByUser("user@test.com").size());
+        // Held seats are assigned on confirmation
+        assertArrayEquals(new int[] { 0, 1 }, bookingService.getBookingById(result.getBookingId()).getSeats());
+        assertEquals(2, showStore.getSeatMap(showId).countTaken());
+    }
+
+    @Test
+    @DisplayName("Confirming with an idempotency key already used replays and gives the hold back")
+    void testConfirmHoldReplay() throws Exception {
+        Booking first = booking(2);
+        first.setIdempotencyKey("hold-key-1");
+        Booking retry = booking(2);
+        retry.setIdempotencyKey("hold-key-1");
+
+        SeatHold hold = showService.holdSeats(showId, 2, 60);
+        BookingResult booked = showService.confirmHold(hold.getToken(), h -> bookingService.bookHeldSeats(h, first));
+        assertNull(bookingService.findReplayAsync(booking(2)).get());
+        assertEquals(booked.getBookingId(), bookingService.findReplayAsync(retry).get().getBookingId());
+
+        // A retry that raced past the lookup with a second hold
+        SeatHold second = showService.holdSeats(showId, 2, 60);
+        BookingResult replayed = showService.confirmHold(second.getToken(), h -> bookingService.bookHeldSeats(h, retry));
+
+        assertTrue(replayed.isReplayed());
+        assertEquals(booked.getBookingId(), replayed.getBookingId());
+        assertEquals(InMemoryShowStore.DEFAULT_SEATS - 2, showStore.getAvailableSeats(showId));
+        assertEquals(2, showStore.getSeatMap(showId).countTaken());
+        assertEquals(1, bookingService.getBookingsByUser("user@test.com").size());
+    }
+
+    @Test
+    @DisplayName("A failed confirmation keeps the hold so it can be retried")
+    void testFailedConfirmKeepsHold() throws Exception {
+        SeatHold hold = showService.holdSeats(showId, 2, 60);
+        assertSame(hold, showService.peekHold(hold.getToken()));
+
+        assertThrows(IllegalArgumentException.class,
+            () -> showService.confirmHold(hold.getToken(), h -> bookingService.bookHeldSeats(h, booking(3))));
+        assertThrows(SQLException.class,
+            () -> showService.confirmHold(hold.getToken(), h -> {
+                throw new SQLException("Deadlock victim");
+            }));
+        assertSame(hold, showService.peekHold(hold.getToken()));
+        assertEquals(InMemoryShowStore.DEFAULT_SEATS - 2, showStore.getAvailableSeats(showId));
+
+        BookingResult result = showService.confirmHold(hold.getToken(), h -> bookingService.bookHeldSeats(h, booking(2)));
+        assertTrue(result.isBooked());
+        assertNull(showService.peekHold(hold.getToken()));
+        assertEquals(InMemoryShowStore.DEFAULT_SEATS - 2, showStore.getAvailableSeats(showId));
+    }
+
+    @Test
+    @DisplayName("Holds recorded by a previous run are expired or picked up again")
+    void testRecoveredHolds() throws Exception {
+        long now = System.currentTimeMillis();
+        SeatHold lapsed = new SeatHold("lapsed", showId, 3, now - 1_000);
+        SeatHold active = new SeatHold("active", showId, 2, now + 60_000);
+        // Seats of both holds are still taken, as after a restart
+        assertTrue(showStore.reserveSeats(showId, 5));
+        List<SeatHold> released = new ArrayList<>();
+
+        SeatHoldStore recorded = new SeatHoldStore() {
+            private final SeatHoldStore seats = new InMemorySeatHoldStore(showStore);
+
+            @Override
+            public boolean hold(SeatHold hold) throws SQLException {
+                return seats.hold(hold);
+            }
+
+            @Override
+            public boolean release(SeatHold hold) throws SQLException {
+                released.add(hold);
+                return seats.release(hold);
+            }
+
+            @Override
+            public List<SeatHold> findAll() {
+                return List.of(lapsed, active);
+            }
+        };
+        SeatHolds holds = new SeatHolds(recorded);
+        ShowService restarted = new ShowService(showStore, holds);
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (holds.getRecoveredCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(1, holds.getRecoveredCount());
+        assertEquals(List.of(lapsed), released);
+        assertEquals(InMemoryShowStore.DEFAULT_SEATS - 2, showStore.getAvailableSeats(showId));
+
+        BookingResult result = restarted.confirmHold("active", h -> bookingService.bookHeldSeats(h, booking(2)));
+        assertTrue(result.isBooked());
+        assertEquals(InMemoryShowStore.DEFAULT_SEATS - 2, showStore.getAvailableSeats(showId));
+    }
+
+    @Test
+    @DisplayName("An expired hold gives its seats back and cannot be confirmed")
+    void testHoldExpires() throws Exception {
+        SeatHold hold = showService.holdSeats(showId, 5, 1);
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (showStore.getAvailableSeats(showId) != InMemoryShowStore.DEFAULT_SEATS
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+
+        assertEquals(InMemoryShowStore.DEFAULT_SEATS, showStore.getAvailableSeats(showId));
+        assertNull(showService.confirmHold(hold.getToken(), h -> bookingService.bookHeldSeats(h, booking(5))));
+    }
+}
@@ -0,0 +1,111 @@
+package sa.edu.kau.fcit.cpit252.project;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import sa.edu.kau.fcit.cpit252.project.model.QueuePosition;
+import sa.edu.kau.fcit.cpit252.project.service.WaitingRoom;
+
+/**
+ * Tests for the waiting room that admits users to high-demand on-sales.
+ */
+@DisplayName("Waiting Room Tests")
+public class WaitingRoomTest {
+
+    private WaitingRoom waitingRoom;
+
+    @BeforeEach
+    void setUp() {
+        waitingRoom = new WaitingRoom("test-secret".getBytes(StandardCharsets.UTF_8), 10, 60);
+        waitingRoom.open("Inception");
+    }
+
+    private QueuePosition waitUntilAdmitted(QueuePosition position, String userEmail) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!position.isAdmitted() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            position = waitingRoom.poll(position.getQueueToken(), userEmail);
+        }
+        return position;
+    }
+
+    @Test
+    @DisplayName("Movies without an open waiting room need no admission")
+    void testClosedRoomAdmitsEveryone() {
+        assertFalse(waitingRoom.isActive("Interstellar"));
+        assertNull(waitingRoom.join("Interstellar", "user@test.com"));
+        assertTrue(waitingRoom.isAdmitted("Interstellar", "user@test.com", null));
+
+        assertTrue(waitingRoom.isActive(" inception "));
+        assertFalse(waitingRoom.isAdmitted("Inception", "user@test.com", null));
+    }
+
+    @Test
+    @DisplayName("Users are admitted in queue order at the configured rate")
+    void testAdmittedInOrder() throws Exception {
+        QueuePosition first = waitingRoom.join("Inception", "a@test.com");
+        QueuePosition last = null;
+        for (int i = 0; i < 20; i++) {
+            last = waitingRoom.join("Inception", "b" + i + "@test.com");
+        }
+
+        assertEquals(1, first.getPosition());
+        assertEquals(21, last.getPosition());
+        assertFalse(last.isAdmitted());
+        assertTrue(last.getEstimatedWaitSeconds() >= 1);
+
+        first = waitUntilAdmitted(first, "a@test.com");
+        assertTrue(first.isAdmitted());
+        // 10 per second cannot have reached position 21 yet
+        assertFalse(waitingRoom.poll(last.getQueueToken(), "b19@test.com").isAdmitted());
+        assertTrue(waitingRoom.isAdmitted("Inception", "a@test.com", first.getAdmissionToken()));
+    }
+
+    @Test
+    @DisplayName("Joining again keeps the user's place instead of taking a new one")
+    void testRejoinKeepsPosition() {
+        QueuePosition first = waitingRoom.join("Inception", "a@test.com");
+        waitingRoom.join("Inception", "b@test.com");
+        QueuePosition again = waitingRoom.join(" inception", "a@test.com");
+
+        assertEquals(first.getPosition(), again.getPosition());
+        assertEquals(2, waitingRoom.join("Inception", "b@test.com").getPosition());
+        assertEquals(3, waitingRoom.join("Inception", "c@test.com").getPosition());
+        assertNotNull(waitingRoom.poll(again.getQueueToken(), "a@test.com"));
+
+        // A reopened room starts a new queue
+        waitingRoom.close("Inception");
+        waitingRoom.open("Inception");
+        assertEquals(1, waitingRoom.join("Inception", "c@test.com").getPosition());
+    }
+
+    @Test
+    @DisplayName("Forged, borrowed or misused tokens are rejected")
+    void testTokensCannotBeBypassed() throws Exception {
+        QueuePosition position = waitUntilAdmitted(waitingRoom.join("Inception", "a@test.com"), "a@test.com");
+        String admission = position.getAdmissionToken();
+        waitingRoom.open("Tenet");
+
+        assertFalse(waitingRoom.isAdmitted("Inception", "b@test.com", admission));
+        assertFalse(waitingRoom.isAdmitted("Tenet", "a@test.com", admission));
+        assertFalse(waitingRoom.isAdmitted("Inception", "a@test.com", position.getQueueToken()));
+        assertFalse(waitingRoom.isAdmitted("Inception", "a@test.com", admission.substring(0, admission.length() - 2) + "AA"));
+        assertFalse(waitingRoom.isAdmitted("Inception", "a@test.com", "not-a-token"));
+        assertNull(waitingRoom.poll(position.getQueueToken(), "b@test.com"));
+
+        WaitingRoom otherServer = new WaitingRoom("other-secret".getBytes(StandardCharsets.UTF_8), 10, 60);
+        otherServer.open("Inception");
+        assertFalse(otherServer.isAdmitted("Inception", "a@test.com", admission));
+
+        // Reopening the room invalidates the old queue
+        waitingRoom.close("Inception");
+        waitingRoom.open("Inception");
+        assertFalse(waitingRoom.isAdmitted("Inception", "a@test.com", admission));
+        assertNull(waitingRoom.poll(position.getQueueToken(), "a@test.com"));
+    }
+}
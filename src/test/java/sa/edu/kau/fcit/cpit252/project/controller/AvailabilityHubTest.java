@@ -0,0 +1,107 @@
+package sa.edu.kau.fcit.cpit252.project.controller;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.WriteListener;
+import sa.edu.kau.fcit.cpit252.project.service.ShowService;
+import sa.edu.kau.fcit.cpit252.project.store.InMemoryShowStore;
+
+/**
+ * Tests for the availability stream hub using the in-memory show store and
+ * a mocked servlet output stream.
+ */
+@DisplayName("Availability Hub Tests")
+public class AvailabilityHubTest {
+
+    private static final int UPDATES_PER_SECOND = 5;
+
+    private InMemoryShowStore showStore;
+    private AvailabilityHub hub;
+    private int showId;
+    // Every chunk written to the stream
+    private final List<String> written = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        showStore = InMemoryShowStore.getInstance();
+        showStore.clear();
+        showId = showStore.getOrCreateShow(1, "Jeddah", "7:00 PM", "Standard Hall");
+        hub = new AvailabilityHub(new ShowService(showStore), UPDATES_PER_SECOND);
+    }
+
+    @AfterEach
+    void tearDown() {
+        hub.close();
+    }
+
+    private AsyncContext stream() throws IOException {
+        ServletOutputStream out = mock(ServletOutputStream.class);
+        when(out.isReady()).thenReturn(true);
+        doAnswer(invocation -> {
+            written.add(new String((byte[]) invocation.getArgument(0), StandardCharsets.UTF_8));
+            return null;
+        }).when(out).write(any(byte[].class));
+        doAnswer(invocation -> {
+            ((WriteListener) invocation.getArgument(0)).onWritePossible();
+            return null;
+        }).when(out).setWriteListener(any());
+
+        ServletResponse response = mock(ServletResponse.class);
+        when(response.getOutputStream()).thenReturn(out);
+        AsyncContext async = mock(AsyncContext.class);
+        when(async.getResponse()).thenReturn(response);
+        return async;
+    }
+
+    @Test
+    @DisplayName("Many seat changes are coalesced into at most one event per tick")
+    void testEventsCoalesced() throws Exception {
+        assertTrue(hub.tryAcquire());
+        hub.subscribe(stream(), showId, showStore.getAvailableSeats(showId));
+        assertEquals(1, written.size(), "The current count is sent on subscribe");
+
+        long start = System.nanoTime();
+        int changes = 0;
+        while (System.nanoTime() - start < 1_000_000_000L && showStore.reserveSeats(showId, 1)) {
+            changes++;
+            Thread.sleep(5);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        int finalSeats = showStore.getAvailableSeats(showId);
+
+        // The last change reaches the client once the next ticks run
+        String last = "\"availableSeats\":" + finalSeats + ",";
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!written.get(written.size() - 1).contains(last) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(written.get(written.size() - 1).contains(last), "Final count was streamed");
+
+        // One tick per 1/N seconds, plus the ticks that delivered the last change
+        long bound = (long) Math.ceil(seconds * UPDATES_PER_SECOND) + 2;
+        assertTrue(changes > 2 * bound, "Test made " + changes + " changes");
+        assertTrue(hub.getEventCount() <= bound,
+            hub.getEventCount() + " events for " + changes + " changes in " + seconds + " s");
+        assertEquals(hub.getEventCount(), written.size() - 1);
+
+        // At most one count query per tick, not one per change
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        assertTrue(hub.getReadCount() <= Math.ceil(elapsed * UPDATES_PER_SECOND) + 1,
+            hub.getReadCount() + " reads in " + elapsed + " s");
+    }
+}
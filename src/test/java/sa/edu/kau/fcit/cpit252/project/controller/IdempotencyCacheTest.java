@@ -0,0 +1,144 @@
+package sa.edu.kau.fcit.cpit252.project.controller;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the Idempotency-Key result cache using a manual clock.
+ */
+@DisplayName("Idempotency Cache Tests")
+public class IdempotencyCacheTest {
+
+    private static final long TTL_SECONDS = 60;
+
+    private final AtomicLong now = new AtomicLong();
+    private IdempotencyCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new IdempotencyCache(100, TTL_SECONDS, now::get);
+    }
+
+    private void advanceSeconds(long seconds) {
+        now.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+    }
+
+    @Test
+    @DisplayName("Concurrent duplicates get one owner and wait for its response")
+    void testDuplicatesWaitForFirstAttempt() throws Exception {
+        int callers = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<IdempotencyCache.Claim>> claims = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                claims.add(pool.submit(() -> {
+                    start.await();
+                    return cache.claim("user@test.com\nkey-1", "fp");
+                }));
+            }
+            start.countDown();
+
+            IdempotencyCache.Claim owner = null;
+            List<IdempotencyCache.Claim> duplicates = new ArrayList<>();
+            for (Future<IdempotencyCache.Claim> claim : claims) {
+                IdempotencyCache.Claim c = claim.get(5, TimeUnit.SECONDS);
+                if (c.isOwner()) {
+                    assertNull(owner, "Only one caller owns the key");
+                    owner = c;
+                } else {
+                    duplicates.add(c);
+                }
+            }
+            assertNotNull(owner);
+            assertEquals(callers - 1, duplicates.size());
+            for (IdempotencyCache.Claim duplicate : duplicates) {
+                assertFalse(duplicate.result().isDone(), "Duplicates wait while the first attempt runs");
+            }
+
+            owner.complete(200, Map.of("bookingId", 7));
+            for (IdempotencyCache.Claim duplicate : duplicates) {
+                IdempotencyCache.Result result = duplicate.result().get(5, TimeUnit.SECONDS);
+                assertEquals(200, result.status);
+                assertEquals(7, result.body.get("bookingId"));
+            }
+            assertEquals(1, cache.getMissCount());
+            assertEquals(callers - 1, cache.getHitCount());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("A key reused with different parameters is reported as a mismatch")
+    void testFingerprintMismatch() {
+        assertTrue(cache.claim("k", IdempotencyCache.fingerprint("Inception", "2")).isOwner());
+        IdempotencyCache.Claim other = cache.claim("k", IdempotencyCache.fingerprint("Inception", "3"));
+        assertFalse(other.isOwner());
+        assertTrue(other.isMismatch(IdempotencyCache.fingerprint("Inception", "3")));
+        assertFalse(other.isMismatch(IdempotencyCache.fingerprint("Inception", "2")));
+        assertEquals(64, IdempotencyCache.fingerprint("Inception", "2").length());
+    }
+
+    @Test
+    @DisplayName("An abandoned attempt fails its duplicates and frees the key for a retry")
+    void testAbandonDropsKey() {
+        IdempotencyCache.Claim owner = cache.claim("k", "fp");
+        IdempotencyCache.Claim duplicate = cache.claim("k", "fp");
+        SQLException failure = new SQLException("Deadlock victim");
+
+        owner.abandon(failure);
+
+        CompletableFuture<IdempotencyCache.Result> waited = duplicate.result();
+        ExecutionException error = assertThrows(ExecutionException.class, waited::get);
+        assertSame(failure, error.getCause());
+        assertNull(cache.find("k"));
+        assertTrue(cache.claim("k", "fp").isOwner(), "The next retry runs normally");
+    }
+
+    @Test
+    @DisplayName("Entries expire after the time to live")
+    void testEntriesExpire() {
+        cache.claim("k", "fp").complete(200, Map.of());
+        advanceSeconds(TTL_SECONDS - 1);
+        assertNotNull(cache.find("k"));
+        assertFalse(cache.claim("k", "fp").isOwner());
+
+        advanceSeconds(1);
+        assertNull(cache.find("k"));
+        assertTrue(cache.claim("k", "fp").isOwner());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    @DisplayName("The oldest entries are dropped beyond the size bound")
+    void testSizeBound() {
+        IdempotencyCache small = new IdempotencyCache(3, TTL_SECONDS, now::get);
+        for (int i = 1; i <= 5; i++) {
+            assertTrue(small.claim("k" + i, "fp").isOwner());
+            assertTrue(small.size() <= 3);
+        }
+
+        assertNull(small.find("k1"));
+        assertNull(small.find("k2"));
+        assertNotNull(small.find("k3"));
+        assertNotNull(small.find("k5"));
+        assertEquals(3, small.size());
+    }
+}
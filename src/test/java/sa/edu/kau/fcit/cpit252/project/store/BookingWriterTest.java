@@ -0,0 +1,246 @@
+package sa.edu.kau.fcit.cpit252.project.store;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import sa.edu.kau.fcit.cpit252.project.model.Booking;
+
+/**
+ * Tests for the group-commit booking writer using a mocked show store and
+ * mocked JDBC statements.
+ */
+@DisplayName("Booking Writer Tests")
+public class BookingWriterTest {
+
+    private static final int SHOW_ID = 7;
+    private static final String MERGE_ROW = "(?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private JdbcShowStore showStore;
+    private SeatMap seatMap;
+    private Connection connection;
+    private BookingWriter writer;
+    // userEmails of every MERGE executed, one list per statement
+    private final List<List<String>> merges = new ArrayList<>();
+    private Predicate<List<String>> failMerge = emails -> false;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        seatMap = new SeatMap(100);
+        showStore = mock(JdbcShowStore.class);
+        when(showStore.getSeatMap(any(Connection.class), anyInt())).thenReturn(seatMap);
+        when(showStore.reserveSeats(any(Connection.class), any(int[].class), any(int[].class)))
+            .thenAnswer(invocation -> {
+                boolean[] reserved = new boolean[((int[]) invocation.getArgument(1)).length];
+                Arrays.fill(reserved, true);
+                return reserved;
+            });
+
+        connection = mock(Connection.class);
+        when(connection.prepareStatement(anyString())).thenAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            if (sql.startsWith("MERGE")) {
+                return merge(sql.split(Pattern.quote(MERGE_ROW), -1).length - 1);
+            }
+            PreparedStatement seats = mock(PreparedStatement.class);
+            when(seats.executeBatch()).thenReturn(new int[0]);
+            return seats;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    /**
+     * A MERGE statement that returns bookingId 100 + ord for every row,
+     * last row first, or fails if failMerge says so.
+     */
+    private PreparedStatement merge(int rows) throws SQLException {
+        PreparedStatement stmt = mock(PreparedStatement.class);
+        List<String> emails = new ArrayList<>();
+        doAnswer(invocation -> {
+            // userEmail is the third of the nine parameters of each row
+            if ((int) invocation.getArgument(0) % 9 == 3) {
+                emails.add(invocation.getArgument(1));
+            }
+            return null;
+        }).when(stmt).setString(anyInt(), any());
+
+        when(stmt.executeQuery()).thenAnswer(invocation -> {
+            merges.add(emails);
+            if (failMerge.test(emails)) {
+                throw new SQLException("Row rejected");
+            }
+            AtomicInteger ord = new AtomicInteger(rows);
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.next()).thenAnswer(next -> ord.decrementAndGet() >= 0);
+            when(rs.getInt(1)).thenAnswer(get -> ord.get());
+            when(rs.getInt(2)).thenAnswer(get -> 100 + ord.get());
+            return rs;
+        });
+        return stmt;
+    }
+
+    private BookingWriter writer(int maxRows, long maxWaitMs, int queueCapacity) {
+        writer = new BookingWriter(showStore, () -> connection, maxRows, maxWaitMs, 1, queueCapacity);
+        return writer;
+    }
+
+    private static Booking booking(String userEmail, int tickets) {
+        return Booking.builder()
+            .showId(SHOW_ID)
+            .userEmail(userEmail)
+            .ticketType("regular")
+            .ticketQuantity(tickets)
+            .totalPrice(new BigDecimal("30.00").multiply(new BigDecimal(tickets)))
+            .build();
+    }
+
+    private static int await(CompletableFuture<Integer> future) throws Exception {
+        return future.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("Booking ids are matched back by OUTPUT s.ord, not by row order")
+    void testIdsMatchedByOrd() throws Exception {
+        BookingWriter writer = writer(3, 5_000, 10);
+        Booking first = booking("a@test.com", 2);
+        Booking second = booking("b@test.com", 1);
+        Booking third = booking("c@test.com", 1);
+
+        CompletableFuture<Integer> a = writer.submit(first);
+        CompletableFuture<Integer> b = writer.submit(second);
+        CompletableFuture<Integer> c = writer.submit(third);
+
+        assertEquals(100, await(a));
+        assertEquals(101, await(b));
+        assertEquals(102, await(c));
+        assertEquals(1, merges.size());
+        assertArrayEquals(new int[] { 0, 1 }, first.getSeats());
+        assertArrayEquals(new int[] { 2 }, second.getSeats());
+        assertArrayEquals(new int[] { 3 }, third.getSeats());
+        verify(connection).commit();
+    }
+
+    @Test
+    @DisplayName("A batch is flushed as soon as it reaches the row limit")
+    void testFlushOnMaxRows() throws Exception {
+        BookingWriter writer = writer(2, 60_000, 10);
+
+        CompletableFuture<Integer> a = writer.submit(booking("a@test.com", 1));
+        CompletableFuture<Integer> b = writer.submit(booking("b@test.com", 1));
+
+        // Well before the wait time runs out
+        await(a);
+        await(b);
+        assertEquals(1, writer.getFullFlushCount());
+        assertEquals(0, writer.getTimedFlushCount());
+        assertEquals(2, writer.getLargestBatch());
+    }
+
+    @Test
+    @DisplayName("A partial batch is flushed when the wait time runs out")
+    void testFlushOnMaxWait() throws Exception {
+        BookingWriter writer = writer(100, 20, 10);
+
+        assertEquals(100, await(writer.submit(booking("a@test.com", 1))));
+        assertEquals(0, writer.getFullFlushCount());
+        assertEquals(1, writer.getTimedFlushCount());
+        assertEquals(1, writer.getLargestBatch());
+    }
+
+    @Test
+    @DisplayName("A failing row is isolated by retrying each booking on its own")
+    void testFallbackIsolatesFailingRow() throws Exception {
+        failMerge = emails -> emails.contains("bad@test.com");
+        BookingWriter writer = writer(2, 5_000, 10);
+        Booking good = booking("good@test.com", 2);
+
+        CompletableFuture<Integer> ok = writer.submit(good);
+        CompletableFuture<Integer> bad = writer.submit(booking("bad@test.com", 3));
+
+        assertEquals(100, await(ok));
+        ExecutionException error = assertThrows(ExecutionException.class, () -> await(bad));
+        assertInstanceOf(SQLException.class, error.getCause());
+        assertEquals(1, writer.getFallbackCount());
+        assertEquals(List.of(List.of("good@test.com", "bad@test.com"), List.of("good@test.com"), List.of("bad@test.com")),
+            merges);
+        // Only the stored booking keeps its seats
+        assertEquals(2, seatMap.countTaken());
+        assertArrayEquals(new int[] { 0, 1 }, good.getSeats());
+    }
+
+    @Test
+    @DisplayName("A rolled-back batch gives its seat reservations back")
+    void testRollbackUndoesReservations() throws Exception {
+        failMerge = emails -> emails.size() > 1;
+        BookingWriter writer = writer(2, 5_000, 10);
+
+        CompletableFuture<Integer> a = writer.submit(booking("a@test.com", 2));
+        CompletableFuture<Integer> b = writer.submit(booking("b@test.com", 3));
+        await(a);
+        await(b);
+
+        verify(connection).rollback();
+        verify(showStore).undoReservation(SHOW_ID, 2);
+        verify(showStore).undoReservation(SHOW_ID, 3);
+        assertEquals(5, seatMap.countTaken());
+    }
+
+    @Test
+    @DisplayName("Bookings beyond the queue capacity are rejected")
+    void testQueueFullRejected() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        writer = new BookingWriter(showStore, () -> {
+            writing.countDown();
+            try {
+                proceed.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return connection;
+        }, 1, 0, 1, 1);
+
+        CompletableFuture<Integer> first = writer.submit(booking("a@test.com", 1));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Integer> queued = writer.submit(booking("b@test.com", 1));
+        CompletableFuture<Integer> rejected = writer.submit(booking("c@test.com", 1));
+
+        assertTrue(rejected.isCompletedExceptionally());
+        ExecutionException error = assertThrows(ExecutionException.class, rejected::get);
+        assertInstanceOf(RejectedExecutionException.class, error.getCause());
+
+        proceed.countDown();
+        assertEquals(100, await(first));
+        assertEquals(100, await(queued));
+    }
+}
@@ -0,0 +1,201 @@
+package sa.edu.kau.fcit.cpit252.project.store;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+
+/**
+ * Tests for seat inventory recovery using a journal left by a previous run
+ * and mocked JDBC statements.
+ */
+@DisplayName("Seat Inventory Recovery Tests")
+public class SeatInventoryTest {
+
+    @TempDir
+    Path dir;
+
+    private Connection connection;
+    private PreparedStatement flush;
+    private PreparedStatement reconcile;
+    // showId -> Shows.journalSeq
+    private final Map<Integer, Long> appliedSeq = new HashMap<>();
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = mock(Connection.class);
+        flush = mock(PreparedStatement.class);
+        reconcile = mock(PreparedStatement.class);
+        when(reconcile.executeUpdate()).thenReturn(1);
+
+        when(connection.prepareStatement(anyString())).thenAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            if (sql.startsWith("SELECT MAX(journalSeq)")) {
+                return singleValue(() -> appliedSeq.values().stream().max(Long::compare).orElse(0L));
+            }
+            if (sql.startsWith("SELECT journalSeq")) {
+                return perShow(showId -> appliedSeq.getOrDefault(showId, 0L));
+            }
+            if (sql.startsWith("SELECT availableSeats")) {
+                return perShow(showId -> 10L);
+            }
+            if (sql.startsWith("UPDATE Shows")) {
+                return flush;
+            }
+            if (sql.startsWith("UPDATE s")) {
+                return reconcile;
+            }
+            throw new SQLException("Unexpected statement: " + sql);
+        });
+    }
+
+    private interface Value {
+        long get();
+    }
+
+    private interface ShowValue {
+        long get(int showId);
+    }
+
+    private static PreparedStatement singleValue(Value value) throws SQLException {
+        PreparedStatement stmt = mock(PreparedStatement.class);
+        when(stmt.executeQuery()).thenAnswer(invocation -> row(value.get()));
+        return stmt;
+    }
+
+    private static PreparedStatement perShow(ShowValue value) throws SQLException {
+        PreparedStatement stmt = mock(PreparedStatement.class);
+        AtomicInteger showId = new AtomicInteger();
+        doAnswer(invocation -> {
+            showId.set(invocation.getArgument(1));
+            return null;
+        }).when(stmt).setInt(eq(1), anyInt());
+        when(stmt.executeQuery()).thenAnswer(invocation -> row(value.get(showId.get())));
+        return stmt;
+    }
+
+    private static ResultSet row(long value) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.next()).thenReturn(true, false);
+        when(rs.getLong(1)).thenReturn(value);
+        when(rs.getInt(1)).thenReturn((int) value);
+        return rs;
+    }
+
+    private Path journalFile() {
+        return dir.resolve("seat-journal.dat");
+    }
+
+    private SeatInventory open() {
+        return new SeatInventory(journalFile(), false, () -> connection, 60_000);
+    }
+
+    @Test
+    @DisplayName("Recovery replays only entries the Shows rows have not applied")
+    void testReplaysUnappliedEntries() throws IOException, SQLException {
+        try (SeatJournal journal = new SeatJournal(journalFile(), false)) {
+            journal.append(1, 2, entry -> { });  // seq 1, already flushed for show 1
+            journal.append(2, 4, entry -> { });  // seq 2
+            journal.append(1, 1, entry -> { });  // seq 3
+        }
+        appliedSeq.put(1, 1L);
+        appliedSeq.put(2, 0L);
+
+        SeatInventory inventory = open();
+        try {
+            InOrder order = inOrder(flush, connection);
+            order.verify(flush).setInt(1, 4);
+            order.verify(flush).setLong(2, 3);
+            order.verify(flush).setInt(3, 2);
+            order.verify(flush).setLong(4, 2);
+            order.verify(flush).addBatch();
+            order.verify(flush).setInt(1, 1);
+            order.verify(flush).setLong(2, 3);
+            order.verify(flush).setInt(3, 1);
+            order.verify(flush).setLong(4, 3);
+            order.verify(flush).addBatch();
+            order.verify(flush).executeBatch();
+            order.verify(connection).commit();
+
+            verify(reconcile).executeUpdate();
+            assertEquals(1, inventory.getReconciledShows());
+            assertEquals(0, Files.size(journalFile()));
+
+            // New reservations continue after the highest recovered sequence number
+            assertTrue(inventory.tryReserve(5, 2));
+            assertEquals(8, inventory.available(5));
+        } finally {
+            inventory.close();
+        }
+
+        try (SeatJournal journal = new SeatJournal(journalFile(), false)) {
+            List<SeatJournal.Entry> entries = journal.readAll();
+            assertTrue(entries.isEmpty(), "close() flushes and truncates the journal");
+        }
+        verify(flush).setLong(2, 4);
+    }
+
+    @Test
+    @DisplayName("An empty journal still reconciles seat counts against bookings")
+    void testReconcilesWithoutJournal() throws SQLException {
+        SeatInventory inventory = open();
+        try {
+            verify(flush, never()).executeBatch();
+            verify(reconcile).executeUpdate();
+        } finally {
+            inventory.close();
+        }
+    }
+
+    @Test
+    @DisplayName("A failed recovery is reported to the caller")
+    void testRecoveryFailure() throws IOException {
+        try (SeatJournal journal = new SeatJournal(journalFile(), false)) {
+            journal.append(1, 2, entry -> { });
+        }
+
+        IllegalStateException error = assertThrows(IllegalStateException.class,
+            () -> new SeatInventory(journalFile(), false, () -> {
+                throw new SQLException("database unavailable");
+            }, 60_000));
+        assertInstanceOf(SQLException.class, error.getCause());
+
+        // Nothing was applied, so the journal is kept for the next attempt
+        assertEquals(SeatJournal.RECORD_SIZE, Files.size(journalFile()));
+    }
+
+    @Test
+    @DisplayName("Seeding from a batched read starts tracking without replacing a tracked count")
+    void testSeed() throws SQLException {
+        SeatInventory inventory = open();
+        try {
+            assertNull(inventory.tracked(3));
+            assertEquals(40, inventory.seed(3, 40));
+            assertTrue(inventory.tryReserve(3, 5));
+
+            // A later batch read the row before the reservation was flushed
+            assertEquals(35, inventory.seed(3, 40));
+            assertEquals(35, inventory.tracked(3));
+        } finally {
+            inventory.close();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package sa.edu.kau.fcit.cpit252.project.store;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests for the append-only seat journal.
+ */
+@DisplayName("Seat Journal Tests")
+public class SeatJournalTest {
+
+    @TempDir
+    Path dir;
+
+    private Path journalFile() {
+        return dir.resolve("seat-journal.dat");
+    }
+
+    @Test
+    @DisplayName("Records are numbered in order and read back after reopening")
+    void testAppendAndReplay() throws IOException {
+        List<SeatJournal.Entry> sink = new ArrayList<>();
+        try (SeatJournal journal = new SeatJournal(journalFile(), false)) {
+            journal.append(1, 2, sink::add);
+            journal.append(2, 4, sink::add);
+            journal.append(1, -1, sink::add);
+        }
+        assertEquals(3, sink.size());
+
+        try (SeatJournal journal = new SeatJournal(journalFile(), false)) {
+            List<SeatJournal.Entry> entries = journal.readAll();
+            assertEquals(3, entries.size());
+            assertEquals(1, entries.get(0).showId);
+            assertEquals(1, entries.get(0).seq);
+            assertEquals(2, entries.get(0).delta);
+            assertEquals(2, entries.get(1).showId);
+            assertEquals(2, entries.get(1).seq);
+            assertEquals(-1, entries.get(2).delta);
+            assertEquals(3, entries.get(2).seq);
+        }
+    }
+
+    @Test
+    @DisplayName("A torn record at the end of the file is ignored")
+    void testTornTail() throws IOException {
+        try (SeatJournal journal = new SeatJournal(journalFile(), false)) {
+            journal.append(7, 3, entry -> { });
+        }
+        Files.write(journalFile(), new byte[] { 0, 0, 0, 7, 0 }, StandardOpenOption.APPEND);
+
+        try (SeatJournal journal = new SeatJournal(journalFile(), false)) {
+            List<SeatJournal.Entry> entries = journal.readAll();
+            assertEquals(1, entries.size());
+            assertEquals(7, entries.get(0).showId);
+            assertEquals(3, entries.get(0).delta);
+        }
+    }
+
+    @Test
+    @DisplayName("Numbering continues after the recovered sequence number")
+    void testStartAfter() throws IOException {
+        try (SeatJournal journal = new SeatJournal(journalFile(), false)) {
+            journal.startAfter(41);
+            assertEquals(42, journal.append(1, 1, entry -> { }).seq);
+            journal.startAfter(10);
+            assertEquals(43, journal.append(1, 1, entry -> { }).seq);
+        }
+    }
+
+    @Test
+    @DisplayName("The file is only emptied once every record is flushed")
+    void testTruncateIfFlushed() throws IOException {
+        try (SeatJournal journal = new SeatJournal(journalFile(), false)) {
+            journal.append(1, 1, entry -> { });
+            journal.append(1, 1, entry -> { });
+
+            journal.truncateIfFlushed(1);
+            assertEquals(2 * SeatJournal.RECORD_SIZE, Files.size(journalFile()));
+
+            journal.truncateIfFlushed(2);
+            assertEquals(0, Files.size(journalFile()));
+            assertEquals(3, journal.append(1, 1, entry -> { }).seq);
+        }
+    }
+}
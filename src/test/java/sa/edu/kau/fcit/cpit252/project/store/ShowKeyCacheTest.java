@@ -0,0 +1,163 @@
+package sa.edu.kau.fcit.cpit252.project.store;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the showId cache using a counting loader and a manual clock.
+ */
+@DisplayName("Show Key Cache Tests")
+public class ShowKeyCacheTest {
+
+    private static final long NEGATIVE_TTL_MS = 2_000;
+
+    private final AtomicLong now = new AtomicLong();
+    private final AtomicInteger loads = new AtomicInteger();
+    private ShowKeyCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ShowKeyCache(ShowKeyCache.MAX_ENTRIES, NEGATIVE_TTL_MS, now::get);
+    }
+
+    private void advanceMillis(long millis) {
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    private ShowKeyCache.Loader counting(int showId) {
+        return () -> {
+            loads.incrementAndGet();
+            return showId;
+        };
+    }
+
+    @Test
+    @DisplayName("Concurrent first requests for a show run one loader")
+    void testSingleFlightCreation() throws Exception {
+        int callers = 8;
+        String key = ShowKeyCache.key(1, "Jeddah", "7:00 PM");
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        ShowKeyCache.Loader slow = () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            try {
+                finish.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return 42;
+        };
+
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return cache.resolve(key, slow);
+                }));
+            }
+            start.countDown();
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+            // Hold the load until every other caller has joined it
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (cache.getJoinedCount() < callers - 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            finish.countDown();
+
+            for (Future<Integer> result : results) {
+                assertEquals(42, result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, loads.get());
+            assertEquals(1, cache.getMissCount());
+            assertEquals(callers - 1, cache.getJoinedCount());
+            assertEquals(42, cache.resolve(key, counting(99)));
+            assertEquals(1, loads.get(), "Later lookups are served from the cache");
+        } finally {
+            finish.countDown();
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("A failed load is not cached")
+    void testFailedLoadNotCached() throws SQLException {
+        String key = ShowKeyCache.key(1, "Jeddah", "7:00 PM");
+        SQLException failure = new SQLException("Deadlock victim");
+
+        SQLException thrown = assertThrows(SQLException.class, () -> cache.resolve(key, () -> {
+            throw failure;
+        }));
+        assertSame(failure, thrown);
+        assertNull(cache.get(key));
+        assertEquals(7, cache.resolve(key, counting(7)));
+    }
+
+    @Test
+    @DisplayName("The least recently used show is evicted at SHOW_KEY_CACHE_SIZE")
+    void testLruEviction() throws SQLException {
+        int capacity = ShowKeyCache.MAX_ENTRIES;
+        for (int i = 0; i < capacity; i++) {
+            cache.resolve(ShowKeyCache.key(i, "Jeddah", "7:00 PM"), counting(i));
+        }
+        assertEquals(capacity, cache.size());
+
+        // Touching show 0 makes show 1 the eldest
+        assertEquals(0, cache.get(ShowKeyCache.key(0, "Jeddah", "7:00 PM")));
+        cache.resolve(ShowKeyCache.key(capacity, "Jeddah", "7:00 PM"), counting(capacity));
+
+        assertEquals(capacity, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertNotNull(cache.get(ShowKeyCache.key(0, "Jeddah", "7:00 PM")));
+        assertNull(cache.get(ShowKeyCache.key(1, "Jeddah", "7:00 PM")));
+        assertEquals(capacity, cache.get(ShowKeyCache.key(capacity, "Jeddah", "7:00 PM")));
+
+        int before = loads.get();
+        cache.resolve(ShowKeyCache.key(1, "Jeddah", "7:00 PM"), counting(1));
+        assertEquals(before + 1, loads.get(), "An evicted show is loaded again");
+    }
+
+    @Test
+    @DisplayName("Negative entries expire after SHOW_KEY_NEGATIVE_TTL_MS")
+    void testNegativeEntryExpiry() {
+        String key = ShowKeyCache.key(1, "Jeddah", "7:00 PM");
+        cache.putMissing(key);
+
+        advanceMillis(NEGATIVE_TTL_MS - 1);
+        assertTrue(cache.isKnownMissing(key));
+        assertEquals(1, cache.getNegativeHitCount());
+
+        advanceMillis(1);
+        assertFalse(cache.isKnownMissing(key));
+        assertEquals(0, cache.getMissingCount());
+    }
+
+    @Test
+    @DisplayName("Caching a created show drops its negative entry")
+    void testPutClearsNegativeEntry() {
+        String key = ShowKeyCache.key(1, "Jeddah", "7:00 PM");
+        cache.putMissing(key);
+        cache.put(key, 5);
+
+        assertFalse(cache.isKnownMissing(key));
+        assertEquals(5, cache.get(key));
+    }
+}